@@ -1,14 +1,56 @@
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Клас BasicDataOperationUsingList надає методи для виконання основних операцiй з даними типу LocalDateTime.
@@ -25,6 +67,8 @@ import java.util.List;
  *   <li>{@link #sortList()} - Сортує список LocalDateTime.</li>
  *   <li>{@link #searchList()} - Виконує пошук значення в списку LocalDateTime.</li>
  *   <li>{@link #findMinAndMaxInList()} - Знаходить мiнiмальне та максимальне значення в списку LocalDateTime.</li>
+ *   <li>{@link #queryRangeInArray()} - Рахує та виводить значення дiапазону у вiдсортованому масивi.</li>
+ *   <li>{@link #queryRangeInList()} - Рахує та виводить значення дiапазону у вiдсортованому списку.</li>
  * </ul>
  * 
  * <p>Конструктор:</p>
@@ -39,15 +83,47 @@ import java.util.List;
  * 
  * <p>Змiннi екземпляра:</p>
  * <ul>
- *   <li>{@link #dateTimeValueToSearch} - Значення LocalDateTime для пошуку.</li>
- *   <li>{@link #dateTimeArray} - Масив LocalDateTime.</li>
- *   <li>{@link #dateTimeList} - Список LocalDateTime.</li>
+ *   <li>{@link #dateTimeValueToSearch} - Значення LocalDateTime для пошуку або початок дiапазону.</li>
+ *   <li>{@link #rangeEnd} - Кiнець дiапазону для запиту або null, якщо задано одне значення для пошуку.</li>
+ *   <li>{@link #dateTimeColumn} - Стовпець упакованих мiток часу, що замiнює масив LocalDateTime.</li>
+ *   <li>{@link #dateTimeList} - Подання того самого стовпця як List LocalDateTime.</li>
+ *   <li>{@link #parallelWrite} - Чи записувати вiдсортований масив паралельно.</li>
+ *   <li>{@link #fullSort} - Чи сортувати масив повнiстю, навiть якщо до файлу лише дописувались рядки.</li>
+ *   <li>{@link #sourceSize} - Розмiр файлу з даними перед його читанням.</li>
+ *   <li>{@link #pathToDataFile} - Шлях до файлу з даними або його стисненої копiї.</li>
+ *   <li>{@link #pathToSortedFile} - Шлях до вiдсортованого файлу.</li>
+ *   <li>{@link #parallel} - Паралельнi операцiї або null, якщо режим "--parallel" вимкнено.</li>
+ *   <li>{@link #maxThreads} - Найбiльша кiлькiсть потокiв для кривих прискорення.</li>
+ *   <li>{@link #bloomFilter} - Фiльтр Блума перед пошуком або null, якщо режим "--bloom" вимкнено.</li>
+ *   <li>{@link #useSearchIndex} - Чи будувати пiсля сортування статичне B+ дерево для пошуку.</li>
+ *   <li>{@link #useLearnedIndex} - Чи будувати пiсля сортування навчений iндекс i звiт про нього.</li>
+ *   <li>{@link #learnedIndex} - Навчений iндекс, побудований пiсля сортування, або null.</li>
  * </ul>
  * 
  * <p>Приклад використання:</p>
  * <pre>
  * {@code
  * java BasicDataOperationUsingList "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingList "2024-03-01T00:00:00Z" "2024-03-31T23:59:59Z"
+ * java BasicDataOperationUsingList --parallel-load "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingList --no-cache "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingList --parallel-write "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingList --full-sort "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingList --compress=gz "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingList --parallel "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingList --parallel=8 "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingList --bloom=0.001 "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingList --search-index "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingList --learned-index "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingList --compare-loaders
+ * java BasicDataOperationUsingList --compare-parsers
+ * java BasicDataOperationUsingList --compare-compression
+ * java BasicDataOperationUsingList --compare-search
+ * java BasicDataOperationUsingList --compare-search=10000000
+ * java BasicDataOperationUsingList --external-sort --memory-budget=64m --fan-in=16
+ * java BasicDataOperationUsingList --external-sort --compress=gz
+ * java BasicDataOperationUsingList --pipeline --workers=4
+ * java BasicDataOperationUsingList --pipeline --compress=deflate
  * }
  * </pre>
  */
@@ -55,29 +131,143 @@ public class BasicDataOperationUsingList {
     static final String PATH_TO_DATA_FILE = "list/LocalDateTime.data";
 
     LocalDateTime dateTimeValueToSearch;
-    LocalDateTime[] dateTimeArray;
+    LocalDateTime rangeEnd;
+    TimestampColumn dateTimeColumn;
     List<LocalDateTime> dateTimeList;
+    boolean parallelWrite;
+    boolean fullSort;
+    long sourceSize;
+    String pathToDataFile;
+    String pathToSortedFile;
+    ParallelOps parallel;
+    int maxThreads;
+    BlockedBloomFilter bloomFilter;
+    boolean useSearchIndex;
+    boolean useLearnedIndex;
+    LearnedIndex learnedIndex;
 
     public static void main(String[] args) {  
+        if (Utils.hasOption(args, "compare-loaders")) {
+            Utils.compareLoaders(Utils.resolveDataFile(PATH_TO_DATA_FILE));
+            return;
+        }
+        if (Utils.hasOption(args, "compare-parsers")) {
+            Utils.compareParsers(Utils.resolveDataFile(PATH_TO_DATA_FILE));
+            return;
+        }
+        if (Utils.hasOption(args, "compare-compression")) {
+            Utils.compareCompression(PATH_TO_DATA_FILE);
+            return;
+        }
+        String maxSearchSize = Utils.getOption(args, "compare-search", null);
+        if (maxSearchSize != null) {
+            Utils.compareSearch(maxSearchSize.isEmpty() ? 100_000_000 : Long.parseLong(maxSearchSize));
+            return;
+        }
+        if (Utils.hasOption(args, "pipeline")) {
+            try {
+                SortPipeline pipeline = new SortPipeline(Integer.parseInt(Utils.getOption(args, "workers",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()))));
+                pipeline.sort(Utils.resolveDataFile(PATH_TO_DATA_FILE),
+                        Utils.sortedFilePath(PATH_TO_DATA_FILE, Utils.getOption(args, "compress", null)));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+        if (Utils.hasOption(args, "external-sort")) {
+            try {
+                ExternalSorter sorter = new ExternalSorter(Utils.parseSize(Utils.getOption(args, "memory-budget", "256m")),
+                        Integer.parseInt(Utils.getOption(args, "run-size", "0")),
+                        Integer.parseInt(Utils.getOption(args, "fan-in", "64")));
+                sorter.sort(Utils.resolveDataFile(PATH_TO_DATA_FILE),
+                        Utils.sortedFilePath(PATH_TO_DATA_FILE, Utils.getOption(args, "compress", null)));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
         BasicDataOperationUsingList basicDataOperationUsingList = new BasicDataOperationUsingList(args);
-        basicDataOperationUsingList.doDataOperation();
+        try {
+            basicDataOperationUsingList.doDataOperation();
+        } finally {
+            if (basicDataOperationUsingList.parallel != null) {
+                basicDataOperationUsingList.parallel.close();
+            }
+        }
     }
 
     /**
      * Конструктор, який iнiцiалiзує об'єкт з значенням для пошуку.
      * 
-     * @param args Аргументи командного рядка, де перший аргумент - значення для пошуку.
+     * @param args Аргументи командного рядка, де перший аргумент - значення для пошуку,
+     *             а якщо задано й другий, то обидва - межi дiапазону [T1, T2], для якого
+     *             замiсть пошуку значення рахуються i виводяться значення в дiапазонi;
+     *             опцiя "--parallel-load" вмикає паралельне читання файлу, "--no-cache"
+     *             вимикає двiйковий кеш ".bin", "--parallel-write" - паралельний запис,
+     *             "--full-sort" вимикає iнкрементальне сортування дописаних рядкiв, а
+     *             "--compress[=gz|deflate]" записує вiдсортований файл стисненим. Якщо файлу
+     *             з даними немає, читається його стиснена копiя ".gz" або ".deflate".
+     *             Опцiя "--parallel[=потокiв]" сортує стовпець паралельним злиттям (за
+     *             замовчуванням на всiх процесорах) i виводить криву прискорення.
+     *             Опцiя "--bloom[=частка]" ставить перед пошуком у масивi та списку блоковий
+     *             фiльтр Блума iз заданою часткою хибних спрацювань (за замовчуванням 0.01).
+     *             Опцiя "--search-index" пiсля сортування будує статичне B+ дерево, i пошук
+     *             у масивi та списку йде по ньому. Опцiя "--learned-index" пiсля сортування
+     *             будує навчений iндекс, обирає його для пошуку, лише якщо вимiряний пошук
+     *             через нього швидший за бiнарний, i виводить звiт про нього.
      */
     BasicDataOperationUsingList(String[] args) {
-        if (args.length == 0) {
+        String searchValue = Utils.getPositionalArgument(args);
+        if (searchValue == null) {
             throw new RuntimeException("Вiдсутнє значення для пошуку");
         }
 
-        String searchValue = args[0];
         dateTimeValueToSearch = LocalDateTime.parse(searchValue, DateTimeFormatter.ISO_DATE_TIME);
 
-        dateTimeArray = Utils.readArrayFromFile(PATH_TO_DATA_FILE);
-        dateTimeList = new ArrayList<>(Arrays.asList(dateTimeArray));
+        String rangeEndValue = Utils.getPositionalArgument(args, 1);
+        if (rangeEndValue != null) {
+            rangeEnd = LocalDateTime.parse(rangeEndValue, DateTimeFormatter.ISO_DATE_TIME);
+        }
+
+        parallelWrite = Utils.hasOption(args, "parallel-write");
+        fullSort = Utils.hasOption(args, "full-sort");
+        useSearchIndex = Utils.hasOption(args, "search-index");
+        useLearnedIndex = Utils.hasOption(args, "learned-index");
+
+        pathToSortedFile = Utils.sortedFilePath(PATH_TO_DATA_FILE, Utils.getOption(args, "compress", null));
+
+        pathToDataFile = Utils.resolveDataFile(PATH_TO_DATA_FILE);
+        sourceSize = new File(pathToDataFile).length();
+
+        if (Utils.hasOption(args, "parallel-load")) {
+            dateTimeColumn = Utils.readColumnFromFileParallel(pathToDataFile);
+        } else if (Utils.hasOption(args, "no-cache")) {
+            dateTimeColumn = Utils.readColumnFromFile(pathToDataFile);
+        } else {
+            dateTimeColumn = Utils.readColumnFromFileCached(pathToDataFile);
+        }
+        dateTimeList = dateTimeColumn.asList();
+
+        String threads = Utils.getOption(args, "parallel", null);
+        if (threads != null) {
+            maxThreads = threads.isEmpty() ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(threads);
+            parallel = ParallelOps.forSize(dateTimeColumn.size(), maxThreads);
+            System.out.println("Паралельний режим: " + parallel.threads + " з " + maxThreads + " потокiв, порiг подiлу "
+                    + parallel.threshold + " елементiв");
+        }
+
+        String fpp = Utils.getOption(args, "bloom", null);
+        if (fpp != null) {
+            bloomFilter = new BlockedBloomFilter(dateTimeColumn.size(), fpp.isEmpty() ? BlockedBloomFilter.DEFAULT_FPP : Double.parseDouble(fpp));
+            for (int i = 0; i < dateTimeColumn.size(); i++) {
+                bloomFilter.add(dateTimeColumn.get(i));
+            }
+        }
+
+        System.out.println("Пам'ять стовпця: " + dateTimeColumn.heapBytes() + " байт (LocalDateTime[] i ArrayList зайняли б близько "
+                + dateTimeColumn.boxedHeapBytes() + " байт)");
     }
 
     /**
@@ -86,16 +276,25 @@ public class BasicDataOperationUsingList {
      * Метод зчитує масив та список об'єктiв LocalDateTime з файлу, сортує їх та виконує пошук значення.
      */
     void doDataOperation() {
+        if (parallel != null) {
+            printSpeedupCurves();
+        }
+
         // операцiї з масивом дати та часу
         searchArray();
         findMinAndMaxInArray();
 
         sortArray();
+        if (useSearchIndex) {
+            buildSearchIndex();
+        } else if (useLearnedIndex) {
+            fitLearnedIndex();
+        }
         
         searchArray();
         findMinAndMaxInArray();
 
-        // операцiї з ArrayList
+        // операцiї зi списком
         searchList();
         findMinAndMaxInList();
 
@@ -104,61 +303,124 @@ public class BasicDataOperationUsingList {
         searchList();
         findMinAndMaxInList();
 
+        if (bloomFilter != null) {
+            printBloomReports();
+        }
+        if (learnedIndex != null) {
+            Utils.printLearnedIndexReport(learnedIndex, dateTimeColumn.array());
+        }
+
         // записати вiдсортований масив в окремий файл
-        Utils.writeArrayToFile(dateTimeArray, PATH_TO_DATA_FILE + ".sorted");
+        Utils.writeColumnToFile(dateTimeColumn, pathToSortedFile, parallelWrite);
+        Utils.writeSortSnapshot(pathToDataFile, pathToSortedFile, sourceSize, dateTimeColumn.size());
     }
 
     /**
      * Сортує масив об'єктiв LocalDateTime та виводить початковий i вiдсортований масиви.
      * Вимiрює та виводить час, витрачений на сортування масиву в наносекундах.
+     * 
+     * <p>Якщо вiдсортований файл вiдповiдає незмiненому початку вихiдного файлу, сортуються
+     * лише дописанi рядки, якi потiм зливаються з уже вiдсортованими.</p>
      */
     void sortArray() {
         long startTime = System.nanoTime();
 
-        Arrays.sort(dateTimeArray);
+        int appendedRows = fullSort ? -1
+                : Utils.mergeAppendedRows(dateTimeColumn, pathToDataFile, pathToSortedFile);
+        if (appendedRows < 0 && parallel != null) {
+            dateTimeColumn.sort(parallel);
+        } else if (appendedRows < 0) {
+            dateTimeColumn.sort();
+        }
 
         Utils.printOperationDuration(startTime, "сортування масиву дати i часу");
+
+        if (appendedRows >= 0) {
+            System.out.println("Вiдсортовано лише дописанi рядки (" + appendedRows + ") i злито з '"
+                    + pathToSortedFile + "'");
+        }
+    }
+
+    /**
+     * Будує статичне B+ дерево над вiдсортованим стовпцем i виводить час побудови та пам'ять його верхнiх рiвнiв.
+     */
+    void buildSearchIndex() {
+        long startTime = System.nanoTime();
+
+        dateTimeColumn.buildSearchIndex();
+
+        Utils.printOperationDuration(startTime, "побудова статичного B+ дерева");
+        System.out.println("Пам'ять B+ дерева: " + dateTimeColumn.searchIndexHeapBytes() + " байт");
+    }
+
+    /**
+     * Будує навчений iндекс над вiдсортованим стовпцем i виводить, чи обрано його замiсть
+     * бiнарного пошуку: очiкувана кiлькiсть проб має бути не бiльшою за половину проб
+     * бiнарного пошуку, а вимiряний пошук через iндекс - швидшим за бiнарний.
+     */
+    void fitLearnedIndex() {
+        long startTime = System.nanoTime();
+
+        learnedIndex = dateTimeColumn.fitLearnedIndex();
+
+        Utils.printOperationDuration(startTime, "побудова навченого iндексу");
+        System.out.printf("Навчений iндекс: %d сегментiв (%d байт), середня похибка %.1f, очiкувано %.2f проб на пошук "
+                + "(бiнарний пошук - до %d)%n", learnedIndex.segments(), learnedIndex.heapBytes(),
+                learnedIndex.averageError(), learnedIndex.expectedProbes(), learnedIndex.binarySearchProbes());
+        if (!learnedIndex.fits()) {
+            System.out.println("Залишено бiнарний пошук: розподiл не дає виграшу в пробах");
+        } else {
+            System.out.printf("%s: %.1f нс на пошук через iндекс, %.1f нс бiнарним пошуком%n",
+                    dateTimeColumn.hasSearchIndex() ? "Обрано навчений iндекс" : "Залишено бiнарний пошук",
+                    learnedIndex.measuredNanos(), learnedIndex.binarySearchNanos());
+        }
     }
 
     /**
-     * Метод для пошуку значення в масивi дати i часу.
+     * Метод для пошуку значення в масивi дати i часу. Якщо задано дiапазон, виконує запит дiапазону.
      */
     void searchArray() {
+        if (rangeEnd != null) {
+            queryRangeInArray();
+            return;
+        }
+
         long startTime = System.nanoTime();
 
-        int index = Arrays.binarySearch(this.dateTimeArray, dateTimeValueToSearch);
+        boolean rejected = isRejectedByBloomFilter();
+        int index = rejected ? -1 : dateTimeColumn.binarySearch(dateTimeValueToSearch);
 
         Utils.printOperationDuration(startTime, "пошук в масивi дати i часу");
 
         if (index >= 0) {
             System.out.println("Значення '" + dateTimeValueToSearch + "' знайдено в масивi за iндексом: " + index);
         } else {
-            System.out.println("Значення '" + dateTimeValueToSearch + "' в масивi не знайдено.");
+            System.out.println("Значення '" + dateTimeValueToSearch + "' в масивi не знайдено" + (rejected ? " (вiдсiяно фiльтром Блума)." : "."));
         }
     }
 
+    /**
+     * Перевiряє значення для пошуку фiльтром Блума.
+     * 
+     * @return true, якщо фiльтр увiмкнено i значення напевно немає.
+     */
+    boolean isRejectedByBloomFilter() {
+        return bloomFilter != null && !bloomFilter.mightContain(Utils.toKey(dateTimeValueToSearch));
+    }
+
     /**
      * Знаходить мiнiмальне та максимальне значення в масивi дати i часу.
      */
     void findMinAndMaxInArray() {
-        if (dateTimeArray == null || dateTimeArray.length == 0) {
+        if (dateTimeColumn == null || dateTimeColumn.size() == 0) {
             System.out.println("Масив порожнiй або не iнiцiалiзований.");
             return;
         }
 
         long startTime = System.nanoTime();
 
-        LocalDateTime min = dateTimeArray[0];
-        LocalDateTime max = dateTimeArray[0];
-
-        for (LocalDateTime dateTime : dateTimeArray) {
-            if (dateTime.isBefore(min)) {
-                min = dateTime;
-            }
-            if (dateTime.isAfter(max)) {
-                max = dateTime;
-            }
-        }
+        LocalDateTime min = TimestampCodec.toLocalDateTime(dateTimeColumn.min());
+        LocalDateTime max = TimestampCodec.toLocalDateTime(dateTimeColumn.max());
 
         Utils.printOperationDuration(startTime, "пошук мiнiмальної i максимальної дати i часу в масивi");
 
@@ -167,44 +429,105 @@ public class BasicDataOperationUsingList {
     }
 
     /**
-     * Шукає задане значення дати i часу в ArrayList дати i часу.
+     * Шукає задане значення дати i часу у списку дати i часу. Список - це подання стовпця,
+     * тому за наявного iндексу пошуку (B+ дерева чи навченого iндексу) пошук iде по ньому.
+     * Якщо задано дiапазон, виконує запит дiапазону.
      */
     void searchList() {
+        if (rangeEnd != null) {
+            queryRangeInList();
+            return;
+        }
+
         long startTime = System.nanoTime();
 
-        int index = Collections.binarySearch(this.dateTimeList, dateTimeValueToSearch);
+        boolean rejected = isRejectedByBloomFilter();
+        int index;
+        if (rejected) {
+            index = -1;
+        } else if (dateTimeColumn.hasSearchIndex()) {
+            index = dateTimeColumn.binarySearch(dateTimeValueToSearch);
+        } else {
+            index = Collections.binarySearch(this.dateTimeList, dateTimeValueToSearch);
+        }
 
-        Utils.printOperationDuration(startTime, "пошук в ArrayList дати i часу");        
+        Utils.printOperationDuration(startTime, "пошук у списку дати i часу");        
 
         if (index >= 0) {
-            System.out.println("Значення '" + dateTimeValueToSearch + "' знайдено в ArrayList за iндексом: " + index);
+            System.out.println("Значення '" + dateTimeValueToSearch + "' знайдено у списку за iндексом: " + index);
         } else {
-            System.out.println("Значення '" + dateTimeValueToSearch + "' в ArrayList не знайдено.");
+            System.out.println("Значення '" + dateTimeValueToSearch + "' у списку не знайдено" + (rejected ? " (вiдсiяно фiльтром Блума)." : "."));
+        }
+    }
+
+    /**
+     * Рахує значення дiапазону [dateTimeValueToSearch, rangeEnd] у вiдсортованому стовпцi двома
+     * пошуками меж (через iндекс пошуку, якщо його побудовано) i виводить першi з них через
+     * подання без копiювання.
+     */
+    void queryRangeInArray() {
+        if (!dateTimeColumn.isSorted()) {
+            System.out.println("Масив не вiдсортовано, запит дiапазону пропущено.");
+            return;
+        }
+
+        long startTime = System.nanoTime();
+
+        int count = dateTimeColumn.countRange(dateTimeValueToSearch, rangeEnd);
+        LocalDateTime floor = dateTimeColumn.floor(dateTimeValueToSearch);
+        LocalDateTime ceiling = dateTimeColumn.ceiling(rangeEnd);
+
+        Utils.printOperationDuration(startTime, "запит дiапазону в масивi дати i часу");
+
+        Utils.printRange("масивi", dateTimeValueToSearch, rangeEnd, count,
+                dateTimeColumn.rangeIterator(dateTimeValueToSearch, rangeEnd), floor, ceiling);
+    }
+
+    /**
+     * Рахує значення дiапазону [dateTimeValueToSearch, rangeEnd] у вiдсортованому списку
+     * через {@link SortedRanges} i виводить першi з них через subList без копiювання.
+     */
+    void queryRangeInList() {
+        if (!dateTimeColumn.isSorted()) {
+            System.out.println("Список не вiдсортовано, запит дiапазону пропущено.");
+            return;
         }
+
+        long startTime = System.nanoTime();
+
+        int count = SortedRanges.countRange(dateTimeList, dateTimeValueToSearch, rangeEnd);
+        LocalDateTime floor = SortedRanges.floor(dateTimeList, dateTimeValueToSearch);
+        LocalDateTime ceiling = SortedRanges.ceiling(dateTimeList, rangeEnd);
+
+        Utils.printOperationDuration(startTime, "запит дiапазону у списку дати i часу");
+
+        Utils.printRange("списку", dateTimeValueToSearch, rangeEnd, count,
+                SortedRanges.rangeIterator(dateTimeList, dateTimeValueToSearch, rangeEnd), floor, ceiling);
     }
 
     /**
-     * Знаходить мiнiмальне та максимальне значення в ArrayList дати i часу.
+     * Знаходить мiнiмальне та максимальне значення у списку дати i часу. Список - це
+     * подання стовпця, тому обидва значення беруться зi статистики стовпця за O(1).
      */
     void findMinAndMaxInList() {
         if (dateTimeList == null || dateTimeList.isEmpty()) {
-            System.out.println("ArrayList порожнiй або не iнiцiалiзований.");
+            System.out.println("Список порожнiй або не iнiцiалiзований.");
             return;
         }
 
         long startTime = System.nanoTime();
 
-        LocalDateTime min = Collections.min(dateTimeList);
-        LocalDateTime max = Collections.max(dateTimeList);
+        LocalDateTime min = TimestampCodec.toLocalDateTime(dateTimeColumn.min());
+        LocalDateTime max = TimestampCodec.toLocalDateTime(dateTimeColumn.max());
 
-        Utils.printOperationDuration(startTime, "пошук мiнiмальної i максимальної дати i часу в ArrayList");
+        Utils.printOperationDuration(startTime, "пошук мiнiмальної i максимальної дати i часу у списку");
 
-        System.out.println("Мiнiмальне значення в ArrayList: " + min);
-        System.out.println("Максимальне значення в ArrayList: " + max);
+        System.out.println("Мiнiмальне значення у списку: " + min);
+        System.out.println("Максимальне значення у списку: " + max);
     }
 
     /**
-     * Сортує ArrayList об'єктiв LocalDateTime та виводить початковий i вiдсортований списки.
+     * Сортує список об'єктiв LocalDateTime та виводить початковий i вiдсортований списки.
      * Вимiрює та виводить час, витрачений на сортування списку в наносекундах.
      */
     void sortList() {
@@ -212,7 +535,29 @@ public class BasicDataOperationUsingList {
 
         Collections.sort(dateTimeList);
 
-        Utils.printOperationDuration(startTime, "сортування ArrayList дати i часу");
+        Utils.printOperationDuration(startTime, "сортування списку дати i часу");
+    }
+
+    /**
+     * Виводить звiт фiльтра Блума для пошуку у вiдсортованому масивi та списку.
+     */
+    void printBloomReports() {
+        Utils.printBloomReport(bloomFilter, dateTimeColumn, "масивi", dateTime -> dateTimeColumn.binarySearch(dateTime) >= 0);
+        Utils.printBloomReport(bloomFilter, dateTimeColumn, "списку", dateTime -> Collections.binarySearch(dateTimeList, dateTime) >= 0);
+    }
+
+    /**
+     * Виводить криву прискорення сортування та пошуку мiнiмуму й максимуму стовпця вiд 1
+     * до {@link #maxThreads} потокiв. Вимiри йдуть на копiях ще не вiдсортованого стовпця.
+     */
+    void printSpeedupCurves() {
+        long[] source = dateTimeColumn.toArray();
+        long[] work = new long[source.length];
+
+        Utils.printSpeedupCurve("сортування масиву дати i часу", source.length, maxThreads,
+                parallel -> parallel.sort(work), () -> System.arraycopy(source, 0, work, 0, source.length));
+        Utils.printSpeedupCurve("пошук мiнiмальної i максимальної дати i часу в масивi", source.length, maxThreads,
+                parallel -> parallel.summarize(source), () -> { });
     }
 }
 
@@ -220,6 +565,70 @@ public class BasicDataOperationUsingList {
  * Клас Utils мiститить допомiжнi методи для роботи з даними типу LocalDateTime.
  */
 class Utils {
+    /**
+     * Розмiр блоку для читання файлiв з даними.
+     */
+    static final int READ_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Найбiльший розмiр дiлянки файлу, яку можна вiдобразити в пам'ять одним буфером.
+     */
+    static final long MAX_MAPPED_RANGE = 1L << 30;
+
+    /**
+     * Найменший розмiр дiлянки, заради якої варто запускати окрему паралельну задачу.
+     */
+    static final long MIN_PARALLEL_RANGE = 1L << 16;
+
+    /**
+     * Розмiр прямого буфера для запису файлiв.
+     */
+    static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Найбiльша кiлькiсть наявних значень у вибiрцi для звiту фiльтра Блума.
+     */
+    static final int MAX_BLOOM_PROBES = 100_000;
+
+    /**
+     * Кiлькiсть вимiрюваних запускiв у звiтi фiльтра Блума пiсля прогрiву.
+     */
+    static final int BLOOM_REPORT_ROUNDS = 5;
+
+    /**
+     * Кiлькiсть запитiв у порiвняннi способiв пошуку.
+     */
+    static final int SEARCH_BENCHMARK_QUERIES = 1 << 20;
+
+    /**
+     * Найбiльша кiлькiсть наявних значень у вибiрцi для звiту навченого iндексу.
+     */
+    static final int MAX_LEARNED_INDEX_PROBES = 100_000;
+
+    /**
+     * Скiльки перших значень дiапазону виводити.
+     */
+    static final int MAX_PRINTED_RANGE_VALUES = 5;
+
+    /**
+     * Найбiльший розмiр LocalDateTime[] у порiвняннi способiв пошуку.
+     */
+    static final int MAX_BOXED_SEARCH_SIZE = 1_000_000;
+
+    /**
+     * Найменша кiлькiсть елементiв у сегментi паралельного запису.
+     */
+    static final int MIN_PARALLEL_SEGMENT = 1 << 14;
+    static final String GZIP_SUFFIX = ".gz";
+    static final String DEFLATE_SUFFIX = ".deflate";
+
+    /**
+     * Найбiльша довжина рядка з датою i часом разом iз символами кiнця рядка.
+     */
+    static final int MAX_FORMATTED_LENGTH = 64;
+
+    static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
     /**
      * Виводить час виконання операцiї в наносекундах.
      * 
@@ -233,46 +642,4282 @@ class Utils {
     }
 
     /**
-     * Зчитує масив об'єктiв LocalDateTime з файлу.
+     * Перевiряє, чи передано опцiю командного рядка виду "--name" або "--name=значення".
      * 
-     * @param pathToFile Шлях до файлу з даними.
-     * @return Масив об'єктiв LocalDateTime.
+     * @param args Аргументи командного рядка.
+     * @param name Назва опцiї без префiкса "--".
+     * @return true, якщо опцiю передано.
      */
-    static LocalDateTime[] readArrayFromFile(String pathToFile) {
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE_TIME;
-        LocalDateTime[] tempArray = new LocalDateTime[1000];
-        int index = 0;
+    static boolean hasOption(String[] args, String name) {
+        return getOption(args, name, null) != null;
+    }
+
+    /**
+     * Повертає значення опцiї командного рядка виду "--name=значення".
+     * 
+     * @param args Аргументи командного рядка.
+     * @param name Назва опцiї без префiкса "--".
+     * @param defaultValue Значення, якщо опцiю не передано.
+     * @return Значення опцiї, порожнiй рядок для опцiї без значення або defaultValue.
+     */
+    static String getOption(String[] args, String name, String defaultValue) {
+        for (String arg : args) {
+            if (arg.equals("--" + name)) {
+                return "";
+            }
+            if (arg.startsWith("--" + name + "=")) {
+                return arg.substring(name.length() + 3);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Повертає перший аргумент командного рядка, який не є опцiєю.
+     * 
+     * @param args Аргументи командного рядка.
+     * @return Значення аргументу або null, якщо його немає.
+     */
+    static String getPositionalArgument(String[] args) {
+        return getPositionalArgument(args, 0);
+    }
+
+    /**
+     * Повертає аргумент командного рядка, який не є опцiєю, за його порядковим номером.
+     * 
+     * @param args Аргументи командного рядка.
+     * @param position Номер аргументу серед аргументiв, що не є опцiями, починаючи з 0.
+     * @return Значення аргументу або null, якщо його немає.
+     */
+    static String getPositionalArgument(String[] args, int position) {
+        for (String arg : args) {
+            if (!arg.startsWith("--") && position-- == 0) {
+                return arg;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Розбирає розмiр у байтах iз необов'язковим суфiксом k, m або g (наприклад, "256m").
+     * 
+     * @param text Розмiр у текстовому виглядi.
+     * @return Розмiр у байтах.
+     */
+    static long parseSize(String text) {
+        String value = text.trim().toLowerCase();
+        int shift = 0;
+        if (value.endsWith("k")) {
+            shift = 10;
+        } else if (value.endsWith("m")) {
+            shift = 20;
+        } else if (value.endsWith("g")) {
+            shift = 30;
+        }
+        if (shift > 0) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return Long.parseLong(value) << shift;
+    }
+
+    /**
+     * Виводить пропускну здатнiсть операцiї в рядках за секунду.
+     * 
+     * @param startTime Час початку операцiї в наносекундах.
+     * @param operationName Назва операцiї.
+     * @param rows Кiлькiсть оброблених рядкiв.
+     */
+    static void printThroughput(long startTime, String operationName, long rows) {
+        long duration = System.nanoTime() - startTime;
+        double rowsPerSecond = duration > 0 ? rows * 1_000_000_000.0 / duration : 0;
+        System.out.printf("%n%s Пропускна здатнiсть операцiї '%s': %d рядкiв за %d наносекунд (%.0f рядкiв/с)%n",
+                ">>>>>>>>>", operationName, rows, duration, rowsPerSecond);
+    }
+
+    /**
+     * Перевiряє, чи файл стиснений, за його суфiксом ".gz" або ".deflate".
+     * 
+     * @param pathToFile Шлях до файлу.
+     * @return true, якщо файл стиснений.
+     */
+    static boolean isCompressed(String pathToFile) {
+        return pathToFile.endsWith(GZIP_SUFFIX) || pathToFile.endsWith(DEFLATE_SUFFIX);
+    }
+
+    /**
+     * Визначає шлях до вiдсортованого файлу за значенням параметра --compress.
+     * 
+     * @param pathToFile Шлях до нестисненого файлу з даними.
+     * @param compression Значення --compress: null без стиснення, "" або "gz" для gzip, "deflate" для deflate.
+     * @return Шлях з суфiксом ".sorted" i, за потреби, суфiксом формату стиснення.
+     */
+    static String sortedFilePath(String pathToFile, String compression) {
+        if (compression == null) {
+            return pathToFile + ".sorted";
+        }
+        if (compression.isEmpty() || compression.equals("gz")) {
+            return pathToFile + ".sorted" + GZIP_SUFFIX;
+        }
+        if (compression.equals("deflate")) {
+            return pathToFile + ".sorted" + DEFLATE_SUFFIX;
+        }
+        throw new RuntimeException("Невiдомий формат стиснення: " + compression);
+    }
+
+    /**
+     * Знаходить файл з даними: сам файл, якщо вiн є, iнакше його стиснену копiю
+     * з суфiксом ".gz" або ".deflate".
+     * 
+     * @param pathToFile Шлях до нестисненого файлу.
+     * @return Шлях до наявного файлу або pathToFile, якщо не знайдено жодного.
+     */
+    static String resolveDataFile(String pathToFile) {
+        if (Files.exists(Path.of(pathToFile))) {
+            return pathToFile;
+        }
+        for (String suffix : new String[] {GZIP_SUFFIX, DEFLATE_SUFFIX}) {
+            if (Files.exists(Path.of(pathToFile + suffix))) {
+                return pathToFile + suffix;
+            }
+        }
+        return pathToFile;
+    }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(pathToFile))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                LocalDateTime dateTime = LocalDateTime.parse(line, formatter);
-                tempArray[index++] = dateTime;
+    /**
+     * Вiдкриває файл з даними для читання. Стиснений файл розпаковується потоком в
+     * окремому потоцi виконання ({@link InflatingInputStream}) з буфером Inflater
+     * на {@value InflatingInputStream#INFLATER_BUFFER_SIZE} байт.
+     * 
+     * @param pathToFile Шлях до файлу.
+     * @return Потiк нестиснених байтiв.
+     * @throws IOException Якщо файл не вдалося вiдкрити.
+     */
+    static InputStream openDataFile(String pathToFile) throws IOException {
+        InputStream in = new FileInputStream(pathToFile);
+        try {
+            if (pathToFile.endsWith(GZIP_SUFFIX)) {
+                return new InflatingInputStream(new GZIPInputStream(in, InflatingInputStream.INFLATER_BUFFER_SIZE));
             }
+            if (pathToFile.endsWith(DEFLATE_SUFFIX)) {
+                return new InflatingInputStream(new InflaterInputStream(in, new Inflater(), InflatingInputStream.INFLATER_BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inf.end();
+                        }
+                    }
+                });
+            }
+            return in;
         } catch (IOException e) {
-            e.printStackTrace();
+            in.close();
+            throw e;
         }
+    }
 
-        LocalDateTime[] finalArray = new LocalDateTime[index];
-        System.arraycopy(tempArray, 0, finalArray, 0, index);
+    /**
+     * Створює файл, у який данi пишуться стисненими у формат за суфiксом файлу.
+     * 
+     * @param pathToFile Шлях до файлу з суфiксом ".gz" або ".deflate".
+     * @return Потiк, що стискає записанi байти.
+     * @throws IOException Якщо файл не вдалося створити.
+     */
+    static OutputStream createCompressedFile(String pathToFile) throws IOException {
+        return createCompressedFile(pathToFile, WRITE_BUFFER_SIZE);
+    }
 
-        return finalArray;
+    /**
+     * Створює стиснений файл з буфером стиснення заданого розмiру.
+     */
+    static OutputStream createCompressedFile(String pathToFile, int bufferSize) throws IOException {
+        OutputStream out = new FileOutputStream(pathToFile);
+        if (pathToFile.endsWith(GZIP_SUFFIX)) {
+            return new GZIPOutputStream(out, bufferSize);
+        }
+        if (pathToFile.endsWith(DEFLATE_SUFFIX)) {
+            return new DeflaterOutputStream(out, new Deflater(), bufferSize) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+        }
+        out.close();
+        throw new RuntimeException("Невiдомий формат стиснення файлу '" + pathToFile + "'");
     }
 
     /**
-     * Записує масив об'єктiв LocalDateTime у файл.
+     * Вiдкриває файл для послiдовного запису: стиснений файл - через createCompressedFile,
+     * звичайний - як FileChannel, що перезаписує вмiст.
      * 
-     * @param dateTimeArray Масив об'єктiв LocalDateTime.
-     * @param pathToFile Шлях до файлу для запису.
+     * @param pathToFile Шлях до файлу.
+     * @param bufferSize Розмiр буфера стиснення.
+     * @return Канал запису у файл.
+     * @throws IOException Якщо файл не вдалося створити.
      */
-    static void writeArrayToFile(LocalDateTime[] dateTimeArray, String pathToFile) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(pathToFile))) {
-            for (LocalDateTime dateTime : dateTimeArray) {
-                writer.write(dateTime.toString());
-                writer.newLine();
+    static WritableByteChannel openOutputChannel(String pathToFile, int bufferSize) throws IOException {
+        if (isCompressed(pathToFile)) {
+            return Channels.newChannel(createCompressedFile(pathToFile, bufferSize));
+        }
+        return FileChannel.open(Path.of(pathToFile), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Порiвнює читання нестисненого файлу i його стиснених копiй ".gz" та ".deflate".
+     * 
+     * <p>Копiї створюються в тимчасовому каталозi поруч з файлом i пiсля вимiрювання
+     * видаляються. Для кожного формату вимiрюється повне читання з розбором i окремо
+     * чисте розпаковування без розбору (найкращий з кiлькох запускiв). Файли в цей час
+     * лежать у кешi сторiнок, тому час читання показує лише витрати процесора, а
+     * пропускна здатнiсть диска враховується розрахунком: стиснений файл вигiднiший,
+     * якщо диск повiльнiший за межу беззбитковостi.</p>
+     * 
+     * @param pathToFile Шлях до нестисненого файлу з даними.
+     */
+    static void compareCompression(String pathToFile) {
+        final int rounds = 5;
+        Path source = Path.of(pathToFile);
+        Path tempDirectory = null;
+
+        try {
+            tempDirectory = Files.createTempDirectory(source.toAbsolutePath().getParent(), "compression");
+            long plainSize = Files.size(source);
+            long plainTime = Long.MAX_VALUE;
+            LocalDateTime[] plain = null;
+            for (int round = 0; round < rounds; round++) {
+                long startTime = System.nanoTime();
+                plain = readArrayFromFile(pathToFile);
+                plainTime = Math.min(plainTime, System.nanoTime() - startTime);
+            }
+
+            System.out.println("\nПорiвняння стиснення '" + pathToFile + "' (" + plain.length + " рядкiв, " + plainSize
+                    + " байт, найкращий з " + rounds + " запускiв):");
+            System.out.printf("  без стиснення: читання %d наносекунд (%.0f рядкiв/с)%n", plainTime,
+                    plain.length * 1_000_000_000.0 / plainTime);
+
+            for (String suffix : new String[] {GZIP_SUFFIX, DEFLATE_SUFFIX}) {
+                String compressed = tempDirectory.resolve(source.getFileName() + suffix).toString();
+                try (InputStream in = new FileInputStream(pathToFile); OutputStream out = createCompressedFile(compressed)) {
+                    in.transferTo(out);
+                }
+                long compressedSize = Files.size(Path.of(compressed));
+
+                long readTime = Long.MAX_VALUE;
+                long inflateTime = Long.MAX_VALUE;
+                LocalDateTime[] result = null;
+                byte[] sink = new byte[READ_BUFFER_SIZE];
+                for (int round = 0; round < rounds; round++) {
+                    long startTime = System.nanoTime();
+                    result = readArrayFromFile(compressed);
+                    readTime = Math.min(readTime, System.nanoTime() - startTime);
+
+                    startTime = System.nanoTime();
+                    try (InputStream in = openDataFile(compressed)) {
+                        while (in.read(sink, 0, sink.length) >= 0) {
+                            // лише розпаковування
+                        }
+                    }
+                    inflateTime = Math.min(inflateTime, System.nanoTime() - startTime);
+                }
+
+                // послiдовно: compressed/B + inflate < plain/B; з перекриттям: max(compressed/B, inflate) < plain/B
+                double sequentialBreakEven = (plainSize - compressedSize) * 1_000_000_000.0 / inflateTime / (1 << 20);
+                double overlappedBreakEven = plainSize * 1_000_000_000.0 / inflateTime / (1 << 20);
+                System.out.printf("  %s: %d байт (%.1f%%), читання %d наносекунд (%.0f рядкiв/с), розпаковування %.1f МБ/с, результати %s%n",
+                        suffix, compressedSize, compressedSize * 100.0 / Math.max(1, plainSize), readTime,
+                        result.length * 1_000_000_000.0 / readTime, overlappedBreakEven,
+                        Arrays.equals(plain, result) ? "збiгаються" : "НЕ збiгаються");
+                System.out.printf("    вигiднiше за диск, повiльнiший за %.1f МБ/с (з перекриттям розпаковування i читання %.1f МБ/с)%n",
+                        sequentialBreakEven, overlappedBreakEven);
             }
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            if (tempDirectory != null) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(tempDirectory)) {
+                    for (Path file : files) {
+                        Files.deleteIfExists(file);
+                    }
+                    Files.deleteIfExists(tempDirectory);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Перетворює значення для пошуку на упакований ключ. Дата поза дiапазоном TimestampCodec
+     * не може бути у файлi, тому для неї повертається Long.MIN_VALUE, якого розбiр файлу
+     * не дає нiколи.
+     */
+    static long toKey(LocalDateTime dateTime) {
+        try {
+            return TimestampCodec.toEpochNanos(dateTime);
+        } catch (ArithmeticException e) {
+            return Long.MIN_VALUE;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Вимiрює пошук з фiльтром Блума перед ним i без нього на вибiрцi наявних значень та
+     * стiлькох же вiдсутнiх (наявних, зсунутих на 1 нс) i виводить частку запитiв,
+     * вiдсiяних фiльтром, хибнi спрацювання, заощаджений час на запит i частку вiдсутнiх
+     * запитiв, з якої фiльтр окупається. Спершу всi способи проганяються без вимiру, далi
+     * береться найкращий з {@value #BLOOM_REPORT_ROUNDS} запускiв, i черговiсть пошуку з
+     * фiльтром i без нього мiняється щоразу.
+     * 
+     * @param present Стовпець, значення якого є в структурi; вибiрка розпаковується прямо з нього.
+     * @param structureName Назва структури для виводу.
+     * @param lookup Пошук у структурi.
+     */
+    static void printBloomReport(BlockedBloomFilter filter, TimestampColumn present, String structureName,
+            Predicate<LocalDateTime> lookup) {
+        if (present.size() == 0) {
+            return;
+        }
+        int step = Math.max(1, present.size() / MAX_BLOOM_PROBES);
+        int probes = (present.size() + step - 1) / step;
+        LocalDateTime[] hits = new LocalDateTime[probes];
+        LocalDateTime[] misses = new LocalDateTime[probes];
+        for (int i = 0; i < probes; i++) {
+            hits[i] = present.getDateTime(i * step);
+            misses[i] = hits[i].plusNanos(1);
+        }
+
+        // кожен спосiб вимiрюється в окремому методi, щоб JIT компiлював усi однаково
+        long[] checksum = new long[1];
+        int[] hitCounts = new int[2];
+        int[] missCounts = new int[2];
+        // прогрiв без вимiру, щоб перший вимiряний спосiб не працював ще в iнтерпретаторi;
+        // на малiй вибiрцi вона проганяється кiлька разiв
+        for (int warmed = 0; warmed < MAX_BLOOM_PROBES; warmed += probes) {
+            timeLookups(hits, lookup, checksum);
+            timeLookups(misses, lookup, checksum);
+            timeFilteredLookups(hits, filter, lookup, hitCounts);
+            timeFilteredLookups(misses, filter, lookup, missCounts);
+        }
+        checksum[0] = 0;
+
+        long[] cost = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int round = 0; round < BLOOM_REPORT_ROUNDS; round++) {
+            boolean filteredFirst = (round & 1) == 1;
+            if (filteredFirst) {
+                cost[2] = Math.min(cost[2], timeFilteredLookups(hits, filter, lookup, hitCounts));
+                cost[3] = Math.min(cost[3], timeFilteredLookups(misses, filter, lookup, missCounts));
+            }
+            cost[0] = Math.min(cost[0], timeLookups(hits, lookup, checksum));
+            cost[1] = Math.min(cost[1], timeLookups(misses, lookup, checksum));
+            if (!filteredFirst) {
+                cost[2] = Math.min(cost[2], timeFilteredLookups(hits, filter, lookup, hitCounts));
+                cost[3] = Math.min(cost[3], timeFilteredLookups(misses, filter, lookup, missCounts));
+            }
+        }
+        int passedHits = hitCounts[1];
+        int passedMisses = missCounts[0];
+        int falsePositives = missCounts[0] - missCounts[1];
+
+        int rejected = 2 * probes - passedHits - passedMisses;
+        System.out.println("\nФiльтр Блума перед пошуком у " + structureName + " (" + probes + " наявних i " + probes
+                + " вiдсутнiх запитiв, найкращий з " + BLOOM_REPORT_ROUNDS + " запускiв пiсля прогрiву, контрольна сума "
+                + checksum[0] + "):");
+        System.out.printf("  Фiльтр: %d бiт (%.1f бiт на ключ, %d байт), хешiв %d, очiкувана частка хибних спрацювань %.4f (задана %.4f)%n",
+                filter.bitCount(), (double) filter.bitCount() / Math.max(1, filter.keyCount()), filter.heapBytes(),
+                filter.hashCount(), filter.expectedFpp(), filter.targetFpp());
+        System.out.printf("  Вiдсiяно фiльтром %d з %d запитiв (%.1f%%), пропущено до пошуку %d, з них хибних спрацювань %d (%.4f вiд вiдсутнiх)%n",
+                rejected, 2 * probes, 100.0 * rejected / (2 * probes), passedHits + passedMisses, falsePositives,
+                (double) falsePositives / probes);
+        System.out.printf("  Наявнi значення: %.1f нс на запит без фiльтра, %.1f нс з фiльтром (%+.1f нс)%n",
+                (double) cost[0] / probes, (double) cost[2] / probes, (double) (cost[2] - cost[0]) / probes);
+        System.out.printf("  Вiдсутнi значення: %.1f нс на запит без фiльтра, %.1f нс з фiльтром (заощаджено %.1f нс, %.1fx)%n",
+                (double) cost[1] / probes, (double) cost[3] / probes, (double) (cost[1] - cost[3]) / probes,
+                (double) cost[1] / cost[3]);
+
+        // фiльтр окупається, коли частка вiдсутнiх m задовольняє m * saved > (1 - m) * extra
+        double extraPerHit = (double) (cost[2] - cost[0]) / probes;
+        double savedPerMiss = (double) (cost[1] - cost[3]) / probes;
+        if (savedPerMiss <= 0) {
+            System.out.println("  Фiльтр НЕ окупається: з ним не швидший навiть пошук вiдсутнiх значень");
+        } else if (extraPerHit <= 0) {
+            System.out.println("  Фiльтр окупається за будь-якої частки вiдсутнiх запитiв");
+        } else {
+            double breakEven = extraPerHit / (extraPerHit + savedPerMiss);
+            System.out.printf("  Фiльтр окупається, лише якщо вiдсутнiх запитiв бiльше %.0f%%; на цiй вибiрцi (50%%) вiн %s%n",
+                    100 * breakEven, breakEven < 0.5 ? "окупається" : "НЕ окупається");
+        }
+    }
+
+    /**
+     * Вимiрює пошук у структурi без фiльтра; кiлькiсть знайдених додається до checksum[0].
+     */
+    private static long timeLookups(LocalDateTime[] probes, Predicate<LocalDateTime> lookup, long[] checksum) {
+        long found = 0;
+        long startTime = System.nanoTime();
+        for (LocalDateTime probe : probes) {
+            found += lookup.test(probe) ? 1 : 0;
+        }
+        long cost = System.nanoTime() - startTime;
+        checksum[0] += found;
+        return cost;
+    }
+
+    /**
+     * Вимiрює пошук з фiльтром перед ним; у counts[0] записується кiлькiсть запитiв,
+     * пропущених фiльтром, у counts[1] - кiлькiсть знайдених серед них.
+     */
+    private static long timeFilteredLookups(LocalDateTime[] probes, BlockedBloomFilter filter,
+            Predicate<LocalDateTime> lookup, int[] counts) {
+        int passed = 0;
+        int found = 0;
+        long startTime = System.nanoTime();
+        for (LocalDateTime probe : probes) {
+            if (filter.mightContain(toKey(probe))) {
+                passed++;
+                found += lookup.test(probe) ? 1 : 0;
+            }
+        }
+        long cost = System.nanoTime() - startTime;
+        counts[0] = passed;
+        counts[1] = found;
+        return cost;
+    }
+
+    /**
+     * Виводить результат запиту дiапазону: кiлькiсть значень, першi з них i найближчi значення
+     * на межах.
+     * 
+     * @param structureName Назва структури для виводу.
+     * @param values Iтератор значень дiапазону; читаються лише першi {@link #MAX_PRINTED_RANGE_VALUES}.
+     * @param floor Найбiльше значення, не пiзнiше from, або null.
+     * @param ceiling Найменше значення, не ранiше to, або null.
+     */
+    static void printRange(String structureName, LocalDateTime from, LocalDateTime to, int count,
+            Iterator<LocalDateTime> values, LocalDateTime floor, LocalDateTime ceiling) {
+        System.out.println("У дiапазонi [" + from + ", " + to + "] у " + structureName + " " + count + " значень"
+                + (count > 0 ? ":" : "."));
+        for (int i = 0; i < MAX_PRINTED_RANGE_VALUES && values.hasNext(); i++) {
+            System.out.println("  " + values.next());
+        }
+        if (count > MAX_PRINTED_RANGE_VALUES) {
+            System.out.println("  ... ще " + (count - MAX_PRINTED_RANGE_VALUES));
+        }
+        System.out.println("Найбiльше значення не пiзнiше " + from + ": " + (floor != null ? floor : "немає"));
+        System.out.println("Найменше значення не ранiше " + to + ": " + (ceiling != null ? ceiling : "немає"));
+    }
+
+    /**
+     * Вимiрює пошук навченим iндексом i Arrays.binarySearch на вибiрцi наявних значень та
+     * стiлькох же вiдсутнiх (наявних, зсунутих на 1 нс) i виводить час та середню кiлькiсть
+     * проб на пошук.
+     * 
+     * @param index Навчений iндекс.
+     * @param values Вiдсортованi значення, над якими побудовано iндекс.
+     */
+    static void printLearnedIndexReport(LearnedIndex index, long[] values) {
+        if (values.length == 0) {
+            return;
+        }
+        int step = Math.max(1, values.length / MAX_LEARNED_INDEX_PROBES);
+        int probes = (values.length + step - 1) / step;
+        long[] queries = new long[2 * probes];
+        for (int i = 0; i < probes; i++) {
+            queries[2 * i] = values[i * step];
+            queries[2 * i + 1] = values[i * step] + 1;
+        }
+
+        final int rounds = 3;
+        long indexCost = Long.MAX_VALUE;
+        long arrayCost = Long.MAX_VALUE;
+        long indexSum = 0;
+        long arraySum = 0;
+        for (int round = 0; round < rounds; round++) {
+            indexSum = 0;
+            index.resetProbes();
+            long startTime = System.nanoTime();
+            for (long query : queries) {
+                int found = index.binarySearch(query);
+                indexSum += found >= 0 ? values[found] : found;
+            }
+            indexCost = Math.min(indexCost, System.nanoTime() - startTime);
+
+            // серед однакових значень Arrays.binarySearch повертає будь-яке, тому порiвнюються самi значення
+            arraySum = 0;
+            startTime = System.nanoTime();
+            for (long query : queries) {
+                int found = Arrays.binarySearch(values, query);
+                arraySum += found >= 0 ? values[found] : found;
+            }
+            arrayCost = Math.min(arrayCost, System.nanoTime() - startTime);
+        }
+
+        System.out.println("\nНавчений iндекс (" + probes + " наявних i " + probes + " вiдсутнiх запитiв, найкращий з "
+                + rounds + " запускiв, результати " + (indexSum == arraySum ? "збiгаються" : "НЕ збiгаються") + "):");
+        System.out.printf("  В середньому %.2f проб на пошук (очiкувано %.2f, бiнарний пошук - до %d)%n",
+                index.averageProbes(), index.expectedProbes(), index.binarySearchProbes());
+        System.out.printf("  %.1f нс на запит, Arrays.binarySearch %.1f нс (%.2fx)%n", (double) indexCost / queries.length,
+                (double) arrayCost / queries.length, (double) arrayCost / indexCost);
+    }
+
+    /**
+     * Порiвнює затримку бiнарного пошуку в упакованому масивi, пошуку в {@link StaticBTree},
+     * у {@link LearnedIndex} (i його середню кiлькiсть проб) та бiнарного пошуку в LocalDateTime[] на випадкових вiдсортованих мiтках часу вiд 1 тисячi
+     * до maxSize елементiв. Половина запитiв - наявнi значення, половина - вiдсутнi.
+     * Розмiри, для яких не вистачає купи, пропускаються.
+     * 
+     * @param maxSize Найбiльша кiлькiсть елементiв.
+     */
+    static void compareSearch(long maxSize) {
+        final int rounds = 3;
+        java.util.Random random = new java.util.Random(42);
+        System.out.println("\nПорiвняння пошуку у вiдсортованому масивi (" + SEARCH_BENCHMARK_QUERIES
+                + " запитiв, наносекунд на запит, найкращий з " + rounds + " запускiв):");
+        System.out.printf("  %12s %12s %12s %14s %12s %8s %14s %12s%n", "елементiв", "long[]", "B+ дерево", "прискорення",
+                "навчений", "проб", "LocalDateTime[]", "побудова, мс");
+
+        for (long length = 1_000; length <= maxSize; length *= 10) {
+            int size = (int) Math.min(length, Integer.MAX_VALUE - 1);
+            Runtime runtime = Runtime.getRuntime();
+            long required = (long) size * (Long.BYTES + 2);
+            long available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+            if (required > available) {
+                System.out.printf("  %12d пропущено: потрiбно %d МБ купи, доступно %d МБ%n", size, required >> 20, available >> 20);
+                break;
+            }
+
+            // значення з випадковими промiжками вiд 2 нс вже вiдсортованi, а значення + 1 у масивi немає
+            long[] values = new long[size];
+            long value = 0;
+            for (int i = 0; i < size; i++) {
+                value += 2 + random.nextInt(1_000);
+                values[i] = value;
+            }
+            long[] queries = new long[SEARCH_BENCHMARK_QUERIES];
+            for (int i = 0; i < queries.length; i++) {
+                queries[i] = values[random.nextInt(size)] + (i & 1);
+            }
+
+            long startTime = System.nanoTime();
+            StaticBTree index = new StaticBTree(values);
+            long buildTime = System.nanoTime() - startTime;
+            LearnedIndex learned = new LearnedIndex(values);
+
+            LocalDateTime[] boxed = null;
+            LocalDateTime[] boxedQueries = null;
+            if (size <= MAX_BOXED_SEARCH_SIZE) {
+                boxed = new LocalDateTime[size];
+                for (int i = 0; i < size; i++) {
+                    boxed[i] = TimestampCodec.toLocalDateTime(values[i]);
+                }
+                boxedQueries = new LocalDateTime[queries.length];
+                for (int i = 0; i < queries.length; i++) {
+                    boxedQueries[i] = TimestampCodec.toLocalDateTime(queries[i]);
+                }
+            }
+
+            long arrayCost = Long.MAX_VALUE;
+            long indexCost = Long.MAX_VALUE;
+            long learnedCost = Long.MAX_VALUE;
+            long boxedCost = Long.MAX_VALUE;
+            long arraySum = 0;
+            long indexSum = 0;
+            long learnedSum = 0;
+            long boxedSum = 0;
+            for (int round = 0; round < rounds; round++) {
+                arraySum = 0;
+                startTime = System.nanoTime();
+                for (long query : queries) {
+                    arraySum += Arrays.binarySearch(values, query);
+                }
+                arrayCost = Math.min(arrayCost, System.nanoTime() - startTime);
+
+                indexSum = 0;
+                startTime = System.nanoTime();
+                for (long query : queries) {
+                    indexSum += index.binarySearch(query);
+                }
+                indexCost = Math.min(indexCost, System.nanoTime() - startTime);
+
+                learnedSum = 0;
+                learned.resetProbes();
+                startTime = System.nanoTime();
+                for (long query : queries) {
+                    learnedSum += learned.binarySearch(query);
+                }
+                learnedCost = Math.min(learnedCost, System.nanoTime() - startTime);
+
+                if (boxed != null) {
+                    boxedSum = 0;
+                    startTime = System.nanoTime();
+                    for (LocalDateTime query : boxedQueries) {
+                        boxedSum += Arrays.binarySearch(boxed, query);
+                    }
+                    boxedCost = Math.min(boxedCost, System.nanoTime() - startTime);
+                }
+            }
+            if (arraySum != indexSum || arraySum != learnedSum || (boxed != null && boxedSum != arraySum)) {
+                throw new RuntimeException("Результати пошуку для " + size + " елементiв не збiгаються");
+            }
+
+            System.out.printf("  %12d %12.1f %12.1f %13.2fx %12.1f %8.2f %14s %12.1f%n", size, (double) arrayCost / queries.length,
+                    (double) indexCost / queries.length, (double) arrayCost / indexCost, (double) learnedCost / queries.length,
+                    learned.averageProbes(), boxed != null ? String.format("%.1f", (double) boxedCost / queries.length) : "-", buildTime / 1e6);
+        }
+    }
+
+    /**
+     * Вимiрює операцiю з 1, 2, 4, ... i maxThreads потоками та виводить час i прискорення
+     * вiдносно одного потоку (найкращий з кiлькох запускiв пiсля розiгрiву). Порiг подiлу
+     * для кожної кiлькостi потокiв обирається так само, як у паралельному режимi.
+     * 
+     * @param reset Готує данi перед кожним запуском; не входить у вимiр.
+     */
+    static void printSpeedupCurve(String operationName, int size, int maxThreads, Consumer<ParallelOps> operation,
+            Runnable reset) {
+        final int rounds = 3;
+        System.out.println("\nПрискорення операцiї '" + operationName + "' (" + size + " елементiв, найкращий з "
+                + rounds + " запускiв):");
+        long singleThreadCost = 0;
+        for (int threads = 1; ; threads = Math.min(2 * threads, maxThreads)) {
+            long cost = Long.MAX_VALUE;
+            int threshold;
+            try (ParallelOps parallel = new ParallelOps(threads, size)) {
+                threshold = parallel.threshold;
+                // перший запуск розiгрiває JIT i пул потокiв i не рахується
+                for (int round = 0; round <= rounds; round++) {
+                    reset.run();
+                    long startTime = System.nanoTime();
+                    operation.accept(parallel);
+                    if (round > 0) {
+                        cost = Math.min(cost, System.nanoTime() - startTime);
+                    }
+                }
+            }
+            if (threads == 1) {
+                singleThreadCost = cost;
+            }
+            System.out.printf("  %3d потокiв (порiг %d): %d наносекунд, прискорення %.2fx%n", threads, threshold, cost,
+                    (double) singleThreadCost / cost);
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+
+
+    /**
+     * Зчитує масив об'єктiв LocalDateTime з файлу.
+     * 
+     * <p>Файл читається двiчi великими блоками: спочатку рахуються рядки, потiм масив
+     * точного розмiру заповнюється розiбраними значеннями. Тому навiть для файлiв
+     * на сотнi мiльйонiв рядкiв у пам'ятi нiколи не тримаються одночасно тимчасовий
+     * i остаточний масиви повного розмiру. Стиснений файл (".gz" або ".deflate")
+     * розпаковується потоком через {@link #openDataFile(String)} за один прохiд, а масив
+     * збiльшується в мiру читання, бо другий прохiд коштував би ще одного розпаковування.</p>
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Масив об'єктiв LocalDateTime.
+     */
+    static LocalDateTime[] readArrayFromFile(String pathToFile) {
+        long startTime = System.nanoTime();
+
+        try {
+            DateTimeArrayBuilder builder = new DateTimeArrayBuilder(isCompressed(pathToFile) ? 0 : countLines(pathToFile));
+            try (InputStream in = openDataFile(pathToFile)) {
+                forEachLine(in, builder);
+            }
+
+            LocalDateTime[] dateTimeArray = builder.toArray();
+            printThroughput(startTime, "читання масиву дати i часу з файлу", dateTimeArray.length);
+            return dateTimeArray;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new LocalDateTime[0];
+        }
+    }
+
+    /**
+     * Зчитує масив об'єктiв LocalDateTime через двiйковий кеш {@link TimestampSidecar}.
+     * 
+     * <p>Якщо актуальний кеш ".bin" вже є, вiн вiдображається в пам'ять i текст не
+     * розбирається зовсiм. Iнакше файл розбирається як у {@link #readArrayFromFile(String)},
+     * а кеш записується для наступних запускiв.</p>
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Масив об'єктiв LocalDateTime.
+     */
+    static LocalDateTime[] readArrayFromFileCached(String pathToFile) {
+        long startTime = System.nanoTime();
+
+        try {
+            TimestampSidecar sidecar = TimestampSidecar.open(pathToFile);
+            if (sidecar != null) {
+                LocalDateTime[] dateTimeArray = new LocalDateTime[sidecar.rowCount];
+                for (int i = 0; i < dateTimeArray.length; i++) {
+                    dateTimeArray[i] = TimestampCodec.toLocalDateTime(sidecar.column.get(i));
+                }
+                printThroughput(startTime, "читання масиву дати i часу з кешу", dateTimeArray.length);
+                return dateTimeArray;
+            }
+
+            Path source = Path.of(pathToFile);
+            long sourceSize = Files.size(source);
+            long sourceModified = Files.getLastModifiedTime(source).toMillis();
+
+            long[] column = readEpochNanosFromFile(pathToFile);
+            TimestampSidecar.write(pathToFile, sourceSize, sourceModified, column);
+
+            LocalDateTime[] dateTimeArray = new LocalDateTime[column.length];
+            for (int i = 0; i < column.length; i++) {
+                dateTimeArray[i] = TimestampCodec.toLocalDateTime(column[i]);
+            }
+            printThroughput(startTime, "читання масиву дати i часу з файлу i запис кешу", dateTimeArray.length);
+            return dateTimeArray;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new LocalDateTime[0];
+        }
+    }
+
+    /**
+     * Зчитує мiтки часу з файлу у масив упакованих значень TimestampCodec.
+     * Масив має точний розмiр, як i в {@link #readArrayFromFile(String)}.
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Масив наносекунд вiд 1970-01-01T00:00:00 у порядку рядкiв файлу.
+     * @throws IOException Якщо файл не вдалося прочитати.
+     */
+    static long[] readEpochNanosFromFile(String pathToFile) throws IOException {
+        EpochNanosBuilder builder = new EpochNanosBuilder(isCompressed(pathToFile) ? 0 : countLines(pathToFile));
+        try (InputStream in = openDataFile(pathToFile)) {
+            forEachLine(in, builder);
+        }
+        return builder.toArray();
+    }
+
+    /**
+     * Сортує стовпець, прочитаний з файлу, до якого пiсля останнього сортування лише
+     * дописувались рядки. Початок стовпця замiнюється вмiстом вiдсортованого файлу, а
+     * дописанi рядки сортуються окремо i зливаються з ним за один лiнiйний прохiд.
+     * 
+     * @param column Стовпець у порядку рядкiв вихiдного файлу.
+     * @param pathToFile Шлях до вихiдного файлу.
+     * @param pathToSortedFile Шлях до вiдсортованого файлу з попереднього запуску.
+     * @return Кiлькiсть дописаних рядкiв або -1, якщо вiдсортований файл не можна
+     *         використати i стовпець треба сортувати повнiстю.
+     */
+    static int mergeAppendedRows(TimestampColumn column, String pathToFile, String pathToSortedFile) {
+        try {
+            SortSnapshot snapshot = SortSnapshot.open(pathToFile, pathToSortedFile);
+            if (snapshot == null || snapshot.prefixRows > column.size()) {
+                return -1;
+            }
+            long[] prefix = readEpochNanosFromFile(pathToSortedFile);
+            if (prefix.length != snapshot.prefixRows) {
+                return -1;
+            }
+            column.mergeAppended(prefix);
+            return column.size() - prefix.length;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Запам'ятовує, якому префiксу вихiдного файлу вiдповiдає щойно записаний
+     * вiдсортований файл, для {@link #mergeAppendedRows(TimestampColumn, String, String)}.
+     * 
+     * @param pathToFile Шлях до вихiдного файлу.
+     * @param pathToSortedFile Шлях до вiдсортованого файлу.
+     * @param sourceSize Розмiр вихiдного файлу перед його читанням.
+     * @param rowCount Кiлькiсть прочитаних рядкiв.
+     */
+    static void writeSortSnapshot(String pathToFile, String pathToSortedFile, long sourceSize, int rowCount) {
+        try {
+            SortSnapshot.write(pathToFile, pathToSortedFile, sourceSize, rowCount);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Зчитує масив об'єктiв LocalDateTime паралельно.
+     * 
+     * <p>Файл вiдображається в пам'ять через FileChannel i дiлиться по межах рядкiв на
+     * дiлянки за кiлькiстю ядер. Спочатку в ForkJoinPool паралельно рахуються рядки
+     * кожної дiлянки, потiм кожна дiлянка розбирається у свою частину спiльного масиву,
+     * тому порядок рядкiв файлу зберiгається без склеювання промiжних масивiв.
+     * Стиснений файл вiдобразити не можна, тому вiн читається {@link #readArrayFromFile(String)}.</p>
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Масив об'єктiв LocalDateTime.
+     */
+    static LocalDateTime[] readArrayFromFileParallel(String pathToFile) {
+        if (isCompressed(pathToFile)) {
+            return readArrayFromFile(pathToFile);
+        }
+
+        long startTime = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(Path.of(pathToFile), StandardOpenOption.READ)) {
+            ByteBuffer[] ranges = mapLineAlignedRanges(channel, ForkJoinPool.commonPool().getParallelism());
+            int[] rowOffsets = countRangeRows(ranges);
+
+            LocalDateTime[] dateTimeArray = new LocalDateTime[rowOffsets[ranges.length]];
+            ForkJoinPool.commonPool().invoke(new RangeTask(ranges, rowOffsets,
+                    position -> new RangeFiller(dateTimeArray, position), 0, ranges.length));
+
+            printThroughput(startTime, "паралельне читання масиву дати i часу з файлу", dateTimeArray.length);
+            return dateTimeArray;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new LocalDateTime[0];
+        }
+    }
+
+    /**
+     * Рахує рядки дiлянок паралельно.
+     * 
+     * @return Iндекси першого рядка кожної дiлянки; останнiй елемент - загальна кiлькiсть рядкiв.
+     */
+    private static int[] countRangeRows(ByteBuffer[] ranges) {
+        int[] rowOffsets = new int[ranges.length + 1];
+        ForkJoinPool.commonPool().invoke(new RangeTask(ranges, rowOffsets, null, 0, ranges.length));
+        for (int i = 0; i < ranges.length; i++) {
+            rowOffsets[i + 1] += rowOffsets[i];
+        }
+        return rowOffsets;
+    }
+
+    /**
+     * Зчитує стовпець мiток часу з файлу: упакованi значення без жодного об'єкта LocalDateTime.
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Стовпець мiток часу у порядку рядкiв файлу.
+     */
+    static TimestampColumn readColumnFromFile(String pathToFile) {
+        long startTime = System.nanoTime();
+
+        try {
+            TimestampColumn column = new TimestampColumn(readEpochNanosFromFile(pathToFile));
+            printThroughput(startTime, "читання стовпця дати i часу з файлу", column.size());
+            return column;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new TimestampColumn(new long[0]);
+        }
+    }
+
+    /**
+     * Зчитує стовпець мiток часу через двiйковий кеш {@link TimestampSidecar}: колонка
+     * кешу копiюється в масив одним блоком, а ознака вiдсортованостi, мiнiмум i максимум
+     * беруться iз заголовка кешу, тому стовпець не переглядається. Без актуального кешу
+     * файл розбирається i кеш записується для наступних запускiв.
+     * 
+     * <p>Це копiюючий кеш: стовпець сортується на мiсцi, тому його масивом не може бути
+     * вiдображення файлу лише для читання.</p>
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Стовпець мiток часу у порядку рядкiв файлу.
+     */
+    static TimestampColumn readColumnFromFileCached(String pathToFile) {
+        long startTime = System.nanoTime();
+
+        try {
+            TimestampSidecar sidecar = TimestampSidecar.open(pathToFile);
+            if (sidecar != null) {
+                long[] values = new long[sidecar.rowCount];
+                sidecar.column.get(0, values);
+                printThroughput(startTime, "читання стовпця дати i часу з кешу", values.length);
+                return new TimestampColumn(values, sidecar.sorted, sidecar.min, sidecar.max);
+            }
+
+            Path source = Path.of(pathToFile);
+            long sourceSize = Files.size(source);
+            long sourceModified = Files.getLastModifiedTime(source).toMillis();
+
+            long[] values = readEpochNanosFromFile(pathToFile);
+            TimestampSidecar.write(pathToFile, sourceSize, sourceModified, values);
+
+            printThroughput(startTime, "читання стовпця дати i часу з файлу i запис кешу", values.length);
+            return new TimestampColumn(values);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new TimestampColumn(new long[0]);
+        }
+    }
+
+    /**
+     * Зчитує стовпець мiток часу паралельно так само, як {@link #readArrayFromFileParallel(String)}.
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Стовпець мiток часу у порядку рядкiв файлу.
+     */
+    static TimestampColumn readColumnFromFileParallel(String pathToFile) {
+        if (isCompressed(pathToFile)) {
+            return readColumnFromFile(pathToFile);
+        }
+
+        long startTime = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(Path.of(pathToFile), StandardOpenOption.READ)) {
+            ByteBuffer[] ranges = mapLineAlignedRanges(channel, ForkJoinPool.commonPool().getParallelism());
+            int[] rowOffsets = countRangeRows(ranges);
+
+            long[] values = new long[rowOffsets[ranges.length]];
+            ForkJoinPool.commonPool().invoke(new RangeTask(ranges, rowOffsets,
+                    position -> new EpochNanosFiller(values, position), 0, ranges.length));
+
+            printThroughput(startTime, "паралельне читання стовпця дати i часу з файлу", values.length);
+            return new TimestampColumn(values);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new TimestampColumn(new long[0]);
+        }
+    }
+
+    /**
+     * Порiвнює пропускну здатнiсть послiдовного, паралельного читання файлу та читання з кешу.
+     * Кожен спосiб запускається кiлька разiв, до уваги береться найкращий час.
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     */
+    static void compareLoaders(String pathToFile) {
+        final int rounds = 5;
+        long sequentialTime = Long.MAX_VALUE;
+        long parallelTime = Long.MAX_VALUE;
+        LocalDateTime[] sequential = null;
+        LocalDateTime[] parallel = null;
+        long cachedTime = Long.MAX_VALUE;
+        LocalDateTime[] cached = null;
+
+        for (int round = 0; round < rounds; round++) {
+            long startTime = System.nanoTime();
+            sequential = readArrayFromFile(pathToFile);
+            sequentialTime = Math.min(sequentialTime, System.nanoTime() - startTime);
+
+            startTime = System.nanoTime();
+            parallel = readArrayFromFileParallel(pathToFile);
+            parallelTime = Math.min(parallelTime, System.nanoTime() - startTime);
+
+            // перший запуск записує кеш, тому до уваги беруться лише наступнi
+            startTime = System.nanoTime();
+            cached = readArrayFromFileCached(pathToFile);
+            if (round > 0) {
+                cachedTime = Math.min(cachedTime, System.nanoTime() - startTime);
+            }
+        }
+
+        int rows = sequential.length;
+        System.out.println("\nПорiвняння способiв читання '" + pathToFile + "' (" + rows + " рядкiв, найкращий з " + rounds + " запускiв):");
+        System.out.printf("  FileInputStream/послiдовно: %d наносекунд (%.0f рядкiв/с)%n", sequentialTime, rows * 1_000_000_000.0 / sequentialTime);
+        System.out.printf("  FileChannel.map/ForkJoinPool: %d наносекунд (%.0f рядкiв/с)%n", parallelTime, rows * 1_000_000_000.0 / parallelTime);
+        System.out.printf("  FileChannel.map кешу %s: %d наносекунд (%.0f рядкiв/с)%n", TimestampSidecar.SUFFIX, cachedTime, rows * 1_000_000_000.0 / cachedTime);
+        System.out.printf("  Прискорення: паралельно %.2fx, з кешу %.2fx, результати %s%n", (double) sequentialTime / parallelTime,
+                (double) sequentialTime / cachedTime,
+                Arrays.equals(sequential, parallel) && Arrays.equals(sequential, cached) ? "збiгаються" : "НЕ збiгаються");
+    }
+
+    /**
+     * Порiвнює розбiр рядкiв файлу через LocalDateTime.parse i через TimestampCodec.
+     * Рядки заздалегiдь читаються в пам'ять, тому вимiрюється лише розбiр: час i
+     * кiлькiсть видiлених байтiв на рядок (найкращий з кiлькох запускiв).
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     */
+    static void compareParsers(String pathToFile) {
+        LineCollector lines = new LineCollector();
+        try (InputStream in = openDataFile(pathToFile)) {
+            forEachLine(in, lines);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        if (lines.count == 0) {
+            System.out.println("Файл '" + pathToFile + "' порожнiй.");
+            return;
+        }
+
+        final int rounds = 5;
+        DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE_TIME;
+        long[] jdkCost = {Long.MAX_VALUE, Long.MAX_VALUE};
+        long[] codecCost = {Long.MAX_VALUE, Long.MAX_VALUE};
+        long checksum = 0;
+
+        for (int round = 0; round < rounds; round++) {
+            long startBytes = allocatedBytes();
+            long startTime = System.nanoTime();
+            for (int i = 0; i < lines.count; i++) {
+                String line = new String(lines.bytes, lines.offsets[i], lines.offsets[i + 1] - lines.offsets[i], StandardCharsets.US_ASCII);
+                checksum += LocalDateTime.parse(line, formatter).getSecond();
+            }
+            jdkCost[0] = Math.min(jdkCost[0], System.nanoTime() - startTime);
+            jdkCost[1] = Math.min(jdkCost[1], allocatedBytes() - startBytes);
+
+            startBytes = allocatedBytes();
+            startTime = System.nanoTime();
+            for (int i = 0; i < lines.count; i++) {
+                checksum += TimestampCodec.decode(lines.bytes, lines.offsets[i], lines.offsets[i + 1] - lines.offsets[i]);
+            }
+            codecCost[0] = Math.min(codecCost[0], System.nanoTime() - startTime);
+            codecCost[1] = Math.min(codecCost[1], allocatedBytes() - startBytes);
+        }
+
+        int rows = lines.count;
+        System.out.println("\nПорiвняння розбору '" + pathToFile + "' (" + rows + " рядкiв, найкращий з " + rounds + " запускiв, контрольна сума " + checksum + "):");
+        System.out.printf("  LocalDateTime.parse: %.1f наносекунд/рядок, %.1f байт/рядок%n", (double) jdkCost[0] / rows, (double) jdkCost[1] / rows);
+        System.out.printf("  TimestampCodec.decode: %.1f наносекунд/рядок, %.1f байт/рядок%n", (double) codecCost[0] / rows, (double) codecCost[1] / rows);
+    }
+
+    /**
+     * Повертає кiлькiсть байтiв, видiлених поточним потоком, або 0, якщо JVM цього не пiдтримує.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Збирає байти всiх рядкiв в один масив зi змiщеннями, щоб вимiряти розбiр без читання файлу.
+     */
+    private static class LineCollector implements LineConsumer {
+        byte[] bytes = new byte[1 << 16];
+        int[] offsets = new int[1 << 12];
+        int count;
+        private int size;
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) {
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+            }
+            if (count + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            System.arraycopy(buffer, offset, bytes, size, length);
+            size += length;
+            offsets[++count] = size;
+        }
+    }
+
+    /**
+     * Вiдображає файл у пам'ять дiлянками, межi яких зсунутi до початку наступного рядка.
+     * Дiлянки мають розмiр близько {@link #MAX_MAPPED_RANGE} байт або менше.
+     */
+    private static ByteBuffer[] mapLineAlignedRanges(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        int parts = (int) Math.max(parallelism, (size + MAX_MAPPED_RANGE - 1) / MAX_MAPPED_RANGE);
+        parts = (int) Math.max(1, Math.min(parts, size / MIN_PARALLEL_RANGE));
+
+        List<ByteBuffer> ranges = new ArrayList<>(parts);
+        ByteBuffer probe = ByteBuffer.allocate(256);
+        long start = 0;
+        for (int i = 1; i <= parts && start < size; i++) {
+            long end = i == parts ? size : nextLineStart(channel, Math.max(start, size / parts * i), probe);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Дiлянка файлу з даними не вмiщується в один буфер: " + (end - start) + " байт");
+            }
+            ranges.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+            start = end;
+        }
+        return ranges.toArray(new ByteBuffer[0]);
+    }
+
+    /**
+     * Повертає позицiю першого байта пiсля символу кiнця рядка, починаючи з position.
+     */
+    private static long nextLineStart(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        long size = channel.size();
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Передає обробнику кожен непорожнiй рядок дiапазону масиву байтiв без копiювання.
+     * 
+     * @param buffer Масив байтiв.
+     * @param from Початок дiапазону.
+     * @param to Кiнець дiапазону (не включно).
+     * @param consumer Обробник рядкiв.
+     */
+    static void forEachLine(byte[] buffer, int from, int to, LineConsumer consumer) {
+        int lineStart = from;
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == '\n') {
+                acceptLine(consumer, buffer, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        acceptLine(consumer, buffer, lineStart, to);
+    }
+
+    /**
+     * Передає кожен непорожнiй рядок вiдображеної дiлянки обробнику. Байти рядка
+     * копiюються у невеликий буфер, який використовується повторно.
+     * 
+     * @param buffer Дiлянка файлу.
+     * @param consumer Обробник рядкiв.
+     */
+    static void forEachLine(ByteBuffer buffer, LineConsumer consumer) {
+        byte[] line = new byte[64];
+        int length = 0;
+
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '\n') {
+                acceptLine(consumer, line, 0, length);
+                length = 0;
+            } else {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+        }
+
+        acceptLine(consumer, line, 0, length);
+    }
+
+    /**
+     * Задача ForkJoinPool, що дiлить набiр дiлянок навпiл до однiєї дiлянки.
+     * Без заповнювача рахує рядки дiлянок у rowOffsets[i + 1], iнакше передає рядки
+     * дiлянки i обробнику, який заповнювач створює для iндексу rowOffsets[i].
+     */
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer[] ranges;
+        private final int[] rowOffsets;
+        private final IntFunction<LineConsumer> filler;
+        private final int from;
+        private final int to;
+
+        RangeTask(ByteBuffer[] ranges, int[] rowOffsets, IntFunction<LineConsumer> filler, int from, int to) {
+            this.ranges = ranges;
+            this.rowOffsets = rowOffsets;
+            this.filler = filler;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask(ranges, rowOffsets, filler, from, middle),
+                        new RangeTask(ranges, rowOffsets, filler, middle, to));
+                return;
+            }
+
+            ByteBuffer range = ranges[from].duplicate();
+            if (filler == null) {
+                LineCounter counter = new LineCounter();
+                forEachLine(range, counter);
+                rowOffsets[from + 1] = counter.count;
+            } else {
+                forEachLine(range, filler.apply(rowOffsets[from]));
+            }
+        }
+    }
+
+    /**
+     * Записує розiбранi рядки дiлянки у спiльний масив, починаючи з заданого iндексу.
+     */
+    private static class RangeFiller implements LineConsumer {
+        private final LocalDateTime[] dateTimeArray;
+        private int position;
+
+        RangeFiller(LocalDateTime[] dateTimeArray, int position) {
+            this.dateTimeArray = dateTimeArray;
+            this.position = position;
+        }
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) {
+            dateTimeArray[position++] = TimestampCodec.toLocalDateTime(TimestampCodec.decode(buffer, offset, length));
+        }
+    }
+
+    /**
+     * Записує упакованi значення рядкiв дiлянки у спiльний масив, починаючи з заданого iндексу.
+     */
+    private static class EpochNanosFiller implements LineConsumer {
+        private final long[] column;
+        private int position;
+
+        EpochNanosFiller(long[] column, int position) {
+            this.column = column;
+            this.position = position;
+        }
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) {
+            column[position++] = TimestampCodec.decode(buffer, offset, length);
+        }
+    }
+
+    /**
+     * Рахує непорожнi рядки у файлi, не створюючи для них об'єктiв.
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Кiлькiсть непорожнiх рядкiв.
+     * @throws IOException Якщо файл не вдалося прочитати.
+     */
+    static int countLines(String pathToFile) throws IOException {
+        LineCounter counter = new LineCounter();
+        try (InputStream in = openDataFile(pathToFile)) {
+            forEachLine(in, counter);
+        }
+        return counter.count;
+    }
+
+    /**
+     * Читає потiк блоками по {@link #READ_BUFFER_SIZE} байт i передає кожен непорожнiй
+     * рядок (без символiв кiнця рядка) обробнику без створення промiжних String.
+     * 
+     * @param in Вхiдний потiк.
+     * @param consumer Обробник рядкiв.
+     * @throws IOException Якщо потiк не вдалося прочитати.
+     */
+    static void forEachLine(InputStream in, LineConsumer consumer) throws IOException {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int filled = 0;
+        int read;
+
+        while ((read = in.read(buffer, filled, buffer.length - filled)) != -1) {
+            int scanFrom = filled;
+            filled += read;
+
+            int lineStart = 0;
+            for (int i = scanFrom; i < filled; i++) {
+                if (buffer[i] == '\n') {
+                    acceptLine(consumer, buffer, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+
+            // незавершений рядок переноситься на початок буфера
+            int remaining = filled - lineStart;
+            if (remaining == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            } else {
+                System.arraycopy(buffer, lineStart, buffer, 0, remaining);
+            }
+            filled = remaining;
+        }
+
+        acceptLine(consumer, buffer, 0, filled);
+    }
+
+    private static void acceptLine(LineConsumer consumer, byte[] buffer, int from, int to) {
+        if (to > from && buffer[to - 1] == '\r') {
+            to--;
+        }
+        if (to > from) {
+            consumer.accept(buffer, from, to - from);
+        }
+    }
+
+    /**
+     * Обробник рядка, заданого дiапазоном байтiв у буферi.
+     */
+    interface LineConsumer {
+        void accept(byte[] buffer, int offset, int length);
+    }
+
+    /**
+     * Лiчильник рядкiв для першого проходу по файлу.
+     */
+    private static class LineCounter implements LineConsumer {
+        int count;
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) {
+            count++;
+        }
+    }
+
+    /**
+     * Заповнює масив LocalDateTime розмiру, визначеного за кiлькiстю рядкiв у файлi.
+     * Якщо файл вирiс мiж двома проходами, масив збiльшується геометрично.
+     */
+    private static class DateTimeArrayBuilder implements LineConsumer {
+        private LocalDateTime[] dateTimeArray;
+        private int size;
+
+        DateTimeArrayBuilder(int expectedRows) {
+            dateTimeArray = new LocalDateTime[expectedRows];
+        }
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) {
+            if (size == dateTimeArray.length) {
+                dateTimeArray = Arrays.copyOf(dateTimeArray, Math.max(16, size + (size >> 1)));
+            }
+            dateTimeArray[size++] = TimestampCodec.toLocalDateTime(TimestampCodec.decode(buffer, offset, length));
+        }
+
+        LocalDateTime[] toArray() {
+            return size == dateTimeArray.length ? dateTimeArray : Arrays.copyOf(dateTimeArray, size);
+        }
+    }
+
+    /**
+     * Записує масив об'єктiв LocalDateTime у файл.
+     * 
+     * @param dateTimeArray Масив об'єктiв LocalDateTime.
+     * @param pathToFile Шлях до файлу для запису.
+     */
+    static void writeArrayToFile(LocalDateTime[] dateTimeArray, String pathToFile) {
+        writeArrayToFile(dateTimeArray, pathToFile, false);
+    }
+
+    /**
+     * Записує масив об'єктiв LocalDateTime у файл у форматi LocalDateTime.toString.
+     * 
+     * <p>Значення форматуються прямо в байти багаторазового прямого ByteBuffer без
+     * промiжних String i записуються у FileChannel блоками по {@link #WRITE_BUFFER_SIZE} байт.
+     * У паралельному режимi масив дiлиться на сегменти, для кожного заздалегiдь
+     * рахується розмiр у байтах, i сегменти записуються в ForkJoinPool позицiйними
+     * записами в свої неперетиннi дiлянки файлу. Файл з суфiксом ".gz" або ".deflate"
+     * пишеться стисненим: значення так само форматуються в багаторазовий буфер i блоками
+     * передаються в потiк, який стискає їх у формат за суфiксом файлу.</p>
+     * 
+     * @param dateTimeArray Масив об'єктiв LocalDateTime.
+     * @param pathToFile Шлях до файлу для запису.
+     * @param parallel Чи записувати сегменти паралельно.
+     */
+    static void writeArrayToFile(LocalDateTime[] dateTimeArray, String pathToFile, boolean parallel) {
+        writeToFile(i -> dateTimeArray[i], dateTimeArray.length, pathToFile, parallel);
+    }
+
+    /**
+     * Записує стовпець мiток часу у файл так само, як {@link #writeArrayToFile(LocalDateTime[], String, boolean)}.
+     * 
+     * @param column Стовпець мiток часу.
+     * @param pathToFile Шлях до файлу для запису.
+     * @param parallel Чи записувати сегменти паралельно.
+     */
+    static void writeColumnToFile(TimestampColumn column, String pathToFile, boolean parallel) {
+        writeToFile(column::getDateTime, column.size(), pathToFile, parallel);
+    }
+
+    private static void writeToFile(IntFunction<LocalDateTime> elements, int size, String pathToFile, boolean parallel) {
+        if (isCompressed(pathToFile)) {
+            writeCompressedToFile(elements, size, pathToFile);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(Path.of(pathToFile), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int segments = parallel ? Math.max(1, Math.min(ForkJoinPool.commonPool().getParallelism() * 4,
+                    size / MIN_PARALLEL_SEGMENT)) : 1;
+
+            long[] segmentOffsets = new long[segments + 1];
+            if (segments > 1) {
+                ForkJoinPool.commonPool().invoke(new SegmentWriteTask(elements, size, channel, segmentOffsets, false, 0, segments));
+                for (int i = 0; i < segments; i++) {
+                    segmentOffsets[i + 1] += segmentOffsets[i];
+                }
+                ForkJoinPool.commonPool().invoke(new SegmentWriteTask(elements, size, channel, segmentOffsets, true, 0, segments));
+            } else {
+                segmentOffsets[1] = writeSegment(elements, 0, size, channel, -1);
+            }
+
+            printWriteThroughput(startTime, "запис масиву дати i часу у файл", segmentOffsets[segments]);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void writeCompressedToFile(IntFunction<LocalDateTime> elements, int size, String pathToFile) {
+        long startTime = System.nanoTime();
+        long bytes = 0;
+
+        try (OutputStream out = createCompressedFile(pathToFile)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            for (int i = 0; i < size; i++) {
+                if (buffer.remaining() < MAX_FORMATTED_LENGTH) {
+                    out.write(buffer.array(), 0, buffer.position());
+                    bytes += buffer.position();
+                    buffer.clear();
+                }
+                formatDateTime(elements.apply(i), buffer);
+                buffer.put(LINE_SEPARATOR);
+            }
+            out.write(buffer.array(), 0, buffer.position());
+            bytes += buffer.position();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        printWriteThroughput(startTime, "стиснений запис масиву дати i часу у файл", bytes);
+        System.out.println("Розмiр стисненого файлу: " + new File(pathToFile).length() + " байт iз " + bytes);
+    }
+
+    /**
+     * Виводить швидкiсть запису в мегабайтах за секунду.
+     * 
+     * @param startTime Час початку операцiї в наносекундах.
+     * @param operationName Назва операцiї.
+     * @param bytes Кiлькiсть записаних байтiв.
+     */
+    static void printWriteThroughput(long startTime, String operationName, long bytes) {
+        long duration = System.nanoTime() - startTime;
+        double megabytesPerSecond = duration > 0 ? bytes * 1_000_000_000.0 / duration / (1 << 20) : 0;
+        System.out.printf("%n>>>>>>>>> Швидкiсть запису операцiї '%s': %d байт за %d наносекунд (%.1f МБ/с)%n",
+                operationName, bytes, duration, megabytesPerSecond);
+    }
+
+    /**
+     * Форматує елементи масиву з from до to i записує їх у канал.
+     * 
+     * @param position Позицiя у файлi для позицiйного запису або -1 для запису з поточної позицiї.
+     * @return Кiлькiсть записаних байтiв.
+     */
+    private static long writeSegment(IntFunction<LocalDateTime> elements, int from, int to, FileChannel channel, long position)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        long written = 0;
+
+        for (int i = from; i < to; i++) {
+            if (buffer.remaining() < MAX_FORMATTED_LENGTH) {
+                written += flush(buffer, channel, position < 0 ? -1 : position + written);
+            }
+            formatDateTime(elements.apply(i), buffer);
+            buffer.put(LINE_SEPARATOR);
+        }
+        return written + flush(buffer, channel, position < 0 ? -1 : position + written);
+    }
+
+    static long flush(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        long written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        return written;
+    }
+
+    static long flush(ByteBuffer buffer, FileChannel channel, long position) throws IOException {
+        buffer.flip();
+        long written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            if (position < 0) {
+                channel.write(buffer);
+            } else {
+                channel.write(buffer, position + written - buffer.remaining());
+            }
+        }
+        buffer.clear();
+        return written;
+    }
+
+    /**
+     * Записує дату i час у буфер так само, як LocalDateTime.toString: секунди пропускаються,
+     * якщо вони та наносекунди нульовi, а дробова частина має 3, 6 або 9 цифр.
+     */
+    static void formatDateTime(LocalDateTime dateTime, ByteBuffer buffer) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999) {
+            buffer.put(dateTime.toString().getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+
+        putDigits(buffer, year, 4);
+        buffer.put((byte) '-');
+        putDigits(buffer, dateTime.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        putDigits(buffer, dateTime.getDayOfMonth(), 2);
+        buffer.put((byte) 'T');
+        putDigits(buffer, dateTime.getHour(), 2);
+        buffer.put((byte) ':');
+        putDigits(buffer, dateTime.getMinute(), 2);
+
+        int second = dateTime.getSecond();
+        int nano = dateTime.getNano();
+        if (second > 0 || nano > 0) {
+            buffer.put((byte) ':');
+            putDigits(buffer, second, 2);
+            if (nano > 0) {
+                buffer.put((byte) '.');
+                if (nano % 1_000_000 == 0) {
+                    putDigits(buffer, nano / 1_000_000, 3);
+                } else if (nano % 1_000 == 0) {
+                    putDigits(buffer, nano / 1_000, 6);
+                } else {
+                    putDigits(buffer, nano, 9);
+                }
+            }
+        }
+    }
+
+    /**
+     * Повертає кiлькiсть байтiв, яку {@link #formatDateTime(LocalDateTime, ByteBuffer)} запише для значення.
+     */
+    static int formattedLength(LocalDateTime dateTime) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999) {
+            return dateTime.toString().length();
+        }
+        int nano = dateTime.getNano();
+        if (nano > 0) {
+            return nano % 1_000_000 == 0 ? 23 : nano % 1_000 == 0 ? 26 : 29;
+        }
+        return dateTime.getSecond() > 0 ? 19 : 16;
+    }
+
+    private static void putDigits(ByteBuffer buffer, int value, int count) {
+        for (int shift = count - 1; shift >= 0; shift--) {
+            buffer.put(buffer.position() + shift, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(buffer.position() + count);
+    }
+
+    /**
+     * Задача ForkJoinPool для паралельного запису сегментiв масиву. Без запису рахує
+     * розмiр сегмента i в байтах у segmentOffsets[i + 1], iз записом форматує сегмент i
+     * у файл, починаючи з позицiї segmentOffsets[i].
+     */
+    private static class SegmentWriteTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntFunction<LocalDateTime> elements;
+        private final int size;
+        private final FileChannel channel;
+        private final long[] segmentOffsets;
+        private final boolean write;
+        private final int from;
+        private final int to;
+
+        SegmentWriteTask(IntFunction<LocalDateTime> elements, int size, FileChannel channel, long[] segmentOffsets,
+                boolean write, int from, int to) {
+            this.elements = elements;
+            this.size = size;
+            this.channel = channel;
+            this.segmentOffsets = segmentOffsets;
+            this.write = write;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SegmentWriteTask(elements, size, channel, segmentOffsets, write, from, middle),
+                        new SegmentWriteTask(elements, size, channel, segmentOffsets, write, middle, to));
+                return;
+            }
+
+            int segments = segmentOffsets.length - 1;
+            int start = (int) ((long) size * from / segments);
+            int end = (int) ((long) size * (from + 1) / segments);
+            if (!write) {
+                long length = 0;
+                for (int i = start; i < end; i++) {
+                    length += formattedLength(elements.apply(i)) + LINE_SEPARATOR.length;
+                }
+                segmentOffsets[from + 1] = length;
+                return;
+            }
+
+            try {
+                writeSegment(elements, start, end, channel, segmentOffsets[from]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Заповнює масив упакованих мiток часу так само, як DateTimeArrayBuilder заповнює масив LocalDateTime.
+     */
+    static class EpochNanosBuilder implements LineConsumer {
+        private long[] column;
+        private int size;
+
+        EpochNanosBuilder(int expectedRows) {
+            column = new long[expectedRows];
+        }
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) {
+            if (size == column.length) {
+                column = Arrays.copyOf(column, Math.max(16, size + (size >> 1)));
+            }
+            column[size++] = TimestampCodec.decode(buffer, offset, length);
+        }
+
+        long[] toArray() {
+            return size == column.length ? column : Arrays.copyOf(column, size);
+        }
+    }
+}
+
+/**
+ * Клас BlockedBloomFilter - блоковий фiльтр Блума для упакованих мiток часу.
+ * 
+ * <p>Бiти дiляться на блоки по {@value #BLOCK_BITS} (8 значень long, один рядок кешу).
+ * Ключ потрапляє в один блок i встановлює в ньому k бiтiв, тому перевiрка читає один
+ * рядок кешу замiсть k випадкових. Вiдповiдь "немає" завжди точна, а "можливо є"
+ * хибна з iмовiрнiстю, близькою до заданої.</p>
+ * 
+ * <p>Для n ключiв i частки хибних спрацювань p звичайний фiльтр потребує
+ * m = -n ln p / (ln 2)^2 бiт i k = (m / n) ln 2 хешiв. Блоки заповнюються нерiвномiрно,
+ * тому m збiльшується на {@value #BLOCK_OVERHEAD_PERCENT}%.</p>
+ */
+class BlockedBloomFilter {
+    static final double DEFAULT_FPP = 0.01;
+    private static final int BLOCK_WORDS = 8;
+    private static final int BLOCK_BITS = BLOCK_WORDS * Long.SIZE;
+    private static final int BLOCK_OVERHEAD_PERCENT = 20;
+    private static final int MAX_BLOCKS = (Integer.MAX_VALUE - 8) / BLOCK_WORDS;
+
+    private final long[] words;
+    private final int blocks;
+    private final int hashes;
+    private final double fpp;
+    private long keyCount;
+
+    /**
+     * @param expectedKeys Очiкувана кiлькiсть ключiв.
+     * @param fpp Бажана частка хибних спрацювань, мiж 0 i 1.
+     */
+    BlockedBloomFilter(long expectedKeys, double fpp) {
+        if (!(fpp > 0 && fpp < 1)) {
+            throw new RuntimeException("Частка хибних спрацювань фiльтра Блума має бути мiж 0 i 1: " + fpp);
+        }
+        double bitsPerKey = -Math.log(fpp) / (Math.log(2) * Math.log(2));
+        double bits = Math.max(1, expectedKeys) * bitsPerKey * (100 + BLOCK_OVERHEAD_PERCENT) / 100;
+        this.blocks = (int) Math.min(MAX_BLOCKS, Math.max(1, Math.ceil(bits / BLOCK_BITS)));
+        this.hashes = (int) Math.max(1, Math.min(16, Math.round(bitsPerKey * Math.log(2))));
+        this.words = new long[blocks * BLOCK_WORDS];
+        this.fpp = fpp;
+    }
+
+    void add(long key) {
+        long hash = mix(key);
+        int base = block(hash) * BLOCK_WORDS;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            words[base + (bit >>> 6)] |= 1L << bit;
+        }
+        keyCount++;
+    }
+
+    /**
+     * Перевiряє ключ.
+     * 
+     * @return false, якщо ключа напевно немає; true, якщо вiн, можливо, є.
+     */
+    boolean mightContain(long key) {
+        long hash = mix(key);
+        int base = block(hash) * BLOCK_WORDS;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            if ((words[base + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Вибирає блок за старшими бiтами другого перемiшування, щоб вони не залежали вiд
+     * бiтiв, якi задають позицiї в блоцi.
+     */
+    private int block(long hash) {
+        return (int) (((mix(hash) >>> 32) * blocks) >>> 32);
+    }
+
+    /**
+     * Завершальне перемiшування SplitMix64: сусiднi мiтки часу дають незалежнi хешi.
+     */
+    private static long mix(long key) {
+        long z = key + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    long keyCount() {
+        return keyCount;
+    }
+
+    long bitCount() {
+        return (long) words.length * Long.SIZE;
+    }
+
+    int hashCount() {
+        return hashes;
+    }
+
+    double targetFpp() {
+        return fpp;
+    }
+
+    long heapBytes() {
+        return 16 + 8L * words.length;
+    }
+
+    /**
+     * Оцiнює частку хибних спрацювань для доданих ключiв за формулою звичайного фiльтра.
+     */
+    double expectedFpp() {
+        return Math.pow(1 - Math.exp(-(double) hashes * keyCount / bitCount()), hashes);
+    }
+}
+
+/**
+ * Клас ParallelOps виконує сортування i пошук мiнiмуму та максимуму задачами ForkJoinPool.
+ * 
+ * <p>Кiлькiсть потокiв i порiг подiлу вибираються за розмiром даних: на потiк припадає
+ * щонайменше {@value #MIN_ELEMENTS_PER_THREAD} елементiв, а дiапазон дiлиться, поки на
+ * потiк не припаде близько {@value #TASKS_PER_THREAD} задач, але не дрiбнiше за
+ * {@value #MIN_THRESHOLD} елементiв. З одним потоком усе виконується послiдовно в
+ * потоцi, що викликає.</p>
+ * 
+ * <p>Сортування - злиття: частини сортуються {@link RadixSort}, а злиття теж паралельне -
+ * бiльша з двох серiй дiлиться навпiл, а межа в iншiй знаходиться бiнарним пошуком,
+ * тому останнє злиття не виконується одним потоком.</p>
+ */
+class ParallelOps implements AutoCloseable {
+    static final int MIN_ELEMENTS_PER_THREAD = 1 << 15;
+    static final int MIN_THRESHOLD = 1 << 13;
+    static final int TASKS_PER_THREAD = 4;
+
+    final int threads;
+    final int threshold;
+    private ForkJoinPool pool;
+
+    /**
+     * @param threads Кiлькiсть потокiв.
+     * @param size Кiлькiсть елементiв, для якої обирається порiг подiлу.
+     */
+    ParallelOps(int threads, int size) {
+        this.threads = Math.max(1, threads);
+        this.threshold = this.threads == 1 ? Math.max(1, size)
+                : Math.max(MIN_THRESHOLD, size / (this.threads * TASKS_PER_THREAD));
+    }
+
+    /**
+     * Обирає кiлькiсть потокiв для size елементiв, не бiльшу за maxThreads.
+     */
+    static ParallelOps forSize(int size, int maxThreads) {
+        return new ParallelOps(Math.min(maxThreads, Math.max(1, size / MIN_ELEMENTS_PER_THREAD)), size);
+    }
+
+    /**
+     * Виконує задачу в пулi з {@link #threads} потокiв; пул створюється при першому виклику.
+     */
+    <T> T invoke(ForkJoinTask<T> task) {
+        if (threads == 1) {
+            return task.invoke();
+        }
+        if (pool == null) {
+            pool = threads == ForkJoinPool.getCommonPoolParallelism() ? ForkJoinPool.commonPool() : new ForkJoinPool(threads);
+        }
+        return pool.invoke(task);
+    }
+
+    /**
+     * Зупиняє власний пул потокiв; спiльний пул не зупиняється.
+     */
+    @Override
+    public void close() {
+        if (pool != null && pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Сортує масив паралельним злиттям.
+     */
+    void sort(long[] values) {
+        long[] buffer = new long[values.length];
+        invoke(new MergeSortTask(values, buffer, 0, values.length, false, threshold));
+    }
+
+    /**
+     * Знаходить мiнiмум, максимум i ознаку вiдсортованостi масиву.
+     */
+    Summary summarize(long[] values) {
+        return invoke(new SummaryTask(values, 0, values.length, threshold));
+    }
+
+    /**
+     * Мiнiмум, максимум i ознака вiдсортованостi дiапазону; для порожнього дiапазону
+     * мiнiмум дорiвнює Long.MAX_VALUE, а максимум - Long.MIN_VALUE.
+     */
+    static final class Summary {
+        final long min;
+        final long max;
+        final boolean sorted;
+
+        Summary(long min, long max, boolean sorted) {
+            this.min = min;
+            this.max = max;
+            this.sorted = sorted;
+        }
+    }
+
+    private static final class SummaryTask extends RecursiveTask<Summary> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] values;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        SummaryTask(long[] values, int from, int to, int threshold) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Summary compute() {
+            if (to - from <= threshold) {
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                boolean sorted = true;
+                for (int i = from; i < to; i++) {
+                    long value = values[i];
+                    sorted &= i == from || values[i - 1] <= value;
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+                return new Summary(min, max, sorted);
+            }
+
+            int middle = (from + to) >>> 1;
+            SummaryTask left = new SummaryTask(values, from, middle, threshold);
+            left.fork();
+            Summary right = new SummaryTask(values, middle, to, threshold).compute();
+            Summary leftSummary = left.join();
+            return new Summary(Math.min(leftSummary.min, right.min), Math.max(leftSummary.max, right.max),
+                    leftSummary.sorted && right.sorted && values[middle - 1] <= values[middle]);
+        }
+    }
+
+    /**
+     * Сортує values[from, to) i кладе результат у buffer, якщо intoBuffer, або у values.
+     * Пiддiапазони сортуються в протилежний масив, тому злиття не потребує копiювання.
+     */
+    private static final class MergeSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] values;
+        private final long[] buffer;
+        private final int from;
+        private final int to;
+        private final boolean intoBuffer;
+        private final int threshold;
+
+        MergeSortTask(long[] values, long[] buffer, int from, int to, boolean intoBuffer, int threshold) {
+            this.values = values;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.intoBuffer = intoBuffer;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                RadixSort.sort(values, from, to);
+                if (intoBuffer) {
+                    System.arraycopy(values, from, buffer, from, to - from);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new MergeSortTask(values, buffer, from, middle, !intoBuffer, threshold),
+                    new MergeSortTask(values, buffer, middle, to, !intoBuffer, threshold));
+            long[] source = intoBuffer ? values : buffer;
+            long[] target = intoBuffer ? buffer : values;
+            new MergeTask(source, from, middle, middle, to, target, from, threshold).compute();
+        }
+    }
+
+    /**
+     * Зливає серiї source[leftFrom, leftTo) i source[rightFrom, rightTo) у target з позицiї
+     * targetFrom.
+     */
+    private static final class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] source;
+        private final int leftFrom;
+        private final int leftTo;
+        private final int rightFrom;
+        private final int rightTo;
+        private final long[] target;
+        private final int targetFrom;
+        private final int threshold;
+
+        MergeTask(long[] source, int leftFrom, int leftTo, int rightFrom, int rightTo, long[] target, int targetFrom, int threshold) {
+            this.source = source;
+            this.leftFrom = leftFrom;
+            this.leftTo = leftTo;
+            this.rightFrom = rightFrom;
+            this.rightTo = rightTo;
+            this.target = target;
+            this.targetFrom = targetFrom;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int leftLength = leftTo - leftFrom;
+            int rightLength = rightTo - rightFrom;
+            if (leftLength + rightLength <= threshold) {
+                int left = leftFrom;
+                int right = rightFrom;
+                for (int i = targetFrom; i < targetFrom + leftLength + rightLength; i++) {
+                    if (right >= rightTo || left < leftTo && source[left] <= source[right]) {
+                        target[i] = source[left++];
+                    } else {
+                        target[i] = source[right++];
+                    }
+                }
+                return;
+            }
+
+            int leftMiddle;
+            int rightMiddle;
+            if (leftLength >= rightLength) {
+                leftMiddle = (leftFrom + leftTo) >>> 1;
+                rightMiddle = lowerBound(source, rightFrom, rightTo, source[leftMiddle]);
+            } else {
+                rightMiddle = (rightFrom + rightTo) >>> 1;
+                leftMiddle = lowerBound(source, leftFrom, leftTo, source[rightMiddle]);
+            }
+            int targetMiddle = targetFrom + (leftMiddle - leftFrom) + (rightMiddle - rightFrom);
+            invokeAll(new MergeTask(source, leftFrom, leftMiddle, rightFrom, rightMiddle, target, targetFrom, threshold),
+                    new MergeTask(source, leftMiddle, leftTo, rightMiddle, rightTo, target, targetMiddle, threshold));
+        }
+
+        /**
+         * Повертає першу позицiю в [from, to), де значення не менше за key.
+         */
+        private static int lowerBound(long[] values, int from, int to, long key) {
+            int low = from;
+            int high = to;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] < key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
+
+/**
+ * Клас RadixSort сортує упакованi мiтки часу порозрядним сортуванням LSD за байтами.
+ * 
+ * <p>Гiстограми всiх розрядiв рахуються одним проходом; розряди, у яких усi значення мають
+ * той самий байт, пропускаються. Мiтки часу з одного перiоду збiгаються у старших байтах,
+ * тому замiсть 8 проходiв зазвичай потрiбно 4-5. Нижче порогу викликається Arrays.sort.</p>
+ */
+class RadixSort {
+    /** Найменша довжина дiапазону, з якої порозрядне сортування швидше за Arrays.sort. */
+    static final int THRESHOLD = 1 << 12;
+
+    private RadixSort() {
+    }
+
+    static void sort(long[] values) {
+        sort(values, 0, values.length);
+    }
+
+    static void sort(long[] values, int from, int to) {
+        if (to - from < THRESHOLD) {
+            Arrays.sort(values, from, to);
+            return;
+        }
+
+        int length = to - from;
+        int[][] counts = new int[Long.BYTES][256];
+        for (int i = from; i < to; i++) {
+            long value = values[i];
+            for (int digit = 0; digit < Long.BYTES; digit++) {
+                counts[digit][digit(value, digit)]++;
+            }
+        }
+
+        long[] source = values;
+        long[] target = new long[length];
+        int sourceFrom = from;
+        int targetFrom = 0;
+        for (int digit = 0; digit < Long.BYTES; digit++) {
+            int[] offsets = counts[digit];
+            if (!toOffsets(offsets, length)) {
+                continue;
+            }
+            for (int i = sourceFrom; i < sourceFrom + length; i++) {
+                long value = source[i];
+                target[targetFrom + offsets[digit(value, digit)]++] = value;
+            }
+            long[] swap = source;
+            source = target;
+            target = swap;
+            int swapFrom = sourceFrom;
+            sourceFrom = targetFrom;
+            targetFrom = swapFrom;
+        }
+        if (source != values) {
+            System.arraycopy(source, sourceFrom, values, from, length);
+        }
+    }
+
+    private static int digit(long value, int digit) {
+        int bits = (int) (value >>> (digit * 8)) & 0xFF;
+        return digit == Long.BYTES - 1 ? bits ^ 0x80 : bits;
+    }
+
+    /**
+     * Перетворює гiстограму розряду на початковi позицiї кошикiв.
+     * 
+     * @return false, якщо всi значення потрапляють в один кошик i прохiд можна пропустити.
+     */
+    private static boolean toOffsets(int[] counts, int length) {
+        int position = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            int count = counts[bucket];
+            if (count == length) {
+                return false;
+            }
+            counts[bucket] = position;
+            position += count;
+        }
+        return true;
+    }
+}
+
+/**
+ * Клас TimestampColumn зберiгає мiтки часу одним масивом long - упакованими значеннями
+ * TimestampCodec - замiсть масиву посилань на об'єкти LocalDateTime.
+ * 
+ * <p>Сортування, бiнарний пошук i пошук мiнiмуму та максимуму працюють прямо з
+ * примiтивами. {@link #asList()} повертає подання стовпця як List без копiювання:
+ * LocalDateTime створюється лише для елемента, до якого звертаються, а сортування
+ * подання сортує сам стовпець.</p>
+ * 
+ * <p>Стовпець пiдтримує мiнiмум, максимум i ознаку вiдсортованостi при кожнiй змiнi:
+ * вони рахуються одним проходом при створеннi, а set(), sort() i mergeAppended()
+ * оновлюють їх за O(1). Лише перезапис самого мiнiмуму чи максимуму робить статистику
+ * застарiлою, i вона перераховується при наступному запитi.</p>
+ * 
+ * <p>Стовпець охоплює роки вiд 1677 до 2262, як i упакований long.</p>
+ */
+class TimestampColumn {
+    private final long[] values;
+    private boolean sorted;
+    private long min;
+    private long max;
+    private boolean stale;
+    private SearchIndex searchIndex;
+
+    /**
+     * @param values Упакованi значення; масив використовується без копiювання.
+     */
+    TimestampColumn(long[] values) {
+        this.values = values;
+        recompute();
+    }
+
+    /**
+     * Створює стовпець з уже вiдомою статистикою (наприклад, iз заголовка кешу) без
+     * перегляду значень.
+     * 
+     * @param values Упакованi значення; масив використовується без копiювання.
+     * @param sorted Чи вiдсортованi значення.
+     * @param min Найменше значення.
+     * @param max Найбiльше значення.
+     */
+    TimestampColumn(long[] values, boolean sorted, long min, long max) {
+        this.values = values;
+        this.sorted = sorted;
+        this.min = min;
+        this.max = max;
+    }
+
+    private void recompute() {
+        sorted = true;
+        min = values.length > 0 ? values[0] : 0;
+        max = min;
+        for (int i = 1; i < values.length; i++) {
+            long value = values[i];
+            sorted &= values[i - 1] <= value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        stale = false;
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    /**
+     * Повертає упаковане значення елемента.
+     */
+    long get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Замiнює упаковане значення елемента i оновлює статистику стовпця.
+     */
+    void set(int index, long value) {
+        long previous = values[index];
+        values[index] = value;
+        searchIndex = null;
+
+        if (sorted) {
+            sorted = (index == 0 || values[index - 1] <= value) && (index == values.length - 1 || value <= values[index + 1]);
+        }
+        if (!stale) {
+            if (value <= min) {
+                min = value;
+            } else if (previous == min) {
+                stale = true;
+            }
+            if (value >= max) {
+                max = value;
+            } else if (previous == max) {
+                stale = true;
+            }
+        }
+    }
+
+    /**
+     * Повертає елемент як LocalDateTime.
+     */
+    LocalDateTime getDateTime(int index) {
+        return TimestampCodec.toLocalDateTime(values[index]);
+    }
+
+    /**
+     * Сортує стовпець. Повторне сортування вже вiдсортованого стовпця нiчого не робить.
+     */
+    void sort() {
+        if (!sorted) {
+            RadixSort.sort(values);
+            sortedBounds();
+        }
+    }
+
+    /**
+     * Сортує стовпець паралельним злиттям {@link ParallelOps}.
+     */
+    void sort(ParallelOps parallel) {
+        if (!sorted) {
+            parallel.sort(values);
+            sortedBounds();
+        }
+    }
+
+    private void sortedBounds() {
+        sorted = true;
+        searchIndex = null;
+        if (values.length > 0) {
+            min = values[0];
+            max = values[values.length - 1];
+            stale = false;
+        }
+    }
+
+    boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Будує {@link StaticBTree} над вiдсортованим стовпцем. Будь-яка змiна стовпця
+     * скидає iндекс, i пошук повертається до бiнарного.
+     */
+    void buildSearchIndex() {
+        if (!sorted) {
+            throw new RuntimeException("Iндекс пошуку можна побудувати лише для вiдсортованого стовпця");
+        }
+        searchIndex = new StaticBTree(values);
+    }
+
+    /**
+     * Будує {@link LearnedIndex} над вiдсортованим стовпцем i шукає через нього, якщо розподiл
+     * ключiв пiдходить ({@link LearnedIndex#fits()}) i вимiряний пошук через iндекс швидший
+     * за бiнарний ({@link LearnedIndex#measure()}). Як i B+ дерево, iндекс скидається будь-якою
+     * змiною стовпця.
+     * 
+     * @return Побудований iндекс, навiть якщо його не обрано.
+     */
+    LearnedIndex fitLearnedIndex() {
+        if (!sorted) {
+            throw new RuntimeException("Iндекс пошуку можна побудувати лише для вiдсортованого стовпця");
+        }
+        LearnedIndex index = new LearnedIndex(values);
+        if (index.fits() && index.measure()) {
+            searchIndex = index;
+        }
+        return index;
+    }
+
+    boolean hasSearchIndex() {
+        return searchIndex != null;
+    }
+
+    /**
+     * Повертає пам'ять iндексу пошуку або 0, якщо його немає.
+     */
+    long searchIndexHeapBytes() {
+        return searchIndex != null ? searchIndex.heapBytes() : 0;
+    }
+
+    /**
+     * Шукає значення у вiдсортованому стовпцi так само, як Arrays.binarySearch.
+     * 
+     * @param dateTime Значення для пошуку.
+     * @return Iндекс значення або (-(точка вставки) - 1), якщо його немає.
+     */
+    int binarySearch(LocalDateTime dateTime) {
+        long key;
+        try {
+            key = TimestampCodec.toEpochNanos(dateTime);
+        } catch (ArithmeticException e) {
+            return dateTime.getYear() < 1970 ? -1 : -values.length - 1;
+        }
+        return binarySearch(key);
+    }
+
+    /**
+     * Шукає упаковане значення через iндекс пошуку, якщо його побудовано, або Arrays.binarySearch.
+     */
+    int binarySearch(long key) {
+        return searchIndex != null ? searchIndex.binarySearch(key) : Arrays.binarySearch(values, key);
+    }
+
+    /**
+     * Повертає позицiю першого значення, не меншого за dateTime, у вiдсортованому стовпцi.
+     * Дата, ранiша за дiапазон TimestampCodec, менша за всi значення, а пiзнiша - бiльша.
+     */
+    int lowerBound(LocalDateTime dateTime) {
+        try {
+            return lowerBound(TimestampCodec.toEpochNanos(dateTime));
+        } catch (ArithmeticException e) {
+            return dateTime.getYear() < 1970 ? 0 : values.length;
+        }
+    }
+
+    /**
+     * Повертає позицiю першого значення, бiльшого за dateTime, у вiдсортованому стовпцi.
+     */
+    int upperBound(LocalDateTime dateTime) {
+        long key;
+        try {
+            key = TimestampCodec.toEpochNanos(dateTime);
+        } catch (ArithmeticException e) {
+            return dateTime.getYear() < 1970 ? 0 : values.length;
+        }
+        return key == Long.MAX_VALUE ? values.length : lowerBound(key + 1);
+    }
+
+    /**
+     * Повертає позицiю першого упакованого значення, не меншого за key, через iндекс пошуку,
+     * якщо його побудовано, або бiнарним пошуком.
+     */
+    int lowerBound(long key) {
+        if (searchIndex != null) {
+            return searchIndex.lowerBound(key);
+        }
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Рахує значення в дiапазонi [from, to] вiдсортованого стовпця за двома пошуками меж.
+     */
+    int countRange(LocalDateTime from, LocalDateTime to) {
+        return Math.max(0, upperBound(to) - lowerBound(from));
+    }
+
+    /**
+     * Повертає значення дiапазону [from, to] вiдсортованого стовпця як подання без копiювання.
+     */
+    List<LocalDateTime> range(LocalDateTime from, LocalDateTime to) {
+        int low = lowerBound(from);
+        return asList().subList(low, Math.max(low, upperBound(to)));
+    }
+
+    /**
+     * Повертає iтератор значень дiапазону [from, to]; LocalDateTime створюється лише для
+     * поточного елемента.
+     */
+    Iterator<LocalDateTime> rangeIterator(LocalDateTime from, LocalDateTime to) {
+        return range(from, to).iterator();
+    }
+
+    /**
+     * Повертає найбiльше значення, не пiзнiше dateTime, або null, якщо такого немає.
+     */
+    LocalDateTime floor(LocalDateTime dateTime) {
+        int index = upperBound(dateTime);
+        return index > 0 ? getDateTime(index - 1) : null;
+    }
+
+    /**
+     * Повертає найменше значення, не ранiше dateTime, або null, якщо такого немає.
+     */
+    LocalDateTime ceiling(LocalDateTime dateTime) {
+        int index = lowerBound(dateTime);
+        return index < values.length ? getDateTime(index) : null;
+    }
+
+    /**
+     * Повертає найменше упаковане значення за O(1), якщо статистика не застарiла.
+     * 
+     * @throws NoSuchElementException Якщо стовпець порожнiй.
+     */
+    long min() {
+        ensureStatistics();
+        return min;
+    }
+
+    /**
+     * Повертає найбiльше упаковане значення за O(1), якщо статистика не застарiла.
+     * 
+     * @throws NoSuchElementException Якщо стовпець порожнiй.
+     */
+    long max() {
+        ensureStatistics();
+        return max;
+    }
+
+    private void ensureStatistics() {
+        if (values.length == 0) {
+            throw new NoSuchElementException();
+        }
+        if (stale) {
+            recompute();
+        }
+    }
+
+    /**
+     * Сортує стовпець, у якому першi sortedPrefix.length елементiв - це вже вiдсортованi
+     * значення sortedPrefix в iншому порядку: сортується лише решта, i двi частини
+     * зливаються за один прохiд.
+     * 
+     * @param sortedPrefix Вiдсортованi значення початку стовпця.
+     */
+    void mergeAppended(long[] sortedPrefix) {
+        long[] tail = Arrays.copyOfRange(values, sortedPrefix.length, values.length);
+        RadixSort.sort(tail);
+
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < values.length; k++) {
+            values[k] = j == tail.length || (i < sortedPrefix.length && sortedPrefix[i] <= tail[j]) ? sortedPrefix[i++] : tail[j++];
+        }
+        sortedBounds();
+    }
+
+    /**
+     * Повертає копiю упакованих значень.
+     */
+    long[] toArray() {
+        return values.clone();
+    }
+
+    /**
+     * Повертає масив стовпця без копiювання, наприклад для вимiрiв пошуку. Змiнювати його
+     * не можна: статистика й iндекс пошуку стовпця цього не побачать.
+     */
+    long[] array() {
+        return values;
+    }
+
+    /**
+     * Оцiнює пам'ять, яку займає стовпець: заголовок масиву i 8 байт на елемент.
+     */
+    long heapBytes() {
+        return 16 + (long) values.length * Long.BYTES;
+    }
+
+    /**
+     * Оцiнює пам'ять, яку зайняли б для тих самих даних LocalDateTime[] та ArrayList:
+     * по 4 байти посилання в кожному i 72 байти на LocalDateTime з його LocalDate та LocalTime.
+     */
+    long boxedHeapBytes() {
+        return 2 * (16 + 4L * values.length) + 72L * values.length;
+    }
+
+    /**
+     * Повертає подання стовпця як List з довiльним доступом. Змiни подання змiнюють стовпець.
+     */
+    List<LocalDateTime> asList() {
+        return new ListView();
+    }
+
+    /**
+     * Подання стовпця як List, що створює LocalDateTime лише для запитаних елементiв.
+     */
+    private class ListView extends AbstractList<LocalDateTime> implements RandomAccess {
+        @Override
+        public LocalDateTime get(int index) {
+            return getDateTime(Objects.checkIndex(index, values.length));
+        }
+
+        @Override
+        public LocalDateTime set(int index, LocalDateTime element) {
+            LocalDateTime previous = get(index);
+            TimestampColumn.this.set(index, TimestampCodec.toEpochNanos(element));
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            if (!(o instanceof LocalDateTime)) {
+                return -1;
+            }
+            long key;
+            try {
+                key = TimestampCodec.toEpochNanos((LocalDateTime) o);
+            } catch (ArithmeticException e) {
+                return -1;
+            }
+
+            if (sorted) {
+                int index = binarySearch(key);
+                if (index < 0) {
+                    return -1;
+                }
+                while (index > 0 && values[index - 1] == key) {
+                    index--;
+                }
+                return index;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        @Override
+        public void sort(Comparator<? super LocalDateTime> c) {
+            if (c == null || c == Comparator.naturalOrder()) {
+                TimestampColumn.this.sort();
+                modCount++;
+            } else {
+                super.sort(c);
+            }
+        }
+    }
+}
+
+/**
+ * Клас SortedRanges виконує запити дiапазону до вiдсортованого списку з довiльним доступом
+ * через пошук нижньої та верхньої меж. Дiапазони повертаються поданнями subList без копiювання.
+ */
+class SortedRanges {
+    private SortedRanges() {
+    }
+
+    /**
+     * Повертає позицiю першого елемента, не меншого за key, або list.size(), якщо такого немає.
+     */
+    static <T extends Comparable<? super T>> int lowerBound(List<? extends T> list, T key) {
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (list.get(middle).compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Повертає позицiю першого елемента, бiльшого за key, або list.size(), якщо такого немає.
+     */
+    static <T extends Comparable<? super T>> int upperBound(List<? extends T> list, T key) {
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (list.get(middle).compareTo(key) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Рахує елементи в дiапазонi [from, to] без їх перебору.
+     */
+    static <T extends Comparable<? super T>> int countRange(List<? extends T> list, T from, T to) {
+        return Math.max(0, upperBound(list, to) - lowerBound(list, from));
+    }
+
+    /**
+     * Повертає елементи дiапазону [from, to] як подання списку без копiювання.
+     */
+    static <T extends Comparable<? super T>> List<T> range(List<T> list, T from, T to) {
+        int low = lowerBound(list, from);
+        return list.subList(low, Math.max(low, upperBound(list, to)));
+    }
+
+    static <T extends Comparable<? super T>> Iterator<T> rangeIterator(List<T> list, T from, T to) {
+        return range(list, from, to).iterator();
+    }
+
+    /**
+     * Повертає найбiльший елемент, не бiльший за key, або null, якщо такого немає.
+     */
+    static <T extends Comparable<? super T>> T floor(List<? extends T> list, T key) {
+        int index = upperBound(list, key);
+        return index > 0 ? list.get(index - 1) : null;
+    }
+
+    /**
+     * Повертає найменший елемент, не менший за key, або null, якщо такого немає.
+     */
+    static <T extends Comparable<? super T>> T ceiling(List<? extends T> list, T key) {
+        int index = lowerBound(list, key);
+        return index < list.size() ? list.get(index) : null;
+    }
+}
+
+/**
+ * Iндекс для пошуку у вiдсортованому стовпцi з тими самими результатами, що й Arrays.binarySearch.
+ */
+interface SearchIndex {
+    /**
+     * @return Iндекс першого значення, рiвного key, або (-(точка вставки) - 1), якщо його немає.
+     */
+    int binarySearch(long key);
+
+    /**
+     * @return Позицiя першого значення, не меншого за key, або кiлькiсть значень, якщо такого немає.
+     */
+    int lowerBound(long key);
+
+    long heapBytes();
+}
+
+/**
+ * Клас LearnedIndex - кусково-лiнiйна модель розподiлу вiдсортованих ключiв (двоступенева
+ * RMI) з обмеженими вiкнами похибки.
+ * 
+ * <p>Перший ступiнь лiнiйно вiдображає ключ на один iз сегментiв рiвної ширини мiж
+ * найменшим i найбiльшим ключем, другий - iнтерполює позицiю всерединi сегмента мiж його
+ * межами. Для кожного сегмента при побудовi запам'ятовується найбiльша похибка передбачення,
+ * i пошук - це бiнарний пошук лише у вiкнi цiєї похибки навколо передбаченої позицiї.
+ * Вiдображення монотонне, тому шукана позицiя завжди в межах сегмента: якщо вiдсутнiй ключ
+ * опиняється за краєм вiкна, пошук продовжується бiнарним у решти сегмента.</p>
+ * 
+ * <p>На рiвномiрно розподiлених мiтках часу вiкно - кiлька елементiв, i пошук робить 2-4
+ * проби замiсть log2(n). Менше проб ще не означає швидший пошук: обчислення передбачення
+ * i непередбачуванi розгалуження можуть коштувати бiльше, нiж заощадженi промахи кешу.
+ * Тому {@link #fits()} за очiкуваною кiлькiстю проб лише вiдсiює явно невдалi розподiли,
+ * а {@link #measure()} вимiрює пошук iндексом i Arrays.binarySearch на тих самих даних.
+ * Iндекс займає 8 байт на сегмент з {@value #KEYS_PER_SEGMENT} ключiв; стовпець не копiюється.</p>
+ */
+class LearnedIndex implements SearchIndex {
+    /** Середня кiлькiсть ключiв у сегментi. */
+    static final int KEYS_PER_SEGMENT = 32;
+
+    /** Кiлькiсть запитiв у вимiрi {@link #measure()}. */
+    static final int MEASURE_QUERIES = 1 << 15;
+
+    /** Кiлькiсть запускiв вимiру, з яких береться найкращий. */
+    static final int MEASURE_ROUNDS = 5;
+
+    private final long[] values;
+    private final int segments;
+    private final int[] starts;
+    private final int[] errors;
+    private final double origin;
+    private final double scale;
+    private final double expectedProbes;
+    private long lookups;
+    private long probes;
+    private double measuredNanos = Double.NaN;
+    private double binarySearchNanos = Double.NaN;
+    private long measureChecksum;
+
+    /**
+     * @param sorted Вiдсортованi упакованi значення; масив використовується без копiювання.
+     */
+    LearnedIndex(long[] sorted) {
+        values = sorted;
+        segments = Math.max(1, sorted.length / KEYS_PER_SEGMENT);
+        starts = new int[segments + 1];
+        errors = new int[segments];
+
+        int size = sorted.length;
+        origin = size > 0 ? sorted[0] : 0;
+        double range = size > 0 ? (double) sorted[size - 1] - origin : 0;
+        scale = range > 0 ? segments / range : 0;
+
+        int filled = 0;
+        for (int i = 0; i < size; i++) {
+            int segment = segment(position(sorted[i]));
+            while (filled <= segment) {
+                starts[filled++] = i;
+            }
+        }
+        while (filled <= segments) {
+            starts[filled++] = size;
+        }
+
+        // похибка рахується для першого з однакових ключiв, бо саме його повертає пошук
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || sorted[i - 1] != sorted[i]) {
+                double position = position(sorted[i]);
+                int segment = segment(position);
+                errors[segment] = Math.max(errors[segment], Math.abs(i - predict(position, segment)));
+            }
+        }
+
+        double totalProbes = 0;
+        for (int segment = 0; segment < segments; segment++) {
+            int window = Math.min(2 * errors[segment] + 1, starts[segment + 1] - starts[segment]);
+            totalProbes += (double) (starts[segment + 1] - starts[segment]) * (32 - Integer.numberOfLeadingZeros(window));
+        }
+        expectedProbes = size > 0 ? totalProbes / size : 0;
+    }
+
+    private double position(long key) {
+        return ((double) key - origin) * scale;
+    }
+
+    private int segment(double position) {
+        return Math.min((int) position, segments - 1);
+    }
+
+    private int predict(double position, int segment) {
+        int from = starts[segment];
+        int to = starts[segment + 1];
+        return Math.min(to, from + (int) ((position - segment) * (to - from)));
+    }
+
+    @Override
+    public int binarySearch(long key) {
+        int index = lowerBound(key);
+        if (index == values.length) {
+            return -index - 1;
+        }
+        probes++;
+        return values[index] == key ? index : -index - 1;
+    }
+
+    @Override
+    public int lowerBound(long key) {
+        lookups++;
+        int size = values.length;
+        if (size == 0 || key <= values[0]) {
+            return 0;
+        }
+        if (key > values[size - 1]) {
+            return size;
+        }
+
+        double position = position(key);
+        int segment = segment(position);
+        int from = starts[segment];
+        int to = starts[segment + 1];
+        int predicted = predict(position, segment);
+        int low = Math.max(from, predicted - errors[segment]);
+        int high = Math.min(to, predicted + errors[segment] + 1);
+
+        int index = lowerBound(key, low, high);
+        if (index == low && low > from) {
+            probes++;
+            if (values[low - 1] >= key) {
+                index = lowerBound(key, from, low - 1);
+            }
+        } else if (index == high && high < to) {
+            probes++;
+            if (values[high] < key) {
+                index = lowerBound(key, high + 1, to);
+            }
+        }
+        return index;
+    }
+
+    private int lowerBound(long key, int from, int to) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            probes++;
+            if (values[middle] < key) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Повертає середню кiлькiсть проб на пошук за моделлю: двiйковий логарифм вiкна похибки
+     * сегмента, зважений кiлькiстю ключiв у ньому.
+     */
+    double expectedProbes() {
+        return expectedProbes;
+    }
+
+    /**
+     * Повертає найбiльшу кiлькiсть проб бiнарного пошуку по всьому стовпцю.
+     */
+    int binarySearchProbes() {
+        return 32 - Integer.numberOfLeadingZeros(values.length);
+    }
+
+    /**
+     * Перевiряє, чи пiдходить розподiл ключiв для iндексу: очiкувана кiлькiсть проб має
+     * бути не бiльшою за половину проб бiнарного пошуку.
+     */
+    boolean fits() {
+        return 2 * expectedProbes <= binarySearchProbes();
+    }
+
+    /**
+     * Вимiрює середнiй час пошуку через iндекс i через Arrays.binarySearch на
+     * {@value #MEASURE_QUERIES} випадкових запитах, половина з яких - вiдсутнi ключi
+     * (найкращий з {@value #MEASURE_ROUNDS} запускiв). Лiчильники проб пiсля вимiру скидаються.
+     * 
+     * @return true, якщо пошук через iндекс швидший за бiнарний.
+     */
+    boolean measure() {
+        if (values.length == 0) {
+            return false;
+        }
+        java.util.Random random = new java.util.Random(42);
+        long[] queries = new long[MEASURE_QUERIES];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = values[random.nextInt(values.length)] + (i & 1);
+        }
+
+        // кожен спосiб вимiрюється в окремому методi, щоб JIT компiлював обидва однаково
+        long indexCost = Long.MAX_VALUE;
+        long arrayCost = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURE_ROUNDS; round++) {
+            indexCost = Math.min(indexCost, timeIndexSearch(queries));
+            arrayCost = Math.min(arrayCost, timeArraySearch(queries));
+        }
+        resetProbes();
+
+        measuredNanos = (double) indexCost / queries.length;
+        binarySearchNanos = (double) arrayCost / queries.length;
+        return indexCost < arrayCost;
+    }
+
+    private long timeIndexSearch(long[] queries) {
+        long checksum = 0;
+        long startTime = System.nanoTime();
+        for (long query : queries) {
+            checksum += binarySearch(query);
+        }
+        long cost = System.nanoTime() - startTime;
+        // контрольна сума в полi не дає JIT вiдкинути пошуки
+        measureChecksum += checksum;
+        return cost;
+    }
+
+    private long timeArraySearch(long[] queries) {
+        long checksum = 0;
+        long startTime = System.nanoTime();
+        for (long query : queries) {
+            checksum += Arrays.binarySearch(values, query);
+        }
+        long cost = System.nanoTime() - startTime;
+        measureChecksum += checksum;
+        return cost;
+    }
+
+    /**
+     * Повертає вимiряний {@link #measure()} час пошуку через iндекс у наносекундах або NaN.
+     */
+    double measuredNanos() {
+        return measuredNanos;
+    }
+
+    /**
+     * Повертає вимiряний {@link #measure()} час Arrays.binarySearch у наносекундах або NaN.
+     */
+    double binarySearchNanos() {
+        return binarySearchNanos;
+    }
+
+    int segments() {
+        return segments;
+    }
+
+    /**
+     * Повертає середню похибку передбачення по сегментах.
+     */
+    double averageError() {
+        long total = 0;
+        for (int error : errors) {
+            total += error;
+        }
+        return (double) total / segments;
+    }
+
+    /**
+     * Повертає середню кiлькiсть прочитаних елементiв стовпця на пошук вiд створення
+     * iндексу або вiд останнього {@link #resetProbes()}.
+     */
+    double averageProbes() {
+        return lookups > 0 ? (double) probes / lookups : 0;
+    }
+
+    long lookups() {
+        return lookups;
+    }
+
+    void resetProbes() {
+        lookups = 0;
+        probes = 0;
+    }
+
+    @Override
+    public long heapBytes() {
+        return 32 + (long) (2 * segments + 1) * Integer.BYTES;
+    }
+}
+
+/**
+ * Клас StaticBTree - статичне B+ дерево для пошуку у вiдсортованому стовпцi. Листя дерева -
+ * це сам стовпець, роздiлений на вузли по {@value #NODE_SIZE} ключiв; кожен верхнiй рiвень
+ * зберiгає найбiльший ключ кожного вузла рiвня пiд ним, доки не лишиться один вузол.
+ * 
+ * <p>Бiнарний пошук у великому масивi на кожному з log2(n) крокiв стрибає на половину
+ * дiапазону, тож майже кожна проба - промах кешу i TLB. Тут на кожному з log16(n) рiвнiв
+ * читаються 16 сусiднiх ключiв (два рядки кешу), якi процесор завантажує паралельно,
+ * а позицiя в вузлi рахується без умовних переходiв як кiлькiсть менших ключiв.
+ * Для 100 мiльйонiв елементiв це 7 рiвнiв замiсть 27 крокiв.</p>
+ * 
+ * <p>Верхнi рiвнi займають близько n / 15 ключiв; стовпець не копiюється, тому будь-яка
+ * його змiна робить дерево недiйсним.</p>
+ */
+class StaticBTree implements SearchIndex {
+    /** Кiлькiсть ключiв у вузлi: 128 байт, два рядки кешу. */
+    static final int NODE_SIZE = 16;
+
+    private final long[] values;
+    private final long[][] levels;
+
+    /**
+     * @param sorted Вiдсортованi упакованi значення; масив використовується без копiювання.
+     */
+    StaticBTree(long[] sorted) {
+        values = sorted;
+
+        List<long[]> upper = new ArrayList<>();
+        long[] level = sorted;
+        int size = sorted.length;
+        while (size > NODE_SIZE) {
+            int nodes = (size + NODE_SIZE - 1) / NODE_SIZE;
+            // вузли доповнюються Long.MAX_VALUE, який нiколи не менший за ключ пошуку
+            long[] parent = new long[(nodes + NODE_SIZE - 1) / NODE_SIZE * NODE_SIZE];
+            Arrays.fill(parent, nodes, parent.length, Long.MAX_VALUE);
+            for (int node = 0; node < nodes; node++) {
+                parent[node] = level[Math.min(node * NODE_SIZE + NODE_SIZE, size) - 1];
+            }
+            upper.add(parent);
+            level = parent;
+            size = nodes;
+        }
+        Collections.reverse(upper);
+        levels = upper.toArray(new long[0][]);
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    @Override
+    public int binarySearch(long key) {
+        int index = lowerBound(key);
+        return index < values.length && values[index] == key ? index : -index - 1;
+    }
+
+    @Override
+    public int lowerBound(long key) {
+        if (values.length == 0 || values[values.length - 1] < key) {
+            return values.length;
+        }
+        // найбiльший ключ вузла не менший за key, тому в обраному вузлi вiн є завжди
+        int node = 0;
+        for (long[] level : levels) {
+            int from = node * NODE_SIZE;
+            node = from + countLess(level, from, from + NODE_SIZE, key);
+        }
+        int from = node * NODE_SIZE;
+        return from + countLess(values, from, Math.min(from + NODE_SIZE, values.length), key);
+    }
+
+    private static int countLess(long[] keys, int from, int to, long key) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            count += keys[i] < key ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Оцiнює пам'ять верхнiх рiвнiв дерева; листя - це сам стовпець.
+     */
+    @Override
+    public long heapBytes() {
+        long bytes = 16;
+        for (long[] level : levels) {
+            bytes += 16 + (long) level.length * Long.BYTES;
+        }
+        return bytes;
+    }
+}
+
+/**
+ * Клас ExternalSorter сортує файл з мiтками часу, який не вмiщується в пам'ять.
+ * 
+ * <p>Фаза серiй: файл читається потоком, значення розбираються TimestampCodec у буфер
+ * на runSize елементiв, кожен заповнений буфер сортується i скидається на диск як
+ * двiйкова серiя упакованих long. Фаза злиття: серiї зливаються купою по fanIn за раз,
+ * доки їх не лишиться не бiльше fanIn, а останнє злиття одразу пише текстовий файл
+ * у форматi LocalDateTime.toString. Якщо всi данi вмiстилися в одну серiю, вони
+ * сортуються й записуються без тимчасових файлiв.</p>
+ */
+class ExternalSorter {
+    private static final int MIN_MERGE_BUFFER = 1 << 16;
+
+    private final long memoryBudget;
+    private final int runSize;
+    private final int requestedFanIn;
+    private final int fanIn;
+    private final int mergeBufferSize;
+
+    int spillCount;
+    int mergePasses;
+    long rows;
+
+    /**
+     * @param memoryBudget Обсяг пам'ятi для буферiв сортування в байтах.
+     * @param runSize Кiлькiсть елементiв у серiї або 0, щоб визначити її з memoryBudget.
+     * @param fanIn Кiлькiсть серiй, що зливаються за один раз. Якщо fanIn + 1 буферiв
+     *              по MIN_MERGE_BUFFER не вмiщуються в memoryBudget, злиття звужується.
+     */
+    ExternalSorter(long memoryBudget, int runSize, int fanIn) {
+        if (memoryBudget < MIN_MERGE_BUFFER * 3L || fanIn < 2 || runSize < 0) {
+            throw new RuntimeException("Некоректнi параметри зовнiшнього сортування: пам'ять " + memoryBudget
+                    + " байт (потрiбно щонайменше " + MIN_MERGE_BUFFER * 3L + "), серiя " + runSize + ", злиття по " + fanIn);
+        }
+        // пiд час злиття в пам'ятi одночасно fanIn буферiв читання i один буфер запису
+        this.requestedFanIn = fanIn;
+        this.fanIn = (int) Math.min(fanIn, memoryBudget / MIN_MERGE_BUFFER - 1);
+        this.mergeBufferSize = (int) Math.min(Utils.READ_BUFFER_SIZE, memoryBudget / (this.fanIn + 1));
+        // пiд час фази серiй - масив серiї i буфер запису серiї
+        long maxRunSize = Math.min((memoryBudget - mergeBufferSize) / Long.BYTES, Integer.MAX_VALUE - 8);
+        this.memoryBudget = memoryBudget;
+        this.runSize = (int) (runSize == 0 ? maxRunSize : Math.min(runSize, maxRunSize));
+    }
+
+    /**
+     * Сортує текстовий файл з мiтками часу у вихiдний файл i виводить статистику.
+     * 
+     * @param pathToFile Шлях до вихiдного файлу.
+     * @param pathToSortedFile Шлях до вiдсортованого файлу.
+     * @throws IOException Якщо файли не вдалося прочитати або записати.
+     */
+    void sort(String pathToFile, String pathToSortedFile) throws IOException {
+        Path tempDirectory = Files.createTempDirectory(Path.of(pathToSortedFile).toAbsolutePath().getParent(), "external-sort");
+        try {
+            long startTime = System.nanoTime();
+            RunWriter runWriter = new RunWriter(tempDirectory);
+            try (InputStream in = Utils.openDataFile(pathToFile)) {
+                Utils.forEachLine(in, runWriter);
+            }
+            List<Path> runs = runWriter.finish();
+            long runPhaseTime = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            if (runs == null) {
+                writeSorted(runWriter.buffer, runWriter.size, pathToSortedFile);
+            } else {
+                runWriter.buffer = null;
+                while (runs.size() > fanIn) {
+                    runs = mergePass(runs, tempDirectory);
+                }
+                merge(runs, new TextOutput(pathToSortedFile));
+                mergePasses++;
+            }
+            long mergePhaseTime = System.nanoTime() - startTime;
+
+            System.out.println("\nЗовнiшнє сортування '" + pathToFile + "' (пам'ять " + memoryBudget + " байт, серiя "
+                    + runSize + " елементiв, злиття по " + fanIn
+                    + (fanIn < requestedFanIn ? " замiсть " + requestedFanIn + " через обмеження пам'ятi" : "") + "):");
+            System.out.println("  Рядкiв: " + rows + ", скинуто серiй на диск: " + spillCount + ", проходiв злиття: " + mergePasses);
+            System.out.printf("  Фаза серiй: %d наносекунд (%.0f рядкiв/с)%n", runPhaseTime, rows * 1_000_000_000.0 / Math.max(1, runPhaseTime));
+            System.out.printf("  Фаза злиття: %d наносекунд (%.0f рядкiв/с)%n", mergePhaseTime, rows * 1_000_000_000.0 / Math.max(1, mergePhaseTime));
+        } finally {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(tempDirectory)) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(tempDirectory);
+        }
+    }
+
+    /**
+     * Зливає серiї групами по fanIn у новi серiї.
+     */
+    private List<Path> mergePass(List<Path> runs, Path tempDirectory) throws IOException {
+        List<Path> merged = new ArrayList<>();
+        for (int from = 0; from < runs.size(); from += fanIn) {
+            List<Path> group = runs.subList(from, Math.min(runs.size(), from + fanIn));
+            Path run = Files.createTempFile(tempDirectory, "merge", ".run");
+            merge(group, new RunOutput(run));
+            for (Path source : group) {
+                Files.delete(source);
+            }
+            merged.add(run);
+            spillCount++;
+        }
+        mergePasses++;
+        return merged;
+    }
+
+    /**
+     * Зливає серiї за допомогою мiнiмальної купи курсорiв, впорядкованої за поточним значенням.
+     */
+    private void merge(List<Path> runs, MergeOutput output) throws IOException {
+        RunReader[] readers = new RunReader[runs.size()];
+        int[] heap = new int[runs.size()];
+        int heapSize = 0;
+
+        try {
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = new RunReader(runs.get(i), mergeBufferSize);
+                if (readers[i].advance()) {
+                    heap[heapSize] = i;
+                    siftUp(heap, heapSize++, readers);
+                }
+            }
+
+            while (heapSize > 0) {
+                RunReader top = readers[heap[0]];
+                output.write(top.current);
+                if (!top.advance()) {
+                    heap[0] = heap[--heapSize];
+                }
+                siftDown(heap, heapSize, readers);
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+            output.close();
+        }
+    }
+
+    private static void siftUp(int[] heap, int index, RunReader[] readers) {
+        int reader = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (readers[heap[parent]].current <= readers[reader].current) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = reader;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, RunReader[] readers) {
+        if (heapSize == 0) {
+            return;
+        }
+        int reader = heap[0];
+        int index = 0;
+        int half = heapSize >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < heapSize && readers[heap[child + 1]].current < readers[heap[child]].current) {
+                child++;
+            }
+            if (readers[reader].current <= readers[heap[child]].current) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = reader;
+    }
+
+    private void writeSorted(long[] buffer, int size, String pathToSortedFile) throws IOException {
+        RadixSort.sort(buffer, 0, size);
+        try (TextOutput output = new TextOutput(pathToSortedFile)) {
+            for (int i = 0; i < size; i++) {
+                output.write(buffer[i]);
+            }
+        }
+    }
+
+    /**
+     * Накопичує розiбранi значення i скидає кожну заповнену серiю на диск.
+     */
+    private class RunWriter implements Utils.LineConsumer {
+        private final Path tempDirectory;
+        private final List<Path> runs = new ArrayList<>();
+        long[] buffer = new long[Math.min(runSize, 1 << 16)];
+        int size;
+
+        RunWriter(Path tempDirectory) {
+            this.tempDirectory = tempDirectory;
+        }
+
+        @Override
+        public void accept(byte[] bytes, int offset, int length) {
+            if (size == buffer.length) {
+                if (size < runSize) {
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(runSize, size * 2L));
+                } else {
+                    spill();
+                }
+            }
+            buffer[size++] = TimestampCodec.decode(bytes, offset, length);
+            rows++;
+        }
+
+        /**
+         * Скидає останню серiю, якщо вже були iншi.
+         * 
+         * @return Список серiй або null, якщо всi данi вмiстилися в буфер.
+         */
+        List<Path> finish() {
+            if (runs.isEmpty()) {
+                return null;
+            }
+            if (size > 0) {
+                spill();
+            }
+            return runs;
+        }
+
+        private void spill() {
+            RadixSort.sort(buffer, 0, size);
+            try {
+                Path run = Files.createTempFile(tempDirectory, "run", ".run");
+                try (RunOutput output = new RunOutput(run)) {
+                    for (int i = 0; i < size; i++) {
+                        output.write(buffer[i]);
+                    }
+                }
+                runs.add(run);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            spillCount++;
+            size = 0;
+        }
+    }
+
+    /**
+     * Приймач злитих значень.
+     */
+    private interface MergeOutput extends AutoCloseable {
+        void write(long value) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Пише значення у двiйкову серiю по 8 байт.
+     */
+    private class RunOutput implements MergeOutput {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(mergeBufferSize);
+
+        RunOutput(Path run) throws IOException {
+            channel = FileChannel.open(run, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        @Override
+        public void write(long value) throws IOException {
+            if (buffer.remaining() < Long.BYTES) {
+                Utils.flush(buffer, channel, -1);
+            }
+            buffer.putLong(value);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                Utils.flush(buffer, channel, -1);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Пише значення у текстовий файл у форматi LocalDateTime.toString.
+     */
+    private class TextOutput implements MergeOutput {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer;
+
+        TextOutput(String pathToFile) throws IOException {
+            // стиснений файл має ще й буфер стиснення, тож бюджет злиття дiлиться мiж ними навпiл
+            boolean compressed = Utils.isCompressed(pathToFile);
+            int bufferSize = compressed ? mergeBufferSize / 2 : mergeBufferSize;
+            channel = Utils.openOutputChannel(pathToFile, bufferSize);
+            buffer = compressed ? ByteBuffer.allocate(bufferSize) : ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        @Override
+        public void write(long value) throws IOException {
+            if (buffer.remaining() < Utils.MAX_FORMATTED_LENGTH) {
+                Utils.flush(buffer, channel);
+            }
+            Utils.formatDateTime(TimestampCodec.toLocalDateTime(value), buffer);
+            buffer.put(Utils.LINE_SEPARATOR);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                Utils.flush(buffer, channel);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Курсор двiйкової серiї з власним буфером читання.
+     */
+    private static class RunReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        long current;
+
+        RunReader(Path run, int bufferSize) throws IOException {
+            channel = FileChannel.open(run, StandardOpenOption.READ);
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+            buffer.limit(0);
+        }
+
+        boolean advance() throws IOException {
+            if (buffer.remaining() < Long.BYTES) {
+                buffer.compact();
+                while (buffer.position() < Long.BYTES && channel.read(buffer) > 0) {
+                    // читати, доки не набереться хоча б одне значення
+                }
+                buffer.flip();
+                if (buffer.remaining() < Long.BYTES) {
+                    return false;
+                }
+            }
+            current = buffer.getLong();
+            return true;
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
+
+/**
+ * Клас InflatingInputStream розпаковує стиснений потiк в окремому потоцi виконання,
+ * щоб розбiр рядкiв iшов одночасно з розпаковуванням.
+ * 
+ * <p>Фоновий потiк читає розпакованi данi блоками по {@value #CHUNK_SIZE} байт у
+ * обмежену чергу, а читач забирає їх звiдти i повертає порожнi блоки назад. Тому
+ * в пам'ятi одночасно не бiльше {@value #CHUNKS} блокiв, i новi не видiляються.</p>
+ */
+class InflatingInputStream extends InputStream {
+    static final int INFLATER_BUFFER_SIZE = 1 << 18;
+    static final int CHUNK_SIZE = 1 << 20;
+    static final int CHUNKS = 4;
+
+    private static final Chunk END = new Chunk(0);
+
+    private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(CHUNKS + 1);
+    private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(CHUNKS);
+    private final Thread inflater;
+    private volatile IOException failure;
+    private Chunk current;
+    private int position;
+
+    /**
+     * @param source Потiк, що розпаковує данi (GZIPInputStream або InflaterInputStream).
+     */
+    InflatingInputStream(InputStream source) {
+        for (int i = 0; i < CHUNKS; i++) {
+            free.add(new Chunk(CHUNK_SIZE));
+        }
+        inflater = new Thread(() -> inflate(source), "inflater");
+        inflater.setDaemon(true);
+        inflater.start();
+    }
+
+    private void inflate(InputStream source) {
+        try (InputStream in = source) {
+            while (true) {
+                Chunk chunk = free.take();
+                chunk.length = in.readNBytes(chunk.data, 0, chunk.data.length);
+                if (chunk.length > 0) {
+                    filled.put(chunk);
+                }
+                if (chunk.length < chunk.data.length) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return;
+        }
+        filled.add(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (current == null || (current != END && position == current.length)) {
+            if (current != null) {
+                free.add(current);
+            }
+            try {
+                current = filled.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Розпаковування перервано");
+            }
+            position = 0;
+        }
+        if (current == END) {
+            if (failure != null) {
+                throw failure;
+            }
+            return -1;
+        }
+
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current.data, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.interrupt();
+        try {
+            inflater.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Блок розпакованих даних.
+     */
+    private static class Chunk {
+        final byte[] data;
+        int length;
+
+        Chunk(int size) {
+            data = new byte[size];
+        }
+    }
+}
+
+/**
+ * Клас TimestampSidecar описує двiйковий кеш файлу з мiтками часу, який лежить поруч
+ * з ним з суфiксом ".bin" (наприклад, "list/LocalDateTime.data.bin").
+ * 
+ * <p>Формат (big-endian): заголовок {@value #HEADER_SIZE} байт - сигнатура, версiя,
+ * розмiр i час змiни вихiдного файлу, кiлькiсть рядкiв, ознака вiдсортованостi,
+ * мiнiмум i максимум; далi колонка упакованих значень TimestampCodec по 8 байт у
+ * порядку рядкiв вихiдного файлу.</p>
+ * 
+ * <p>Кеш вважається застарiлим, якщо розмiр або час змiни вихiдного файлу не
+ * збiгаються iз записаними в заголовку.</p>
+ */
+class TimestampSidecar {
+    static final String SUFFIX = ".bin";
+    static final int MAGIC = 0x4C445443;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    final int rowCount;
+    final boolean sorted;
+    final long min;
+    final long max;
+    final LongBuffer column;
+
+    private TimestampSidecar(int rowCount, boolean sorted, long min, long max, LongBuffer column) {
+        this.rowCount = rowCount;
+        this.sorted = sorted;
+        this.min = min;
+        this.max = max;
+        this.column = column;
+    }
+
+    /**
+     * Вiдображає в пам'ять кеш для файлу з даними.
+     * 
+     * @param pathToFile Шлях до вихiдного текстового файлу.
+     * @return Кеш або null, якщо його немає, вiн застарiв чи пошкоджений.
+     * @throws IOException Якщо кеш не вдалося прочитати.
+     */
+    static TimestampSidecar open(String pathToFile) throws IOException {
+        Path source = Path.of(pathToFile);
+        Path sidecar = Path.of(pathToFile + SUFFIX);
+        if (!Files.exists(sidecar)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getLong() != Files.size(source)
+                    || header.getLong() != Files.getLastModifiedTime(source).toMillis()) {
+                return null;
+            }
+
+            long rowCount = header.getLong();
+            boolean sorted = header.get() != 0;
+            header.position(header.position() + 7);
+            long min = header.getLong();
+            long max = header.getLong();
+            if (rowCount > Integer.MAX_VALUE - 8 || channel.size() != HEADER_SIZE + rowCount * Long.BYTES) {
+                return null;
+            }
+
+            LongBuffer column = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, rowCount * Long.BYTES).asLongBuffer();
+            return new TimestampSidecar((int) rowCount, sorted, min, max, column);
+        }
+    }
+
+    /**
+     * Записує кеш для файлу з даними. Кеш спочатку пишеться у тимчасовий файл, а потiм
+     * атомарно замiнює попереднiй, тому читач нiколи не бачить недописаний кеш.
+     * 
+     * @param pathToFile Шлях до вихiдного текстового файлу.
+     * @param sourceSize Розмiр вихiдного файлу перед його читанням.
+     * @param sourceModified Час змiни вихiдного файлу перед його читанням у мiлiсекундах.
+     * @param column Упакованi значення в порядку рядкiв вихiдного файлу.
+     * @throws IOException Якщо кеш не вдалося записати.
+     */
+    static void write(String pathToFile, long sourceSize, long sourceModified, long[] column) throws IOException {
+        boolean sorted = true;
+        long min = column.length > 0 ? column[0] : 0;
+        long max = min;
+        for (int i = 1; i < column.length; i++) {
+            sorted &= column[i - 1] <= column[i];
+            min = Math.min(min, column[i]);
+            max = Math.max(max, column[i]);
+        }
+
+        Path sidecar = Path.of(pathToFile + SUFFIX);
+        Path temp = Path.of(pathToFile + SUFFIX + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Utils.READ_BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(sourceSize).putLong(sourceModified).putLong(column.length);
+            buffer.put((byte) (sorted ? 1 : 0)).put(new byte[7]).putLong(min).putLong(max);
+            buffer.position(HEADER_SIZE);
+
+            for (long value : column) {
+                if (!buffer.hasRemaining()) {
+                    writeFully(channel, buffer);
+                }
+                buffer.putLong(value);
+            }
+            writeFully(channel, buffer);
+        }
+        Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
+
+/**
+ * Клас SortPipeline сортує файл з мiтками часу конвеєром з чотирьох етапiв, з'єднаних
+ * обмеженими чергами, щоб читання, розбiр, злиття i запис iшли одночасно.
+ * 
+ * <ul>
+ *   <li>читання - потiк читає файл блоками по {@value #CHUNK_SIZE} байт, вирiвняними
+ *       по межi рядка;</li>
+ *   <li>розбiр - workers потокiв розбирають блоки TimestampCodec i сортують кожен у
+ *       окрему серiю;</li>
+ *   <li>злиття - викликаючий потiк зливає серiї в мiру надходження, як стек серiй у
+ *       TimSort, а в кiнцi зливає решту купою i вiддає результат порцiями;</li>
+ *   <li>запис - потiк форматує порцiї у вiдсортований файл, поки злиття ще триває.</li>
+ * </ul>
+ * 
+ * <p>Для кожного етапу рахується кiлькiсть оброблених даних, час роботи i час
+ * очiкування на черги, тож етап, який майже не чекає, i є вузьким мiсцем.</p>
+ */
+class SortPipeline {
+    static final int CHUNK_SIZE = 1 << 20;
+    static final int QUEUE_CAPACITY = 4;
+    static final int BLOCK_SIZE = 1 << 16;
+
+    private static final byte[] CHUNKS_END = new byte[0];
+    private static final long[] RUNS_END = new long[0];
+
+    private final int workers;
+    private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final BlockingQueue<long[]> runs;
+    private final BlockingQueue<long[]> blocks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final Stage reader = new Stage("читання", "байт");
+    private final Stage parser = new Stage("розбiр i сортування серiй", "рядкiв");
+    private final Stage merger = new Stage("злиття", "рядкiв");
+    private final Stage writer = new Stage("запис", "байт");
+
+    /**
+     * @param workers Кiлькiсть потокiв розбору.
+     */
+    SortPipeline(int workers) {
+        if (workers < 1) {
+            throw new RuntimeException("Некоректна кiлькiсть потокiв розбору: " + workers);
+        }
+        this.workers = workers;
+        this.runs = new ArrayBlockingQueue<>(QUEUE_CAPACITY + workers);
+    }
+
+    /**
+     * Сортує файл у вiдсортований файл i виводить статистику етапiв.
+     * 
+     * @param pathToFile Шлях до вихiдного файлу, можливо стисненого.
+     * @param pathToSortedFile Шлях до вiдсортованого файлу.
+     * @throws IOException Якщо файли не вдалося прочитати або записати.
+     */
+    void sort(String pathToFile, String pathToSortedFile) throws IOException {
+        long startTime = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 2);
+        try {
+            Future<?> readTask = executor.submit(() -> read(pathToFile));
+            List<Future<?>> parseTasks = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                parseTasks.add(executor.submit(this::parse));
+            }
+            Future<?> writeTask = executor.submit(() -> write(pathToSortedFile));
+
+            merge();
+
+            // етап розбору перевiряється першим: якщо вiн впав, читання може чекати на чергу
+            for (Future<?> parseTask : parseTasks) {
+                parseTask.get();
+            }
+            writeTask.get();
+            readTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Конвеєр перервано");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        long duration = System.nanoTime() - startTime;
+
+        System.out.println("\nКонвеєрне сортування '" + pathToFile + "' (потокiв розбору: " + workers + "): "
+                + merger.items + " рядкiв за " + duration + " наносекунд ("
+                + String.format("%.0f", merger.items * 1_000_000_000.0 / Math.max(1, duration)) + " рядкiв/с)");
+        Stage bottleneck = null;
+        for (Stage stage : new Stage[] {reader, parser, merger, writer}) {
+            stage.print(duration);
+            if (bottleneck == null || stage.blockedShare(duration) < bottleneck.blockedShare(duration)) {
+                bottleneck = stage;
+            }
+        }
+        System.out.println("  Вузьке мiсце: " + bottleneck.name);
+    }
+
+    /**
+     * Етап читання: передає блоки файлу, що закiнчуються повним рядком.
+     */
+    private void read(String pathToFile) {
+        long startTime = System.nanoTime();
+        try (InputStream in = Utils.openDataFile(pathToFile)) {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int filled = 0;
+            int read;
+            while ((read = in.readNBytes(buffer, filled, buffer.length - filled)) > 0) {
+                filled += read;
+                reader.items += read;
+
+                int end = filled;
+                while (end > 0 && buffer[end - 1] != '\n') {
+                    end--;
+                }
+                if (end == 0) {
+                    // рядок довший за блок
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+
+                byte[] next = new byte[Math.max(CHUNK_SIZE, 2 * (filled - end))];
+                System.arraycopy(buffer, end, next, 0, filled - end);
+                put(chunks, end == buffer.length ? buffer : Arrays.copyOf(buffer, end), reader);
+                buffer = next;
+                filled -= end;
+            }
+            if (filled > 0) {
+                put(chunks, Arrays.copyOf(buffer, filled), reader);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            put(chunks, CHUNKS_END, reader);
+            reader.finish(startTime);
+        }
+    }
+
+    /**
+     * Етап розбору: перетворює кожен блок на вiдсортовану серiю упакованих значень.
+     */
+    private void parse() {
+        long startTime = System.nanoTime();
+        Stage stage = new Stage(parser.name, parser.unit);
+        try {
+            byte[] chunk;
+            while ((chunk = take(chunks, stage)) != CHUNKS_END) {
+                Utils.EpochNanosBuilder builder = new Utils.EpochNanosBuilder(chunk.length / 24);
+                Utils.forEachLine(chunk, 0, chunk.length, builder);
+                long[] sorted = builder.toArray();
+                RadixSort.sort(sorted);
+                stage.items += sorted.length;
+                put(runs, sorted, stage);
+            }
+            // повернути ознаку кiнця для iнших потокiв розбору
+            put(chunks, CHUNKS_END, stage);
+        } finally {
+            put(runs, RUNS_END, stage);
+            stage.finish(startTime);
+            parser.add(stage);
+        }
+    }
+
+    /**
+     * Етап злиття: тримає стек серiй, де кожна серiя бiльш нiж удвiчi довша за наступну,
+     * i зливає верхнi серiї, щойно це правило порушується.
+     */
+    private void merge() {
+        long startTime = System.nanoTime();
+        List<long[]> stack = new ArrayList<>();
+        try {
+            int finishedWorkers = 0;
+            while (finishedWorkers < workers) {
+                long[] run = take(runs, merger);
+                if (run == RUNS_END) {
+                    finishedWorkers++;
+                    continue;
+                }
+                stack.add(run);
+                while (stack.size() > 1 && stack.get(stack.size() - 2).length <= 2 * stack.get(stack.size() - 1).length) {
+                    long[] right = stack.remove(stack.size() - 1);
+                    long[] left = stack.remove(stack.size() - 1);
+                    stack.add(mergeTwo(left, right));
+                }
+            }
+            mergeToBlocks(stack);
+        } finally {
+            put(blocks, RUNS_END, merger);
+            merger.finish(startTime);
+        }
+    }
+
+    private static long[] mergeTwo(long[] left, long[] right) {
+        long[] merged = new long[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < merged.length; k++) {
+            merged[k] = j == right.length || (i < left.length && left[i] <= right[j]) ? left[i++] : right[j++];
+        }
+        return merged;
+    }
+
+    /**
+     * Зливає решту серiй купою курсорiв i вiддає результат порцiями по {@value #BLOCK_SIZE}.
+     */
+    private void mergeToBlocks(List<long[]> stack) {
+        long[][] sources = stack.toArray(new long[0][]);
+        int[] positions = new int[sources.length];
+        int[] heap = new int[sources.length];
+        int heapSize = 0;
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i].length > 0) {
+                heap[heapSize] = i;
+                siftUp(heap, heapSize++, sources, positions);
+            }
+        }
+
+        long[] block = new long[BLOCK_SIZE];
+        int size = 0;
+        while (heapSize > 0) {
+            int source = heap[0];
+            block[size++] = sources[source][positions[source]++];
+            if (size == block.length) {
+                merger.items += size;
+                put(blocks, block, merger);
+                block = new long[BLOCK_SIZE];
+                size = 0;
+            }
+            if (positions[source] == sources[source].length) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heapSize, sources, positions);
+        }
+        if (size > 0) {
+            merger.items += size;
+            put(blocks, Arrays.copyOf(block, size), merger);
+        }
+    }
+
+    private static void siftUp(int[] heap, int index, long[][] sources, int[] positions) {
+        int source = heap[index];
+        long value = sources[source][positions[source]];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (sources[heap[parent]][positions[heap[parent]]] <= value) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = source;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, long[][] sources, int[] positions) {
+        if (heapSize == 0) {
+            return;
+        }
+        int source = heap[0];
+        long value = sources[source][positions[source]];
+        int index = 0;
+        int half = heapSize >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < heapSize && sources[heap[child + 1]][positions[heap[child + 1]]] < sources[heap[child]][positions[heap[child]]]) {
+                child++;
+            }
+            if (value <= sources[heap[child]][positions[heap[child]]]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = source;
+    }
+
+    /**
+     * Етап запису: форматує порцiї у файл. Пiсля помилки запису порцiї далi лише
+     * забираються з черги, щоб злиття не заблокувалося.
+     */
+    private void write(String pathToSortedFile) {
+        long startTime = System.nanoTime();
+        IOException failure = null;
+        boolean compressed = Utils.isCompressed(pathToSortedFile);
+        try (WritableByteChannel channel = Utils.openOutputChannel(pathToSortedFile, Utils.WRITE_BUFFER_SIZE)) {
+            ByteBuffer buffer = compressed ? ByteBuffer.allocate(Utils.WRITE_BUFFER_SIZE) : ByteBuffer.allocateDirect(Utils.WRITE_BUFFER_SIZE);
+            long[] block;
+            while ((block = take(blocks, writer)) != RUNS_END) {
+                if (failure != null) {
+                    continue;
+                }
+                try {
+                    for (long value : block) {
+                        if (buffer.remaining() < Utils.MAX_FORMATTED_LENGTH) {
+                            writer.items += Utils.flush(buffer, channel);
+                        }
+                        Utils.formatDateTime(TimestampCodec.toLocalDateTime(value), buffer);
+                        buffer.put(Utils.LINE_SEPARATOR);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure == null) {
+                writer.items += Utils.flush(buffer, channel);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            writer.finish(startTime);
+        }
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T item, Stage stage) {
+        long startTime = System.nanoTime();
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Конвеєр перервано", e);
+        } finally {
+            stage.blocked += System.nanoTime() - startTime;
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> queue, Stage stage) {
+        long startTime = System.nanoTime();
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Конвеєр перервано", e);
+        } finally {
+            stage.blocked += System.nanoTime() - startTime;
+        }
+    }
+
+    /**
+     * Лiчильники одного етапу. Кожен потiк етапу розбору веде власнi лiчильники, якi
+     * наприкiнцi додаються до спiльних.
+     */
+    private static class Stage {
+        final String name;
+        final String unit;
+        long items;
+        long blocked;
+        long elapsed;
+        int threads;
+
+        Stage(String name, String unit) {
+            this.name = name;
+            this.unit = unit;
+        }
+
+        void finish(long startTime) {
+            elapsed += System.nanoTime() - startTime;
+            threads++;
+        }
+
+        synchronized void add(Stage stage) {
+            items += stage.items;
+            blocked += stage.blocked;
+            elapsed += stage.elapsed;
+            threads += stage.threads;
+        }
+
+        double blockedShare(long duration) {
+            return (double) blocked / Math.max(1, Math.max(elapsed, duration * threads));
+        }
+
+        void print(long duration) {
+            long busy = Math.max(1, elapsed - blocked);
+            System.out.printf("  %s: %d %s, %.0f %s/с у роботi, очiкування %d наносекунд (%.0f%%)%n", name, items, unit,
+                    items * 1_000_000_000.0 / busy * threads, unit, blocked / Math.max(1, threads),
+                    blockedShare(duration) * 100);
+        }
+    }
+}
+
+/**
+ * Клас SortSnapshot описує стан вiдсортованого файлу, який лежить поруч з ним з
+ * суфiксом ".state" (наприклад, "list/LocalDateTime.data.sorted.state").
+ * 
+ * <p>Формат (big-endian): сигнатура, версiя, довжина префiкса вихiдного файлу в байтах,
+ * CRC32 цього префiкса, кiлькiсть рядкiв у ньому, розмiр i час змiни вiдсортованого
+ * файлу. Вiдсортований файл мiстить саме рядки цього префiкса, тому, поки префiкс не
+ * змiнився, а до файлу лише дописувались рядки, сортувати заново потрiбно тiльки хвiст.</p>
+ */
+class SortSnapshot {
+    static final String SUFFIX = ".state";
+    static final int MAGIC = 0x4C445353;
+    static final int VERSION = 1;
+    static final int SIZE = 48;
+
+    final long prefixBytes;
+    final int prefixRows;
+
+    private SortSnapshot(long prefixBytes, int prefixRows) {
+        this.prefixBytes = prefixBytes;
+        this.prefixRows = prefixRows;
+    }
+
+    /**
+     * Зчитує стан вiдсортованого файлу i перевiряє, що вiн досi дiйсний.
+     * 
+     * @param pathToFile Шлях до вихiдного текстового файлу.
+     * @param pathToSortedFile Шлях до вiдсортованого файлу.
+     * @return Стан або null, якщо його немає, вiдсортований файл змiнився чи префiкс
+     *         вихiдного файлу вже не збiгається iз записаним.
+     * @throws IOException Якщо файли не вдалося прочитати.
+     */
+    static SortSnapshot open(String pathToFile, String pathToSortedFile) throws IOException {
+        Path source = Path.of(pathToFile);
+        Path sorted = Path.of(pathToSortedFile);
+        Path state = Path.of(pathToSortedFile + SUFFIX);
+        if (!Files.exists(state) || !Files.exists(sorted)) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(state));
+        if (buffer.remaining() != SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return null;
+        }
+        long prefixBytes = buffer.getLong();
+        long prefixCrc = buffer.getLong();
+        long prefixRows = buffer.getLong();
+        if (buffer.getLong() != Files.size(sorted)
+                || buffer.getLong() != Files.getLastModifiedTime(sorted).toMillis()
+                || prefixBytes > Files.size(source) || prefixRows > Integer.MAX_VALUE - 8
+                || checksum(source, prefixBytes) != prefixCrc) {
+            return null;
+        }
+        return new SortSnapshot(prefixBytes, (int) prefixRows);
+    }
+
+    /**
+     * Записує стан щойно записаного вiдсортованого файлу. Стан не записується, якщо
+     * вихiдний файл змiнився пiсля читання або не закiнчується переведенням рядка,
+     * бо тодi дописаний текст продовжив би останнiй рядок префiкса, а також для
+     * стисненого вихiдного файлу, де останнiй байт не вiдповiдає кiнцю тексту.
+     * 
+     * @param pathToFile Шлях до вихiдного текстового файлу.
+     * @param pathToSortedFile Шлях до вiдсортованого файлу.
+     * @param sourceSize Розмiр вихiдного файлу перед його читанням.
+     * @param rowCount Кiлькiсть рядкiв, прочитаних з вихiдного файлу.
+     * @throws IOException Якщо стан не вдалося записати.
+     */
+    static void write(String pathToFile, String pathToSortedFile, long sourceSize, int rowCount) throws IOException {
+        Path source = Path.of(pathToFile);
+        Path sorted = Path.of(pathToSortedFile);
+        Path state = Path.of(pathToSortedFile + SUFFIX);
+        if (Utils.isCompressed(pathToFile) || Files.size(source) != sourceSize || !endsWithLineFeed(source, sourceSize)) {
+            Files.deleteIfExists(state);
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(sourceSize).putLong(checksum(source, sourceSize)).putLong(rowCount);
+        buffer.putLong(Files.size(sorted)).putLong(Files.getLastModifiedTime(sorted).toMillis());
+
+        Path temp = Path.of(pathToSortedFile + SUFFIX + ".tmp");
+        Files.write(temp, buffer.array());
+        Files.move(temp, state, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long checksum(Path source, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Utils.READ_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long position = 0;
+            while (position < length) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), length - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    return -1;
+                }
+                buffer.flip();
+                crc.update(buffer);
+                position += read;
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static boolean endsWithLineFeed(Path source, long size) throws IOException {
+        if (size == 0) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            return channel.read(last, size - 1) == 1 && last.get(0) == '\n';
+        }
+    }
+}
+
+/**
+ * Клас TimestampCodec перетворює мiтки часу у формi ISO-8601 на упакований long -
+ * кiлькiсть наносекунд вiд 1970-01-01T00:00:00 без урахування часового поясу, так само
+ * як LocalDateTime iгнорує суфiкс "Z".
+ * 
+ * <p>Рядки фiксованої форми {@code yyyy-MM-ddTHH:mm[:ss[.fffffffff]][Z]} розбираються
+ * прямо з байтiв або символiв без створення жодних об'єктiв. Рядки iншої форми
+ * передаються стандартному DateTimeFormatter.ISO_DATE_TIME.</p>
+ * 
+ * <p>Упакований long охоплює роки вiд 1677 до 2262. Рядок з мiткою часу поза цим
+ * дiапазоном не розбирається: decode кидає RuntimeException з текстом рядка i межами
+ * дiапазону.</p>
+ */
+class TimestampCodec {
+    static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+
+    private TimestampCodec() {
+    }
+
+    /**
+     * Розбирає мiтку часу з дiапазону байтiв у кодуваннi ASCII.
+     * 
+     * @param buffer Буфер з байтами рядка.
+     * @param offset Початок рядка в буферi.
+     * @param length Довжина рядка.
+     * @return Кiлькiсть наносекунд вiд 1970-01-01T00:00:00.
+     * @throws RuntimeException Якщо мiтка часу поза дiапазоном упакованого long.
+     */
+    static long decode(byte[] buffer, int offset, int length) {
+        long epochNanos = decodeFixedWidth(buffer, null, offset, length);
+        if (epochNanos != Long.MIN_VALUE) {
+            return epochNanos;
+        }
+        String text = new String(buffer, offset, length, StandardCharsets.US_ASCII);
+        return pack(LocalDateTime.parse(text, DateTimeFormatter.ISO_DATE_TIME), text);
+    }
+
+    /**
+     * Розбирає мiтку часу з рядка.
+     * 
+     * @param text Рядок з мiткою часу.
+     * @return Кiлькiсть наносекунд вiд 1970-01-01T00:00:00.
+     * @throws RuntimeException Якщо мiтка часу поза дiапазоном упакованого long.
+     */
+    static long decode(CharSequence text) {
+        long epochNanos = decodeFixedWidth(null, text, 0, text.length());
+        if (epochNanos != Long.MIN_VALUE) {
+            return epochNanos;
+        }
+        return pack(LocalDateTime.parse(text, DateTimeFormatter.ISO_DATE_TIME), text);
+    }
+
+    /**
+     * Упаковує розiбрану мiтку часу, а якщо вона поза дiапазоном упакованого long, кидає
+     * RuntimeException з текстом рядка замiсть ArithmeticException.
+     */
+    private static long pack(LocalDateTime dateTime, CharSequence text) {
+        try {
+            return toEpochNanos(dateTime);
+        } catch (ArithmeticException e) {
+            throw new RuntimeException("Мiтку часу '" + text + "' не можна упакувати: пiдтримуються значення вiд "
+                    + toLocalDateTime(Long.MIN_VALUE) + " до " + toLocalDateTime(Long.MAX_VALUE), e);
+        }
+    }
+
+    /**
+     * Перетворює LocalDateTime на упакований long.
+     * 
+     * @param dateTime Дата i час.
+     * @return Кiлькiсть наносекунд вiд 1970-01-01T00:00:00.
+     * @throws ArithmeticException Якщо дата виходить за межi упакованого long.
+     */
+    static long toEpochNanos(LocalDateTime dateTime) {
+        long epochSecond = dateTime.toEpochSecond(ZoneOffset.UTC);
+        return Math.addExact(Math.multiplyExact(epochSecond, NANOS_PER_SECOND), dateTime.getNano());
+    }
+
+    /**
+     * Перетворює упакований long на LocalDateTime.
+     * 
+     * @param epochNanos Кiлькiсть наносекунд вiд 1970-01-01T00:00:00.
+     * @return Дата i час.
+     */
+    static LocalDateTime toLocalDateTime(long epochNanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(epochNanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+
+    /**
+     * Розбирає рядок фiксованої форми. Символи беруться з bytes, якщо вiн не null, iнакше з chars.
+     * 
+     * @return Кiлькiсть наносекунд або Long.MIN_VALUE, якщо рядок має iншу форму.
+     */
+    private static long decodeFixedWidth(byte[] bytes, CharSequence chars, int offset, int length) {
+        if (length > 0 && charAt(bytes, chars, offset + length - 1) == 'Z') {
+            length--;
+        }
+        if (length < 16 || charAt(bytes, chars, offset + 4) != '-' || charAt(bytes, chars, offset + 7) != '-'
+                || charAt(bytes, chars, offset + 10) != 'T' || charAt(bytes, chars, offset + 13) != ':') {
+            return Long.MIN_VALUE;
+        }
+
+        int year = digits(bytes, chars, offset, 4);
+        int month = digits(bytes, chars, offset + 5, 2);
+        int day = digits(bytes, chars, offset + 8, 2);
+        int hour = digits(bytes, chars, offset + 11, 2);
+        int minute = digits(bytes, chars, offset + 14, 2);
+        int second = 0;
+        int nano = 0;
+
+        if (length > 16) {
+            if (length < 19 || charAt(bytes, chars, offset + 16) != ':') {
+                return Long.MIN_VALUE;
+            }
+            second = digits(bytes, chars, offset + 17, 2);
+
+            if (length > 19) {
+                int fractionDigits = length - 20;
+                if (charAt(bytes, chars, offset + 19) != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                    return Long.MIN_VALUE;
+                }
+                nano = digits(bytes, chars, offset + 20, fractionDigits);
+                for (int i = fractionDigits; i < 9 && nano >= 0; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+
+        if (year < 1678 || year > 2261 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || nano < 0) {
+            return Long.MIN_VALUE;
+        }
+
+        long secondOfDay = hour * 3_600L + minute * 60L + second;
+        return (epochDay(year, month, day) * SECONDS_PER_DAY + secondOfDay) * NANOS_PER_SECOND + nano;
+    }
+
+    private static int charAt(byte[] bytes, CharSequence chars, int index) {
+        return bytes != null ? bytes[index] : chars.charAt(index);
+    }
+
+    /**
+     * Розбирає count десяткових цифр, повертає -1, якщо трапився iнший символ.
+     */
+    private static int digits(byte[] bytes, CharSequence chars, int offset, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int digit = charAt(bytes, chars, offset + i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Кiлькiсть днiв вiд 1970-01-01 за тим самим алгоритмом, що й LocalDate.toEpochDay.
+     */
+    private static long epochDay(int year, int month, int day) {
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
@@ -0,0 +1,1598 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Клас BasicDataOperationUsingPrimitives надає методи для виконання основних операцiй з числовими даними
+ * типiв int, long, short, byte, float та double.
+ *
+ * <p>Цей клас зчитує данi з файлу "list/&lt;тип&gt;.data" у масив примiтивiв (int[], long[], double[] тощо),
+ * сортує їх та виконує пошук значення в масивi, списку, множинi та черзi. Списком, множиною та чергою
+ * слугують примiтивнi колекцiї {@link LongArrayList}, {@link LongOpenHashSet} i {@link LongHeap}.
+ * Кожна операцiя також виконується на упакованих значеннях у масивi Object[], ArrayList, HashSet
+ * i PriorityQueue, а час виконання та об'єм кучi виводяться поруч.</p>
+ *
+ * <p>Основнi методи:</p>
+ * <ul>
+ *   <li>{@link #main(String[])} - Точка входу в програму.</li>
+ *   <li>{@link #doDataOperation()} - Виконує основнi операцiї з даними.</li>
+ *   <li>{@link #sortArray()} - Сортує масив.</li>
+ *   <li>{@link #searchArray()} - Виконує пошук значення в масивi.</li>
+ *   <li>{@link #findMinAndMaxInArray()} - Знаходить мiнiмальне та максимальне значення в масивi.</li>
+ *   <li>{@link #sortList()} - Сортує список.</li>
+ *   <li>{@link #searchList()} - Виконує пошук значення в списку.</li>
+ *   <li>{@link #findMinAndMaxInList()} - Знаходить мiнiмальне та максимальне значення в списку.</li>
+ *   <li>{@link #searchSet()} - Виконує пошук значення в множинi.</li>
+ *   <li>{@link #findMinAndMaxInSet()} - Знаходить мiнiмальне та максимальне значення в множинi.</li>
+ *   <li>{@link #compareArrayAndSet()} - Порiвнює елементи масиву та множини.</li>
+ *   <li>{@link #searchQueue()} - Виконує пошук значення в черзi.</li>
+ *   <li>{@link #findMinAndMaxInQueue()} - Знаходить мiнiмальне та максимальне значення в черзi.</li>
+ *   <li>{@link #peekAndPollQueue()} - Виконує операцiї peek та poll з чергою.</li>
+ * </ul>
+ *
+ * <p>Конструктор:</p>
+ * <ul>
+ *   <li>{@link #BasicDataOperationUsingPrimitives(String[])} - iнiцiалiзує об'єкт з типом даних i значенням для пошуку.</li>
+ * </ul>
+ *
+ * <p>Константи:</p>
+ * <ul>
+ *   <li>{@link #PATH_TO_DATA_DIRECTORY} - Шлях до каталогу з файлами даних.</li>
+ * </ul>
+ *
+ * <p>Змiннi екземпляра:</p>
+ * <ul>
+ *   <li>{@link #column} - Масив примiтивiв.</li>
+ *   <li>{@link #keyToSearch} - Значення для пошуку у виглядi впорядкованого ключа long.</li>
+ *   <li>{@link #primitiveList}, {@link #primitiveSet}, {@link #primitiveQueue} - Примiтивнi колекцiї.</li>
+ *   <li>{@link #boxedArray}, {@link #boxedList}, {@link #boxedSet}, {@link #boxedQueue} - Упакованi аналоги.</li>
+ * </ul>
+ *
+ * <p>Приклад використання:</p>
+ * <pre>
+ * {@code
+ * java BasicDataOperationUsingPrimitives int "-123456789"
+ * java BasicDataOperationUsingPrimitives double "4.9E-324"
+ * java BasicDataOperationUsingPrimitives --compare-sorts
+ * }
+ * </pre>
+ */
+public class BasicDataOperationUsingPrimitives {
+    static final String PATH_TO_DATA_DIRECTORY = "list/";
+
+    PrimitiveColumn column;
+    long keyToSearch;
+    Object boxedValueToSearch;
+
+    LongArrayList primitiveList;
+    LongOpenHashSet primitiveSet;
+    LongHeap primitiveQueue;
+
+    Object[] boxedArray;
+    List<Object> boxedList;
+    Set<Object> boxedSet;
+    Queue<Object> boxedQueue;
+
+    public static void main(String[] args) {
+        if (Utils.hasOption(args, "compare-sorts")) {
+            RadixSort.compare(1 << 20);
+            return;
+        }
+
+        BasicDataOperationUsingPrimitives basicDataOperationUsingPrimitives = new BasicDataOperationUsingPrimitives(args);
+        basicDataOperationUsingPrimitives.doDataOperation();
+    }
+
+    /**
+     * Конструктор, який iнiцiалiзує об'єкт з типом даних i значенням для пошуку.
+     *
+     * @param args Аргументи командного рядка, де перший аргумент - тип даних (int, long, short, byte,
+     *             float або double), а другий - значення для пошуку.
+     */
+    BasicDataOperationUsingPrimitives(String[] args) {
+        String[] positional = Utils.getPositionalArguments(args);
+        if (positional.length < 2) {
+            throw new RuntimeException("Вiдсутнi тип даних або значення для пошуку");
+        }
+
+        column = PrimitiveColumn.readFromFile(positional[0], PATH_TO_DATA_DIRECTORY + positional[0] + ".data");
+        keyToSearch = column.parseKey(positional[1]);
+        boxedValueToSearch = column.boxKey(keyToSearch);
+
+        buildCollections();
+    }
+
+    /**
+     * Виконує основнi операцiї з даними.
+     *
+     * Метод виконує тi самi операцiї з масивом, списком, множиною i чергою, що й iншi класи,
+     * окремо для примiтивiв i для упакованих значень.
+     */
+    void doDataOperation() {
+        // операцiї з масивом
+        searchArray();
+        findMinAndMaxInArray();
+
+        sortArray();
+
+        searchArray();
+        findMinAndMaxInArray();
+
+        // операцiї зi списком
+        searchList();
+        findMinAndMaxInList();
+
+        sortList();
+
+        searchList();
+        findMinAndMaxInList();
+
+        // операцiї з множиною
+        searchSet();
+        findMinAndMaxInSet();
+        compareArrayAndSet();
+
+        // операцiї з чергою
+        searchQueue();
+        findMinAndMaxInQueue();
+        peekAndPollQueue();
+    }
+
+    /**
+     * Будує примiтивнi колекцiї та їх упакованi аналоги i виводить об'єм кучi, який вони займають.
+     * Для упакованих структур рахуються видiленi байти, тому об'єкти-обгортки враховуються один раз -
+     * у масивi, з якого, як i в iнших класах, будуються список, множина i черга.
+     */
+    private void buildCollections() {
+        // перша побудова також завантажує класи колекцiй, тому вимiрюється лише друга
+        for (int round = 0; round < 2; round++) {
+            buildCollections(round > 0);
+        }
+    }
+
+    private void buildCollections(boolean report) {
+        int size = column.size();
+
+        long startBytes = Utils.allocatedBytes();
+        boxedArray = new Object[size];
+        for (int i = 0; i < size; i++) {
+            boxedArray[i] = column.box(i);
+        }
+        long boxedArrayBytes = Utils.allocatedBytes() - startBytes;
+
+        startBytes = Utils.allocatedBytes();
+        primitiveList = new LongArrayList(size);
+        for (int i = 0; i < size; i++) {
+            primitiveList.add(column.key(i));
+        }
+        long primitiveListBytes = Utils.allocatedBytes() - startBytes;
+
+        startBytes = Utils.allocatedBytes();
+        boxedList = new ArrayList<>(Arrays.asList(boxedArray));
+        long boxedListBytes = Utils.allocatedBytes() - startBytes;
+
+        startBytes = Utils.allocatedBytes();
+        primitiveSet = new LongOpenHashSet(size);
+        for (int i = 0; i < size; i++) {
+            primitiveSet.add(column.key(i));
+        }
+        long primitiveSetBytes = Utils.allocatedBytes() - startBytes;
+
+        startBytes = Utils.allocatedBytes();
+        boxedSet = new HashSet<>(Arrays.asList(boxedArray));
+        long boxedSetBytes = Utils.allocatedBytes() - startBytes;
+
+        startBytes = Utils.allocatedBytes();
+        primitiveQueue = new LongHeap(size);
+        for (int i = 0; i < size; i++) {
+            primitiveQueue.offer(column.key(i));
+        }
+        long primitiveQueueBytes = Utils.allocatedBytes() - startBytes;
+
+        startBytes = Utils.allocatedBytes();
+        boxedQueue = new PriorityQueue<>(Arrays.asList(boxedArray));
+        long boxedQueueBytes = Utils.allocatedBytes() - startBytes;
+
+        if (!report) {
+            return;
+        }
+
+        System.out.println("Тип даних: " + column.typeName() + ", кiлькiсть елементiв: " + size);
+        Utils.printFootprint("масив", column.heapBytes(), boxedArrayBytes);
+        Utils.printFootprint("список", primitiveListBytes, boxedListBytes);
+        Utils.printFootprint("множина", primitiveSetBytes, boxedSetBytes);
+        Utils.printFootprint("черга", primitiveQueueBytes, boxedQueueBytes);
+        Utils.printFootprint("разом", column.heapBytes() + primitiveListBytes + primitiveSetBytes + primitiveQueueBytes,
+                boxedArrayBytes + boxedListBytes + boxedSetBytes + boxedQueueBytes);
+    }
+
+    /**
+     * Сортує масив примiтивiв i масив упакованих значень.
+     */
+    void sortArray() {
+        long startTime = System.nanoTime();
+        column.sort();
+        long primitiveTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        Arrays.sort(boxedArray);
+        long boxedTime = System.nanoTime() - startTime;
+
+        Utils.printComparedDuration("сортування масиву", primitiveTime, boxedTime);
+    }
+
+    /**
+     * Метод для пошуку значення в масивi.
+     */
+    void searchArray() {
+        long startTime = System.nanoTime();
+        int index = column.binarySearch(keyToSearch);
+        long primitiveTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        Arrays.binarySearch(boxedArray, boxedValueToSearch);
+        long boxedTime = System.nanoTime() - startTime;
+
+        Utils.printComparedDuration("пошук в масивi", primitiveTime, boxedTime);
+
+        if (index >= 0) {
+            System.out.println("Значення '" + column.format(keyToSearch) + "' знайдено в масивi за iндексом: " + index);
+        } else {
+            System.out.println("Значення '" + column.format(keyToSearch) + "' в масивi не знайдено.");
+        }
+    }
+
+    /**
+     * Знаходить мiнiмальне та максимальне значення в масивi.
+     */
+    void findMinAndMaxInArray() {
+        if (column.size() == 0) {
+            System.out.println("Масив порожнiй або не iнiцiалiзований.");
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        long min = column.key(0);
+        long max = min;
+        for (int i = 1; i < column.size(); i++) {
+            long key = column.key(i);
+            min = Math.min(min, key);
+            max = Math.max(max, key);
+        }
+        long primitiveTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        Collections.min(Arrays.asList(boxedArray), null);
+        Collections.max(Arrays.asList(boxedArray), null);
+        long boxedTime = System.nanoTime() - startTime;
+
+        Utils.printComparedDuration("пошук мiнiмального i максимального значення в масивi", primitiveTime, boxedTime);
+
+        System.out.println("Мiнiмальне значення в масивi: " + column.format(min));
+        System.out.println("Максимальне значення в масивi: " + column.format(max));
+    }
+
+    /**
+     * Сортує список примiтивiв i ArrayList упакованих значень.
+     */
+    void sortList() {
+        long startTime = System.nanoTime();
+        primitiveList.sort();
+        long primitiveTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        boxedList.sort(null);
+        long boxedTime = System.nanoTime() - startTime;
+
+        Utils.printComparedDuration("сортування списку", primitiveTime, boxedTime);
+    }
+
+    /**
+     * Шукає значення в списку.
+     */
+    void searchList() {
+        long startTime = System.nanoTime();
+        int index = primitiveList.binarySearch(keyToSearch);
+        long primitiveTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        Collections.binarySearch(boxedList, boxedValueToSearch, null);
+        long boxedTime = System.nanoTime() - startTime;
+
+        Utils.printComparedDuration("пошук в списку", primitiveTime, boxedTime);
+
+        if (index >= 0) {
+            System.out.println("Значення '" + column.format(keyToSearch) + "' знайдено в списку за iндексом: " + index);
+        } else {
+            System.out.println("Значення '" + column.format(keyToSearch) + "' в списку не знайдено.");
+        }
+    }
+
+    /**
+     * Знаходить мiнiмальне та максимальне значення в списку.
+     */
+    void findMinAndMaxInList() {
+        if (primitiveList.size() == 0) {
+            System.out.println("Список порожнiй або не iнiцiалiзований.");
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        long min = primitiveList.min();
+        long max = primitiveList.max();
+        long primitiveTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        Collections.min(boxedList, null);
+        Collections.max(boxedList, null);
+        long boxedTime = System.nanoTime() - startTime;
+
+        Utils.printComparedDuration("пошук мiнiмального i максимального значення в списку", primitiveTime, boxedTime);
+
+        System.out.println("Мiнiмальне значення в списку: " + column.format(min));
+        System.out.println("Максимальне значення в списку: " + column.format(max));
+    }
+
+    /**
+     * Метод для пошуку значення в множинi.
+     */
+    void searchSet() {
+        long startTime = System.nanoTime();
+        boolean isFound = primitiveSet.contains(keyToSearch);
+        long primitiveTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        boxedSet.contains(boxedValueToSearch);
+        long boxedTime = System.nanoTime() - startTime;
+
+        Utils.printComparedDuration("пошук в множинi", primitiveTime, boxedTime);
+
+        if (isFound) {
+            System.out.println("Значення '" + column.format(keyToSearch) + "' знайдено в множинi");
+        } else {
+            System.out.println("Значення '" + column.format(keyToSearch) + "' в множинi не знайдено.");
+        }
+    }
+
+    /**
+     * Знаходить мiнiмальне та максимальне значення в множинi.
+     */
+    void findMinAndMaxInSet() {
+        if (primitiveSet.size() == 0) {
+            System.out.println("Множина порожня або не iнiцiалiзована.");
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        long min = primitiveSet.min();
+        long max = primitiveSet.max();
+        long primitiveTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        Collections.min(boxedSet, null);
+        Collections.max(boxedSet, null);
+        long boxedTime = System.nanoTime() - startTime;
+
+        Utils.printComparedDuration("пошук мiнiмального i максимального значення в множинi", primitiveTime, boxedTime);
+
+        System.out.println("Мiнiмальне значення в множинi: " + column.format(min));
+        System.out.println("Максимальне значення в множинi: " + column.format(max));
+    }
+
+    /**
+     * Порiвнює елементи масиву та множини.
+     */
+    void compareArrayAndSet() {
+        System.out.println("Кiлькiсть елементiв в масивi: " + column.size());
+        System.out.println("Кiлькiсть елементiв в множинi: " + primitiveSet.size());
+
+        long startTime = System.nanoTime();
+        boolean allElementsMatch = true;
+        for (int i = 0; i < column.size() && allElementsMatch; i++) {
+            allElementsMatch = primitiveSet.contains(column.key(i));
+        }
+        long primitiveTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        for (Object value : boxedArray) {
+            if (!boxedSet.contains(value)) {
+                break;
+            }
+        }
+        long boxedTime = System.nanoTime() - startTime;
+
+        Utils.printComparedDuration("порiвняння масиву та множини", primitiveTime, boxedTime);
+
+        if (allElementsMatch) {
+            System.out.println("Всi елементи масиву присутнi в множинi.");
+        } else {
+            System.out.println("Не всi елементи масиву присутнi в множинi.");
+        }
+    }
+
+    /**
+     * Метод для пошуку значення в черзi.
+     */
+    void searchQueue() {
+        long startTime = System.nanoTime();
+        boolean isFound = primitiveQueue.contains(keyToSearch);
+        long primitiveTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        boxedQueue.contains(boxedValueToSearch);
+        long boxedTime = System.nanoTime() - startTime;
+
+        Utils.printComparedDuration("пошук в черзi", primitiveTime, boxedTime);
+
+        if (isFound) {
+            System.out.println("Значення '" + column.format(keyToSearch) + "' знайдено в черзi");
+        } else {
+            System.out.println("Значення '" + column.format(keyToSearch) + "' в черзi не знайдено.");
+        }
+    }
+
+    /**
+     * Знаходить мiнiмальне та максимальне значення в черзi.
+     */
+    void findMinAndMaxInQueue() {
+        if (primitiveQueue.size() == 0) {
+            System.out.println("Черга порожня або не iнiцiалiзована.");
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        long min = primitiveQueue.peek();
+        long max = primitiveQueue.max();
+        long primitiveTime = System.nanoTime() - startTime;
+
+        startTime = System.nanoTime();
+        Collections.min(boxedQueue, null);
+        Collections.max(boxedQueue, null);
+        long boxedTime = System.nanoTime() - startTime;
+
+        Utils.printComparedDuration("пошук мiнiмального i максимального значення в черзi", primitiveTime, boxedTime);
+
+        System.out.println("Мiнiмальне значення в черзi: " + column.format(min));
+        System.out.println("Максимальне значення в черзi: " + column.format(max));
+    }
+
+    /**
+     * Виконує операцiї peek та poll з чергою.
+     */
+    void peekAndPollQueue() {
+        if (primitiveQueue.size() == 0) {
+            System.out.println("Черга порожня або не iнiцiалiзована.");
+            return;
+        }
+
+        System.out.println("Перший елемент у черзi: " + column.format(primitiveQueue.peek()));
+        System.out.println("Забрати перший елемент у черзi: " + column.format(primitiveQueue.poll()));
+        boxedQueue.poll();
+
+        if (primitiveQueue.size() > 0) {
+            System.out.println("Перший елемент у черзi: " + column.format(primitiveQueue.peek()));
+        }
+    }
+}
+
+/**
+ * Клас Utils мiститить допомiжнi методи для роботи з числовими даними.
+ */
+class Utils {
+    /**
+     * Виводить час виконання операцiї на примiтивах i на упакованих значеннях поруч.
+     *
+     * @param operationName Назва операцiї.
+     * @param primitiveTime Час виконання на примiтивах у наносекундах.
+     * @param boxedTime Час виконання на упакованих значеннях у наносекундах.
+     */
+    static void printComparedDuration(String operationName, long primitiveTime, long boxedTime) {
+        System.out.printf("%n>>>>>>>>>> Час виконання операцiї '%s': примiтиви %d наносекунд, упакованi %d наносекунд (%.1fx)%n",
+                operationName, primitiveTime, boxedTime, primitiveTime > 0 ? (double) boxedTime / primitiveTime : 0);
+    }
+
+    /**
+     * Виводить об'єм кучi примiтивної структури та її упакованого аналога поруч.
+     *
+     * @param structureName Назва структури.
+     * @param primitiveBytes Байти, якi займає примiтивна структура.
+     * @param boxedBytes Байти, якi займає упакована структура.
+     */
+    static void printFootprint(String structureName, long primitiveBytes, long boxedBytes) {
+        System.out.printf("Об'єм кучi '%s': примiтиви %d байт, упакованi %d байт (%.1fx)%n",
+                structureName, primitiveBytes, boxedBytes, primitiveBytes > 0 ? (double) boxedBytes / primitiveBytes : 0);
+    }
+
+    /**
+     * Повертає кiлькiсть байтiв, видiлених поточним потоком, без урахування видiлень
+     * самого вимiрювання, або 0, якщо JVM цього не пiдтримує.
+     */
+    static long allocatedBytes() {
+        if (measurementOverhead < 0) {
+            for (int i = 0; i < 16; i++) {
+                measurementOverhead = -rawAllocatedBytes() + rawAllocatedBytes();
+            }
+        }
+        return rawAllocatedBytes() - measurementOverhead;
+    }
+
+    private static long measurementOverhead = -1;
+
+    private static long rawAllocatedBytes() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Перевiряє, чи передано опцiю командного рядка виду "--name" або "--name=значення".
+     *
+     * @param args Аргументи командного рядка.
+     * @param name Назва опцiї без префiкса "--".
+     * @return true, якщо опцiю передано.
+     */
+    static boolean hasOption(String[] args, String name) {
+        return Arrays.stream(args).anyMatch(arg -> arg.equals("--" + name) || arg.startsWith("--" + name + "="));
+    }
+
+    /**
+     * Повертає аргументи командного рядка, якi не є опцiями виду "--name".
+     *
+     * @param args Аргументи командного рядка.
+     * @return Аргументи без опцiй у початковому порядку.
+     */
+    static String[] getPositionalArguments(String[] args) {
+        return Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
+    }
+
+    /**
+     * Зчитує непорожнi рядки файлу i передає їх стовпцю без пробiлiв на краях.
+     *
+     * @param pathToFile Шлях до файлу з даними.
+     * @param column Стовпець, до якого додаються значення.
+     */
+    static void readColumnFromFile(String pathToFile, PrimitiveColumn column) {
+        int skipped = 0;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(pathToFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    column.add(line);
+                } catch (NumberFormatException e) {
+                    skipped++;
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        column.trimToSize();
+
+        if (skipped > 0) {
+            System.out.println("Пропущено рядкiв, якi не є значеннями типу " + column.typeName() + ": " + skipped);
+        }
+    }
+}
+
+/**
+ * Клас PrimitiveColumn описує масив примiтивiв одного з числових типiв.
+ *
+ * <p>Для спiльних колекцiй кожне значення подається впорядкованим ключем long: цiлi типи
+ * розширюються без змiн, а для float i double бiти IEEE 754 перетворюються так, щоб
+ * порядок ключiв збiгався з порядком Float.compare i Double.compare.</p>
+ */
+abstract class PrimitiveColumn {
+    private static final int INITIAL_CAPACITY = 16;
+
+    int size;
+
+    abstract String typeName();
+
+    /** Додає значення, розiбране з рядка. */
+    abstract void add(String text);
+
+    /** Звiльняє зайву мiсткiсть масиву. */
+    abstract void trimToSize();
+
+    /** Сортує масив примiтивiв через {@link RadixSort}. */
+    abstract void sort();
+
+    /** Повертає впорядкований ключ елемента. */
+    abstract long key(int index);
+
+    /** Повертає упакований елемент (Integer, Long, Short, Byte, Float або Double). */
+    abstract Object box(int index);
+
+    /** Повертає упаковане значення ключа. */
+    abstract Object boxKey(long key);
+
+    /** Розбирає значення з рядка у впорядкований ключ. */
+    abstract long parseKey(String text);
+
+    /** Шукає ключ у вiдсортованому масивi з семантикою Arrays.binarySearch. */
+    abstract int binarySearch(long key);
+
+    /** Повертає значення ключа у текстовому виглядi. */
+    abstract String format(long key);
+
+    /** Повертає розмiр одного елемента масиву в байтах. */
+    abstract int elementBytes();
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Повертає об'єм кучi, який займає масив: заголовок 16 байт i елементи.
+     */
+    long heapBytes() {
+        return 16 + (((long) size * elementBytes() + 7) & ~7L);
+    }
+
+    int grownCapacity(int capacity) {
+        return Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1));
+    }
+
+    /**
+     * Створює стовпець заданого типу i заповнює його даними з файлу.
+     *
+     * @param typeName Назва типу: int, long, short, byte, float або double.
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Стовпець з даними.
+     */
+    static PrimitiveColumn readFromFile(String typeName, String pathToFile) {
+        PrimitiveColumn column;
+        switch (typeName) {
+            case "int":
+                column = new IntColumn();
+                break;
+            case "long":
+                column = new LongColumn();
+                break;
+            case "short":
+                column = new ShortColumn();
+                break;
+            case "byte":
+                column = new ByteColumn();
+                break;
+            case "float":
+                column = new FloatColumn();
+                break;
+            case "double":
+                column = new DoubleColumn();
+                break;
+            default:
+                throw new RuntimeException("Невiдомий тип даних: " + typeName);
+        }
+
+        Utils.readColumnFromFile(pathToFile, column);
+        return column;
+    }
+
+    /**
+     * Перетворює бiти float на впорядкований ключ i назад (перетворення є iнволюцiєю).
+     */
+    static int sortableFloatBits(int bits) {
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+
+    /**
+     * Перетворює бiти double на впорядкований ключ i назад (перетворення є iнволюцiєю).
+     */
+    static long sortableDoubleBits(long bits) {
+        return bits ^ ((bits >> 63) & 0x7FFFFFFFFFFFFFFFL);
+    }
+}
+
+class IntColumn extends PrimitiveColumn {
+    int[] values = new int[0];
+
+    @Override
+    String typeName() {
+        return "int";
+    }
+
+    @Override
+    void add(String text) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, grownCapacity(size));
+        }
+        values[size++] = Integer.parseInt(text);
+    }
+
+    @Override
+    void trimToSize() {
+        values = Arrays.copyOf(values, size);
+    }
+
+    @Override
+    void sort() {
+        RadixSort.sort(values, 0, size);
+    }
+
+    @Override
+    long key(int index) {
+        return values[index];
+    }
+
+    @Override
+    Object box(int index) {
+        return values[index];
+    }
+
+    @Override
+    Object boxKey(long key) {
+        return (int) key;
+    }
+
+    @Override
+    long parseKey(String text) {
+        return Integer.parseInt(text.trim());
+    }
+
+    @Override
+    int binarySearch(long key) {
+        return Arrays.binarySearch(values, 0, size, (int) key);
+    }
+
+    @Override
+    String format(long key) {
+        return Long.toString(key);
+    }
+
+    @Override
+    int elementBytes() {
+        return Integer.BYTES;
+    }
+}
+
+class LongColumn extends PrimitiveColumn {
+    long[] values = new long[0];
+
+    @Override
+    String typeName() {
+        return "long";
+    }
+
+    @Override
+    void add(String text) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, grownCapacity(size));
+        }
+        values[size++] = Long.parseLong(text);
+    }
+
+    @Override
+    void trimToSize() {
+        values = Arrays.copyOf(values, size);
+    }
+
+    @Override
+    void sort() {
+        RadixSort.sort(values, 0, size);
+    }
+
+    @Override
+    long key(int index) {
+        return values[index];
+    }
+
+    @Override
+    Object box(int index) {
+        return values[index];
+    }
+
+    @Override
+    Object boxKey(long key) {
+        return key;
+    }
+
+    @Override
+    long parseKey(String text) {
+        return Long.parseLong(text.trim());
+    }
+
+    @Override
+    int binarySearch(long key) {
+        return Arrays.binarySearch(values, 0, size, key);
+    }
+
+    @Override
+    String format(long key) {
+        return Long.toString(key);
+    }
+
+    @Override
+    int elementBytes() {
+        return Long.BYTES;
+    }
+}
+
+class ShortColumn extends PrimitiveColumn {
+    short[] values = new short[0];
+
+    @Override
+    String typeName() {
+        return "short";
+    }
+
+    @Override
+    void add(String text) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, grownCapacity(size));
+        }
+        values[size++] = Short.parseShort(text);
+    }
+
+    @Override
+    void trimToSize() {
+        values = Arrays.copyOf(values, size);
+    }
+
+    @Override
+    void sort() {
+        RadixSort.sort(values, 0, size);
+    }
+
+    @Override
+    long key(int index) {
+        return values[index];
+    }
+
+    @Override
+    Object box(int index) {
+        return values[index];
+    }
+
+    @Override
+    Object boxKey(long key) {
+        return (short) key;
+    }
+
+    @Override
+    long parseKey(String text) {
+        return Short.parseShort(text.trim());
+    }
+
+    @Override
+    int binarySearch(long key) {
+        return Arrays.binarySearch(values, 0, size, (short) key);
+    }
+
+    @Override
+    String format(long key) {
+        return Long.toString(key);
+    }
+
+    @Override
+    int elementBytes() {
+        return Short.BYTES;
+    }
+}
+
+class ByteColumn extends PrimitiveColumn {
+    byte[] values = new byte[0];
+
+    @Override
+    String typeName() {
+        return "byte";
+    }
+
+    @Override
+    void add(String text) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, grownCapacity(size));
+        }
+        values[size++] = Byte.parseByte(text);
+    }
+
+    @Override
+    void trimToSize() {
+        values = Arrays.copyOf(values, size);
+    }
+
+    @Override
+    void sort() {
+        RadixSort.sort(values, 0, size);
+    }
+
+    @Override
+    long key(int index) {
+        return values[index];
+    }
+
+    @Override
+    Object box(int index) {
+        return values[index];
+    }
+
+    @Override
+    Object boxKey(long key) {
+        return (byte) key;
+    }
+
+    @Override
+    long parseKey(String text) {
+        return Byte.parseByte(text.trim());
+    }
+
+    @Override
+    int binarySearch(long key) {
+        return Arrays.binarySearch(values, 0, size, (byte) key);
+    }
+
+    @Override
+    String format(long key) {
+        return Long.toString(key);
+    }
+
+    @Override
+    int elementBytes() {
+        return Byte.BYTES;
+    }
+}
+
+class FloatColumn extends PrimitiveColumn {
+    float[] values = new float[0];
+
+    @Override
+    String typeName() {
+        return "float";
+    }
+
+    @Override
+    void add(String text) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, grownCapacity(size));
+        }
+        values[size++] = Float.parseFloat(text);
+    }
+
+    @Override
+    void trimToSize() {
+        values = Arrays.copyOf(values, size);
+    }
+
+    @Override
+    void sort() {
+        RadixSort.sort(values, 0, size);
+    }
+
+    @Override
+    long key(int index) {
+        return sortableFloatBits(Float.floatToIntBits(values[index]));
+    }
+
+    @Override
+    Object box(int index) {
+        return values[index];
+    }
+
+    @Override
+    Object boxKey(long key) {
+        return toFloat(key);
+    }
+
+    @Override
+    long parseKey(String text) {
+        return sortableFloatBits(Float.floatToIntBits(Float.parseFloat(text.trim())));
+    }
+
+    @Override
+    int binarySearch(long key) {
+        return Arrays.binarySearch(values, 0, size, toFloat(key));
+    }
+
+    @Override
+    String format(long key) {
+        return Float.toString(toFloat(key));
+    }
+
+    @Override
+    int elementBytes() {
+        return Float.BYTES;
+    }
+
+    private static float toFloat(long key) {
+        return Float.intBitsToFloat(sortableFloatBits((int) key));
+    }
+}
+
+class DoubleColumn extends PrimitiveColumn {
+    double[] values = new double[0];
+
+    @Override
+    String typeName() {
+        return "double";
+    }
+
+    @Override
+    void add(String text) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, grownCapacity(size));
+        }
+        values[size++] = Double.parseDouble(text);
+    }
+
+    @Override
+    void trimToSize() {
+        values = Arrays.copyOf(values, size);
+    }
+
+    @Override
+    void sort() {
+        RadixSort.sort(values, 0, size);
+    }
+
+    @Override
+    long key(int index) {
+        return sortableDoubleBits(Double.doubleToLongBits(values[index]));
+    }
+
+    @Override
+    Object box(int index) {
+        return values[index];
+    }
+
+    @Override
+    Object boxKey(long key) {
+        return toDouble(key);
+    }
+
+    @Override
+    long parseKey(String text) {
+        return sortableDoubleBits(Double.doubleToLongBits(Double.parseDouble(text.trim())));
+    }
+
+    @Override
+    int binarySearch(long key) {
+        return Arrays.binarySearch(values, 0, size, toDouble(key));
+    }
+
+    @Override
+    String format(long key) {
+        return Double.toString(toDouble(key));
+    }
+
+    @Override
+    int elementBytes() {
+        return Double.BYTES;
+    }
+
+    private static double toDouble(long key) {
+        return Double.longBitsToDouble(sortableDoubleBits(key));
+    }
+}
+
+/**
+ * Клас RadixSort сортує масиви примiтивiв порозрядним сортуванням LSD за байтами.
+ *
+ * <p>Гiстограми всiх розрядiв рахуються одним проходом по даних; розряди, у яких усi
+ * елементи мають той самий байт, пропускаються, тому мiтки часу чи числа з вузького
+ * дiапазону сортуються за 2-4 проходи замiсть 8. У старшому байтi знаковий бiт
+ * iнвертується, щоб вiд'ємнi числа йшли перед додатними. float i double сортуються за
+ * впорядкованими ключами IEEE 754 (як у {@link PrimitiveColumn}), тому -0.0 йде перед
+ * 0.0, а NaN - в кiнцi, як в Arrays.sort; NaN при цьому приводяться до канонiчного вигляду.
+ * short i byte сортуються пiдрахунком за один прохiд.</p>
+ *
+ * <p>Для коротких дiапазонiв видiлення буфера i гiстограм дорожче за сортування
+ * порiвняннями, тому нижче порогiв, отриманих з {@link #compare(int)}, викликається Arrays.sort.</p>
+ */
+class RadixSort {
+    /** Найменша довжина дiапазону long[], з якої порозрядне сортування швидше за Arrays.sort. */
+    static final int LONG_THRESHOLD = 1 << 12;
+
+    /** Найменша довжина дiапазону int[], з якої порозрядне сортування швидше за Arrays.sort. */
+    static final int INT_THRESHOLD = 1 << 10;
+
+    /** Найменша довжина дiапазону short[], з якої сортування пiдрахунком швидше за Arrays.sort. */
+    static final int SHORT_THRESHOLD = 1 << 18;
+
+    /** Найменша довжина дiапазону byte[], з якої сортування пiдрахунком швидше за Arrays.sort. */
+    static final int BYTE_THRESHOLD = 1 << 6;
+
+    private RadixSort() {
+    }
+
+    static void sort(long[] values, int from, int to) {
+        if (to - from < LONG_THRESHOLD) {
+            Arrays.sort(values, from, to);
+        } else {
+            sortLongs(values, from, to);
+        }
+    }
+
+    static void sort(int[] values, int from, int to) {
+        if (to - from < INT_THRESHOLD) {
+            Arrays.sort(values, from, to);
+        } else {
+            sortInts(values, from, to);
+        }
+    }
+
+    static void sort(short[] values, int from, int to) {
+        if (to - from < SHORT_THRESHOLD) {
+            Arrays.sort(values, from, to);
+        } else {
+            countingSort(values, from, to);
+        }
+    }
+
+    private static void countingSort(short[] values, int from, int to) {
+        int[] counts = new int[1 << 16];
+        for (int i = from; i < to; i++) {
+            counts[values[i] - Short.MIN_VALUE]++;
+        }
+        for (int digit = 0, i = from; digit < counts.length; digit++) {
+            for (int count = counts[digit]; count > 0; count--) {
+                values[i++] = (short) (digit + Short.MIN_VALUE);
+            }
+        }
+    }
+
+    static void sort(byte[] values, int from, int to) {
+        if (to - from < BYTE_THRESHOLD) {
+            Arrays.sort(values, from, to);
+            return;
+        }
+        int[] counts = new int[1 << 8];
+        for (int i = from; i < to; i++) {
+            counts[values[i] - Byte.MIN_VALUE]++;
+        }
+        for (int digit = 0, i = from; digit < counts.length; digit++) {
+            for (int count = counts[digit]; count > 0; count--) {
+                values[i++] = (byte) (digit + Byte.MIN_VALUE);
+            }
+        }
+    }
+
+    static void sort(float[] values, int from, int to) {
+        if (to - from < INT_THRESHOLD) {
+            Arrays.sort(values, from, to);
+            return;
+        }
+        int[] keys = new int[to - from];
+        for (int i = from; i < to; i++) {
+            keys[i - from] = PrimitiveColumn.sortableFloatBits(Float.floatToIntBits(values[i]));
+        }
+        sortInts(keys, 0, keys.length);
+        for (int i = from; i < to; i++) {
+            values[i] = Float.intBitsToFloat(PrimitiveColumn.sortableFloatBits(keys[i - from]));
+        }
+    }
+
+    static void sort(double[] values, int from, int to) {
+        if (to - from < LONG_THRESHOLD) {
+            Arrays.sort(values, from, to);
+            return;
+        }
+        long[] keys = new long[to - from];
+        for (int i = from; i < to; i++) {
+            keys[i - from] = PrimitiveColumn.sortableDoubleBits(Double.doubleToLongBits(values[i]));
+        }
+        sortLongs(keys, 0, keys.length);
+        for (int i = from; i < to; i++) {
+            values[i] = Double.longBitsToDouble(PrimitiveColumn.sortableDoubleBits(keys[i - from]));
+        }
+    }
+
+    /**
+     * Порозрядне сортування long[] без порогу.
+     */
+    static void sortLongs(long[] values, int from, int to) {
+        int length = to - from;
+        int[][] counts = new int[Long.BYTES][256];
+        for (int i = from; i < to; i++) {
+            long value = values[i];
+            for (int digit = 0; digit < Long.BYTES; digit++) {
+                counts[digit][longDigit(value, digit)]++;
+            }
+        }
+
+        long[] source = values;
+        long[] target = new long[length];
+        int sourceFrom = from;
+        int targetFrom = 0;
+        for (int digit = 0; digit < Long.BYTES; digit++) {
+            int[] offsets = counts[digit];
+            if (!toOffsets(offsets, length)) {
+                continue;
+            }
+            for (int i = sourceFrom; i < sourceFrom + length; i++) {
+                long value = source[i];
+                target[targetFrom + offsets[longDigit(value, digit)]++] = value;
+            }
+            long[] swap = source;
+            source = target;
+            target = swap;
+            int swapFrom = sourceFrom;
+            sourceFrom = targetFrom;
+            targetFrom = swapFrom;
+        }
+        if (source != values) {
+            System.arraycopy(source, sourceFrom, values, from, length);
+        }
+    }
+
+    /**
+     * Порозрядне сортування int[] без порогу.
+     */
+    static void sortInts(int[] values, int from, int to) {
+        int length = to - from;
+        int[][] counts = new int[Integer.BYTES][256];
+        for (int i = from; i < to; i++) {
+            int value = values[i];
+            for (int digit = 0; digit < Integer.BYTES; digit++) {
+                counts[digit][intDigit(value, digit)]++;
+            }
+        }
+
+        int[] source = values;
+        int[] target = new int[length];
+        int sourceFrom = from;
+        int targetFrom = 0;
+        for (int digit = 0; digit < Integer.BYTES; digit++) {
+            int[] offsets = counts[digit];
+            if (!toOffsets(offsets, length)) {
+                continue;
+            }
+            for (int i = sourceFrom; i < sourceFrom + length; i++) {
+                int value = source[i];
+                target[targetFrom + offsets[intDigit(value, digit)]++] = value;
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+            int swapFrom = sourceFrom;
+            sourceFrom = targetFrom;
+            targetFrom = swapFrom;
+        }
+        if (source != values) {
+            System.arraycopy(source, sourceFrom, values, from, length);
+        }
+    }
+
+    private static int longDigit(long value, int digit) {
+        int bits = (int) (value >>> (digit * 8)) & 0xFF;
+        return digit == Long.BYTES - 1 ? bits ^ 0x80 : bits;
+    }
+
+    private static int intDigit(int value, int digit) {
+        int bits = (value >>> (digit * 8)) & 0xFF;
+        return digit == Integer.BYTES - 1 ? bits ^ 0x80 : bits;
+    }
+
+    /**
+     * Перетворює гiстограму розряду на початковi позицiї кошикiв.
+     *
+     * @return false, якщо всi елементи потрапляють в один кошик i прохiд можна пропустити.
+     */
+    private static boolean toOffsets(int[] counts, int length) {
+        int position = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            int count = counts[bucket];
+            if (count == length) {
+                return false;
+            }
+            counts[bucket] = position;
+            position += count;
+        }
+        return true;
+    }
+
+    /**
+     * Порiвнює Arrays.sort i порозрядне сортування без порогу на випадкових даних рiзних
+     * розмiрiв i виводить найкращий час на елемент. За цими вимiрами обрано пороги класу.
+     *
+     * @param maxLength Найбiльша довжина масиву.
+     */
+    static void compare(int maxLength) {
+        final int rounds = 5;
+        java.util.Random random = new java.util.Random(42);
+        System.out.println("\nПорiвняння Arrays.sort i RadixSort (наносекунд на елемент, найкращий з " + rounds + " запускiв):");
+        System.out.printf("  %10s %12s %12s %12s %12s %12s %12s%n", "елементiв", "long JDK", "long radix",
+                "int JDK", "int radix", "short JDK", "short count");
+
+        for (int length = 1 << 4; length <= maxLength; length <<= 2) {
+            long[] longs = random.longs(length).toArray();
+            int[] ints = random.ints(length).toArray();
+            short[] shorts = new short[length];
+            for (int i = 0; i < length; i++) {
+                shorts[i] = (short) ints[i];
+            }
+            int repeats = Math.max(1, (1 << 20) / length);
+
+            long longJdk = Long.MAX_VALUE;
+            long longRadix = Long.MAX_VALUE;
+            long intJdk = Long.MAX_VALUE;
+            long intRadix = Long.MAX_VALUE;
+            long shortJdk = Long.MAX_VALUE;
+            long shortCount = Long.MAX_VALUE;
+            for (int round = 0; round < rounds; round++) {
+                longJdk = Math.min(longJdk, time(repeats, () -> Arrays.sort(longs.clone())));
+                longRadix = Math.min(longRadix, time(repeats, () -> sortLongs(longs.clone(), 0, longs.length)));
+                intJdk = Math.min(intJdk, time(repeats, () -> Arrays.sort(ints.clone())));
+                intRadix = Math.min(intRadix, time(repeats, () -> sortInts(ints.clone(), 0, ints.length)));
+                shortJdk = Math.min(shortJdk, time(repeats, () -> Arrays.sort(shorts.clone())));
+                shortCount = Math.min(shortCount, time(repeats, () -> countingSort(shorts.clone(), 0, shorts.length)));
+            }
+
+            double perElement = (double) repeats * length;
+            System.out.printf("  %10d %12.1f %12.1f %12.1f %12.1f %12.1f %12.1f%n", length, longJdk / perElement,
+                    longRadix / perElement, intJdk / perElement, intRadix / perElement, shortJdk / perElement,
+                    shortCount / perElement);
+        }
+        System.out.println("  Пороги: long " + LONG_THRESHOLD + ", int i float " + INT_THRESHOLD + ", short " + SHORT_THRESHOLD
+                + ", byte " + BYTE_THRESHOLD + " елементiв");
+    }
+
+    private static long time(int repeats, Runnable task) {
+        long startTime = System.nanoTime();
+        for (int i = 0; i < repeats; i++) {
+            task.run();
+        }
+        return System.nanoTime() - startTime;
+    }
+}
+
+/**
+ * Клас LongArrayList - список значень long без упаковки, аналог ArrayList&lt;Long&gt;.
+ */
+class LongArrayList {
+    private long[] elements;
+    private int size;
+
+    LongArrayList(int initialCapacity) {
+        elements = new long[Math.max(initialCapacity, 1)];
+    }
+
+    void add(long value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size + (size >> 1) + 1);
+        }
+        elements[size++] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void sort() {
+        RadixSort.sort(elements, 0, size);
+    }
+
+    /**
+     * Шукає значення у вiдсортованому списку з семантикою Collections.binarySearch.
+     */
+    int binarySearch(long key) {
+        return Arrays.binarySearch(elements, 0, size, key);
+    }
+
+    long min() {
+        long min = elements[0];
+        for (int i = 1; i < size; i++) {
+            min = Math.min(min, elements[i]);
+        }
+        return min;
+    }
+
+    long max() {
+        long max = elements[0];
+        for (int i = 1; i < size; i++) {
+            max = Math.max(max, elements[i]);
+        }
+        return max;
+    }
+}
+
+/**
+ * Клас LongOpenHashSet - множина значень long з вiдкритою адресацiєю та лiнiйним
+ * зондуванням, аналог HashSet&lt;Long&gt; без вузлiв i обгорток.
+ *
+ * <p>Ключi зберiгаються в одному масивi long, нуль позначає порожню комiрку, тому
+ * наявнiсть ключа 0 зберiгається окремим прапорцем. Iндекс комiрки - старшi бiти
+ * добутку ключа на 64-бiтну золоту пропорцiю (хешування Фiбоначчi).</p>
+ */
+class LongOpenHashSet {
+    private static final float MAX_LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int shift;
+    private int size;
+    private boolean containsZero;
+
+    LongOpenHashSet(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int mask = keys.length - 1;
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == 0) {
+                keys[slot] = key;
+                if (++size > keys.length * MAX_LOAD_FACTOR) {
+                    rehash(keys.length * 2);
+                }
+                return true;
+            }
+            if (current == key) {
+                return false;
+            }
+        }
+    }
+
+    boolean contains(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+
+        int mask = keys.length - 1;
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return true;
+            }
+            if (current == 0) {
+                return false;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long min() {
+        long min = containsZero ? 0 : Long.MAX_VALUE;
+        for (long key : keys) {
+            if (key != 0) {
+                min = Math.min(min, key);
+            }
+        }
+        return min;
+    }
+
+    long max() {
+        long max = containsZero ? 0 : Long.MIN_VALUE;
+        for (long key : keys) {
+            if (key != 0) {
+                max = Math.max(max, key);
+            }
+        }
+        return max;
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (long key : oldKeys) {
+            if (key != 0) {
+                int slot = slot(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long capacity = Math.max(2, (long) Math.ceil(expectedSize / MAX_LOAD_FACTOR) + 1);
+        return (int) Math.min(1 << 30, Long.highestOneBit(capacity - 1) << 1);
+    }
+}
+
+/**
+ * Клас LongHeap - черга з прiоритетом для значень long на бiнарнiй мiнiмальнiй купi,
+ * аналог PriorityQueue&lt;Long&gt;.
+ */
+class LongHeap {
+    private long[] heap;
+    private int size;
+
+    LongHeap(int initialCapacity) {
+        heap = new long[Math.max(initialCapacity, 1)];
+    }
+
+    void offer(long value) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size + (size >> 1) + 1);
+        }
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = value;
+    }
+
+    long peek() {
+        return heap[0];
+    }
+
+    long poll() {
+        long result = heap[0];
+        long last = heap[--size];
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = last;
+        return result;
+    }
+
+    /**
+     * Шукає значення перебором, як PriorityQueue.contains.
+     */
+    boolean contains(long value) {
+        for (int i = 0; i < size; i++) {
+            if (heap[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Шукає максимум серед листкiв купи - лише там вiн може бути.
+     */
+    long max() {
+        long max = heap[size >>> 1];
+        for (int i = (size >>> 1) + 1; i < size; i++) {
+            max = Math.max(max, heap[i]);
+        }
+        return max;
+    }
+
+    int size() {
+        return size;
+    }
+}
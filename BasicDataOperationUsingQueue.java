@@ -1,51 +1,213 @@
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.Queue;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractQueue;
 import java.util.Arrays;
-import java.util.PriorityQueue;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Клас BasicDataOperationUsingQueue надає методи для виконання основних операцiй з даними типу String.
  * 
  * <p>Цей клас зчитує данi з файлу "list/String.data", сортує їх та виконує пошук значення в масивi та черзi.</p>
+ * 
+ * <p>Масив обгорнуто в {@link StatisticsArray}, який пiдтримує мiнiмум, максимум i ознаку
+ * вiдсортованостi при кожнiй змiнi, тому пошук мiнiмуму й максимуму не перебирає масив.
+ * Черга - {@link IndexedMinMaxHeap}: вона перевiряє належнiсть через хеш-iндекс за O(1)
+ * i тримає найбiльший елемент так само напоготовi, як i найменший.</p>
+ * 
+ * <p>Масив i арена сортуються багатоключовим швидким сортуванням {@link StringSort}, яке не
+ * перечитує спiльнi префiкси рядкiв; великi масиви сортуються паралельно. Пiсля того самого
+ * сортування поруч iз "list/String.data.sorted" записується й файл у зворотному порядку
+ * "list/String.data.reverse_sorted", а "--compare-sorts" порiвнює сортування з Arrays.sort.</p>
+ * 
+ * <p>У режимi "--parallel" масив сортується, а його статистика рахується задачами
+ * ForkJoinPool ({@link ParallelOps}) iз заданою кiлькiстю потокiв, i для обох операцiй
+ * виводиться крива прискорення вiд 1 до N потокiв.</p>
+ * 
+ * <p>Опцiї "--top=K" i "--bottom=K" за один прохiд файлу вiдбирають K найбiльших i K
+ * найменших рядкiв обмеженими купами {@link BoundedHeap} за O(K) пам'ятi, не зчитуючи
+ * файл у масив i не сортуючи його ({@link TopKCollector}).</p>
+ * 
+ * <p>З опцiєю "--arena" рядки зберiгаються в компактнiй {@link StringArena} замiсть
+ * String[] i PriorityQueue, а сортування, пошук i порiвняння працюють прямо з байтами UTF-8.</p>
+ * 
+ * <p>Приклад використання:</p>
+ * <pre>
+ * {@code
+ * java BasicDataOperationUsingQueue "Sunshine brightens up the morning sky"
+ * java BasicDataOperationUsingQueue --arena "Sunshine brightens up the morning sky"
+ * java BasicDataOperationUsingQueue --arena=dedup "Sunshine brightens up the morning sky"
+ * java BasicDataOperationUsingQueue --parallel=8 "Sunshine brightens up the morning sky"
+ * java BasicDataOperationUsingQueue --compare-sorts
+ * java BasicDataOperationUsingQueue --top=10
+ * java BasicDataOperationUsingQueue --top=10 --bottom=10
+ * }
+ * </pre>
  */
 public class BasicDataOperationUsingQueue {
     static final String PATH_TO_DATA_FILE = "list/String.data";
 
     String stringValueToSearch;
-    String[] stringArray;
-    Queue<String> stringQueue;
+    StatisticsArray<String> stringArray;
+    IndexedMinMaxHeap<String> stringQueue;
+    boolean parallelWrite;
+    String pathToSortedFile;
+    String pathToReversedFile;
+    StringArena stringArena;
+    ParallelOps parallel;
+    int maxThreads;
 
     public static void main(String[] args) {
+        if (Utils.hasOption(args, "compare-sorts")) {
+            Utils.compareSorts(Utils.resolveDataFile(PATH_TO_DATA_FILE));
+            return;
+        }
+        if (Utils.hasOption(args, "top") || Utils.hasOption(args, "bottom")) {
+            Utils.printTopK(Utils.resolveDataFile(PATH_TO_DATA_FILE), Utils.getTopKOption(args, "top"),
+                    Utils.getTopKOption(args, "bottom"));
+            return;
+        }
+
         BasicDataOperationUsingQueue basicDataOperationUsingQueue = new BasicDataOperationUsingQueue(args);
-        basicDataOperationUsingQueue.doDataOperation();
+        try {
+            basicDataOperationUsingQueue.doDataOperation();
+        } finally {
+            if (basicDataOperationUsingQueue.parallel != null) {
+                basicDataOperationUsingQueue.parallel.close();
+            }
+        }
     }
 
     /**
      * Конструктор, який iнiцiалiзує об'єкт з значенням для пошуку.
      * 
-     * @param args Аргументи командного рядка, де перший аргумент - значення для пошуку.
+     * @param args Аргументи командного рядка, де перший аргумент - значення для пошуку,
+     *             опцiя "--no-cache" вимикає двiйковий кеш ".bin", "--parallel-write" -
+     *             паралельний запис вiдсортованого масиву, а "--compress[=gz|deflate]" записує
+     *             його стисненим. Якщо файлу з даними немає, читається його стиснена копiя.
+     *             Опцiя "--arena" зберiгає рядки в аренi байтiв замiсть String[] i черги,
+     *             а "--arena=dedup" ще й зберiгає однаковi рядки один раз.
+     *             Опцiя "--parallel[=потокiв]" сортує масив i рахує його статистику паралельно
+     *             (за замовчуванням на всiх процесорах) i виводить криву прискорення; з
+     *             "--arena" у пулi з тiєю ж кiлькiстю потокiв сортується арена.
      */
     BasicDataOperationUsingQueue(String[] args) {
-        if (args.length == 0) {
+        String valueToSearch = Utils.getPositionalArgument(args);
+        if (valueToSearch == null) {
             throw new RuntimeException("Вiдсутнє значення для пошуку");
         }
 
-        String valueToSearch = args[0];
         this.stringValueToSearch = valueToSearch;
+        this.parallelWrite = Utils.hasOption(args, "parallel-write");
+
+        String compression = Utils.getOption(args, "compress", null);
+        String compressionSuffix;
+        if (compression == null) {
+            compressionSuffix = "";
+        } else if (compression.isEmpty() || compression.equals("gz")) {
+            compressionSuffix = Utils.GZIP_SUFFIX;
+        } else if (compression.equals("deflate")) {
+            compressionSuffix = Utils.DEFLATE_SUFFIX;
+        } else {
+            throw new RuntimeException("Невiдомий формат стиснення: " + compression);
+        }
+        pathToSortedFile = PATH_TO_DATA_FILE + ".sorted" + compressionSuffix;
+        pathToReversedFile = PATH_TO_DATA_FILE + ".reverse_sorted" + compressionSuffix;
 
-        stringArray = Utils.readArrayFromFile(PATH_TO_DATA_FILE);
+        String pathToDataFile = Utils.resolveDataFile(PATH_TO_DATA_FILE);
 
-        stringQueue = new PriorityQueue<>(Arrays.asList(stringArray));
+        String threads = Utils.getOption(args, "parallel", null);
+        if (threads != null) {
+            maxThreads = threads.isEmpty() ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(threads);
+        }
+
+        String arena = Utils.getOption(args, "arena", null);
+        if (arena != null) {
+            if (!arena.isEmpty() && !arena.equals("dedup")) {
+                throw new RuntimeException("Невiдомий режим арени: " + arena);
+            }
+            stringArena = Utils.hasOption(args, "no-cache")
+                    ? Utils.readArenaFromFile(pathToDataFile, !arena.isEmpty())
+                    : Utils.readArenaFromFileCached(pathToDataFile, !arena.isEmpty());
+            if (threads != null) {
+                parallel = createParallelOps(stringArena.size());
+            }
+            return;
+        }
+
+        String[] loadedArray = Utils.hasOption(args, "no-cache")
+                ? Utils.readArrayFromFile(pathToDataFile)
+                : Utils.readArrayFromFileCached(pathToDataFile);
+
+        if (threads != null) {
+            parallel = createParallelOps(loadedArray.length);
+            stringArray = new StatisticsArray<>(loadedArray, parallel);
+        } else {
+            stringArray = new StatisticsArray<>(loadedArray);
+        }
+        stringQueue = new IndexedMinMaxHeap<>(Arrays.asList(loadedArray));
+    }
+
+    /**
+     * Обирає кiлькiсть потокiв не бiльше за {@link #maxThreads} для size елементiв i виводить її.
+     */
+    private ParallelOps createParallelOps(int size) {
+        ParallelOps parallelOps = ParallelOps.forSize(size, maxThreads);
+        System.out.println("Паралельний режим: " + parallelOps.threads + " з " + maxThreads + " потокiв, порiг подiлу "
+                + parallelOps.threshold + " елементiв");
+        return parallelOps;
     }
 
     /**
      * Виконує основнi операцiї з даними.
      */
     private void doDataOperation() {
+        if (stringArena != null) {
+            doArenaDataOperation();
+            return;
+        }
+        if (parallel != null) {
+            printSpeedupCurves();
+        }
+
         // операцiї з масивом
         searchArray();
         findMinAndMaxInArray();
@@ -61,27 +223,46 @@ public class BasicDataOperationUsingQueue {
         peekAndPollQueue();
 
         // записати вiдсортований масив в окремий файл
-        Utils.writeArrayToFile(stringArray, PATH_TO_DATA_FILE + ".sorted");
+        Utils.writeArrayToFile(stringArray.array(), pathToSortedFile, parallelWrite);
+        Utils.writeArrayToFile(Utils.reversed(stringArray.array()), pathToReversedFile, parallelWrite);
     }
 
     /**
-     * Сортує масив об'єктiв String та виводить початковий i вiдсортований масиви.
+     * Сортує масив об'єктiв String багатоключовим швидким сортуванням.
      */
     private void sortArray() {
         long startTime = System.nanoTime();
 
-        Arrays.sort(stringArray);
+        if (parallel != null) {
+            stringArray.sort(parallel::sort);
+        } else {
+            stringArray.sort(StringSort::parallelSort);
+        }
 
         Utils.printOperationDuration(startTime, "сортування масиву");
     }
 
+    /**
+     * Виводить криву прискорення сортування та пошуку мiнiмуму й максимуму масиву вiд 1
+     * до {@link #maxThreads} потокiв. Вимiри йдуть на копiях ще не вiдсортованого масиву.
+     */
+    private void printSpeedupCurves() {
+        String[] source = stringArray.array();
+        String[] work = new String[source.length];
+
+        Utils.printSpeedupCurve("сортування масиву", source.length, maxThreads,
+                parallel -> parallel.sort(work), () -> System.arraycopy(source, 0, work, 0, source.length));
+        Utils.printSpeedupCurve("пошук мiнiмального i максимального значення в масивi", source.length, maxThreads,
+                parallel -> parallel.summarize(source), () -> { });
+    }
+
     /**
      * Метод для пошуку значення в масивi типу String.
      */
     private void searchArray() {
         long startTime = System.nanoTime();
 
-        int index = Arrays.binarySearch(this.stringArray, stringValueToSearch);
+        int index = this.stringArray.binarySearch(stringValueToSearch);
 
         Utils.printOperationDuration(startTime, "пошук в масивi");
 
@@ -93,34 +274,25 @@ public class BasicDataOperationUsingQueue {
     }
 
     /**
-     * Знаходить мiнiмальне та максимальне значення в масивi String.
+     * Знаходить мiнiмальне та максимальне значення в масивi String за статистикою,
+     * яку масив пiдтримує при кожнiй змiнi.
      */
     private void findMinAndMaxInArray() {
-        if (stringArray == null || stringArray.length == 0) {
-            System.out.println("Масив порожній або не ініціалізований.");
+        if (stringArray == null || stringArray.size() == 0) {
+            System.out.println("Масив порожнiй або не iнiцiалiзований.");
             return;
         }
-    
+
         long startTime = System.nanoTime();
-    
-        String min = stringArray[0];
-        String max = stringArray[0];
-    
-        for (String stringValue : stringArray) {
-            if (stringValue.compareTo(min) < 0) { // Порівняння для знаходження мінімального значення
-                min = stringValue;
-            }
-            if (stringValue.compareTo(max) > 0) { // Порівняння для знаходження максимального значення
-                max = stringValue;
-            }
-        }
-    
-        Utils.printOperationDuration(startTime, "пошук мінімального і максимального значення в масиві");
-    
-        System.out.println("Мінімальне значення в масиві: " + min);
-        System.out.println("Максимальне значення в масиві: " + max);
+
+        String min = stringArray.min();
+        String max = stringArray.max();
+
+        Utils.printOperationDuration(startTime, "пошук мiнiмального i максимального значення в масивi");
+
+        System.out.println("Мiнiмальне значення в масивi: " + min);
+        System.out.println("Максимальне значення в масивi: " + max);
     }
-    
 
     /**
      * Метод для пошуку значення в черзi типу String.
@@ -140,34 +312,25 @@ public class BasicDataOperationUsingQueue {
     }
 
     /**
-     * Знаходить мiнiмальне та максимальне значення в черзi String.
+     * Знаходить мiнiмальне та максимальне значення в черзi String. Обидва лежать у
+     * коренях купи, тому перебiр черги не потрiбен.
      */
     private void findMinAndMaxInQueue() {
         if (stringQueue == null || stringQueue.isEmpty()) {
-            System.out.println("Queue порожній або не ініціалізований.");
+            System.out.println("Queue порожнiй або не iнiцiалiзований.");
             return;
         }
-    
+
         long startTime = System.nanoTime();
-    
-        String min = null;
-        String max = null;
-    
-        for (String stringValue : stringQueue) {
-            if (min == null || stringValue.compareTo(min) < 0) { // Порівняння для знаходження мінімального значення
-                min = stringValue;
-            }
-            if (max == null || stringValue.compareTo(max) > 0) { // Порівняння для знаходження максимального значення
-                max = stringValue;
-            }
-        }
-    
-        Utils.printOperationDuration(startTime, "пошук мінімального і максимального значення в Queue");
-    
-        System.out.println("Мінімальне значення в Queue: " + min);
+
+        String min = stringQueue.peek();
+        String max = stringQueue.peekMax();
+
+        Utils.printOperationDuration(startTime, "пошук мiнiмального i максимального значення в Queue");
+
+        System.out.println("Мiнiмальне значення в Queue: " + min);
         System.out.println("Максимальне значення в Queue: " + max);
     }
-    
 
     /**
      * Виконує операцiї peek та poll з чергою String.
@@ -187,20 +350,221 @@ public class BasicDataOperationUsingQueue {
         firstElement = stringQueue.peek();
         System.out.println("Перший елемент у черзi: " + firstElement);
     }
+    /**
+     * Виконує операцiї з масивом над ареною рядкiв: пошук, мiнiмум i максимум до та пiсля
+     * сортування, перевiрку належностi, порiвняння пам'ятi з String[] i запис у файл.
+     */
+    private void doArenaDataOperation() {
+        searchArena();
+        findMinAndMaxInArena();
+
+        long startTime = System.nanoTime();
+        if (parallel != null) {
+            stringArena.sort(parallel);
+        } else {
+            stringArena.sort();
+        }
+        Utils.printOperationDuration(startTime, "сортування арени рядкiв");
+
+        searchArena();
+        findMinAndMaxInArena();
+
+        startTime = System.nanoTime();
+        boolean isFound = stringArena.contains(stringValueToSearch);
+        Utils.printOperationDuration(startTime, "перевiрка належностi рядка в аренi"
+                + (stringArena.isDeduplicated() ? " через словник" : ""));
+        System.out.println("Значення '" + stringValueToSearch + "' " + (isFound ? "знайдено" : "не знайдено") + " в аренi.");
+
+        System.out.println("Кiлькiсть рядкiв в аренi: " + stringArena.size() + ", рiзних записiв: " + stringArena.distinctCount());
+        long arenaBytes = stringArena.heapBytes();
+        long stringArrayBytes = stringArena.stringArrayHeapBytes();
+        System.out.printf("Об'єм купи: арена %d байт, String[] %d байт (%.1fx)%n",
+                arenaBytes, stringArrayBytes, arenaBytes > 0 ? (double) stringArrayBytes / arenaBytes : 0);
+
+        Utils.writeArenaToFile(stringArena, pathToSortedFile, false);
+        Utils.writeArenaToFile(stringArena, pathToReversedFile, true);
+    }
+
+    /**
+     * Метод для бiнарного пошуку значення в аренi рядкiв.
+     */
+    private void searchArena() {
+        long startTime = System.nanoTime();
+
+        int index = stringArena.binarySearch(stringValueToSearch);
+
+        Utils.printOperationDuration(startTime, "пошук в аренi");
+
+        if (index >= 0) {
+            System.out.println("Значення '" + stringValueToSearch + "' знайдено в аренi за iндексом: " + index);
+        } else {
+            System.out.println("Значення '" + stringValueToSearch + "' в аренi не знайдено.");
+        }
+    }
+
+    /**
+     * Знаходить мiнiмальне та максимальне значення в аренi рядкiв.
+     */
+    private void findMinAndMaxInArena() {
+        if (stringArena.size() == 0) {
+            System.out.println("Арена порожня.");
+            return;
+        }
+
+        long startTime = System.nanoTime();
+
+        String min = stringArena.min();
+        String max = stringArena.max();
+
+        Utils.printOperationDuration(startTime, "пошук мiнiмального i максимального значення в аренi");
+
+        System.out.println("Мiнiмальне значення в аренi: " + min);
+        System.out.println("Максимальне значення в аренi: " + max);
+    }
 }
 
 /**
  * Клас Utils мiститить допомiжнi методи для роботи з даними типу String.
  */
 class Utils {
+    static final int READ_BUFFER_SIZE = 1 << 20;
+    static final int WRITE_BUFFER_SIZE = 1 << 20;
+    static final int MIN_PARALLEL_SEGMENT = 1 << 14;
+    static final String GZIP_SUFFIX = ".gz";
+    static final String DEFLATE_SUFFIX = ".deflate";
+    static final int DEFAULT_TOP_K = 10;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Перевiряє, чи передано опцiю командного рядка виду "--name" або "--name=значення".
+     * 
+     * @param args Аргументи командного рядка.
+     * @param name Назва опцiї без префiкса "--".
+     * @return true, якщо опцiю передано.
+     */
+    static boolean hasOption(String[] args, String name) {
+        return getOption(args, name, null) != null;
+    }
+
+    /**
+     * Повертає значення опцiї командного рядка виду "--name=значення".
+     * 
+     * @param args Аргументи командного рядка.
+     * @param name Назва опцiї без префiкса "--".
+     * @param defaultValue Значення, якщо опцiю не передано.
+     * @return Значення опцiї, порожнiй рядок для опцiї без значення або defaultValue.
+     */
+    static String getOption(String[] args, String name, String defaultValue) {
+        for (String arg : args) {
+            if (arg.equals("--" + name)) {
+                return "";
+            }
+            if (arg.startsWith("--" + name + "=")) {
+                return arg.substring(name.length() + 3);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Повертає перший аргумент командного рядка, який не є опцiєю.
+     * 
+     * @param args Аргументи командного рядка.
+     * @return Значення аргументу або null, якщо його немає.
+     */
+    static String getPositionalArgument(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                return arg;
+            }
+        }
+        return null;
+    }
+
     static void printOperationDuration(long startTime, String operationName) {
         long endTime = System.nanoTime();
         long duration = endTime - startTime;
         System.out.println("\n>>>>>>>>>> Час виконання операцiї '" + operationName + "': " + duration + " наносекунд");
     }
 
+    /**
+     * Перевiряє, чи файл стиснений, за його суфiксом ".gz" або ".deflate".
+     */
+    static boolean isCompressed(String pathToFile) {
+        return pathToFile.endsWith(GZIP_SUFFIX) || pathToFile.endsWith(DEFLATE_SUFFIX);
+    }
+
+    /**
+     * Повертає шлях до файлу з даними, а якщо його немає - до його стисненої копiї
+     * з суфiксом ".gz" або ".deflate".
+     */
+    static String resolveDataFile(String pathToFile) {
+        if (Files.exists(Path.of(pathToFile))) {
+            return pathToFile;
+        }
+        for (String suffix : new String[] {GZIP_SUFFIX, DEFLATE_SUFFIX}) {
+            if (Files.exists(Path.of(pathToFile + suffix))) {
+                return pathToFile + suffix;
+            }
+        }
+        return pathToFile;
+    }
+
+    /**
+     * Вiдкриває файл з даними для читання. Стиснений файл розпаковується в окремому
+     * потоцi виконання ({@link InflatingInputStream}).
+     */
+    static InputStream openDataFile(String pathToFile) throws IOException {
+        InputStream in = new FileInputStream(pathToFile);
+        try {
+            if (pathToFile.endsWith(GZIP_SUFFIX)) {
+                return new InflatingInputStream(new GZIPInputStream(in, InflatingInputStream.INFLATER_BUFFER_SIZE));
+            }
+            if (pathToFile.endsWith(DEFLATE_SUFFIX)) {
+                return new InflatingInputStream(new InflaterInputStream(in, new Inflater(), InflatingInputStream.INFLATER_BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inf.end();
+                        }
+                    }
+                });
+            }
+            return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Створює файл, у який данi пишуться стисненими у формат за суфiксом файлу.
+     */
+    static OutputStream createCompressedFile(String pathToFile) throws IOException {
+        OutputStream out = new FileOutputStream(pathToFile);
+        if (pathToFile.endsWith(GZIP_SUFFIX)) {
+            return new GZIPOutputStream(out, WRITE_BUFFER_SIZE);
+        }
+        if (pathToFile.endsWith(DEFLATE_SUFFIX)) {
+            return new DeflaterOutputStream(out, new Deflater(), WRITE_BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+        }
+        out.close();
+        throw new RuntimeException("Невiдомий формат стиснення файлу '" + pathToFile + "'");
+    }
+
     static String[] readArrayFromFile(String pathToFile) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(pathToFile))) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(openDataFile(pathToFile), StandardCharsets.UTF_8))) {
             return reader.lines().toArray(String[]::new);
         } catch (IOException e) {
             e.printStackTrace();
@@ -208,14 +572,2354 @@ class Utils {
         }
     }
 
-    static void writeArrayToFile(String[] dataArray, String pathToFile) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(pathToFile))) {
-            for (String data : dataArray) {
-                writer.write(data);
-                writer.newLine();
+    /**
+     * Зчитує масив рядкiв через двiйковий кеш {@link StringSidecar}. Якщо актуального
+     * кешу немає, файл читається звичайним способом, а кеш записується для наступних запускiв.
+     */
+    static String[] readArrayFromFileCached(String pathToFile) {
+        long startTime = System.nanoTime();
+
+        try {
+            String[] stringArray = StringSidecar.read(pathToFile);
+            if (stringArray != null) {
+                printOperationDuration(startTime, "читання масиву з кешу");
+                return stringArray;
+            }
+
+            Path source = Path.of(pathToFile);
+            long sourceSize = Files.size(source);
+            long sourceModified = Files.getLastModifiedTime(source).toMillis();
+
+            stringArray = readArrayFromFile(pathToFile);
+            StringSidecar.write(pathToFile, sourceSize, sourceModified, stringArray);
+
+            printOperationDuration(startTime, "читання масиву з файлу i запис кешу");
+            return stringArray;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new String[0];
+        }
+    }
+
+    /**
+     * Рахує довжину рядка в байтах UTF-8 так само, як String.getBytes, який замiнює
+     * непарнi сурогати на '?'.
+     */
+    static long utf8Length(String data) {
+        long length = 0;
+        for (int i = 0; i < data.length(); i++) {
+            char c = data.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < data.length() && Character.isLowSurrogate(data.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Зчитує рядки файлу в арену без створення об'єкта String на рядок.
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @param deduplicate Чи зберiгати однаковi рядки один раз.
+     * @return Арена з рядками в порядку файлу.
+     */
+    static StringArena readArenaFromFile(String pathToFile, boolean deduplicate) {
+        long startTime = System.nanoTime();
+
+        StringArena arena = new StringArena(0, deduplicate);
+        try (InputStream in = openDataFile(pathToFile)) {
+            forEachLine(in, arena::add);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new StringArena(0, deduplicate);
+        }
+
+        printOperationDuration(startTime, "читання рядкiв з файлу в арену");
+        return arena;
+    }
+
+    /**
+     * Зчитує арену рядкiв через двiйковий кеш {@link StringSidecar}. Якщо актуального
+     * кешу немає, файл читається {@link #readArenaFromFile(String, boolean)}, а кеш
+     * записується для наступних запускiв.
+     */
+    static StringArena readArenaFromFileCached(String pathToFile, boolean deduplicate) {
+        long startTime = System.nanoTime();
+
+        try {
+            StringArena arena = StringSidecar.readArena(pathToFile, deduplicate);
+            if (arena != null) {
+                printOperationDuration(startTime, "читання арени рядкiв з кешу");
+                return arena;
+            }
+
+            Path source = Path.of(pathToFile);
+            long sourceSize = Files.size(source);
+            long sourceModified = Files.getLastModifiedTime(source).toMillis();
+
+            arena = readArenaFromFile(pathToFile, deduplicate);
+            StringSidecar.write(pathToFile, sourceSize, sourceModified, arena);
+            return arena;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new StringArena(0, deduplicate);
+        }
+    }
+
+    /**
+     * Читає потiк блоками по {@link #READ_BUFFER_SIZE} байт i передає кожен рядок (без
+     * символiв кiнця рядка) обробнику без створення промiжних String. Як i
+     * BufferedReader.lines, порожнi рядки зберiгаються, а порожнiй рядок пiсля
+     * останнього символу кiнця рядка не передається. Роздiлювачем вважається лише '\n'
+     * або "\r\n".
+     */
+    static void forEachLine(InputStream in, LineConsumer consumer) throws IOException {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int filled = 0;
+        int read;
+
+        while ((read = in.read(buffer, filled, buffer.length - filled)) != -1) {
+            int scanFrom = filled;
+            filled += read;
+
+            int lineStart = 0;
+            for (int i = scanFrom; i < filled; i++) {
+                if (buffer[i] == '\n') {
+                    int lineEnd = i > lineStart && buffer[i - 1] == '\r' ? i - 1 : i;
+                    consumer.accept(buffer, lineStart, lineEnd - lineStart);
+                    lineStart = i + 1;
+                }
+            }
+
+            // незавершений рядок переноситься на початок буфера
+            int remaining = filled - lineStart;
+            if (remaining == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            } else {
+                System.arraycopy(buffer, lineStart, buffer, 0, remaining);
+            }
+            filled = remaining;
+        }
+
+        if (filled > 0) {
+            consumer.accept(buffer, 0, buffer[filled - 1] == '\r' ? filled - 1 : filled);
+        }
+    }
+
+    /**
+     * Обробник рядка, заданого дiапазоном байтiв у буферi.
+     */
+    interface LineConsumer {
+        void accept(byte[] buffer, int offset, int length);
+    }
+
+    /**
+     * Записує рядки арени у файл. Байти UTF-8 копiюються з арени без декодування;
+     * файл з суфiксом ".gz" або ".deflate" пишеться стисненим.
+     * 
+     * @param descending Чи записувати рядки з кiнця арени до початку.
+     */
+    static void writeArenaToFile(StringArena arena, String pathToFile, boolean descending) {
+        long startTime = System.nanoTime();
+        long bytes = 0;
+
+        try (OutputStream out = isCompressed(pathToFile) ? createCompressedFile(pathToFile) : new FileOutputStream(pathToFile)) {
+            byte[] buffer = new byte[WRITE_BUFFER_SIZE];
+            int filled = 0;
+            for (int i = 0; i < arena.size(); i++) {
+                int row = descending ? arena.size() - 1 - i : i;
+                int length = arena.rowLength(row);
+                if (filled + length + LINE_SEPARATOR.length > buffer.length) {
+                    out.write(buffer, 0, filled);
+                    bytes += filled;
+                    filled = 0;
+                }
+                if (length + LINE_SEPARATOR.length > buffer.length) {
+                    out.write(arena.bytes(), arena.rowOffset(row), length);
+                    out.write(LINE_SEPARATOR);
+                    bytes += length + LINE_SEPARATOR.length;
+                    continue;
+                }
+                System.arraycopy(arena.bytes(), arena.rowOffset(row), buffer, filled, length);
+                System.arraycopy(LINE_SEPARATOR, 0, buffer, filled + length, LINE_SEPARATOR.length);
+                filled += length + LINE_SEPARATOR.length;
             }
+            out.write(buffer, 0, filled);
+            bytes += filled;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        printWriteThroughput(startTime, descending ? "запис арени рядкiв у файл у зворотному порядку" : "запис арени рядкiв у файл", bytes);
+    }
+
+    /**
+     * Повертає копiю масиву з елементами у зворотному порядку.
+     */
+    static String[] reversed(String[] dataArray) {
+        String[] reversedArray = new String[dataArray.length];
+        for (int i = 0; i < dataArray.length; i++) {
+            reversedArray[i] = dataArray[dataArray.length - 1 - i];
+        }
+        return reversedArray;
+    }
+
+    /**
+     * Порiвнює Arrays.sort з багатоключовим швидким сортуванням {@link StringSort} на
+     * String[] (послiдовним i паралельним) та на аренi рядкiв. Кожен запуск сортує свiжу
+     * копiю рядкiв у порядку файлу; виводиться найкращий час i збiг результатiв.
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     */
+    static void compareSorts(String pathToFile) {
+        String[] stringArray = readArrayFromFile(pathToFile);
+        if (stringArray.length == 0) {
+            System.out.println("Файл '" + pathToFile + "' порожнiй.");
+            return;
+        }
+
+        final int rounds = 5;
+        long[] cost = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        String[] expected = null;
+        boolean equal = true;
+
+        for (int round = 0; round < rounds; round++) {
+            String[] jdkArray = stringArray.clone();
+            long startTime = System.nanoTime();
+            Arrays.sort(jdkArray);
+            cost[0] = Math.min(cost[0], System.nanoTime() - startTime);
+            expected = jdkArray;
+
+            String[] sortedArray = stringArray.clone();
+            startTime = System.nanoTime();
+            StringSort.sort(sortedArray);
+            cost[1] = Math.min(cost[1], System.nanoTime() - startTime);
+            equal &= Arrays.equals(expected, sortedArray);
+
+            sortedArray = stringArray.clone();
+            startTime = System.nanoTime();
+            StringSort.parallelSort(sortedArray);
+            cost[2] = Math.min(cost[2], System.nanoTime() - startTime);
+            equal &= Arrays.equals(expected, sortedArray);
+
+            StringArena arena = StringArena.of(stringArray);
+            startTime = System.nanoTime();
+            arena.sort();
+            cost[3] = Math.min(cost[3], System.nanoTime() - startTime);
+            equal &= Arrays.equals(expected, arena.toArray());
+        }
+
+        System.out.println("\nПорiвняння сортувань для '" + pathToFile + "' (" + stringArray.length
+                + " рядкiв, найкращий з " + rounds + " запускiв, потокiв " + ForkJoinPool.commonPool().getParallelism() + "):");
+        System.out.printf("  Arrays.sort(String[]): %d наносекунд%n", cost[0]);
+        System.out.printf("  StringSort.sort(String[]): %d наносекунд (%.2fx)%n", cost[1], (double) cost[0] / cost[1]);
+        System.out.printf("  StringSort.parallelSort(String[]): %d наносекунд (%.2fx)%n", cost[2], (double) cost[0] / cost[2]);
+        System.out.printf("  StringArena.sort(): %d наносекунд (%.2fx)%n", cost[3], (double) cost[0] / cost[3]);
+        System.out.println("  Результати " + (equal ? "збiгаються" : "НЕ збiгаються") + " з Arrays.sort");
+    }
+
+    /**
+     * Повертає K для опцiї "--top" або "--bottom": {@value #DEFAULT_TOP_K} для опцiї без
+     * значення i 0, якщо опцiї немає.
+     */
+    static int getTopKOption(String[] args, String name) {
+        String value = getOption(args, name, null);
+        if (value == null) {
+            return 0;
+        }
+        int k = value.isEmpty() ? DEFAULT_TOP_K : Integer.parseInt(value);
+        if (k <= 0) {
+            throw new RuntimeException("Значення опцiї --" + name + " має бути додатним: " + value);
+        }
+        return k;
+    }
+
+    /**
+     * Одним потоковим проходом файлу вiдбирає top найбiльших i bottom найменших рядкiв
+     * (0 - не вiдбирати) i виводить їх по порядку.
+     */
+    static void printTopK(String pathToFile, int top, int bottom) {
+        TopKCollector largest = top > 0 ? new TopKCollector(top, true) : null;
+        TopKCollector smallest = bottom > 0 ? new TopKCollector(bottom, false) : null;
+        long[] lines = new long[1];
+        long[] bytes = new long[1];
+
+        long startTime = System.nanoTime();
+
+        try (InputStream in = openDataFile(pathToFile)) {
+            forEachLine(in, (buffer, offset, length) -> {
+                lines[0]++;
+                bytes[0] += length;
+                if (largest != null) {
+                    largest.accept(buffer, offset, length);
+                }
+                if (smallest != null) {
+                    smallest.accept(buffer, offset, length);
+                }
+            });
         } catch (IOException e) {
             e.printStackTrace();
+            return;
+        }
+
+        long duration = System.nanoTime() - startTime;
+        double megabytesPerSecond = duration > 0 ? bytes[0] * 1_000_000_000.0 / duration / (1 << 20) : 0;
+        System.out.printf("%n>>>>>>>>>> Час потокового вiдбору з '%s': %d наносекунд (%d рядкiв, %.1f МБ/с)%n",
+                pathToFile, duration, lines[0], megabytesPerSecond);
+
+        if (largest != null) {
+            printTopKValues(largest, top, lines[0], "найбiльших");
+        }
+        if (smallest != null) {
+            printTopKValues(smallest, bottom, lines[0], "найменших");
+        }
+    }
+
+    private static void printTopKValues(TopKCollector collector, int k, long lines, String kind) {
+        long decoded = collector.decoded();
+        List<String> values = collector.drainInOrder();
+        System.out.println("\n" + values.size() + " з " + k + " " + kind + " рядкiв (декодовано " + decoded + " з "
+                + lines + " рядкiв):");
+        for (int i = 0; i < values.size(); i++) {
+            System.out.println("  " + (i + 1) + ". " + values.get(i));
+        }
+    }
+
+    /**
+     * Вимiрює операцiю з 1, 2, 4, ... i maxThreads потоками та виводить час i прискорення
+     * вiдносно одного потоку (найкращий з кiлькох запускiв пiсля розiгрiву). Порiг подiлу
+     * для кожної кiлькостi потокiв обирається так само, як у паралельному режимi.
+     * 
+     * @param reset Готує данi перед кожним запуском; не входить у вимiр.
+     */
+    static void printSpeedupCurve(String operationName, int size, int maxThreads, Consumer<ParallelOps> operation,
+            Runnable reset) {
+        final int rounds = 3;
+        System.out.println("\nПрискорення операцiї '" + operationName + "' (" + size + " елементiв, найкращий з "
+                + rounds + " запускiв):");
+        long singleThreadCost = 0;
+        for (int threads = 1; ; threads = Math.min(2 * threads, maxThreads)) {
+            long cost = Long.MAX_VALUE;
+            int threshold;
+            try (ParallelOps parallel = new ParallelOps(threads, size)) {
+                threshold = parallel.threshold;
+                // перший запуск розiгрiває JIT i пул потокiв i не рахується
+                for (int round = 0; round <= rounds; round++) {
+                    reset.run();
+                    long startTime = System.nanoTime();
+                    operation.accept(parallel);
+                    if (round > 0) {
+                        cost = Math.min(cost, System.nanoTime() - startTime);
+                    }
+                }
+            }
+            if (threads == 1) {
+                singleThreadCost = cost;
+            }
+            System.out.printf("  %3d потокiв (порiг %d): %d наносекунд, прискорення %.2fx%n", threads, threshold, cost,
+                    (double) singleThreadCost / cost);
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+
+
+    static void writeArrayToFile(String[] dataArray, String pathToFile) {
+        writeArrayToFile(dataArray, pathToFile, false);
+    }
+
+    /**
+     * Записує масив рядкiв у файл у кодуваннi UTF-8, по одному рядку на елемент.
+     * 
+     * <p>Символи кодуються прямо в багаторазовий прямий ByteBuffer i записуються у
+     * FileChannel блоками по {@link #WRITE_BUFFER_SIZE} байт. У паралельному режимi масив
+     * дiлиться на сегменти, для кожного заздалегiдь рахується розмiр у байтах, i сегменти
+     * записуються в ForkJoinPool позицiйними записами в свої неперетиннi дiлянки файлу.
+     * Файл з суфiксом ".gz" або ".deflate" пишеться стисненим.</p>
+     */
+    static void writeArrayToFile(String[] dataArray, String pathToFile, boolean parallel) {
+        if (isCompressed(pathToFile)) {
+            writeCompressedArrayToFile(dataArray, pathToFile);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(Path.of(pathToFile), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int segments = parallel ? Math.max(1, Math.min(ForkJoinPool.commonPool().getParallelism() * 4,
+                    dataArray.length / MIN_PARALLEL_SEGMENT)) : 1;
+
+            long[] segmentOffsets = new long[segments + 1];
+            if (segments > 1) {
+                ForkJoinPool.commonPool().invoke(new SegmentWriteTask(dataArray, channel, segmentOffsets, false, 0, segments));
+                for (int i = 0; i < segments; i++) {
+                    segmentOffsets[i + 1] += segmentOffsets[i];
+                }
+                ForkJoinPool.commonPool().invoke(new SegmentWriteTask(dataArray, channel, segmentOffsets, true, 0, segments));
+            } else {
+                segmentOffsets[1] = writeSegment(dataArray, 0, dataArray.length, channel, -1);
+            }
+
+            printWriteThroughput(startTime, "запис масиву у файл", segmentOffsets[segments]);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Записує масив рядкiв у стиснений файл у кодуваннi UTF-8. Непарнi сурогати, як i
+     * в нестисненому записi, замiнюються на '?'.
+     */
+    static void writeCompressedArrayToFile(String[] dataArray, String pathToFile) {
+        long startTime = System.nanoTime();
+        long bytes = 0;
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(createCompressedFile(pathToFile), StandardCharsets.UTF_8),
+                WRITE_BUFFER_SIZE)) {
+            for (String data : dataArray) {
+                writer.write(data);
+                writer.write(System.lineSeparator());
+                bytes += utf8Length(data) + LINE_SEPARATOR.length;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        printWriteThroughput(startTime, "стиснений запис масиву у файл", bytes);
+        System.out.println("Розмiр стисненого файлу: " + new File(pathToFile).length() + " байт iз " + bytes);
+    }
+
+    static void printWriteThroughput(long startTime, String operationName, long bytes) {
+        long duration = System.nanoTime() - startTime;
+        double megabytesPerSecond = duration > 0 ? bytes * 1_000_000_000.0 / duration / (1 << 20) : 0;
+        System.out.printf("%n>>>>>>>>>> Швидкiсть запису операцiї '%s': %d байт за %d наносекунд (%.1f МБ/с)%n",
+                operationName, bytes, duration, megabytesPerSecond);
+    }
+
+    /**
+     * Кодує елементи масиву з from до to i записує їх у канал з позицiї position
+     * або з поточної позицiї, якщо position дорiвнює -1. Повертає кiлькiсть записаних байтiв.
+     */
+    private static long writeSegment(String[] dataArray, int from, int to, FileChannel channel, long position)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        long written = 0;
+
+        for (int i = from; i < to; i++) {
+            String data = dataArray[i];
+            for (int j = 0; j < data.length(); j++) {
+                if (buffer.remaining() < 4 + LINE_SEPARATOR.length) {
+                    written += flush(buffer, channel, position < 0 ? -1 : position + written);
+                }
+                char c = data.charAt(j);
+                if (c < 0x80) {
+                    buffer.put((byte) c);
+                } else if (c < 0x800) {
+                    buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && j + 1 < data.length() && Character.isLowSurrogate(data.charAt(j + 1))) {
+                    int codePoint = Character.toCodePoint(c, data.charAt(++j));
+                    buffer.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                            .put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buffer.put((byte) '?');
+                } else {
+                    buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+                }
+            }
+            if (buffer.remaining() < LINE_SEPARATOR.length) {
+                written += flush(buffer, channel, position < 0 ? -1 : position + written);
+            }
+            buffer.put(LINE_SEPARATOR);
+        }
+        return written + flush(buffer, channel, position < 0 ? -1 : position + written);
+    }
+
+    private static long flush(ByteBuffer buffer, FileChannel channel, long position) throws IOException {
+        buffer.flip();
+        long written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            if (position < 0) {
+                channel.write(buffer);
+            } else {
+                channel.write(buffer, position + written - buffer.remaining());
+            }
+        }
+        buffer.clear();
+        return written;
+    }
+
+    /**
+     * Задача ForkJoinPool для паралельного запису сегментiв масиву. Без запису рахує
+     * розмiр сегмента i в байтах у segmentOffsets[i + 1], iз записом кодує сегмент i
+     * у файл, починаючи з позицiї segmentOffsets[i].
+     */
+    private static class SegmentWriteTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final String[] dataArray;
+        private final FileChannel channel;
+        private final long[] segmentOffsets;
+        private final boolean write;
+        private final int from;
+        private final int to;
+
+        SegmentWriteTask(String[] dataArray, FileChannel channel, long[] segmentOffsets, boolean write, int from, int to) {
+            this.dataArray = dataArray;
+            this.channel = channel;
+            this.segmentOffsets = segmentOffsets;
+            this.write = write;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SegmentWriteTask(dataArray, channel, segmentOffsets, write, from, middle),
+                        new SegmentWriteTask(dataArray, channel, segmentOffsets, write, middle, to));
+                return;
+            }
+
+            int segments = segmentOffsets.length - 1;
+            int start = (int) ((long) dataArray.length * from / segments);
+            int end = (int) ((long) dataArray.length * (from + 1) / segments);
+            if (!write) {
+                long length = 0;
+                for (int i = start; i < end; i++) {
+                    length += utf8Length(dataArray[i]) + LINE_SEPARATOR.length;
+                }
+                segmentOffsets[from + 1] = length;
+                return;
+            }
+
+            try {
+                writeSegment(dataArray, start, end, channel, segmentOffsets[from]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
+
+/**
+ * Клас InflatingInputStream розпаковує стиснений потiк в окремому потоцi виконання,
+ * щоб розбiр рядкiв iшов одночасно з розпаковуванням.
+ * 
+ * <p>Фоновий потiк читає розпакованi данi блоками по {@value #CHUNK_SIZE} байт у
+ * обмежену чергу, а читач забирає їх звiдти i повертає порожнi блоки назад. Тому
+ * в пам'ятi одночасно не бiльше {@value #CHUNKS} блокiв, i новi не видiляються.</p>
+ */
+class InflatingInputStream extends InputStream {
+    static final int INFLATER_BUFFER_SIZE = 1 << 18;
+    static final int CHUNK_SIZE = 1 << 20;
+    static final int CHUNKS = 4;
+
+    private static final Chunk END = new Chunk(0);
+
+    private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(CHUNKS + 1);
+    private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(CHUNKS);
+    private final Thread inflater;
+    private volatile IOException failure;
+    private Chunk current;
+    private int position;
+
+    /**
+     * @param source Потiк, що розпаковує данi (GZIPInputStream або InflaterInputStream).
+     */
+    InflatingInputStream(InputStream source) {
+        for (int i = 0; i < CHUNKS; i++) {
+            free.add(new Chunk(CHUNK_SIZE));
+        }
+        inflater = new Thread(() -> inflate(source), "inflater");
+        inflater.setDaemon(true);
+        inflater.start();
+    }
+
+    private void inflate(InputStream source) {
+        try (InputStream in = source) {
+            while (true) {
+                Chunk chunk = free.take();
+                chunk.length = in.readNBytes(chunk.data, 0, chunk.data.length);
+                if (chunk.length > 0) {
+                    filled.put(chunk);
+                }
+                if (chunk.length < chunk.data.length) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return;
+        }
+        filled.add(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (current == null || (current != END && position == current.length)) {
+            if (current != null) {
+                free.add(current);
+            }
+            try {
+                current = filled.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Розпаковування перервано");
+            }
+            position = 0;
+        }
+        if (current == END) {
+            if (failure != null) {
+                throw failure;
+            }
+            return -1;
+        }
+
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current.data, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.interrupt();
+        try {
+            inflater.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Блок розпакованих даних.
+     */
+    private static class Chunk {
+        final byte[] data;
+        int length;
+
+        Chunk(int size) {
+            data = new byte[size];
+        }
+    }
+}
+
+/**
+ * Клас StatisticsArray - обгортка масиву, яка пiдтримує кiлькiсть елементiв, мiнiмум,
+ * максимум i ознаку вiдсортованостi при кожнiй змiнi.
+ * 
+ * <p>Статистика рахується одним проходом при створеннi, а далi оновлюється за O(1):
+ * set() порiвнює нове значення з мiнiмумом, максимумом i сусiдами, sort() бере мiнiмум
+ * i максимум з країв. Лише перезапис самого мiнiмуму чи максимуму бiльшим або меншим
+ * значенням робить статистику застарiлою, i вона перераховується при наступному запитi.</p>
+ */
+class StatisticsArray<T extends Comparable<? super T>> {
+    private final T[] values;
+    private T min;
+    private T max;
+    private boolean sorted;
+    private boolean stale;
+
+    /**
+     * @param values Масив; використовується без копiювання.
+     */
+    StatisticsArray(T[] values) {
+        this.values = values;
+        recompute();
+    }
+
+    /**
+     * Рахує статистику масиву задачами ForkJoinPool.
+     * 
+     * @param values Масив; використовується без копiювання.
+     */
+    StatisticsArray(T[] values, ParallelOps parallel) {
+        this.values = values;
+        ParallelOps.Summary<T> summary = parallel.summarize(values);
+        min = summary.min;
+        max = summary.max;
+        sorted = summary.sorted;
+    }
+
+    private void recompute() {
+        sorted = true;
+        min = values.length > 0 ? values[0] : null;
+        max = min;
+        for (int i = 1; i < values.length; i++) {
+            T value = values[i];
+            sorted &= values[i - 1].compareTo(value) <= 0;
+            if (value.compareTo(min) < 0) {
+                min = value;
+            }
+            if (value.compareTo(max) > 0) {
+                max = value;
+            }
+        }
+        stale = false;
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    T get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Замiнює елемент i оновлює статистику.
+     * 
+     * @return Попереднє значення.
+     */
+    T set(int index, T value) {
+        T previous = values[index];
+        values[index] = Objects.requireNonNull(value);
+
+        if (sorted) {
+            sorted = (index == 0 || values[index - 1].compareTo(value) <= 0)
+                    && (index == values.length - 1 || value.compareTo(values[index + 1]) <= 0);
+        }
+        if (!stale) {
+            if (value.compareTo(min) <= 0) {
+                min = value;
+            } else if (previous.compareTo(min) == 0) {
+                stale = true;
+            }
+            if (value.compareTo(max) >= 0) {
+                max = value;
+            } else if (previous.compareTo(max) == 0) {
+                stale = true;
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * Сортує масив. Повторне сортування вже вiдсортованого масиву нiчого не робить.
+     */
+    void sort() {
+        sort(Arrays::sort);
+    }
+
+    /**
+     * Сортує масив заданим алгоритмом, який має впорядкувати його за compareTo.
+     */
+    void sort(Consumer<? super T[]> sorter) {
+        if (sorted) {
+            return;
+        }
+        sorter.accept(values);
+        sorted = true;
+        if (values.length > 0) {
+            min = values[0];
+            max = values[values.length - 1];
+            stale = false;
+        }
+    }
+
+    boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Шукає значення так само, як Arrays.binarySearch; результат має сенс лише для
+     * вiдсортованого масиву.
+     */
+    int binarySearch(T key) {
+        return Arrays.binarySearch(values, key);
+    }
+
+    /**
+     * Повертає найменший елемент за O(1), якщо статистика не застарiла.
+     * 
+     * @throws NoSuchElementException Якщо масив порожнiй.
+     */
+    T min() {
+        ensureStatistics();
+        return min;
+    }
+
+    /**
+     * Повертає найбiльший елемент за O(1), якщо статистика не застарiла.
+     * 
+     * @throws NoSuchElementException Якщо масив порожнiй.
+     */
+    T max() {
+        ensureStatistics();
+        return max;
+    }
+
+    private void ensureStatistics() {
+        if (values.length == 0) {
+            throw new NoSuchElementException();
+        }
+        if (stale) {
+            recompute();
+        }
+    }
+
+    /**
+     * Повертає масив для читання без копiювання; змiнювати його слiд лише через set() i sort().
+     */
+    T[] array() {
+        return values;
+    }
+}
+
+/**
+ * Клас IndexedMinMaxHeap - черга з прiоритетом, яка крiм найменшого елемента дає i
+ * найбiльший, а належнiсть перевiряє через хеш-iндекс.
+ * 
+ * <p>Кожне рiзне значення зберiгається одним вузлом з лiчильником повторiв. Вузли
+ * водночас лежать у мiнiмальнiй i максимальнiй бiнарних купах i пам'ятають свої позицiї
+ * в обох, а HashMap вiдображає значення на вузол. Тому contains() i count() працюють
+ * за O(1), peek() i peekMax() - за O(1), а poll(), pollMax(), remove(Object) i
+ * replace() - за O(log n).</p>
+ * 
+ * <p>Iтератор повертає елементи без певного порядку, як i PriorityQueue.</p>
+ */
+class IndexedMinMaxHeap<E extends Comparable<? super E>> extends AbstractQueue<E> {
+    private final Map<E, Node<E>> index;
+    private Node<E>[] minHeap;
+    private Node<E>[] maxHeap;
+    private int distinct;
+    private int size;
+
+    IndexedMinMaxHeap() {
+        index = new HashMap<>();
+        minHeap = newHeap(16);
+        maxHeap = newHeap(16);
+    }
+
+    /**
+     * Створює чергу з елементiв колекцiї за O(n): спочатку рахуються повтори, потiм
+     * обидвi купи будуються знизу вгору.
+     */
+    IndexedMinMaxHeap(Collection<? extends E> elements) {
+        index = new HashMap<>(Math.max(16, (int) (elements.size() / 0.75f) + 1));
+        minHeap = newHeap(Math.max(16, elements.size()));
+        maxHeap = newHeap(Math.max(16, elements.size()));
+
+        for (E element : elements) {
+            Node<E> node = index.get(Objects.requireNonNull(element));
+            if (node == null) {
+                node = new Node<>(element, distinct);
+                index.put(element, node);
+                minHeap[distinct] = node;
+                maxHeap[distinct] = node;
+                distinct++;
+            }
+            node.count++;
+            size++;
+        }
+
+        for (int slot = distinct / 2 - 1; slot >= 0; slot--) {
+            siftDownMin(slot);
+            siftDownMax(slot);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Node<E>[] newHeap(int capacity) {
+        return (Node<E>[]) new Node<?>[capacity];
+    }
+
+    @Override
+    public boolean offer(E element) {
+        Node<E> node = index.get(Objects.requireNonNull(element));
+        if (node == null) {
+            if (distinct == minHeap.length) {
+                int capacity = minHeap.length + (minHeap.length >> 1);
+                minHeap = Arrays.copyOf(minHeap, capacity);
+                maxHeap = Arrays.copyOf(maxHeap, capacity);
+            }
+            node = new Node<>(element, distinct);
+            index.put(element, node);
+            minHeap[distinct] = node;
+            maxHeap[distinct] = node;
+            distinct++;
+            siftUpMin(node.minSlot);
+            siftUpMax(node.maxSlot);
+        }
+        node.count++;
+        size++;
+        return true;
+    }
+
+    @Override
+    public E peek() {
+        return size == 0 ? null : minHeap[0].value;
+    }
+
+    /**
+     * Повертає найбiльший елемент або null, якщо черга порожня.
+     */
+    E peekMax() {
+        return size == 0 ? null : maxHeap[0].value;
+    }
+
+    @Override
+    public E poll() {
+        if (size == 0) {
+            return null;
+        }
+        Node<E> node = minHeap[0];
+        decrement(node);
+        return node.value;
+    }
+
+    /**
+     * Забирає найбiльший елемент або повертає null, якщо черга порожня.
+     */
+    E pollMax() {
+        if (size == 0) {
+            return null;
+        }
+        Node<E> node = maxHeap[0];
+        decrement(node);
+        return node.value;
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        return element != null && index.containsKey(element);
+    }
+
+    /**
+     * Повертає кiлькiсть повторiв значення в черзi.
+     */
+    int count(Object element) {
+        Node<E> node = element != null ? index.get(element) : null;
+        return node != null ? node.count : 0;
+    }
+
+    /**
+     * Забирає один повтор значення з будь-якого мiсця черги за O(log n).
+     */
+    @Override
+    public boolean remove(Object element) {
+        Node<E> node = element != null ? index.get(element) : null;
+        if (node == null) {
+            return false;
+        }
+        decrement(node);
+        return true;
+    }
+
+    /**
+     * Замiнює один повтор значення iншим за O(log n). Для меншого нового значення це
+     * операцiя decrease-key.
+     * 
+     * @return false, якщо старого значення в черзi немає.
+     */
+    boolean replace(E oldValue, E newValue) {
+        Objects.requireNonNull(newValue);
+        if (!remove(oldValue)) {
+            return false;
+        }
+        return offer(newValue);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        index.clear();
+        Arrays.fill(minHeap, 0, distinct, null);
+        Arrays.fill(maxHeap, 0, distinct, null);
+        distinct = 0;
+        size = 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int slot;
+            private int repeated;
+
+            @Override
+            public boolean hasNext() {
+                return slot < distinct;
+            }
+
+            @Override
+            public E next() {
+                if (slot >= distinct) {
+                    throw new NoSuchElementException();
+                }
+                Node<E> node = minHeap[slot];
+                if (++repeated == node.count) {
+                    slot++;
+                    repeated = 0;
+                }
+                return node.value;
+            }
+        };
+    }
+
+    private void decrement(Node<E> node) {
+        size--;
+        if (--node.count > 0) {
+            return;
+        }
+
+        index.remove(node.value);
+        int last = --distinct;
+
+        Node<E> moved = minHeap[last];
+        minHeap[last] = null;
+        if (node.minSlot != last) {
+            int slot = node.minSlot;
+            minHeap[slot] = moved;
+            moved.minSlot = slot;
+            siftDownMin(slot);
+            siftUpMin(moved.minSlot);
+        }
+
+        moved = maxHeap[last];
+        maxHeap[last] = null;
+        if (node.maxSlot != last) {
+            int slot = node.maxSlot;
+            maxHeap[slot] = moved;
+            moved.maxSlot = slot;
+            siftDownMax(slot);
+            siftUpMax(moved.maxSlot);
+        }
+    }
+
+    private void siftUpMin(int slot) {
+        Node<E> node = minHeap[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (minHeap[parent].value.compareTo(node.value) <= 0) {
+                break;
+            }
+            minHeap[slot] = minHeap[parent];
+            minHeap[slot].minSlot = slot;
+            slot = parent;
+        }
+        minHeap[slot] = node;
+        node.minSlot = slot;
+    }
+
+    private void siftDownMin(int slot) {
+        Node<E> node = minHeap[slot];
+        while (2 * slot + 1 < distinct) {
+            int child = 2 * slot + 1;
+            if (child + 1 < distinct && minHeap[child + 1].value.compareTo(minHeap[child].value) < 0) {
+                child++;
+            }
+            if (node.value.compareTo(minHeap[child].value) <= 0) {
+                break;
+            }
+            minHeap[slot] = minHeap[child];
+            minHeap[slot].minSlot = slot;
+            slot = child;
+        }
+        minHeap[slot] = node;
+        node.minSlot = slot;
+    }
+
+    private void siftUpMax(int slot) {
+        Node<E> node = maxHeap[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (maxHeap[parent].value.compareTo(node.value) >= 0) {
+                break;
+            }
+            maxHeap[slot] = maxHeap[parent];
+            maxHeap[slot].maxSlot = slot;
+            slot = parent;
+        }
+        maxHeap[slot] = node;
+        node.maxSlot = slot;
+    }
+
+    private void siftDownMax(int slot) {
+        Node<E> node = maxHeap[slot];
+        while (2 * slot + 1 < distinct) {
+            int child = 2 * slot + 1;
+            if (child + 1 < distinct && maxHeap[child + 1].value.compareTo(maxHeap[child].value) > 0) {
+                child++;
+            }
+            if (node.value.compareTo(maxHeap[child].value) >= 0) {
+                break;
+            }
+            maxHeap[slot] = maxHeap[child];
+            maxHeap[slot].maxSlot = slot;
+            slot = child;
+        }
+        maxHeap[slot] = node;
+        node.maxSlot = slot;
+    }
+
+    /**
+     * Рiзне значення черги з кiлькiстю повторiв i позицiями в обох купах.
+     */
+    private static final class Node<E> {
+        final E value;
+        int count;
+        int minSlot;
+        int maxSlot;
+
+        Node(E value, int slot) {
+            this.value = value;
+            this.minSlot = slot;
+            this.maxSlot = slot;
+        }
+    }
+}
+
+/**
+ * Клас BoundedHeap - обмежена купа, яка з потоку елементiв тримає лише capacity найменших
+ * за заданим порядком. У коренi бiнарної купи лежить найбiльший з них - порiг: новий
+ * елемент, не менший за порiг, вiдкидається за одне порiвняння, а менший замiнює корiнь
+ * за O(log K). Потiк з n елементiв обробляється за O(n log K) часу i O(K) пам'ятi.
+ * 
+ * <p>З порядком Comparator.reverseOrder() купа тримає K найбiльших елементiв.
+ * {@link #drainInOrder()} вiддає елементи вiд найменшого за порядком до найбiльшого.</p>
+ */
+class BoundedHeap<E> {
+    private final E[] heap;
+    private final Comparator<? super E> order;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    BoundedHeap(int capacity, Comparator<? super E> order) {
+        if (capacity <= 0) {
+            throw new RuntimeException("Розмiр обмеженої купи має бути додатним: " + capacity);
+        }
+        this.heap = (E[]) new Object[capacity];
+        this.order = order;
+    }
+
+    /**
+     * Додає елемент, якщо купа ще не заповнена або вiн менший за порiг.
+     * 
+     * @return true, якщо елемент залишився в купi.
+     */
+    boolean offer(E element) {
+        if (size < heap.length) {
+            siftUp(size++, element);
+            return true;
+        }
+        if (order.compare(element, heap[0]) >= 0) {
+            return false;
+        }
+        siftDown(0, element);
+        return true;
+    }
+
+    /**
+     * Повертає найбiльший за порядком елемент купи, який вiдсiкає новi елементи, коли купа
+     * заповнена, або null, якщо купа порожня.
+     */
+    E threshold() {
+        return size > 0 ? heap[0] : null;
+    }
+
+    boolean isFull() {
+        return size == heap.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return heap.length;
+    }
+
+    /**
+     * Забирає всi елементи з купи i повертає їх вiд найменшого за порядком до найбiльшого
+     * за O(K log K). Пiсля цього купа порожня i знову приймає елементи.
+     */
+    List<E> drainInOrder() {
+        E[] drained = Arrays.copyOf(heap, size);
+        for (int i = size - 1; i >= 0; i--) {
+            drained[i] = heap[0];
+            E last = heap[--size];
+            heap[size] = null;
+            if (size > 0) {
+                siftDown(0, last);
+            }
+        }
+        return Arrays.asList(drained);
+    }
+
+    private void siftUp(int slot, E element) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (order.compare(element, heap[parent]) <= 0) {
+                break;
+            }
+            heap[slot] = heap[parent];
+            slot = parent;
+        }
+        heap[slot] = element;
+    }
+
+    private void siftDown(int slot, E element) {
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            if (child + 1 < size && order.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (order.compare(element, heap[child]) >= 0) {
+                break;
+            }
+            heap[slot] = heap[child];
+            slot = child;
+        }
+        heap[slot] = element;
+    }
+}
+
+/**
+ * Клас TopKCollector вiдбирає з потоку рядкiв файлу K найбiльших або K найменших за
+ * String.compareTo через {@link BoundedHeap}.
+ * 
+ * <p>Коли купа заповнена, байти UTF-8 чергового рядка спершу порiвнюються з байтами
+ * порогу купи в порядку String.compareTo, як у {@link StringArena}, i рядок, що не
+ * проходить порiг, вiдкидається без створення String. Декодуються лише рядки, якi
+ * потрапляють у купу, тож на великому файлi майже всi рядки пропускаються за одне
+ * порiвняння байтiв. Як i арена, фiльтр розрахований на коректний UTF-8.</p>
+ */
+class TopKCollector implements Utils.LineConsumer {
+    final boolean largest;
+    private final BoundedHeap<String> heap;
+    private byte[] thresholdBytes;
+    private long decoded;
+
+    /**
+     * @param k Скiльки рядкiв тримати.
+     * @param largest true - K найбiльших рядкiв, false - K найменших.
+     */
+    TopKCollector(int k, boolean largest) {
+        this.largest = largest;
+        this.heap = new BoundedHeap<>(k, largest ? Comparator.<String>reverseOrder() : Comparator.<String>naturalOrder());
+    }
+
+    @Override
+    public void accept(byte[] buffer, int offset, int length) {
+        if (thresholdBytes != null) {
+            int order = StringArena.compareBytes(buffer, offset, offset + length, thresholdBytes, 0, thresholdBytes.length);
+            if (largest ? order <= 0 : order >= 0) {
+                return;
+            }
+        }
+
+        decoded++;
+        if (heap.offer(new String(buffer, offset, length, StandardCharsets.UTF_8)) && heap.isFull()) {
+            thresholdBytes = heap.threshold().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Кiлькiсть рядкiв, якi пройшли фiльтр байтiв i були декодованi.
+     */
+    long decoded() {
+        return decoded;
+    }
+
+    /**
+     * Забирає вiдiбранi рядки: для K найбiльших - вiд найбiльшого до меншого, для K
+     * найменших - вiд найменшого до бiльшого.
+     */
+    List<String> drainInOrder() {
+        thresholdBytes = null;
+        return heap.drainInOrder();
+    }
+}
+
+/**
+ * Клас ParallelOps виконує сортування рядкiв i пошук мiнiмуму та максимуму задачами ForkJoinPool.
+ * 
+ * <p>Кiлькiсть потокiв i порiг подiлу вибираються за розмiром даних: на потiк припадає
+ * щонайменше {@value #MIN_ELEMENTS_PER_THREAD} елементiв, а дiапазон дiлиться, поки на
+ * потiк не припаде близько {@value #TASKS_PER_THREAD} задач, але не дрiбнiше за
+ * {@value #MIN_THRESHOLD} елементiв. З одним потоком усе виконується послiдовно в
+ * потоцi, що викликає.</p>
+ * 
+ * <p>Рядки сортуються паралельним варiантом {@link StringSort}: частини трiйкового подiлу
+ * стають окремими задачами, доки вони бiльшi за порiг.</p>
+ */
+class ParallelOps implements AutoCloseable {
+    static final int MIN_ELEMENTS_PER_THREAD = 1 << 15;
+    static final int MIN_THRESHOLD = 1 << 13;
+    static final int TASKS_PER_THREAD = 4;
+
+    final int threads;
+    final int threshold;
+    private ForkJoinPool pool;
+
+    /**
+     * @param threads Кiлькiсть потокiв.
+     * @param size Кiлькiсть елементiв, для якої обирається порiг подiлу.
+     */
+    ParallelOps(int threads, int size) {
+        this.threads = Math.max(1, threads);
+        this.threshold = this.threads == 1 ? Math.max(1, size)
+                : Math.max(MIN_THRESHOLD, size / (this.threads * TASKS_PER_THREAD));
+    }
+
+    /**
+     * Обирає кiлькiсть потокiв для size елементiв, не бiльшу за maxThreads.
+     */
+    static ParallelOps forSize(int size, int maxThreads) {
+        return new ParallelOps(Math.min(maxThreads, Math.max(1, size / MIN_ELEMENTS_PER_THREAD)), size);
+    }
+
+    /**
+     * Виконує задачу в пулi з {@link #threads} потокiв; пул створюється при першому виклику.
+     */
+    <T> T invoke(ForkJoinTask<T> task) {
+        if (threads == 1) {
+            return task.invoke();
+        }
+        if (pool == null) {
+            pool = threads == ForkJoinPool.getCommonPoolParallelism() ? ForkJoinPool.commonPool() : new ForkJoinPool(threads);
+        }
+        return pool.invoke(task);
+    }
+
+    /**
+     * Зупиняє власний пул потокiв; спiльний пул не зупиняється.
+     */
+    @Override
+    public void close() {
+        if (pool != null && pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Сортує рядки паралельним багатоключовим швидким сортуванням.
+     */
+    void sort(String[] values) {
+        StringSort.parallelSort(values, this);
+    }
+
+    /**
+     * Знаходить мiнiмум, максимум i ознаку вiдсортованостi масиву.
+     */
+    <T extends Comparable<? super T>> Summary<T> summarize(T[] values) {
+        return invoke(new SummaryTask<>(values, 0, values.length, threshold));
+    }
+
+    /**
+     * Мiнiмум, максимум i ознака вiдсортованостi дiапазону; для порожнього дiапазону
+     * мiнiмум i максимум дорiвнюють null.
+     */
+    static final class Summary<T> {
+        final T min;
+        final T max;
+        final boolean sorted;
+
+        Summary(T min, T max, boolean sorted) {
+            this.min = min;
+            this.max = max;
+            this.sorted = sorted;
+        }
+    }
+
+    private static final class SummaryTask<T extends Comparable<? super T>> extends RecursiveTask<Summary<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final T[] values;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        SummaryTask(T[] values, int from, int to, int threshold) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Summary<T> compute() {
+            if (to - from <= threshold) {
+                if (from == to) {
+                    return new Summary<>(null, null, true);
+                }
+                T min = values[from];
+                T max = min;
+                boolean sorted = true;
+                for (int i = from + 1; i < to; i++) {
+                    T value = values[i];
+                    sorted &= values[i - 1].compareTo(value) <= 0;
+                    if (value.compareTo(min) < 0) {
+                        min = value;
+                    }
+                    if (value.compareTo(max) > 0) {
+                        max = value;
+                    }
+                }
+                return new Summary<>(min, max, sorted);
+            }
+
+            int middle = (from + to) >>> 1;
+            SummaryTask<T> left = new SummaryTask<>(values, from, middle, threshold);
+            left.fork();
+            Summary<T> right = new SummaryTask<>(values, middle, to, threshold).compute();
+            Summary<T> leftSummary = left.join();
+            return new Summary<>(right.min.compareTo(leftSummary.min) < 0 ? right.min : leftSummary.min,
+                    right.max.compareTo(leftSummary.max) > 0 ? right.max : leftSummary.max,
+                    leftSummary.sorted && right.sorted && values[middle - 1].compareTo(values[middle]) <= 0);
+        }
+    }
+}
+
+/**
+ * Клас StringSort сортує рядки багатоключовим швидким сортуванням (трiйковим порозрядним
+ * швидким сортуванням Бентлi-Седжвiка).
+ * 
+ * <p>Дiапазон дiлиться на три частини за символом на поточнiй глибинi: менший, рiвний i
+ * бiльший за опорний. Рядки рiвної частини мають спiльний префiкс ще на один символ
+ * довший, i далi порiвнюються лише наступнi символи, тому спiльнi префiкси не
+ * перечитуються при кожному порiвняннi, як в Arrays.sort. Короткi дiапазони
+ * досортовуються вставками. Сортування не стiйке, але рiвнi рядки не вiдрiзняються.</p>
+ * 
+ * <p>String[] сортується за символами UTF-16, тобто в порядку String.compareTo. Записи
+ * {@link StringArena} сортуються за байтами UTF-8, у яких першi байти 0xEE-0xEF
+ * переставлено пiсля 0xF0-0xF4, щоб порядок теж збiгався з String.compareTo.</p>
+ * 
+ * <p>Паралельний варiант виконується в пулi {@link ParallelOps} i роздiляє дiапазони,
+ * бiльшi за його порiг, як задачi ForkJoinPool; менша робота i один потiк сортуються
+ * послiдовно. Без заданого ParallelOps кiлькiсть потокiв обирається за розмiром даних
+ * i паралелiзмом спiльного пулу.</p>
+ */
+class StringSort {
+    static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private StringSort() {
+    }
+
+    static void sort(String[] values) {
+        sort(values, 0, values.length, 0);
+    }
+
+    static void parallelSort(String[] values) {
+        try (ParallelOps parallel = ParallelOps.forSize(values.length, ForkJoinPool.getCommonPoolParallelism())) {
+            parallelSort(values, parallel);
+        }
+    }
+
+    /**
+     * Сортує рядки в пулi {@link ParallelOps} з його порогом подiлу.
+     */
+    static void parallelSort(String[] values, ParallelOps parallel) {
+        parallel.invoke(new StringSortTask(values, 0, values.length, 0, parallel.threshold));
+    }
+
+    /**
+     * Сортує записи entries[from, to); запис e займає байти bytes[offsets[e], offsets[e + 1]).
+     */
+    static void sort(int[] entries, int from, int to, byte[] bytes, int[] offsets) {
+        sort(entries, from, to, 0, bytes, offsets);
+    }
+
+    /**
+     * Сортує записи entries[from, to) в пулi {@link ParallelOps} з його порогом подiлу.
+     */
+    static void parallelSort(int[] entries, int from, int to, byte[] bytes, int[] offsets, ParallelOps parallel) {
+        parallel.invoke(new EntrySortTask(entries, from, to, 0, bytes, offsets, parallel.threshold));
+    }
+
+    /**
+     * Сортує values[from, to), у яких першi depth символiв однаковi. Рекурсiя йде в двi
+     * меншi частини, а найбiльша обробляється в циклi, тому глибина стеку - O(log n).
+     */
+    private static void sort(String[] values, int from, int to, int depth) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            int pivot = charAt(values[medianOfThree(values, from, to, depth)], depth);
+            long bounds = partition(values, from, to, depth, pivot);
+            int lessTo = (int) (bounds >>> 32);
+            int greaterFrom = (int) bounds;
+
+            int lessSize = lessTo - from;
+            int equalSize = pivot < 0 ? 0 : greaterFrom - lessTo;
+            int greaterSize = to - greaterFrom;
+            if (lessSize >= equalSize && lessSize >= greaterSize) {
+                sortEqual(values, lessTo, greaterFrom, depth, pivot);
+                sort(values, greaterFrom, to, depth);
+                to = lessTo;
+            } else if (greaterSize >= equalSize) {
+                sort(values, from, lessTo, depth);
+                sortEqual(values, lessTo, greaterFrom, depth, pivot);
+                from = greaterFrom;
+            } else {
+                sort(values, from, lessTo, depth);
+                sort(values, greaterFrom, to, depth);
+                from = lessTo;
+                to = greaterFrom;
+                depth++;
+            }
+        }
+        insertionSort(values, from, to);
+    }
+
+    private static void sortEqual(String[] values, int from, int to, int depth, int pivot) {
+        // рядки, якi закiнчилися на глибинi depth, уже рiвнi
+        if (pivot >= 0) {
+            sort(values, from, to, depth + 1);
+        }
+    }
+
+    /**
+     * Трiйковий подiл за символом на глибинi depth.
+     * 
+     * @return Кiнець меншої частини в старших 32 бiтах i початок бiльшої в молодших.
+     */
+    private static long partition(String[] values, int from, int to, int depth, int pivot) {
+        int lessTo = from;
+        int greaterFrom = to;
+        int i = from;
+        while (i < greaterFrom) {
+            int c = charAt(values[i], depth);
+            if (c < pivot) {
+                swap(values, lessTo++, i++);
+            } else if (c > pivot) {
+                swap(values, i, --greaterFrom);
+            } else {
+                i++;
+            }
+        }
+        return (long) lessTo << 32 | greaterFrom;
+    }
+
+    private static int medianOfThree(String[] values, int from, int to, int depth) {
+        int a = from;
+        int b = (from + to) >>> 1;
+        int c = to - 1;
+        int x = charAt(values[a], depth);
+        int y = charAt(values[b], depth);
+        int z = charAt(values[c], depth);
+        if (x < y) {
+            return y < z ? b : x < z ? c : a;
+        }
+        return x < z ? a : y < z ? c : b;
+    }
+
+    private static void insertionSort(String[] values, int from, int to) {
+        // спiльний префiкс на цьому етапi короткий або вже пройдений, i порiвняння
+        // String.compareTo з внутрiшньою векторизацiєю швидше за посимвольний обхiд
+        for (int i = from + 1; i < to; i++) {
+            String value = values[i];
+            int j = i - 1;
+            while (j >= from && values[j].compareTo(value) > 0) {
+                values[j + 1] = values[j];
+                j--;
+            }
+            values[j + 1] = value;
+        }
+    }
+
+    private static int charAt(String value, int depth) {
+        return depth < value.length() ? value.charAt(depth) : -1;
+    }
+
+    private static void swap(String[] values, int i, int j) {
+        String value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    private static void sort(int[] entries, int from, int to, int depth, byte[] bytes, int[] offsets) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            int pivot = byteAt(entries[medianOfThree(entries, from, to, depth, bytes, offsets)], depth, bytes, offsets);
+            long bounds = partition(entries, from, to, depth, pivot, bytes, offsets);
+            int lessTo = (int) (bounds >>> 32);
+            int greaterFrom = (int) bounds;
+
+            int lessSize = lessTo - from;
+            int equalSize = pivot < 0 ? 0 : greaterFrom - lessTo;
+            int greaterSize = to - greaterFrom;
+            if (lessSize >= equalSize && lessSize >= greaterSize) {
+                sortEqual(entries, lessTo, greaterFrom, depth, pivot, bytes, offsets);
+                sort(entries, greaterFrom, to, depth, bytes, offsets);
+                to = lessTo;
+            } else if (greaterSize >= equalSize) {
+                sort(entries, from, lessTo, depth, bytes, offsets);
+                sortEqual(entries, lessTo, greaterFrom, depth, pivot, bytes, offsets);
+                from = greaterFrom;
+            } else {
+                sort(entries, from, lessTo, depth, bytes, offsets);
+                sort(entries, greaterFrom, to, depth, bytes, offsets);
+                from = lessTo;
+                to = greaterFrom;
+                depth++;
+            }
+        }
+        insertionSort(entries, from, to, depth, bytes, offsets);
+    }
+
+    private static void sortEqual(int[] entries, int from, int to, int depth, int pivot, byte[] bytes, int[] offsets) {
+        if (pivot >= 0) {
+            sort(entries, from, to, depth + 1, bytes, offsets);
+        }
+    }
+
+    private static long partition(int[] entries, int from, int to, int depth, int pivot, byte[] bytes, int[] offsets) {
+        int lessTo = from;
+        int greaterFrom = to;
+        int i = from;
+        while (i < greaterFrom) {
+            int c = byteAt(entries[i], depth, bytes, offsets);
+            if (c < pivot) {
+                swap(entries, lessTo++, i++);
+            } else if (c > pivot) {
+                swap(entries, i, --greaterFrom);
+            } else {
+                i++;
+            }
+        }
+        return (long) lessTo << 32 | greaterFrom;
+    }
+
+    private static int medianOfThree(int[] entries, int from, int to, int depth, byte[] bytes, int[] offsets) {
+        int a = from;
+        int b = (from + to) >>> 1;
+        int c = to - 1;
+        int x = byteAt(entries[a], depth, bytes, offsets);
+        int y = byteAt(entries[b], depth, bytes, offsets);
+        int z = byteAt(entries[c], depth, bytes, offsets);
+        if (x < y) {
+            return y < z ? b : x < z ? c : a;
+        }
+        return x < z ? a : y < z ? c : b;
+    }
+
+    private static void insertionSort(int[] entries, int from, int to, int depth, byte[] bytes, int[] offsets) {
+        for (int i = from + 1; i < to; i++) {
+            int entry = entries[i];
+            int j = i - 1;
+            while (j >= from && compareFrom(entries[j], entry, depth, bytes, offsets) > 0) {
+                entries[j + 1] = entries[j];
+                j--;
+            }
+            entries[j + 1] = entry;
+        }
+    }
+
+    /**
+     * Порiвнює два записи, у яких першi depth байтiв однаковi.
+     */
+    private static int compareFrom(int entryA, int entryB, int depth, byte[] bytes, int[] offsets) {
+        int fromA = offsets[entryA] + depth;
+        int toA = offsets[entryA + 1];
+        int fromB = offsets[entryB] + depth;
+        int toB = offsets[entryB + 1];
+        int mismatch = Arrays.mismatch(bytes, fromA, toA, bytes, fromB, toB);
+        if (mismatch < 0) {
+            return 0;
+        }
+        if (mismatch == toA - fromA || mismatch == toB - fromB) {
+            return (toA - fromA) - (toB - fromB);
+        }
+        return key(bytes[fromA + mismatch]) - key(bytes[fromB + mismatch]);
+    }
+
+    private static int byteAt(int entry, int depth, byte[] bytes, int[] offsets) {
+        int position = offsets[entry] + depth;
+        return position < offsets[entry + 1] ? key(bytes[position]) : -1;
+    }
+
+    /**
+     * Переставляє першi байти так, щоб символи за межами BMP (0xF0-0xF4) йшли перед
+     * символами U+E000-U+FFFF (0xEE-0xEF), як у UTF-16. Iншi байти з 0xEE-0xFF на
+     * тiй самiй позицiї в рядках зi спiльним префiксом не зустрiчаються.
+     */
+    private static int key(byte value) {
+        int b = value & 0xFF;
+        return b >= 0xF0 ? b - 2 : b >= 0xEE ? b + 0x10 : b;
+    }
+
+    private static void swap(int[] entries, int i, int j) {
+        int entry = entries[i];
+        entries[i] = entries[j];
+        entries[j] = entry;
+    }
+
+    /**
+     * Задача ForkJoinPool для паралельного сортування String[]: дiлить дiапазон i
+     * запускає частини паралельно, а меншi за порiг сортує послiдовно.
+     */
+    private static class StringSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final String[] values;
+        private final int from;
+        private final int to;
+        private final int depth;
+        private final int threshold;
+
+        StringSortTask(String[] values, int from, int to, int depth, int threshold) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                sort(values, from, to, depth);
+                return;
+            }
+
+            int pivot;
+            int lessTo;
+            int greaterFrom;
+            int level = depth;
+            while (true) {
+                pivot = charAt(values[medianOfThree(values, from, to, level)], level);
+                long bounds = partition(values, from, to, level, pivot);
+                lessTo = (int) (bounds >>> 32);
+                greaterFrom = (int) bounds;
+                // поки всi рядки мають однаковий символ, подiл нiчого не дає i задачi не створюються
+                if (lessTo > from || greaterFrom < to || pivot < 0) {
+                    break;
+                }
+                level++;
+            }
+
+            if (pivot < 0) {
+                invokeAll(new StringSortTask(values, from, lessTo, level, threshold),
+                        new StringSortTask(values, greaterFrom, to, level, threshold));
+            } else {
+                invokeAll(new StringSortTask(values, from, lessTo, level, threshold),
+                        new StringSortTask(values, lessTo, greaterFrom, level + 1, threshold),
+                        new StringSortTask(values, greaterFrom, to, level, threshold));
+            }
+        }
+    }
+
+    /**
+     * Задача ForkJoinPool для паралельного сортування записiв арени.
+     */
+    private static class EntrySortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] entries;
+        private final int from;
+        private final int to;
+        private final int depth;
+        private final byte[] bytes;
+        private final int[] offsets;
+        private final int threshold;
+
+        EntrySortTask(int[] entries, int from, int to, int depth, byte[] bytes, int[] offsets, int threshold) {
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+            this.bytes = bytes;
+            this.offsets = offsets;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                sort(entries, from, to, depth, bytes, offsets);
+                return;
+            }
+
+            int pivot;
+            int lessTo;
+            int greaterFrom;
+            int level = depth;
+            while (true) {
+                pivot = byteAt(entries[medianOfThree(entries, from, to, level, bytes, offsets)], level, bytes, offsets);
+                long bounds = partition(entries, from, to, level, pivot, bytes, offsets);
+                lessTo = (int) (bounds >>> 32);
+                greaterFrom = (int) bounds;
+                if (lessTo > from || greaterFrom < to || pivot < 0) {
+                    break;
+                }
+                level++;
+            }
+
+            if (pivot < 0) {
+                invokeAll(new EntrySortTask(entries, from, lessTo, level, bytes, offsets, threshold),
+                        new EntrySortTask(entries, greaterFrom, to, level, bytes, offsets, threshold));
+            } else {
+                invokeAll(new EntrySortTask(entries, from, lessTo, level, bytes, offsets, threshold),
+                        new EntrySortTask(entries, lessTo, greaterFrom, level + 1, bytes, offsets, threshold),
+                        new EntrySortTask(entries, greaterFrom, to, level, bytes, offsets, threshold));
+            }
+        }
+    }
+}
+
+/**
+ * Клас StringArena зберiгає рядки у кодуваннi UTF-8 в одному суцiльному масивi байтiв
+ * iз масивом змiщень, замiсть окремого об'єкта String на кожен рядок.
+ * 
+ * <p>Рядок файлу - це iндекс запису в аренi. Зi словниковим кодуванням однаковi рядки
+ * зберiгаються один раз, а хеш-таблиця з вiдкритою адресацiєю дає contains() за O(1).
+ * Сортування переставляє лише масив iндексiв записiв, а порiвняння i бiнарний пошук
+ * працюють прямо з байтами. Найменший i найбiльший записи оновлюються при кожному
+ * додаваннi, тому min() i max() працюють за O(1).</p>
+ * 
+ * <p>Порядок збiгається з String.compareTo: побайтове порiвняння UTF-8 дає порядок
+ * кодових точок, який вiдрiзняється вiд порядку UTF-16 лише для символiв U+E000-U+FFFF
+ * проти символiв за межами BMP, i цей випадок виправляється за першим байтом символу.</p>
+ */
+class StringArena {
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private byte[] bytes;
+    private int byteSize;
+    private int[] entryOffsets;
+    private int entryCount;
+    private int[] rows;
+    private int rowCount;
+    private int[] dictionary;
+    private boolean sorted = true;
+    private int minEntry;
+    private int maxEntry;
+
+    /**
+     * @param expectedRows Очiкувана кiлькiсть рядкiв.
+     * @param deduplicate Чи зберiгати однаковi рядки один раз.
+     */
+    StringArena(int expectedRows, boolean deduplicate) {
+        bytes = new byte[(int) Math.min(MAX_ARRAY_SIZE, Math.max(16, 16L * expectedRows))];
+        entryOffsets = new int[Math.max(16, expectedRows) + 1];
+        rows = new int[Math.max(16, expectedRows)];
+        if (deduplicate) {
+            dictionary = new int[tableSizeFor(expectedRows)];
+        }
+    }
+
+    /**
+     * Створює арену без словника з масиву рядкiв. Непарнi сурогати замiнюються на '?',
+     * як i в String.getBytes.
+     */
+    static StringArena of(String[] stringArray) {
+        StringArena arena = new StringArena(stringArray.length, false);
+        for (String data : stringArray) {
+            byte[] encoded = data.getBytes(StandardCharsets.UTF_8);
+            arena.add(encoded, 0, encoded.length);
+        }
+        return arena;
+    }
+
+    /**
+     * Додає рядок у кiнець арени.
+     * 
+     * @return Iндекс доданого рядка.
+     */
+    int add(byte[] buffer, int offset, int length) {
+        int entry = dictionary != null ? findEntry(buffer, offset, length, hash(buffer, offset, length)) : -1;
+        if (entry < 0) {
+            entry = appendEntry(buffer, offset, length);
+        }
+
+        if (rowCount == rows.length) {
+            rows = Arrays.copyOf(rows, grow(rows.length, rowCount + 1));
+        }
+        if (rowCount == 0) {
+            minEntry = entry;
+            maxEntry = entry;
+        } else {
+            sorted &= compareEntries(rows[rowCount - 1], entry) <= 0;
+            if (compareEntries(entry, minEntry) < 0) {
+                minEntry = entry;
+            }
+            if (compareEntries(entry, maxEntry) > 0) {
+                maxEntry = entry;
+            }
+        }
+        rows[rowCount] = entry;
+        return rowCount++;
+    }
+
+    private int appendEntry(byte[] buffer, int offset, int length) {
+        if ((long) byteSize + length > MAX_ARRAY_SIZE) {
+            throw new RuntimeException("Рядки не вмiщуються в арену: понад " + MAX_ARRAY_SIZE + " байт");
+        }
+        if (byteSize + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, grow(bytes.length, byteSize + length));
+        }
+        if (entryCount + 1 == entryOffsets.length) {
+            entryOffsets = Arrays.copyOf(entryOffsets, grow(entryOffsets.length, entryCount + 2));
+        }
+
+        System.arraycopy(buffer, offset, bytes, byteSize, length);
+        byteSize += length;
+        entryOffsets[++entryCount] = byteSize;
+
+        if (dictionary != null) {
+            if (entryCount > dictionary.length / 2) {
+                rehash(dictionary.length * 2);
+            } else {
+                insert(entryCount - 1);
+            }
+        }
+        return entryCount - 1;
+    }
+
+    private static int grow(int capacity, int needed) {
+        return (int) Math.min(MAX_ARRAY_SIZE, Math.max(needed, capacity + (long) (capacity >> 1)));
+    }
+
+    int size() {
+        return rowCount;
+    }
+
+    /**
+     * Повертає кiлькiсть рiзних збережених записiв; без словника вона дорiвнює кiлькостi рядкiв.
+     */
+    int distinctCount() {
+        return entryCount;
+    }
+
+    boolean isDeduplicated() {
+        return dictionary != null;
+    }
+
+    boolean isSorted() {
+        return sorted;
+    }
+
+    String get(int row) {
+        return entryString(rows[row]);
+    }
+
+    private String entryString(int entry) {
+        return new String(bytes, entryOffsets[entry], entryOffsets[entry + 1] - entryOffsets[entry], StandardCharsets.UTF_8);
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int rowOffset(int row) {
+        return entryOffsets[rows[row]];
+    }
+
+    int rowLength(int row) {
+        int entry = rows[row];
+        return entryOffsets[entry + 1] - entryOffsets[entry];
+    }
+
+    /**
+     * Порiвнює два рядки арени в порядку String.compareTo.
+     */
+    int compare(int rowA, int rowB) {
+        return compareEntries(rows[rowA], rows[rowB]);
+    }
+
+    private int compareEntries(int entryA, int entryB) {
+        if (entryA == entryB) {
+            return 0;
+        }
+        return compareBytes(bytes, entryOffsets[entryA], entryOffsets[entryA + 1], bytes, entryOffsets[entryB], entryOffsets[entryB + 1]);
+    }
+
+    /**
+     * Порiвнює два дiапазони байтiв UTF-8 в порядку String.compareTo.
+     */
+    static int compareBytes(byte[] a, int fromA, int toA, byte[] b, int fromB, int toB) {
+        int mismatch = Arrays.mismatch(a, fromA, toA, b, fromB, toB);
+        if (mismatch < 0) {
+            return 0;
+        }
+        if (mismatch == toA - fromA || mismatch == toB - fromB) {
+            return (toA - fromA) - (toB - fromB);
+        }
+
+        int x = a[fromA + mismatch] & 0xFF;
+        int y = b[fromB + mismatch] & 0xFF;
+        // у UTF-16 сурогатнi пари (перший байт 0xF0-0xF4) менше за символи U+E000-U+FFFF (0xEE-0xEF)
+        if (x >= 0xEE && y >= 0xEE && (x >= 0xF0) != (y >= 0xF0)) {
+            return x >= 0xF0 ? -1 : 1;
+        }
+        return x - y;
+    }
+
+    /**
+     * Сортує рядки арени багатоключовим швидким сортуванням {@link StringSort} за байтами
+     * UTF-8; великi арени сортуються паралельно, а кiлькiсть потокiв обирається за розмiром
+     * арени. Переставляється лише масив iндексiв записiв, байти рядкiв не перемiщуються.
+     */
+    void sort() {
+        try (ParallelOps parallel = ParallelOps.forSize(rowCount, ForkJoinPool.getCommonPoolParallelism())) {
+            sort(parallel);
+        }
+    }
+
+    /**
+     * Сортує рядки арени так само, як {@link #sort()}, у пулi заданого {@link ParallelOps}.
+     */
+    void sort(ParallelOps parallel) {
+        if (sorted) {
+            return;
+        }
+        StringSort.parallelSort(rows, 0, rowCount, bytes, entryOffsets, parallel);
+        sorted = true;
+    }
+
+    /**
+     * Шукає рядок у вiдсортованiй аренi так само, як Arrays.binarySearch.
+     * 
+     * @return Iндекс рядка або (-(точка вставки) - 1), якщо його немає.
+     */
+    int binarySearch(String value) {
+        byte[] key = value.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = rowCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = rows[middle];
+            int comparison = compareBytes(bytes, entryOffsets[entry], entryOffsets[entry + 1], key, 0, key.length);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Перевiряє, чи є рядок в аренi: через словник, бiнарним пошуком у вiдсортованiй
+     * аренi або перебором.
+     */
+    boolean contains(String value) {
+        if (dictionary != null) {
+            byte[] key = value.getBytes(StandardCharsets.UTF_8);
+            return findEntry(key, 0, key.length, hash(key, 0, key.length)) >= 0;
+        }
+        if (sorted) {
+            return binarySearch(value) >= 0;
+        }
+        byte[] key = value.getBytes(StandardCharsets.UTF_8);
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (Arrays.equals(bytes, entryOffsets[entry], entryOffsets[entry + 1], key, 0, key.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Повертає найменший рядок.
+     * 
+     * @throws NoSuchElementException Якщо арена порожня.
+     */
+    String min() {
+        if (rowCount == 0) {
+            throw new NoSuchElementException();
+        }
+        return entryString(minEntry);
+    }
+
+    /**
+     * Повертає найбiльший рядок.
+     * 
+     * @throws NoSuchElementException Якщо арена порожня.
+     */
+    String max() {
+        if (rowCount == 0) {
+            throw new NoSuchElementException();
+        }
+        return entryString(maxEntry);
+    }
+
+    String[] toArray() {
+        String[] stringArray = new String[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            stringArray[row] = get(row);
+        }
+        return stringArray;
+    }
+
+    /**
+     * Повертає кiлькiсть байтiв купи, якi займають масиви арени.
+     */
+    long heapBytes() {
+        return 3 * 16L + bytes.length + 4L * entryOffsets.length + 4L * rows.length
+                + (dictionary != null ? 16L + 4L * dictionary.length : 0);
+    }
+
+    /**
+     * Оцiнює, скiльки байтiв купи займали б тi самi рядки як String[]: посилання, об'єкт
+     * String у 24 байти i масив байтiв з заголовком 16 байт, вирiвняний до 8 байт
+     * (LATIN1 для ASCII-рядкiв, UTF16 для решти). Однаковi рядки рахуються окремо,
+     * як i при читаннi файлу.
+     */
+    long stringArrayHeapBytes() {
+        long total = 16L + 4L * rowCount;
+        for (int row = 0; row < rowCount; row++) {
+            int offset = rowOffset(row);
+            int length = rowLength(row);
+            int chars = 0;
+            boolean ascii = true;
+            for (int i = offset; i < offset + length; i++) {
+                int b = bytes[i] & 0xFF;
+                ascii &= b < 0x80;
+                // рахуються першi байти символiв, чотирибайтовi символи займають два char
+                chars += (b & 0xC0) != 0x80 ? (b >= 0xF0 ? 2 : 1) : 0;
+            }
+            total += 24 + ((16L + (ascii ? chars : 2L * chars) + 7) & ~7L);
+        }
+        return total;
+    }
+
+    private int findEntry(byte[] buffer, int offset, int length, int hash) {
+        int mask = dictionary.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = dictionary[slot] - 1;
+            if (entry < 0) {
+                return -1;
+            }
+            if (Arrays.equals(bytes, entryOffsets[entry], entryOffsets[entry + 1], buffer, offset, offset + length)) {
+                return entry;
+            }
+        }
+    }
+
+    private void insert(int entry) {
+        int mask = dictionary.length - 1;
+        int slot = hash(bytes, entryOffsets[entry], entryOffsets[entry + 1] - entryOffsets[entry]) & mask;
+        while (dictionary[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        dictionary[slot] = entry + 1;
+    }
+
+    private void rehash(int capacity) {
+        dictionary = new int[capacity];
+        for (int entry = 0; entry < entryCount; entry++) {
+            insert(entry);
+        }
+    }
+
+    /**
+     * Хеш FNV-1a з перемiшуванням старших бiтiв у молодшi, якi використовує маска таблицi.
+     */
+    private static int hash(byte[] buffer, int offset, int length) {
+        int hash = 0x811C9DC5;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ buffer[i]) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long capacity = Math.max(16, 2L * expectedSize);
+        return (int) Math.min(1 << 30, Long.highestOneBit(capacity - 1) << 1);
+    }
+}
+
+/**
+ * Клас StringSidecar описує двiйковий кеш текстового файлу, який лежить поруч
+ * з ним з суфiксом ".bin" (наприклад, "list/String.data.bin").
+ * 
+ * <p>Формат (big-endian): заголовок {@value #HEADER_SIZE} байт - сигнатура, версiя,
+ * розмiр i час змiни вихiдного файлу, кiлькiсть рядкiв, ознака вiдсортованостi,
+ * iндекси мiнiмального та максимального рядкiв; далi rowCount + 1 змiщень по 8 байт
+ * i байти всiх рядкiв у UTF-8 один за одним.</p>
+ * 
+ * <p>Кеш вважається застарiлим, якщо розмiр або час змiни вихiдного файлу не
+ * збiгаються iз записаними в заголовку.</p>
+ */
+class StringSidecar {
+    static final String SUFFIX = ".bin";
+    static final int MAGIC = 0x53545243;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    private static final long MAX_WINDOW = 1L << 30;
+
+    private StringSidecar() {
+    }
+
+    /**
+     * Зчитує рядки з кешу, вiдображаючи його в пам'ять вiкнами до 1 ГiБ.
+     * 
+     * @param pathToFile Шлях до вихiдного текстового файлу.
+     * @return Масив рядкiв або null, якщо кешу немає, вiн застарiв чи пошкоджений.
+     * @throws IOException Якщо кеш не вдалося прочитати.
+     */
+    static String[] read(String pathToFile) throws IOException {
+        StringArena arena = readArena(pathToFile, false);
+        return arena != null ? arena.toArray() : null;
+    }
+
+    /**
+     * Зчитує рядки з кешу в арену: байти рядкiв копiюються з вiдображених вiкон до 1 ГiБ
+     * прямо в арену без декодування.
+     * 
+     * @param pathToFile Шлях до вихiдного текстового файлу.
+     * @param deduplicate Чи зберiгати однаковi рядки один раз.
+     * @return Арена або null, якщо кешу немає, вiн застарiв чи пошкоджений.
+     * @throws IOException Якщо кеш не вдалося прочитати.
+     */
+    static StringArena readArena(String pathToFile, boolean deduplicate) throws IOException {
+        Path source = Path.of(pathToFile);
+        Path sidecar = Path.of(pathToFile + SUFFIX);
+        if (!Files.exists(sidecar)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getLong() != Files.size(source)
+                    || header.getLong() != Files.getLastModifiedTime(source).toMillis()) {
+                return null;
+            }
+            long rowCount = header.getLong();
+            long dataStart = HEADER_SIZE + (rowCount + 1) * Long.BYTES;
+            if (rowCount > Integer.MAX_VALUE - 8 || dataStart > fileSize) {
+                return null;
+            }
+
+            LongBuffer offsets = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, (rowCount + 1) * Long.BYTES).asLongBuffer();
+            if (dataStart + offsets.get((int) rowCount) != fileSize) {
+                return null;
+            }
+
+            StringArena arena = new StringArena((int) rowCount, deduplicate);
+            byte[] line = new byte[256];
+            ByteBuffer window = null;
+            long windowStart = 0;
+            for (int i = 0; i < rowCount; i++) {
+                long start = offsets.get(i);
+                int length = (int) (offsets.get(i + 1) - start);
+                if (window == null || start + length > windowStart + window.capacity()) {
+                    windowStart = start;
+                    long windowSize = Math.min(Math.max(MAX_WINDOW, length), fileSize - dataStart - start);
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, dataStart + start, windowSize);
+                }
+                if (length > line.length) {
+                    line = new byte[Math.max(length, line.length * 2)];
+                }
+                window.get((int) (start - windowStart), line, 0, length);
+                arena.add(line, 0, length);
+            }
+            return arena;
+        }
+    }
+
+    /**
+     * Записує кеш для текстового файлу. Кеш спочатку пишеться у тимчасовий файл, а потiм
+     * атомарно замiнює попереднiй, тому читач нiколи не бачить недописаний кеш.
+     * 
+     * @param pathToFile Шлях до вихiдного текстового файлу.
+     * @param sourceSize Розмiр вихiдного файлу перед його читанням.
+     * @param sourceModified Час змiни вихiдного файлу перед його читанням у мiлiсекундах.
+     * @param stringArray Рядки в порядку вихiдного файлу.
+     * @throws IOException Якщо кеш не вдалося записати.
+     */
+    static void write(String pathToFile, long sourceSize, long sourceModified, String[] stringArray) throws IOException {
+        write(pathToFile, sourceSize, sourceModified, StringArena.of(stringArray));
+    }
+
+    /**
+     * Записує кеш для текстового файлу з арени рядкiв: байти рядкiв копiюються з арени
+     * без повторного кодування.
+     * 
+     * @param pathToFile Шлях до вихiдного текстового файлу.
+     * @param sourceSize Розмiр вихiдного файлу перед його читанням.
+     * @param sourceModified Час змiни вихiдного файлу перед його читанням у мiлiсекундах.
+     * @param arena Рядки в порядку вихiдного файлу.
+     * @throws IOException Якщо кеш не вдалося записати.
+     */
+    static void write(String pathToFile, long sourceSize, long sourceModified, StringArena arena) throws IOException {
+        int minRow = 0;
+        int maxRow = 0;
+        for (int i = 1; i < arena.size(); i++) {
+            if (arena.compare(i, minRow) < 0) {
+                minRow = i;
+            }
+            if (arena.compare(i, maxRow) > 0) {
+                maxRow = i;
+            }
+        }
+
+        Path sidecar = Path.of(pathToFile + SUFFIX);
+        Path temp = Path.of(pathToFile + SUFFIX + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(sourceSize).putLong(sourceModified).putLong(arena.size());
+            buffer.put((byte) (arena.isSorted() ? 1 : 0)).put(new byte[7]).putLong(minRow).putLong(maxRow);
+            buffer.position(HEADER_SIZE);
+
+            long offset = 0;
+            buffer.putLong(offset);
+            for (int i = 0; i < arena.size(); i++) {
+                if (!buffer.hasRemaining()) {
+                    writeFully(channel, buffer);
+                }
+                offset += arena.rowLength(i);
+                buffer.putLong(offset);
+            }
+
+            for (int i = 0; i < arena.size(); i++) {
+                int length = arena.rowLength(i);
+                int written = 0;
+                while (written < length) {
+                    if (!buffer.hasRemaining()) {
+                        writeFully(channel, buffer);
+                    }
+                    int chunk = Math.min(buffer.remaining(), length - written);
+                    buffer.put(arena.bytes(), arena.rowOffset(i) + written, chunk);
+                    written += chunk;
+                }
+            }
+            writeFully(channel, buffer);
+        }
+        Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
         }
+        buffer.clear();
     }
 }
@@ -1,20 +1,67 @@
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Клас BasicDataOperationUsingSet надає методи для виконання основних операцiй з даними типу LocalDateTime.
  * 
  * <p>Цей клас зчитує данi з файлу "list/LocalDateTime.data", сортує їх та виконує пошук значення в масивi та множинi.</p>
  * 
+ * <p>Множиною слугує {@link LongOpenHashSet} над упакованими значеннями TimestampCodec:
+ * без вузла HashMap i об'єкта LocalDateTime на кожен елемент. Режим "--compare-sets"
+ * порiвнює її з HashSet&lt;LocalDateTime&gt;.</p>
+ * 
+ * <p>У режимi "--parallel" масив сортується, його статистика рахується, а множина
+ * будується задачами ForkJoinPool ({@link ParallelOps}), i для кожної з цих операцiй
+ * виводиться крива прискорення вiд 1 до N потокiв.</p>
+ * 
  * <p>Основнi методи:</p>
  * <ul>
  *   <li>{@link #main(String[])} - Точка входу в програму.</li>
@@ -25,6 +72,8 @@ import java.util.Set;
  *   <li>{@link #searchSet()} - Виконує пошук значення в множинi LocalDateTime.</li>
  *   <li>{@link #findMinAndMaxInSet()} - Знаходить мiнiмальне та максимальне значення в множинi LocalDateTime.</li>
  *   <li>{@link #compareArrayAndSet()} - Порiвнює елементи масиву та множини.</li>
+ *   <li>{@link #doOffHeapDataOperation()} - Виконує тi самi операцiї над сховищем поза купою.</li>
+ *   <li>{@link #doBatchOperation()} - Шукає всi значення з файлу запитiв за один прохiд по масиву.</li>
  * </ul>
  * 
  * <p>Конструктор:</p>
@@ -40,14 +89,36 @@ import java.util.Set;
  * <p>Змiннi екземпляра:</p>
  * <ul>
  *   <li>{@link #dateTimeValueToSearch} - Значення LocalDateTime для пошуку.</li>
- *   <li>{@link #dateTimeArray} - Масив LocalDateTime.</li>
- *   <li>{@link #dateTimeSet} - Множина LocalDateTime.</li>
+ *   <li>{@link #dateTimeArray} - Масив LocalDateTime зi статистикою {@link StatisticsArray}.</li>
+ *   <li>{@link #dateTimeSet} - Множина упакованих мiток часу TimestampCodec.</li>
+ *   <li>{@link #parallelWrite} - Чи записувати вiдсортований масив паралельно.</li>
+ *   <li>{@link #pathToDataFile} - Шлях до файлу з даними або його стисненої копiї.</li>
+ *   <li>{@link #pathToSortedFile} - Шлях до вiдсортованого файлу.</li>
+ *   <li>{@link #offHeapStore} - Мiтки часу поза купою Java або null, якщо режим "--off-heap" вимкнено.</li>
+ *   <li>{@link #parallel} - Паралельнi операцiї або null, якщо режим "--parallel" вимкнено.</li>
+ *   <li>{@link #maxThreads} - Найбiльша кiлькiсть потокiв для кривих прискорення.</li>
+ *   <li>{@link #bloomFilter} - Фiльтр Блума перед пошуком або null, якщо режим "--bloom" вимкнено.</li>
+ *   <li>{@link #batchPath} - Шлях до файлу запитiв або null, якщо режим "--batch" вимкнено.</li>
  * </ul>
  * 
  * <p>Приклад використання:</p>
  * <pre>
  * {@code
  * java BasicDataOperationUsingSet "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingSet --parallel-load "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingSet --no-cache "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingSet --parallel-write "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingSet --compress=gz "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingSet --off-heap "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingSet --off-heap=mapped "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingSet --parallel "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingSet --parallel=8 "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingSet --bloom=0.001 "2024-03-16T00:12:38Z"
+ * java BasicDataOperationUsingSet --batch=list/probes.data
+ * java BasicDataOperationUsingSet --compare-loaders
+ * java BasicDataOperationUsingSet --compare-parsers
+ * java BasicDataOperationUsingSet --compare-compression
+ * java BasicDataOperationUsingSet --compare-sets
  * }
  * </pre>
  */
@@ -55,29 +126,139 @@ public class BasicDataOperationUsingSet {
     static final String PATH_TO_DATA_FILE = "list/LocalDateTime.data";
 
     LocalDateTime dateTimeValueToSearch;
-    LocalDateTime[] dateTimeArray;
-    Set<LocalDateTime> dateTimeSet = new HashSet<>();
+    StatisticsArray<LocalDateTime> dateTimeArray;
+    LongOpenHashSet dateTimeSet;
+    boolean parallelWrite;
+    String pathToDataFile;
+    String pathToSortedFile;
+    OffHeapTimestampStore offHeapStore;
+    ParallelOps parallel;
+    int maxThreads;
+    BlockedBloomFilter bloomFilter;
+    String batchPath;
 
     public static void main(String[] args) {  
+        if (Utils.hasOption(args, "compare-loaders")) {
+            Utils.compareLoaders(Utils.resolveDataFile(PATH_TO_DATA_FILE));
+            return;
+        }
+        if (Utils.hasOption(args, "compare-parsers")) {
+            Utils.compareParsers(Utils.resolveDataFile(PATH_TO_DATA_FILE));
+            return;
+        }
+        if (Utils.hasOption(args, "compare-compression")) {
+            Utils.compareCompression(PATH_TO_DATA_FILE);
+            return;
+        }
+        if (Utils.hasOption(args, "compare-sets")) {
+            Utils.compareSets(Utils.resolveDataFile(PATH_TO_DATA_FILE));
+            return;
+        }
+
         BasicDataOperationUsingSet basicDataOperationUsingSet = new BasicDataOperationUsingSet(args);
-        basicDataOperationUsingSet.doDataOperation();
+        try {
+            basicDataOperationUsingSet.doDataOperation();
+        } finally {
+            if (basicDataOperationUsingSet.parallel != null) {
+                basicDataOperationUsingSet.parallel.close();
+            }
+        }
     }
 
     /**
      * Конструктор, який iнiцiалiзує об'єкт з значенням для пошуку.
      * 
-     * @param args Аргументи командного рядка, де перший аргумент - значення для пошуку.
+     * @param args Аргументи командного рядка, де перший аргумент - значення для пошуку,
+     *             опцiя "--parallel-load" вмикає паралельне читання файлу, "--no-cache"
+     *             вимикає двiйковий кеш ".bin", "--parallel-write" - паралельний запис, а
+     *             "--compress[=gz|deflate]" записує вiдсортований файл стисненим. Якщо файлу
+     *             з даними немає, читається його стиснена копiя ".gz" або ".deflate".
+     *             Опцiя "--off-heap" зберiгає мiтки часу у прямих буферах поза купою замiсть
+     *             масиву i HashSet, а "--off-heap=mapped" вiдображає в пам'ять кеш ".bin".
+     *             Опцiя "--parallel[=потокiв]" виконує сортування, статистику i побудову
+     *             множини паралельно (за замовчуванням на всiх процесорах) i виводить
+     *             криву прискорення.
+     *             Опцiя "--bloom[=частка]" ставить перед пошуком у масивi та множинi блоковий
+     *             фiльтр Блума iз заданою часткою хибних спрацювань (за замовчуванням 0.01).
+     *             Режим "--off-heap" фiльтр не використовує.
+     *             Опцiя "--batch=файл" замiсть одного значення шукає всi значення з файлу
+     *             запитiв (у форматi файлу з даними) за один прохiд по вiдсортованому масиву,
+     *             пише результати у файл з суфiксом ".result" i порiвнює пропускну здатнiсть
+     *             з пошуком по одному значенню. Значення для пошуку тодi не потрiбне.
      */
     BasicDataOperationUsingSet(String[] args) {
-        if (args.length == 0) {
+        batchPath = Utils.getOption(args, "batch", null);
+        if (batchPath != null && batchPath.isEmpty()) {
+            throw new RuntimeException("Вiдсутнiй файл запитiв для пакетного пошуку");
+        }
+
+        String valueToSearch = Utils.getPositionalArgument(args);
+        if (valueToSearch != null) {
+            this.dateTimeValueToSearch = LocalDateTime.parse(valueToSearch, DateTimeFormatter.ISO_DATE_TIME);
+        } else if (batchPath == null || Utils.hasOption(args, "off-heap")) {
             throw new RuntimeException("Вiдсутнє значення для пошуку");
         }
 
-        String valueToSearch = args[0];
-        this.dateTimeValueToSearch = LocalDateTime.parse(valueToSearch, DateTimeFormatter.ISO_DATE_TIME);
+        parallelWrite = Utils.hasOption(args, "parallel-write");
+
+        String compression = Utils.getOption(args, "compress", null);
+        if (compression == null) {
+            pathToSortedFile = PATH_TO_DATA_FILE + ".sorted";
+        } else if (compression.isEmpty() || compression.equals("gz")) {
+            pathToSortedFile = PATH_TO_DATA_FILE + ".sorted" + Utils.GZIP_SUFFIX;
+        } else if (compression.equals("deflate")) {
+            pathToSortedFile = PATH_TO_DATA_FILE + ".sorted" + Utils.DEFLATE_SUFFIX;
+        } else {
+            throw new RuntimeException("Невiдомий формат стиснення: " + compression);
+        }
+
+        pathToDataFile = Utils.resolveDataFile(PATH_TO_DATA_FILE);
+
+        String offHeap = Utils.getOption(args, "off-heap", null);
+        if (offHeap != null) {
+            if (offHeap.isEmpty()) {
+                offHeapStore = Utils.readOffHeapStore(pathToDataFile);
+            } else if (offHeap.equals("mapped")) {
+                offHeapStore = Utils.mapOffHeapStore(pathToDataFile);
+            } else {
+                throw new RuntimeException("Невiдомий режим зберiгання поза купою: " + offHeap);
+            }
+            return;
+        }
+
+        LocalDateTime[] loadedArray;
+        if (Utils.hasOption(args, "parallel-load")) {
+            loadedArray = Utils.readArrayFromFileParallel(pathToDataFile);
+        } else if (Utils.hasOption(args, "no-cache")) {
+            loadedArray = Utils.readArrayFromFile(pathToDataFile);
+        } else {
+            loadedArray = Utils.readArrayFromFileCached(pathToDataFile);
+        }
+
+        String fpp = Utils.getOption(args, "bloom", null);
+        if (fpp != null) {
+            bloomFilter = new BlockedBloomFilter(loadedArray.length, fpp.isEmpty() ? BlockedBloomFilter.DEFAULT_FPP : Double.parseDouble(fpp));
+            for (LocalDateTime dateTime : loadedArray) {
+                bloomFilter.add(TimestampCodec.toEpochNanos(dateTime));
+            }
+        }
+
+        String threads = Utils.getOption(args, "parallel", null);
+        if (threads != null) {
+            maxThreads = threads.isEmpty() ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(threads);
+            parallel = ParallelOps.forSize(loadedArray.length, maxThreads);
+            System.out.println("Паралельний режим: " + parallel.threads + " з " + maxThreads + " потокiв, порiг подiлу "
+                    + parallel.threshold + " елементiв");
+            dateTimeArray = new StatisticsArray<>(loadedArray, parallel);
+            dateTimeSet = LongOpenHashSet.build(loadedArray.length, i -> TimestampCodec.toEpochNanos(loadedArray[i]), parallel);
+            return;
+        }
 
-        dateTimeArray = Utils.readArrayFromFile(PATH_TO_DATA_FILE);
-        dateTimeSet = new HashSet<>(Arrays.asList(dateTimeArray));
+        dateTimeArray = new StatisticsArray<>(loadedArray);
+        dateTimeSet = new LongOpenHashSet(loadedArray.length);
+        for (LocalDateTime dateTime : loadedArray) {
+            dateTimeSet.add(TimestampCodec.toEpochNanos(dateTime));
+        }
     }
 
     /**
@@ -86,6 +267,18 @@ public class BasicDataOperationUsingSet {
      * Метод зчитує масив та множину об'єктiв LocalDateTime з файлу, сортує їх та виконує пошук значення.
      */
     private void doDataOperation() {
+        if (offHeapStore != null) {
+            doOffHeapDataOperation();
+            return;
+        }
+        if (parallel != null) {
+            printSpeedupCurves();
+        }
+        if (batchPath != null) {
+            doBatchOperation();
+            return;
+        }
+
         // операцiї з масивом дати та часу
         searchArray();
         findMinAndMaxInArray();
@@ -95,13 +288,17 @@ public class BasicDataOperationUsingSet {
         searchArray();
         findMinAndMaxInArray();
 
-        // операцiї з HashSet дати та часу
+        // операцiї з множиною дати та часу
         searchSet();
         findMinAndMaxInSet();
         compareArrayAndSet();
 
+        if (bloomFilter != null) {
+            printBloomReports();
+        }
+
         // записати вiдсортований масив в окремий файл
-        Utils.writeArrayToFile(dateTimeArray, PATH_TO_DATA_FILE + ".sorted");
+        Utils.writeArrayToFile(dateTimeArray.array(), pathToSortedFile, parallelWrite);
     }
 
     /**
@@ -111,50 +308,121 @@ public class BasicDataOperationUsingSet {
     private void sortArray() {
         long startTime = System.nanoTime();
 
-        Arrays.sort(dateTimeArray);
+        if (parallel != null) {
+            dateTimeArray.sort(parallel::sort);
+        } else {
+            dateTimeArray.sort();
+        }
 
         Utils.printOperationDuration(startTime, "сортування масиву дати i часу");
     }
 
+    /**
+     * Сортує масив i шукає в ньому всi значення з файлу запитiв: запити сортуються i
+     * зливаються з ключами масиву за один прохiд ({@link BatchLookup}), результати
+     * записуються у файл, а пропускна здатнiсть порiвнюється з пошуком по одному значенню.
+     */
+    private void doBatchOperation() {
+        sortArray();
+
+        long[] probes;
+        try {
+            probes = Utils.readEpochNanosFromFile(batchPath);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        long startTime = System.nanoTime();
+
+        LocalDateTime[] sorted = dateTimeArray.array();
+        long[] keys = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            keys[i] = TimestampCodec.toEpochNanos(sorted[i]);
+        }
+
+        Utils.printOperationDuration(startTime, "пiдготовка ключiв масиву для пакетного пошуку");
+
+        startTime = System.nanoTime();
+
+        long[] sortedProbes = probes.clone();
+        Arrays.sort(sortedProbes);
+        int[] results = BatchLookup.lookup(keys, sortedProbes);
+
+        Utils.printThroughput(startTime, "пакетний пошук "
+                + (BatchLookup.isSparse(keys.length, probes.length) ? "галопом" : "злиттям"), probes.length);
+
+        Utils.writeBatchResults(sortedProbes, results, batchPath + ".result");
+        Utils.compareBatchLookup(keys, probes, dateTimeArray, dateTimeSet);
+    }
+
+    /**
+     * Виводить звiт фiльтра Блума для пошуку у вiдсортованому масивi та в LongOpenHashSet.
+     */
+    private void printBloomReports() {
+        LocalDateTime[] present = dateTimeArray.array();
+        Utils.printBloomReport(bloomFilter, present, "масивi", dateTime -> dateTimeArray.binarySearch(dateTime) >= 0);
+        Utils.printBloomReport(bloomFilter, present, "LongOpenHashSet", dateTime -> dateTimeSet.contains(Utils.toKey(dateTime)));
+    }
+
+    /**
+     * Виводить криву прискорення сортування, пошуку мiнiмуму й максимуму та побудови
+     * множини вiд 1 до {@link #maxThreads} потокiв. Вимiри йдуть на копiях ще
+     * не вiдсортованого масиву.
+     */
+    private void printSpeedupCurves() {
+        LocalDateTime[] source = dateTimeArray.array();
+        LocalDateTime[] work = new LocalDateTime[source.length];
+
+        Utils.printSpeedupCurve("сортування масиву дати i часу", source.length, maxThreads,
+                parallel -> parallel.sort(work), () -> System.arraycopy(source, 0, work, 0, source.length));
+        Utils.printSpeedupCurve("пошук мiнiмальної i максимальної дати i часу в масивi", source.length, maxThreads,
+                parallel -> parallel.summarize(source), () -> { });
+        Utils.printSpeedupCurve("побудова LongOpenHashSet", source.length, maxThreads,
+                parallel -> LongOpenHashSet.build(source.length, i -> TimestampCodec.toEpochNanos(source[i]), parallel), () -> { });
+    }
+
     /**
      * Метод для пошуку значення в масивi дати i часу.
      */
     private void searchArray() {
         long startTime = System.nanoTime();
 
-        int index = Arrays.binarySearch(this.dateTimeArray, dateTimeValueToSearch);
+        boolean rejected = isRejectedByBloomFilter();
+        int index = rejected ? -1 : this.dateTimeArray.binarySearch(dateTimeValueToSearch);
 
         Utils.printOperationDuration(startTime, "пошук в масивi дати i часу");
 
         if (index >= 0) {
             System.out.println("Значення '" + dateTimeValueToSearch + "' знайдено в масивi за iндексом: " + index);
         } else {
-            System.out.println("Значення '" + dateTimeValueToSearch + "' в масивi не знайдено.");
+            System.out.println("Значення '" + dateTimeValueToSearch + "' в масивi не знайдено" + (rejected ? " (вiдсiяно фiльтром Блума)." : "."));
         }
     }
 
     /**
-     * Знаходить мiнiмальне та максимальне значення в масивi LocalDateTime.
+     * Перевiряє значення для пошуку фiльтром Блума.
+     * 
+     * @return true, якщо фiльтр увiмкнено i значення напевно немає.
+     */
+    private boolean isRejectedByBloomFilter() {
+        return bloomFilter != null && !bloomFilter.mightContain(Utils.toKey(dateTimeValueToSearch));
+    }
+
+    /**
+     * Знаходить мiнiмальне та максимальне значення в масивi LocalDateTime за статистикою,
+     * яку масив пiдтримує при кожнiй змiнi.
      */
     private void findMinAndMaxInArray() {
-        if (dateTimeArray == null || dateTimeArray.length == 0) {
+        if (dateTimeArray == null || dateTimeArray.size() == 0) {
             System.out.println("Масив порожнiй або не iнiцiалiзований.");
             return;
         }
 
         long startTime = System.nanoTime();
 
-        LocalDateTime min = dateTimeArray[0];
-        LocalDateTime max = dateTimeArray[0];
-
-        for (LocalDateTime dateTime : dateTimeArray) {
-            if (dateTime.isBefore(min)) {
-                min = dateTime;
-            }
-            if (dateTime.isAfter(max)) {
-                max = dateTime;
-            }
-        }
+        LocalDateTime min = dateTimeArray.min();
+        LocalDateTime max = dateTimeArray.max();
 
         Utils.printOperationDuration(startTime, "пошук мiнiмальної i максимальної дати i часу в масивi");
 
@@ -168,56 +436,139 @@ public class BasicDataOperationUsingSet {
     private void searchSet() {
         long startTime = System.nanoTime();
 
-        boolean isFound = this.dateTimeSet.contains(dateTimeValueToSearch);
+        boolean rejected = isRejectedByBloomFilter();
+        boolean isFound = !rejected && this.dateTimeSet.contains(Utils.toKey(dateTimeValueToSearch));
 
-        Utils.printOperationDuration(startTime, "пошук в HashSet дати i часу");
+        Utils.printOperationDuration(startTime, "пошук в LongOpenHashSet дати i часу");
 
         if (isFound) {
-            System.out.println("Значення '" + dateTimeValueToSearch + "' знайдено в HashSet");
+            System.out.println("Значення '" + dateTimeValueToSearch + "' знайдено в LongOpenHashSet");
         } else {
-            System.out.println("Значення '" + dateTimeValueToSearch + "' в HashSet не знайдено.");
+            System.out.println("Значення '" + dateTimeValueToSearch + "' в LongOpenHashSet не знайдено" + (rejected ? " (вiдсiяно фiльтром Блума)." : "."));
         }
     }
 
     /**
-     * Знаходить мiнiмальне та максимальне значення в множинi LocalDateTime.
+     * Знаходить мiнiмальне та максимальне значення в множинi мiток часу.
      */
     private void findMinAndMaxInSet() {
-        if (dateTimeSet == null || dateTimeSet.isEmpty()) {
-            System.out.println("HashSet порожнiй або не iнiцiалiзований.");
+        if (dateTimeSet == null || dateTimeSet.size() == 0) {
+            System.out.println("LongOpenHashSet порожнiй або не iнiцiалiзований.");
             return;
         }
 
         long startTime = System.nanoTime();
 
-        LocalDateTime min = Collections.min(dateTimeSet);
-        LocalDateTime max = Collections.max(dateTimeSet);
+        LocalDateTime min = TimestampCodec.toLocalDateTime(dateTimeSet.min());
+        LocalDateTime max = TimestampCodec.toLocalDateTime(dateTimeSet.max());
 
-        Utils.printOperationDuration(startTime, "пошук мiнiмальної i максимальної дати i часу в HashSet");
+        Utils.printOperationDuration(startTime, "пошук мiнiмальної i максимальної дати i часу в LongOpenHashSet");
 
-        System.out.println("Мiнiмальне значення в HashSet: " + min);
-        System.out.println("Максимальне значення в HashSet: " + max);
+        System.out.println("Мiнiмальне значення в LongOpenHashSet: " + min);
+        System.out.println("Максимальне значення в LongOpenHashSet: " + max);
     }
 
     /**
      * Порiвнює елементи масиву та множини.
      */
     private void compareArrayAndSet() {
-        System.out.println("Кiлькiсть елементiв в масивi: " + dateTimeArray.length);
-        System.out.println("Кiлькiсть елементiв в HashSet: " + dateTimeSet.size());
+        System.out.println("Кiлькiсть елементiв в масивi: " + dateTimeArray.size());
+        System.out.println("Кiлькiсть елементiв в LongOpenHashSet: " + dateTimeSet.size());
 
         boolean allElementsMatch = true;
-        for (LocalDateTime dateTime : dateTimeArray) {
-            if (!dateTimeSet.contains(dateTime)) {
+        for (LocalDateTime dateTime : dateTimeArray.array()) {
+            if (!dateTimeSet.contains(TimestampCodec.toEpochNanos(dateTime))) {
                 allElementsMatch = false;
                 break;
             }
         }
 
         if (allElementsMatch) {
-            System.out.println("Всi елементи масиву присутнi в HashSet.");
+            System.out.println("Всi елементи масиву присутнi в LongOpenHashSet.");
+        } else {
+            System.out.println("Не всi елементи масиву присутнi в LongOpenHashSet.");
+        }
+    }
+
+    /**
+     * Виконує тi самi операцiї, що й {@link #doDataOperation()}, над сховищем поза купою:
+     * пошук, мiнiмум i максимум до та пiсля сортування на мiсцi, перевiрку належностi
+     * замiсть HashSet i запис вiдсортованих даних у файл.
+     */
+    private void doOffHeapDataOperation() {
+        searchOffHeapStore();
+        findMinAndMaxInOffHeapStore();
+
+        boolean wasMapped = offHeapStore.isMapped();
+        long startTime = System.nanoTime();
+        offHeapStore.sort();
+        Utils.printOperationDuration(startTime, "сортування дати i часу поза купою");
+        if (wasMapped && !offHeapStore.isMapped()) {
+            System.out.println("Вiдображений кеш скопiйовано в прямi буфери для сортування (" + offHeapStore.offHeapBytes() + " байт)");
+        }
+
+        searchOffHeapStore();
+        findMinAndMaxInOffHeapStore();
+
+        startTime = System.nanoTime();
+        boolean isFound = offHeapStore.contains(dateTimeValueToSearch);
+        Utils.printOperationDuration(startTime, "перевiрка належностi дати i часу поза купою");
+        System.out.println("Значення '" + dateTimeValueToSearch + "' " + (isFound ? "знайдено" : "не знайдено") + " поза купою.");
+
+        printOffHeapMemoryUsage();
+
+        Utils.writeOffHeapToFile(offHeapStore, pathToSortedFile);
+    }
+
+    /**
+     * Метод для бiнарного пошуку значення в сховищi поза купою.
+     */
+    private void searchOffHeapStore() {
+        long startTime = System.nanoTime();
+
+        long index = offHeapStore.binarySearch(dateTimeValueToSearch);
+
+        Utils.printOperationDuration(startTime, "пошук дати i часу поза купою");
+
+        if (index >= 0) {
+            System.out.println("Значення '" + dateTimeValueToSearch + "' знайдено поза купою за iндексом: " + index);
         } else {
-            System.out.println("Не всi елементи масиву присутнi в HashSet.");
+            System.out.println("Значення '" + dateTimeValueToSearch + "' поза купою не знайдено.");
+        }
+    }
+
+    /**
+     * Знаходить мiнiмальне та максимальне значення в сховищi поза купою.
+     */
+    private void findMinAndMaxInOffHeapStore() {
+        if (offHeapStore.size() == 0) {
+            System.out.println("Сховище поза купою порожнє.");
+            return;
+        }
+
+        long startTime = System.nanoTime();
+
+        long min = offHeapStore.min();
+        long max = offHeapStore.max();
+
+        Utils.printOperationDuration(startTime, "пошук мiнiмальної i максимальної дати i часу поза купою");
+
+        System.out.println("Мiнiмальне значення поза купою: " + TimestampCodec.toLocalDateTime(min));
+        System.out.println("Максимальне значення поза купою: " + TimestampCodec.toLocalDateTime(max));
+    }
+
+    /**
+     * Виводить зайняту частину купи, розмiр сховища поза купою та стан пулiв прямих i
+     * вiдображених буферiв JVM.
+     */
+    private void printOffHeapMemoryUsage() {
+        Runtime runtime = Runtime.getRuntime();
+        System.out.println("Кiлькiсть елементiв поза купою: " + offHeapStore.size()
+                + (offHeapStore.isMapped() ? " (вiдображено з кешу " + TimestampSidecar.SUFFIX + ")" : ""));
+        System.out.println("Зайнято в купi: " + (runtime.totalMemory() - runtime.freeMemory()) + " байт");
+        System.out.println("Зайнято поза купою: " + offHeapStore.offHeapBytes() + " байт");
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            System.out.println("  пул буферiв '" + pool.getName() + "': " + pool.getCount() + " буферiв, " + pool.getMemoryUsed() + " байт");
         }
     }
 }
@@ -226,6 +577,50 @@ public class BasicDataOperationUsingSet {
  * Клас Utils мiститить допомiжнi методи для роботи з даними типу LocalDateTime.
  */
 class Utils {
+    /**
+     * Розмiр блоку для читання файлiв з даними.
+     */
+    static final int READ_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Найбiльший розмiр дiлянки файлу, яку можна вiдобразити в пам'ять одним буфером.
+     */
+    static final long MAX_MAPPED_RANGE = 1L << 30;
+
+    /**
+     * Найменший розмiр дiлянки, заради якої варто запускати окрему паралельну задачу.
+     */
+    static final long MIN_PARALLEL_RANGE = 1L << 16;
+
+    /**
+     * Розмiр прямого буфера для запису файлiв.
+     */
+    static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Найменша кiлькiсть елементiв у сегментi паралельного запису.
+     */
+    static final int MIN_PARALLEL_SEGMENT = 1 << 14;
+
+    /**
+     * Найбiльша кiлькiсть наявних значень у вибiрцi для звiту фiльтра Блума.
+     */
+    static final int MAX_BLOOM_PROBES = 100_000;
+
+    /**
+     * Кiлькiсть вимiрюваних запускiв у звiтi фiльтра Блума пiсля прогрiву.
+     */
+    static final int BLOOM_REPORT_ROUNDS = 5;
+    static final String GZIP_SUFFIX = ".gz";
+    static final String DEFLATE_SUFFIX = ".deflate";
+
+    /**
+     * Найбiльша довжина рядка з датою i часом разом iз символами кiнця рядка.
+     */
+    private static final int MAX_FORMATTED_LENGTH = 64;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
     /**
      * Виводить час виконання операцiї в наносекундах.
      * 
@@ -238,47 +633,3116 @@ class Utils {
         System.out.println("\n>>>>>>>>>> Час виконання операцiї '" + operationName + "': " + duration + " наносекунд");
     }
 
+    /**
+     * Перевiряє, чи передано опцiю командного рядка виду "--name" або "--name=значення".
+     * 
+     * @param args Аргументи командного рядка.
+     * @param name Назва опцiї без префiкса "--".
+     * @return true, якщо опцiю передано.
+     */
+    static boolean hasOption(String[] args, String name) {
+        return getOption(args, name, null) != null;
+    }
+
+    /**
+     * Повертає значення опцiї командного рядка виду "--name=значення".
+     * 
+     * @param args Аргументи командного рядка.
+     * @param name Назва опцiї без префiкса "--".
+     * @param defaultValue Значення, якщо опцiю не передано.
+     * @return Значення опцiї, порожнiй рядок для опцiї без значення або defaultValue.
+     */
+    static String getOption(String[] args, String name, String defaultValue) {
+        for (String arg : args) {
+            if (arg.equals("--" + name)) {
+                return "";
+            }
+            if (arg.startsWith("--" + name + "=")) {
+                return arg.substring(name.length() + 3);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Повертає перший аргумент командного рядка, який не є опцiєю.
+     * 
+     * @param args Аргументи командного рядка.
+     * @return Значення аргументу або null, якщо його немає.
+     */
+    static String getPositionalArgument(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                return arg;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Виводить пропускну здатнiсть операцiї в рядках за секунду.
+     * 
+     * @param startTime Час початку операцiї в наносекундах.
+     * @param operationName Назва операцiї.
+     * @param rows Кiлькiсть оброблених рядкiв.
+     */
+    static void printThroughput(long startTime, String operationName, long rows) {
+        long duration = System.nanoTime() - startTime;
+        double rowsPerSecond = duration > 0 ? rows * 1_000_000_000.0 / duration : 0;
+        System.out.printf("%n%s Пропускна здатнiсть операцiї '%s': %d рядкiв за %d наносекунд (%.0f рядкiв/с)%n",
+                ">>>>>>>>>>", operationName, rows, duration, rowsPerSecond);
+    }
+
+    /**
+     * Перевiряє, чи файл стиснений, за його суфiксом ".gz" або ".deflate".
+     * 
+     * @param pathToFile Шлях до файлу.
+     * @return true, якщо файл стиснений.
+     */
+    static boolean isCompressed(String pathToFile) {
+        return pathToFile.endsWith(GZIP_SUFFIX) || pathToFile.endsWith(DEFLATE_SUFFIX);
+    }
+
+    /**
+     * Знаходить файл з даними: сам файл, якщо вiн є, iнакше його стиснену копiю
+     * з суфiксом ".gz" або ".deflate".
+     * 
+     * @param pathToFile Шлях до нестисненого файлу.
+     * @return Шлях до наявного файлу або pathToFile, якщо не знайдено жодного.
+     */
+    static String resolveDataFile(String pathToFile) {
+        if (Files.exists(Path.of(pathToFile))) {
+            return pathToFile;
+        }
+        for (String suffix : new String[] {GZIP_SUFFIX, DEFLATE_SUFFIX}) {
+            if (Files.exists(Path.of(pathToFile + suffix))) {
+                return pathToFile + suffix;
+            }
+        }
+        return pathToFile;
+    }
+
+    /**
+     * Вiдкриває файл з даними для читання. Стиснений файл розпаковується потоком в
+     * окремому потоцi виконання ({@link InflatingInputStream}) з буфером Inflater
+     * на {@value InflatingInputStream#INFLATER_BUFFER_SIZE} байт.
+     * 
+     * @param pathToFile Шлях до файлу.
+     * @return Потiк нестиснених байтiв.
+     * @throws IOException Якщо файл не вдалося вiдкрити.
+     */
+    static InputStream openDataFile(String pathToFile) throws IOException {
+        InputStream in = new FileInputStream(pathToFile);
+        try {
+            if (pathToFile.endsWith(GZIP_SUFFIX)) {
+                return new InflatingInputStream(new GZIPInputStream(in, InflatingInputStream.INFLATER_BUFFER_SIZE));
+            }
+            if (pathToFile.endsWith(DEFLATE_SUFFIX)) {
+                return new InflatingInputStream(new InflaterInputStream(in, new Inflater(), InflatingInputStream.INFLATER_BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inf.end();
+                        }
+                    }
+                });
+            }
+            return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Створює файл, у який данi пишуться стисненими у формат за суфiксом файлу.
+     * 
+     * @param pathToFile Шлях до файлу з суфiксом ".gz" або ".deflate".
+     * @return Потiк, що стискає записанi байти.
+     * @throws IOException Якщо файл не вдалося створити.
+     */
+    static OutputStream createCompressedFile(String pathToFile) throws IOException {
+        OutputStream out = new FileOutputStream(pathToFile);
+        if (pathToFile.endsWith(GZIP_SUFFIX)) {
+            return new GZIPOutputStream(out, WRITE_BUFFER_SIZE);
+        }
+        if (pathToFile.endsWith(DEFLATE_SUFFIX)) {
+            return new DeflaterOutputStream(out, new Deflater(), WRITE_BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+        }
+        out.close();
+        throw new RuntimeException("Невiдомий формат стиснення файлу '" + pathToFile + "'");
+    }
+
+    /**
+     * Порiвнює читання нестисненого файлу i його стиснених копiй ".gz" та ".deflate".
+     * 
+     * <p>Копiї створюються в тимчасовому каталозi поруч з файлом i пiсля вимiрювання
+     * видаляються. Для кожного формату вимiрюється повне читання з розбором i окремо
+     * чисте розпаковування без розбору (найкращий з кiлькох запускiв). Файли в цей час
+     * лежать у кешi сторiнок, тому час читання показує лише витрати процесора, а
+     * пропускна здатнiсть диска враховується розрахунком: стиснений файл вигiднiший,
+     * якщо диск повiльнiший за межу беззбитковостi.</p>
+     * 
+     * @param pathToFile Шлях до нестисненого файлу з даними.
+     */
+    static void compareCompression(String pathToFile) {
+        final int rounds = 5;
+        Path source = Path.of(pathToFile);
+        Path tempDirectory = null;
+
+        try {
+            tempDirectory = Files.createTempDirectory(source.toAbsolutePath().getParent(), "compression");
+            long plainSize = Files.size(source);
+            long plainTime = Long.MAX_VALUE;
+            LocalDateTime[] plain = null;
+            for (int round = 0; round < rounds; round++) {
+                long startTime = System.nanoTime();
+                plain = readArrayFromFile(pathToFile);
+                plainTime = Math.min(plainTime, System.nanoTime() - startTime);
+            }
+
+            System.out.println("\nПорiвняння стиснення '" + pathToFile + "' (" + plain.length + " рядкiв, " + plainSize
+                    + " байт, найкращий з " + rounds + " запускiв):");
+            System.out.printf("  без стиснення: читання %d наносекунд (%.0f рядкiв/с)%n", plainTime,
+                    plain.length * 1_000_000_000.0 / plainTime);
+
+            for (String suffix : new String[] {GZIP_SUFFIX, DEFLATE_SUFFIX}) {
+                String compressed = tempDirectory.resolve(source.getFileName() + suffix).toString();
+                try (InputStream in = new FileInputStream(pathToFile); OutputStream out = createCompressedFile(compressed)) {
+                    in.transferTo(out);
+                }
+                long compressedSize = Files.size(Path.of(compressed));
+
+                long readTime = Long.MAX_VALUE;
+                long inflateTime = Long.MAX_VALUE;
+                LocalDateTime[] result = null;
+                byte[] sink = new byte[READ_BUFFER_SIZE];
+                for (int round = 0; round < rounds; round++) {
+                    long startTime = System.nanoTime();
+                    result = readArrayFromFile(compressed);
+                    readTime = Math.min(readTime, System.nanoTime() - startTime);
+
+                    startTime = System.nanoTime();
+                    try (InputStream in = openDataFile(compressed)) {
+                        while (in.read(sink, 0, sink.length) >= 0) {
+                            // лише розпаковування
+                        }
+                    }
+                    inflateTime = Math.min(inflateTime, System.nanoTime() - startTime);
+                }
+
+                // послiдовно: compressed/B + inflate < plain/B; з перекриттям: max(compressed/B, inflate) < plain/B
+                double sequentialBreakEven = (plainSize - compressedSize) * 1_000_000_000.0 / inflateTime / (1 << 20);
+                double overlappedBreakEven = plainSize * 1_000_000_000.0 / inflateTime / (1 << 20);
+                System.out.printf("  %s: %d байт (%.1f%%), читання %d наносекунд (%.0f рядкiв/с), розпаковування %.1f МБ/с, результати %s%n",
+                        suffix, compressedSize, compressedSize * 100.0 / Math.max(1, plainSize), readTime,
+                        result.length * 1_000_000_000.0 / readTime, overlappedBreakEven,
+                        Arrays.equals(plain, result) ? "збiгаються" : "НЕ збiгаються");
+                System.out.printf("    вигiднiше за диск, повiльнiший за %.1f МБ/с (з перекриттям розпаковування i читання %.1f МБ/с)%n",
+                        sequentialBreakEven, overlappedBreakEven);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (tempDirectory != null) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(tempDirectory)) {
+                    for (Path file : files) {
+                        Files.deleteIfExists(file);
+                    }
+                    Files.deleteIfExists(tempDirectory);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
     /**
      * Зчитує масив об'єктiв LocalDateTime з файлу.
      * 
+     * <p>Файл читається двiчi великими блоками: спочатку рахуються рядки, потiм масив
+     * точного розмiру заповнюється розiбраними значеннями. Тому навiть для файлiв
+     * на сотнi мiльйонiв рядкiв у пам'ятi нiколи не тримаються одночасно тимчасовий
+     * i остаточний масиви повного розмiру. Стиснений файл (".gz" або ".deflate")
+     * розпаковується потоком через {@link #openDataFile(String)} за один прохiд, а масив
+     * збiльшується в мiру читання, бо другий прохiд коштував би ще одного розпаковування.</p>
+     * 
      * @param pathToFile Шлях до файлу з даними.
      * @return Масив об'єктiв LocalDateTime.
      */
     static LocalDateTime[] readArrayFromFile(String pathToFile) {
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE_TIME;
-        LocalDateTime[] tempArray = new LocalDateTime[1000];
-        int index = 0;
+        long startTime = System.nanoTime();
 
-        try (BufferedReader br = new BufferedReader(new FileReader(pathToFile))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                LocalDateTime dateTime = LocalDateTime.parse(line, formatter);
-                tempArray[index++] = dateTime;
+        try {
+            DateTimeArrayBuilder builder = new DateTimeArrayBuilder(isCompressed(pathToFile) ? 0 : countLines(pathToFile));
+            try (InputStream in = openDataFile(pathToFile)) {
+                forEachLine(in, builder);
             }
+
+            LocalDateTime[] dateTimeArray = builder.toArray();
+            printThroughput(startTime, "читання масиву дати i часу з файлу", dateTimeArray.length);
+            return dateTimeArray;
         } catch (IOException e) {
             e.printStackTrace();
+            return new LocalDateTime[0];
         }
-
-        LocalDateTime[] finalArray = new LocalDateTime[index];
-        System.arraycopy(tempArray, 0, finalArray, 0, index);
-
-        return finalArray;
     }
 
     /**
-     * Записує масив об'єктiв LocalDateTime у файл.
+     * Зчитує масив об'єктiв LocalDateTime через двiйковий кеш {@link TimestampSidecar}.
      * 
-     * @param dateTimeArray Масив об'єктiв LocalDateTime.
-     * @param pathToFile Шлях до файлу для запису.
+     * <p>Якщо актуальний кеш ".bin" вже є, вiн вiдображається в пам'ять i текст не
+     * розбирається зовсiм. Iнакше файл розбирається як у {@link #readArrayFromFile(String)},
+     * а кеш записується для наступних запускiв.</p>
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Масив об'єктiв LocalDateTime.
      */
-    static void writeArrayToFile(LocalDateTime[] dateTimeArray, String pathToFile) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(pathToFile))) {
-            for (LocalDateTime dateTime : dateTimeArray) {
-                writer.write(dateTime.toString());
-                writer.newLine();
+    static LocalDateTime[] readArrayFromFileCached(String pathToFile) {
+        long startTime = System.nanoTime();
+
+        try {
+            TimestampSidecar sidecar = TimestampSidecar.open(pathToFile);
+            if (sidecar != null) {
+                LocalDateTime[] dateTimeArray = new LocalDateTime[sidecar.rowCount];
+                for (int i = 0; i < dateTimeArray.length; i++) {
+                    dateTimeArray[i] = TimestampCodec.toLocalDateTime(sidecar.column.get(i));
+                }
+                printThroughput(startTime, "читання масиву дати i часу з кешу", dateTimeArray.length);
+                return dateTimeArray;
+            }
+
+            Path source = Path.of(pathToFile);
+            long sourceSize = Files.size(source);
+            long sourceModified = Files.getLastModifiedTime(source).toMillis();
+
+            long[] column = readEpochNanosFromFile(pathToFile);
+            TimestampSidecar.write(pathToFile, sourceSize, sourceModified, column);
+
+            LocalDateTime[] dateTimeArray = new LocalDateTime[column.length];
+            for (int i = 0; i < column.length; i++) {
+                dateTimeArray[i] = TimestampCodec.toLocalDateTime(column[i]);
             }
+            printThroughput(startTime, "читання масиву дати i часу з файлу i запис кешу", dateTimeArray.length);
+            return dateTimeArray;
         } catch (IOException e) {
             e.printStackTrace();
+            return new LocalDateTime[0];
+        }
+    }
+
+    /**
+     * Зчитує мiтки часу з файлу у масив упакованих значень TimestampCodec.
+     * Масив має точний розмiр, як i в {@link #readArrayFromFile(String)}.
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Масив наносекунд вiд 1970-01-01T00:00:00 у порядку рядкiв файлу.
+     * @throws IOException Якщо файл не вдалося прочитати.
+     */
+    static long[] readEpochNanosFromFile(String pathToFile) throws IOException {
+        EpochNanosBuilder builder = new EpochNanosBuilder(isCompressed(pathToFile) ? 0 : countLines(pathToFile));
+        try (InputStream in = openDataFile(pathToFile)) {
+            forEachLine(in, builder);
         }
+        return builder.toArray();
     }
-}
\ No newline at end of file
+
+    /**
+     * Зчитує масив об'єктiв LocalDateTime паралельно.
+     * 
+     * <p>Файл вiдображається в пам'ять через FileChannel i дiлиться по межах рядкiв на
+     * дiлянки за кiлькiстю ядер. Спочатку в ForkJoinPool паралельно рахуються рядки
+     * кожної дiлянки, потiм кожна дiлянка розбирається у свою частину спiльного масиву,
+     * тому порядок рядкiв файлу зберiгається без склеювання промiжних масивiв.
+     * Стиснений файл вiдобразити не можна, тому вiн читається {@link #readArrayFromFile(String)}.</p>
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Масив об'єктiв LocalDateTime.
+     */
+    static LocalDateTime[] readArrayFromFileParallel(String pathToFile) {
+        if (isCompressed(pathToFile)) {
+            return readArrayFromFile(pathToFile);
+        }
+
+        long startTime = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(Path.of(pathToFile), StandardOpenOption.READ)) {
+            ByteBuffer[] ranges = mapLineAlignedRanges(channel, ForkJoinPool.commonPool().getParallelism());
+
+            int[] rowOffsets = new int[ranges.length + 1];
+            ForkJoinPool.commonPool().invoke(new RangeTask(ranges, rowOffsets, null, 0, ranges.length));
+            for (int i = 0; i < ranges.length; i++) {
+                rowOffsets[i + 1] += rowOffsets[i];
+            }
+
+            LocalDateTime[] dateTimeArray = new LocalDateTime[rowOffsets[ranges.length]];
+            ForkJoinPool.commonPool().invoke(new RangeTask(ranges, rowOffsets, dateTimeArray, 0, ranges.length));
+
+            printThroughput(startTime, "паралельне читання масиву дати i часу з файлу", dateTimeArray.length);
+            return dateTimeArray;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new LocalDateTime[0];
+        }
+    }
+
+    /**
+     * Порiвнює пропускну здатнiсть послiдовного, паралельного читання файлу та читання з кешу.
+     * Кожен спосiб запускається кiлька разiв, до уваги береться найкращий час.
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     */
+    static void compareLoaders(String pathToFile) {
+        final int rounds = 5;
+        long sequentialTime = Long.MAX_VALUE;
+        long parallelTime = Long.MAX_VALUE;
+        LocalDateTime[] sequential = null;
+        LocalDateTime[] parallel = null;
+        long cachedTime = Long.MAX_VALUE;
+        LocalDateTime[] cached = null;
+
+        for (int round = 0; round < rounds; round++) {
+            long startTime = System.nanoTime();
+            sequential = readArrayFromFile(pathToFile);
+            sequentialTime = Math.min(sequentialTime, System.nanoTime() - startTime);
+
+            startTime = System.nanoTime();
+            parallel = readArrayFromFileParallel(pathToFile);
+            parallelTime = Math.min(parallelTime, System.nanoTime() - startTime);
+
+            // перший запуск записує кеш, тому до уваги беруться лише наступнi
+            startTime = System.nanoTime();
+            cached = readArrayFromFileCached(pathToFile);
+            if (round > 0) {
+                cachedTime = Math.min(cachedTime, System.nanoTime() - startTime);
+            }
+        }
+
+        int rows = sequential.length;
+        System.out.println("\nПорiвняння способiв читання '" + pathToFile + "' (" + rows + " рядкiв, найкращий з " + rounds + " запускiв):");
+        System.out.printf("  FileInputStream/послiдовно: %d наносекунд (%.0f рядкiв/с)%n", sequentialTime, rows * 1_000_000_000.0 / sequentialTime);
+        System.out.printf("  FileChannel.map/ForkJoinPool: %d наносекунд (%.0f рядкiв/с)%n", parallelTime, rows * 1_000_000_000.0 / parallelTime);
+        System.out.printf("  FileChannel.map кешу %s: %d наносекунд (%.0f рядкiв/с)%n", TimestampSidecar.SUFFIX, cachedTime, rows * 1_000_000_000.0 / cachedTime);
+        System.out.printf("  Прискорення: паралельно %.2fx, з кешу %.2fx, результати %s%n", (double) sequentialTime / parallelTime,
+                (double) sequentialTime / cachedTime,
+                Arrays.equals(sequential, parallel) && Arrays.equals(sequential, cached) ? "збiгаються" : "НЕ збiгаються");
+    }
+
+    /**
+     * Перетворює значення для пошуку на ключ множини. Дата поза дiапазоном TimestampCodec
+     * не може бути у файлi, тому для неї повертається Long.MIN_VALUE, якого розбiр файлу
+     * не дає нiколи.
+     */
+    static long toKey(LocalDateTime dateTime) {
+        try {
+            return TimestampCodec.toEpochNanos(dateTime);
+        } catch (ArithmeticException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Порiвнює HashSet&lt;LocalDateTime&gt; з LongOpenHashSet на даних з файлу: час побудови,
+     * середню затримку contains() для наявних i вiдсутнiх значень та кiлькiсть видiлених
+     * байтiв на елемент (найкращий з кiлькох запускiв). Об'єкти LocalDateTime спiльнi
+     * з масивом, тому для HashSet враховано лише таблицю i вузли.
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     */
+    static void compareSets(String pathToFile) {
+        long[] keys;
+        try {
+            keys = readEpochNanosFromFile(pathToFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        if (keys.length == 0) {
+            System.out.println("Файл '" + pathToFile + "' порожнiй.");
+            return;
+        }
+
+        LocalDateTime[] dateTimeArray = new LocalDateTime[keys.length];
+        LocalDateTime[] missingArray = new LocalDateTime[keys.length];
+        long[] missingKeys = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            dateTimeArray[i] = TimestampCodec.toLocalDateTime(keys[i]);
+            // значення зi змiщенням на 1 нс майже напевно вiдсутнi у файлi
+            missingKeys[i] = keys[i] + 1;
+            missingArray[i] = TimestampCodec.toLocalDateTime(missingKeys[i]);
+        }
+
+        final int rounds = 5;
+        long[] boxedCost = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        long[] primitiveCost = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        int boxedSize = 0;
+        int primitiveSize = 0;
+        long checksum = 0;
+
+        for (int round = 0; round < rounds; round++) {
+            long startBytes = allocatedBytes();
+            long startTime = System.nanoTime();
+            HashSet<LocalDateTime> boxedSet = new HashSet<>(Arrays.asList(dateTimeArray));
+            boxedCost[0] = Math.min(boxedCost[0], System.nanoTime() - startTime);
+            boxedCost[1] = Math.min(boxedCost[1], allocatedBytes() - startBytes);
+            boxedSize = boxedSet.size();
+
+            startTime = System.nanoTime();
+            for (LocalDateTime dateTime : dateTimeArray) {
+                checksum += boxedSet.contains(dateTime) ? 1 : 0;
+            }
+            boxedCost[2] = Math.min(boxedCost[2], System.nanoTime() - startTime);
+
+            startTime = System.nanoTime();
+            for (LocalDateTime dateTime : missingArray) {
+                checksum += boxedSet.contains(dateTime) ? 1 : 0;
+            }
+            boxedCost[3] = Math.min(boxedCost[3], System.nanoTime() - startTime);
+
+            startBytes = allocatedBytes();
+            startTime = System.nanoTime();
+            LongOpenHashSet primitiveSet = new LongOpenHashSet(keys.length);
+            for (long key : keys) {
+                primitiveSet.add(key);
+            }
+            primitiveCost[0] = Math.min(primitiveCost[0], System.nanoTime() - startTime);
+            primitiveCost[1] = Math.min(primitiveCost[1], allocatedBytes() - startBytes);
+            primitiveSize = primitiveSet.size();
+
+            startTime = System.nanoTime();
+            for (long key : keys) {
+                checksum += primitiveSet.contains(key) ? 1 : 0;
+            }
+            primitiveCost[2] = Math.min(primitiveCost[2], System.nanoTime() - startTime);
+
+            startTime = System.nanoTime();
+            for (long key : missingKeys) {
+                checksum += primitiveSet.contains(key) ? 1 : 0;
+            }
+            primitiveCost[3] = Math.min(primitiveCost[3], System.nanoTime() - startTime);
+        }
+
+        int rows = keys.length;
+        System.out.println("\nПорiвняння множин для '" + pathToFile + "' (" + rows + " рядкiв, " + primitiveSize
+                + " унiкальних, найкращий з " + rounds + " запускiв, контрольна сума " + checksum + "):");
+        System.out.printf("  HashSet<LocalDateTime>: побудова %d наносекунд, contains %.1f/%.1f нс (є/немає), %.1f байт на елемент%n",
+                boxedCost[0], (double) boxedCost[2] / rows, (double) boxedCost[3] / rows, (double) boxedCost[1] / boxedSize);
+        System.out.printf("  LongOpenHashSet: побудова %d наносекунд, contains %.1f/%.1f нс (є/немає), %.1f байт на елемент%n",
+                primitiveCost[0], (double) primitiveCost[2] / rows, (double) primitiveCost[3] / rows, (double) primitiveCost[1] / primitiveSize);
+        System.out.printf("  Перевага LongOpenHashSet: побудова %.2fx, contains %.2fx/%.2fx, пам'ять %.2fx, розмiри %s%n",
+                (double) boxedCost[0] / primitiveCost[0], (double) boxedCost[2] / primitiveCost[2],
+                (double) boxedCost[3] / primitiveCost[3], (double) boxedCost[1] / primitiveCost[1],
+                boxedSize == primitiveSize ? "збiгаються" : "НЕ збiгаються");
+    }
+
+    /**
+     * Вимiрює пошук з фiльтром Блума перед ним i без нього на вибiрцi наявних значень та
+     * стiлькох же вiдсутнiх (наявних, зсунутих на 1 нс) i виводить частку запитiв,
+     * вiдсiяних фiльтром, хибнi спрацювання, заощаджений час на запит i частку вiдсутнiх
+     * запитiв, з якої фiльтр окупається. Спершу всi способи проганяються без вимiру, далi
+     * береться найкращий з {@value #BLOOM_REPORT_ROUNDS} запускiв, i черговiсть пошуку з
+     * фiльтром i без нього мiняється щоразу.
+     * 
+     * @param present Значення, якi є в структурi.
+     * @param structureName Назва структури для виводу.
+     * @param lookup Пошук у структурi.
+     */
+    static void printBloomReport(BlockedBloomFilter filter, LocalDateTime[] present, String structureName,
+            Predicate<LocalDateTime> lookup) {
+        if (present.length == 0) {
+            return;
+        }
+        int step = Math.max(1, present.length / MAX_BLOOM_PROBES);
+        int probes = (present.length + step - 1) / step;
+        LocalDateTime[] hits = new LocalDateTime[probes];
+        LocalDateTime[] misses = new LocalDateTime[probes];
+        for (int i = 0; i < probes; i++) {
+            hits[i] = present[i * step];
+            misses[i] = hits[i].plusNanos(1);
+        }
+
+        // кожен спосiб вимiрюється в окремому методi, щоб JIT компiлював усi однаково
+        long[] checksum = new long[1];
+        int[] hitCounts = new int[2];
+        int[] missCounts = new int[2];
+        // прогрiв без вимiру, щоб перший вимiряний спосiб не працював ще в iнтерпретаторi;
+        // на малiй вибiрцi вона проганяється кiлька разiв
+        for (int warmed = 0; warmed < MAX_BLOOM_PROBES; warmed += probes) {
+            timeLookups(hits, lookup, checksum);
+            timeLookups(misses, lookup, checksum);
+            timeFilteredLookups(hits, filter, lookup, hitCounts);
+            timeFilteredLookups(misses, filter, lookup, missCounts);
+        }
+        checksum[0] = 0;
+
+        long[] cost = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int round = 0; round < BLOOM_REPORT_ROUNDS; round++) {
+            boolean filteredFirst = (round & 1) == 1;
+            if (filteredFirst) {
+                cost[2] = Math.min(cost[2], timeFilteredLookups(hits, filter, lookup, hitCounts));
+                cost[3] = Math.min(cost[3], timeFilteredLookups(misses, filter, lookup, missCounts));
+            }
+            cost[0] = Math.min(cost[0], timeLookups(hits, lookup, checksum));
+            cost[1] = Math.min(cost[1], timeLookups(misses, lookup, checksum));
+            if (!filteredFirst) {
+                cost[2] = Math.min(cost[2], timeFilteredLookups(hits, filter, lookup, hitCounts));
+                cost[3] = Math.min(cost[3], timeFilteredLookups(misses, filter, lookup, missCounts));
+            }
+        }
+        int passedHits = hitCounts[1];
+        int passedMisses = missCounts[0];
+        int falsePositives = missCounts[0] - missCounts[1];
+
+        int rejected = 2 * probes - passedHits - passedMisses;
+        System.out.println("\nФiльтр Блума перед пошуком у " + structureName + " (" + probes + " наявних i " + probes
+                + " вiдсутнiх запитiв, найкращий з " + BLOOM_REPORT_ROUNDS + " запускiв пiсля прогрiву, контрольна сума "
+                + checksum[0] + "):");
+        System.out.printf("  Фiльтр: %d бiт (%.1f бiт на ключ, %d байт), хешiв %d, очiкувана частка хибних спрацювань %.4f (задана %.4f)%n",
+                filter.bitCount(), (double) filter.bitCount() / Math.max(1, filter.keyCount()), filter.heapBytes(),
+                filter.hashCount(), filter.expectedFpp(), filter.targetFpp());
+        System.out.printf("  Вiдсiяно фiльтром %d з %d запитiв (%.1f%%), пропущено до пошуку %d, з них хибних спрацювань %d (%.4f вiд вiдсутнiх)%n",
+                rejected, 2 * probes, 100.0 * rejected / (2 * probes), passedHits + passedMisses, falsePositives,
+                (double) falsePositives / probes);
+        System.out.printf("  Наявнi значення: %.1f нс на запит без фiльтра, %.1f нс з фiльтром (%+.1f нс)%n",
+                (double) cost[0] / probes, (double) cost[2] / probes, (double) (cost[2] - cost[0]) / probes);
+        System.out.printf("  Вiдсутнi значення: %.1f нс на запит без фiльтра, %.1f нс з фiльтром (заощаджено %.1f нс, %.1fx)%n",
+                (double) cost[1] / probes, (double) cost[3] / probes, (double) (cost[1] - cost[3]) / probes,
+                (double) cost[1] / cost[3]);
+
+        // фiльтр окупається, коли частка вiдсутнiх m задовольняє m * saved > (1 - m) * extra
+        double extraPerHit = (double) (cost[2] - cost[0]) / probes;
+        double savedPerMiss = (double) (cost[1] - cost[3]) / probes;
+        if (savedPerMiss <= 0) {
+            System.out.println("  Фiльтр НЕ окупається: з ним не швидший навiть пошук вiдсутнiх значень");
+        } else if (extraPerHit <= 0) {
+            System.out.println("  Фiльтр окупається за будь-якої частки вiдсутнiх запитiв");
+        } else {
+            double breakEven = extraPerHit / (extraPerHit + savedPerMiss);
+            System.out.printf("  Фiльтр окупається, лише якщо вiдсутнiх запитiв бiльше %.0f%%; на цiй вибiрцi (50%%) вiн %s%n",
+                    100 * breakEven, breakEven < 0.5 ? "окупається" : "НЕ окупається");
+        }
+    }
+
+    /**
+     * Вимiрює пошук у структурi без фiльтра; кiлькiсть знайдених додається до checksum[0].
+     */
+    private static long timeLookups(LocalDateTime[] probes, Predicate<LocalDateTime> lookup, long[] checksum) {
+        long found = 0;
+        long startTime = System.nanoTime();
+        for (LocalDateTime probe : probes) {
+            found += lookup.test(probe) ? 1 : 0;
+        }
+        long cost = System.nanoTime() - startTime;
+        checksum[0] += found;
+        return cost;
+    }
+
+    /**
+     * Вимiрює пошук з фiльтром перед ним; у counts[0] записується кiлькiсть запитiв,
+     * пропущених фiльтром, у counts[1] - кiлькiсть знайдених серед них.
+     */
+    private static long timeFilteredLookups(LocalDateTime[] probes, BlockedBloomFilter filter,
+            Predicate<LocalDateTime> lookup, int[] counts) {
+        int passed = 0;
+        int found = 0;
+        long startTime = System.nanoTime();
+        for (LocalDateTime probe : probes) {
+            if (filter.mightContain(toKey(probe))) {
+                passed++;
+                found += lookup.test(probe) ? 1 : 0;
+            }
+        }
+        long cost = System.nanoTime() - startTime;
+        counts[0] = passed;
+        counts[1] = found;
+        return cost;
+    }
+
+    /**
+     * Записує результати пакетного пошуку: у кожному рядку запит i його iндекс у вiдсортованому
+     * масивi (або -(точка вставки) - 1, якщо значення немає) у порядку вiдсортованих запитiв.
+     * 
+     * @param sortedProbes Вiдсортованi запити в упакованому виглядi.
+     * @param results Результати пошуку для кожного запиту.
+     * @param pathToFile Шлях до файлу для запису.
+     */
+    static void writeBatchResults(long[] sortedProbes, int[] results, String pathToFile) {
+        long startTime = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(Path.of(pathToFile), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            long written = 0;
+            for (int i = 0; i < sortedProbes.length; i++) {
+                if (buffer.remaining() < 2 * MAX_FORMATTED_LENGTH) {
+                    written += flush(buffer, channel, -1);
+                }
+                formatDateTime(TimestampCodec.toLocalDateTime(sortedProbes[i]), buffer);
+                buffer.put((byte) ' ');
+                buffer.put(Integer.toString(results[i]).getBytes(StandardCharsets.US_ASCII));
+                buffer.put(LINE_SEPARATOR);
+            }
+            written += flush(buffer, channel, -1);
+
+            printWriteThroughput(startTime, "запис результатiв пакетного пошуку у файл", written);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Порiвнює пропускну здатнiсть пакетного пошуку (сортування запитiв i злиття або галоп)
+     * з пошуком кожного значення окремо бiнарним пошуком у масивi та в LongOpenHashSet
+     * (найкращий з кiлькох запускiв).
+     * 
+     * @param keys Вiдсортованi ключi масиву.
+     * @param probes Запити в порядку файлу.
+     * @param dateTimeArray Вiдсортований масив.
+     * @param dateTimeSet Множина тих самих значень.
+     */
+    static void compareBatchLookup(long[] keys, long[] probes, StatisticsArray<LocalDateTime> dateTimeArray,
+            LongOpenHashSet dateTimeSet) {
+        LocalDateTime[] dateTimeProbes = new LocalDateTime[probes.length];
+        for (int i = 0; i < probes.length; i++) {
+            dateTimeProbes[i] = TimestampCodec.toLocalDateTime(probes[i]);
+        }
+
+        final int rounds = 5;
+        long[] cost = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        int[] found = new int[cost.length];
+        for (int round = 0; round < rounds; round++) {
+            for (int method = 0; method < 2; method++) {
+                long startTime = System.nanoTime();
+                long[] sortedProbes = probes.clone();
+                Arrays.sort(sortedProbes);
+                int[] results = method == 0 ? BatchLookup.merge(keys, sortedProbes) : BatchLookup.gallop(keys, sortedProbes);
+                cost[method] = Math.min(cost[method], System.nanoTime() - startTime);
+                found[method] = 0;
+                for (int result : results) {
+                    found[method] += result >= 0 ? 1 : 0;
+                }
+            }
+
+            found[2] = 0;
+            long startTime = System.nanoTime();
+            for (LocalDateTime probe : dateTimeProbes) {
+                found[2] += dateTimeArray.binarySearch(probe) >= 0 ? 1 : 0;
+            }
+            cost[2] = Math.min(cost[2], System.nanoTime() - startTime);
+
+            found[3] = 0;
+            startTime = System.nanoTime();
+            for (long probe : probes) {
+                found[3] += dateTimeSet.contains(probe) ? 1 : 0;
+            }
+            cost[3] = Math.min(cost[3], System.nanoTime() - startTime);
+        }
+
+        boolean sparse = BatchLookup.isSparse(keys.length, probes.length);
+        String[] names = {"сортування i злиття" + (sparse ? "" : " (обрано)"), "сортування i галоп" + (sparse ? " (обрано)" : ""),
+            "бiнарний пошук у масивi по одному", "LongOpenHashSet.contains по одному"};
+        System.out.println("\nПакетний пошук " + probes.length + " запитiв у " + keys.length + " значеннях (найкращий з "
+                + rounds + " запускiв, результати " + (found[0] == found[1] && found[0] == found[2] && found[0] == found[3]
+                        ? "збiгаються" : "НЕ збiгаються") + ", знайдено " + found[0] + "):");
+        for (int method = 0; method < cost.length; method++) {
+            System.out.printf("  %s: %d наносекунд (%.0f пошукiв/с, %.2fx вiдносно бiнарного пошуку)%n", names[method],
+                    cost[method], probes.length * 1_000_000_000.0 / cost[method], (double) cost[2] / cost[method]);
+        }
+    }
+
+    /**
+     * Вимiрює операцiю з 1, 2, 4, ... i maxThreads потоками та виводить час i прискорення
+     * вiдносно одного потоку (найкращий з кiлькох запускiв пiсля розiгрiву). Порiг подiлу
+     * для кожної кiлькостi потокiв обирається так само, як у паралельному режимi.
+     * 
+     * @param reset Готує данi перед кожним запуском; не входить у вимiр.
+     */
+    static void printSpeedupCurve(String operationName, int size, int maxThreads, Consumer<ParallelOps> operation,
+            Runnable reset) {
+        final int rounds = 3;
+        System.out.println("\nПрискорення операцiї '" + operationName + "' (" + size + " елементiв, найкращий з "
+                + rounds + " запускiв):");
+        long singleThreadCost = 0;
+        for (int threads = 1; ; threads = Math.min(2 * threads, maxThreads)) {
+            long cost = Long.MAX_VALUE;
+            int threshold;
+            try (ParallelOps parallel = new ParallelOps(threads, size)) {
+                threshold = parallel.threshold;
+                // перший запуск розiгрiває JIT i пул потокiв i не рахується
+                for (int round = 0; round <= rounds; round++) {
+                    reset.run();
+                    long startTime = System.nanoTime();
+                    operation.accept(parallel);
+                    if (round > 0) {
+                        cost = Math.min(cost, System.nanoTime() - startTime);
+                    }
+                }
+            }
+            if (threads == 1) {
+                singleThreadCost = cost;
+            }
+            System.out.printf("  %3d потокiв (порiг %d): %d наносекунд, прискорення %.2fx%n", threads, threshold, cost,
+                    (double) singleThreadCost / cost);
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Порiвнює розбiр рядкiв файлу через LocalDateTime.parse i через TimestampCodec.
+     * Рядки заздалегiдь читаються в пам'ять, тому вимiрюється лише розбiр: час i
+     * кiлькiсть видiлених байтiв на рядок (найкращий з кiлькох запускiв).
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     */
+    static void compareParsers(String pathToFile) {
+        LineCollector lines = new LineCollector();
+        try (InputStream in = openDataFile(pathToFile)) {
+            forEachLine(in, lines);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        if (lines.count == 0) {
+            System.out.println("Файл '" + pathToFile + "' порожнiй.");
+            return;
+        }
+
+        final int rounds = 5;
+        DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE_TIME;
+        long[] jdkCost = {Long.MAX_VALUE, Long.MAX_VALUE};
+        long[] codecCost = {Long.MAX_VALUE, Long.MAX_VALUE};
+        long checksum = 0;
+
+        for (int round = 0; round < rounds; round++) {
+            long startBytes = allocatedBytes();
+            long startTime = System.nanoTime();
+            for (int i = 0; i < lines.count; i++) {
+                String line = new String(lines.bytes, lines.offsets[i], lines.offsets[i + 1] - lines.offsets[i], StandardCharsets.US_ASCII);
+                checksum += LocalDateTime.parse(line, formatter).getSecond();
+            }
+            jdkCost[0] = Math.min(jdkCost[0], System.nanoTime() - startTime);
+            jdkCost[1] = Math.min(jdkCost[1], allocatedBytes() - startBytes);
+
+            startBytes = allocatedBytes();
+            startTime = System.nanoTime();
+            for (int i = 0; i < lines.count; i++) {
+                checksum += TimestampCodec.decode(lines.bytes, lines.offsets[i], lines.offsets[i + 1] - lines.offsets[i]);
+            }
+            codecCost[0] = Math.min(codecCost[0], System.nanoTime() - startTime);
+            codecCost[1] = Math.min(codecCost[1], allocatedBytes() - startBytes);
+        }
+
+        int rows = lines.count;
+        System.out.println("\nПорiвняння розбору '" + pathToFile + "' (" + rows + " рядкiв, найкращий з " + rounds + " запускiв, контрольна сума " + checksum + "):");
+        System.out.printf("  LocalDateTime.parse: %.1f наносекунд/рядок, %.1f байт/рядок%n", (double) jdkCost[0] / rows, (double) jdkCost[1] / rows);
+        System.out.printf("  TimestampCodec.decode: %.1f наносекунд/рядок, %.1f байт/рядок%n", (double) codecCost[0] / rows, (double) codecCost[1] / rows);
+    }
+
+    /**
+     * Повертає кiлькiсть байтiв, видiлених поточним потоком, або 0, якщо JVM цього не пiдтримує.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Збирає байти всiх рядкiв в один масив зi змiщеннями, щоб вимiряти розбiр без читання файлу.
+     */
+    private static class LineCollector implements LineConsumer {
+        byte[] bytes = new byte[1 << 16];
+        int[] offsets = new int[1 << 12];
+        int count;
+        private int size;
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) {
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+            }
+            if (count + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            System.arraycopy(buffer, offset, bytes, size, length);
+            size += length;
+            offsets[++count] = size;
+        }
+    }
+
+    /**
+     * Вiдображає файл у пам'ять дiлянками, межi яких зсунутi до початку наступного рядка.
+     * Дiлянки мають розмiр близько {@link #MAX_MAPPED_RANGE} байт або менше.
+     */
+    private static ByteBuffer[] mapLineAlignedRanges(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        int parts = (int) Math.max(parallelism, (size + MAX_MAPPED_RANGE - 1) / MAX_MAPPED_RANGE);
+        parts = (int) Math.max(1, Math.min(parts, size / MIN_PARALLEL_RANGE));
+
+        List<ByteBuffer> ranges = new ArrayList<>(parts);
+        ByteBuffer probe = ByteBuffer.allocate(256);
+        long start = 0;
+        for (int i = 1; i <= parts && start < size; i++) {
+            long end = i == parts ? size : nextLineStart(channel, Math.max(start, size / parts * i), probe);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IOException("Дiлянка файлу з даними не вмiщується в один буфер: " + (end - start) + " байт");
+            }
+            ranges.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+            start = end;
+        }
+        return ranges.toArray(new ByteBuffer[0]);
+    }
+
+    /**
+     * Повертає позицiю першого байта пiсля символу кiнця рядка, починаючи з position.
+     */
+    private static long nextLineStart(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        long size = channel.size();
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Передає кожен непорожнiй рядок вiдображеної дiлянки обробнику. Байти рядка
+     * копiюються у невеликий буфер, який використовується повторно.
+     * 
+     * @param buffer Дiлянка файлу.
+     * @param consumer Обробник рядкiв.
+     */
+    static void forEachLine(ByteBuffer buffer, LineConsumer consumer) {
+        byte[] line = new byte[64];
+        int length = 0;
+
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (b == '\n') {
+                acceptLine(consumer, line, 0, length);
+                length = 0;
+            } else {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+        }
+
+        acceptLine(consumer, line, 0, length);
+    }
+
+    /**
+     * Задача ForkJoinPool, що дiлить набiр дiлянок навпiл до однiєї дiлянки.
+     * Без масиву результату рахує рядки дiлянок у rowOffsets[i + 1], з масивом
+     * розбирає дiлянку i в результат, починаючи з iндексу rowOffsets[i].
+     */
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer[] ranges;
+        private final int[] rowOffsets;
+        private final LocalDateTime[] result;
+        private final int from;
+        private final int to;
+
+        RangeTask(ByteBuffer[] ranges, int[] rowOffsets, LocalDateTime[] result, int from, int to) {
+            this.ranges = ranges;
+            this.rowOffsets = rowOffsets;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask(ranges, rowOffsets, result, from, middle),
+                        new RangeTask(ranges, rowOffsets, result, middle, to));
+                return;
+            }
+
+            ByteBuffer range = ranges[from].duplicate();
+            if (result == null) {
+                LineCounter counter = new LineCounter();
+                forEachLine(range, counter);
+                rowOffsets[from + 1] = counter.count;
+            } else {
+                forEachLine(range, new RangeFiller(result, rowOffsets[from]));
+            }
+        }
+    }
+
+    /**
+     * Записує розiбранi рядки дiлянки у спiльний масив, починаючи з заданого iндексу.
+     */
+    private static class RangeFiller implements LineConsumer {
+        private final LocalDateTime[] dateTimeArray;
+        private int position;
+
+        RangeFiller(LocalDateTime[] dateTimeArray, int position) {
+            this.dateTimeArray = dateTimeArray;
+            this.position = position;
+        }
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) {
+            dateTimeArray[position++] = TimestampCodec.toLocalDateTime(TimestampCodec.decode(buffer, offset, length));
+        }
+    }
+
+    /**
+     * Рахує непорожнi рядки у файлi, не створюючи для них об'єктiв.
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Кiлькiсть непорожнiх рядкiв.
+     * @throws IOException Якщо файл не вдалося прочитати.
+     */
+    static int countLines(String pathToFile) throws IOException {
+        LineCounter counter = new LineCounter();
+        try (InputStream in = openDataFile(pathToFile)) {
+            forEachLine(in, counter);
+        }
+        return counter.count;
+    }
+
+    /**
+     * Читає потiк блоками по {@link #READ_BUFFER_SIZE} байт i передає кожен непорожнiй
+     * рядок (без символiв кiнця рядка) обробнику без створення промiжних String.
+     * 
+     * @param in Вхiдний потiк.
+     * @param consumer Обробник рядкiв.
+     * @throws IOException Якщо потiк не вдалося прочитати.
+     */
+    static void forEachLine(InputStream in, LineConsumer consumer) throws IOException {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int filled = 0;
+        int read;
+
+        while ((read = in.read(buffer, filled, buffer.length - filled)) != -1) {
+            int scanFrom = filled;
+            filled += read;
+
+            int lineStart = 0;
+            for (int i = scanFrom; i < filled; i++) {
+                if (buffer[i] == '\n') {
+                    acceptLine(consumer, buffer, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+
+            // незавершений рядок переноситься на початок буфера
+            int remaining = filled - lineStart;
+            if (remaining == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            } else {
+                System.arraycopy(buffer, lineStart, buffer, 0, remaining);
+            }
+            filled = remaining;
+        }
+
+        acceptLine(consumer, buffer, 0, filled);
+    }
+
+    private static void acceptLine(LineConsumer consumer, byte[] buffer, int from, int to) {
+        if (to > from && buffer[to - 1] == '\r') {
+            to--;
+        }
+        if (to > from) {
+            consumer.accept(buffer, from, to - from);
+        }
+    }
+
+    /**
+     * Обробник рядка, заданого дiапазоном байтiв у буферi.
+     */
+    interface LineConsumer {
+        void accept(byte[] buffer, int offset, int length);
+    }
+
+    /**
+     * Лiчильник рядкiв для першого проходу по файлу.
+     */
+    private static class LineCounter implements LineConsumer {
+        int count;
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) {
+            count++;
+        }
+    }
+
+    /**
+     * Заповнює масив LocalDateTime розмiру, визначеного за кiлькiстю рядкiв у файлi.
+     * Якщо файл вирiс мiж двома проходами, масив збiльшується геометрично.
+     */
+    private static class DateTimeArrayBuilder implements LineConsumer {
+        private LocalDateTime[] dateTimeArray;
+        private int size;
+
+        DateTimeArrayBuilder(int expectedRows) {
+            dateTimeArray = new LocalDateTime[expectedRows];
+        }
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) {
+            if (size == dateTimeArray.length) {
+                dateTimeArray = Arrays.copyOf(dateTimeArray, Math.max(16, size + (size >> 1)));
+            }
+            dateTimeArray[size++] = TimestampCodec.toLocalDateTime(TimestampCodec.decode(buffer, offset, length));
+        }
+
+        LocalDateTime[] toArray() {
+            return size == dateTimeArray.length ? dateTimeArray : Arrays.copyOf(dateTimeArray, size);
+        }
+    }
+
+    /**
+     * Записує масив об'єктiв LocalDateTime у файл.
+     * 
+     * @param dateTimeArray Масив об'єктiв LocalDateTime.
+     * @param pathToFile Шлях до файлу для запису.
+     */
+    static void writeArrayToFile(LocalDateTime[] dateTimeArray, String pathToFile) {
+        writeArrayToFile(dateTimeArray, pathToFile, false);
+    }
+
+    /**
+     * Записує масив об'єктiв LocalDateTime у файл у форматi LocalDateTime.toString.
+     * 
+     * <p>Значення форматуються прямо в байти багаторазового прямого ByteBuffer без
+     * промiжних String i записуються у FileChannel блоками по {@link #WRITE_BUFFER_SIZE} байт.
+     * У паралельному режимi масив дiлиться на сегменти, для кожного заздалегiдь
+     * рахується розмiр у байтах, i сегменти записуються в ForkJoinPool позицiйними
+     * записами в свої неперетиннi дiлянки файлу. Файл з суфiксом ".gz" або ".deflate"
+     * пишеться стисненим через {@link #writeCompressedArrayToFile(LocalDateTime[], String)}.</p>
+     * 
+     * @param dateTimeArray Масив об'єктiв LocalDateTime.
+     * @param pathToFile Шлях до файлу для запису.
+     * @param parallel Чи записувати сегменти паралельно.
+     */
+    static void writeArrayToFile(LocalDateTime[] dateTimeArray, String pathToFile, boolean parallel) {
+        if (isCompressed(pathToFile)) {
+            writeCompressedArrayToFile(dateTimeArray, pathToFile);
+            return;
+        }
+
+        long startTime = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(Path.of(pathToFile), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int segments = parallel ? Math.max(1, Math.min(ForkJoinPool.commonPool().getParallelism() * 4,
+                    dateTimeArray.length / MIN_PARALLEL_SEGMENT)) : 1;
+
+            long[] segmentOffsets = new long[segments + 1];
+            if (segments > 1) {
+                ForkJoinPool.commonPool().invoke(new SegmentWriteTask(dateTimeArray, channel, segmentOffsets, false, 0, segments));
+                for (int i = 0; i < segments; i++) {
+                    segmentOffsets[i + 1] += segmentOffsets[i];
+                }
+                ForkJoinPool.commonPool().invoke(new SegmentWriteTask(dateTimeArray, channel, segmentOffsets, true, 0, segments));
+            } else {
+                segmentOffsets[1] = writeSegment(dateTimeArray, 0, dateTimeArray.length, channel, -1);
+            }
+
+            printWriteThroughput(startTime, "запис масиву дати i часу у файл", segmentOffsets[segments]);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Записує масив об'єктiв LocalDateTime у стиснений файл. Значення форматуються в
+     * багаторазовий буфер так само, як у {@link #writeArrayToFile(LocalDateTime[], String, boolean)},
+     * i блоками передаються в потiк, який стискає їх у формат за суфiксом файлу.
+     * 
+     * @param dateTimeArray Масив об'єктiв LocalDateTime.
+     * @param pathToFile Шлях до файлу для запису з суфiксом ".gz" або ".deflate".
+     */
+    static void writeCompressedArrayToFile(LocalDateTime[] dateTimeArray, String pathToFile) {
+        long startTime = System.nanoTime();
+        long bytes = 0;
+
+        try (OutputStream out = createCompressedFile(pathToFile)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            for (LocalDateTime dateTime : dateTimeArray) {
+                if (buffer.remaining() < MAX_FORMATTED_LENGTH) {
+                    out.write(buffer.array(), 0, buffer.position());
+                    bytes += buffer.position();
+                    buffer.clear();
+                }
+                formatDateTime(dateTime, buffer);
+                buffer.put(LINE_SEPARATOR);
+            }
+            out.write(buffer.array(), 0, buffer.position());
+            bytes += buffer.position();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        printWriteThroughput(startTime, "стиснений запис масиву дати i часу у файл", bytes);
+        System.out.println("Розмiр стисненого файлу: " + new File(pathToFile).length() + " байт iз " + bytes);
+    }
+
+    /**
+     * Зчитує мiтки часу з файлу у прямi буфери поза купою. Перший прохiд рахує рядки,
+     * щоб видiлити сховище точного розмiру, другий - розбирає їх прямо в буфери без
+     * жодного об'єкта на рядок.
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Сховище мiток часу у порядку рядкiв файлу.
+     */
+    static OffHeapTimestampStore readOffHeapStore(String pathToFile) {
+        long startTime = System.nanoTime();
+
+        try {
+            OffHeapTimestampStore store = OffHeapTimestampStore.allocate(countLines(pathToFile));
+            OffHeapFiller filler = new OffHeapFiller(store);
+            try (InputStream in = openDataFile(pathToFile)) {
+                forEachLine(in, filler);
+            }
+            if (filler.position != store.size()) {
+                throw new IOException("Файл '" + pathToFile + "' змiнився пiд час читання");
+            }
+            printThroughput(startTime, "читання дати i часу з файлу поза купу", store.size());
+            return store;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return OffHeapTimestampStore.allocate(0);
+        }
+    }
+
+    /**
+     * Вiдображає в пам'ять колонку кешу ".bin" як сховище поза купою. Якщо кешу немає
+     * або вiн застарiв, файл розбирається {@link #readOffHeapStore(String)}, а кеш
+     * записується для наступних запускiв. Стиснений файл завжди розбирається.
+     * 
+     * @param pathToFile Шлях до файлу з даними.
+     * @return Сховище мiток часу у порядку рядкiв файлу.
+     */
+    static OffHeapTimestampStore mapOffHeapStore(String pathToFile) {
+        if (isCompressed(pathToFile)) {
+            return readOffHeapStore(pathToFile);
+        }
+
+        long startTime = System.nanoTime();
+
+        try {
+            OffHeapTimestampStore store = TimestampSidecar.mapColumn(pathToFile);
+            if (store != null) {
+                printThroughput(startTime, "вiдображення кешу дати i часу в пам'ять", store.size());
+                return store;
+            }
+
+            Path source = Path.of(pathToFile);
+            long sourceSize = Files.size(source);
+            long sourceModified = Files.getLastModifiedTime(source).toMillis();
+
+            store = readOffHeapStore(pathToFile);
+            TimestampSidecar.write(pathToFile, sourceSize, sourceModified, store.size(), store::get);
+            return store;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return OffHeapTimestampStore.allocate(0);
+        }
+    }
+
+    /**
+     * Записує мiтки часу зi сховища поза купою у файл у форматi LocalDateTime.toString
+     * через багаторазовий прямий буфер. Файл з суфiксом ".gz" або ".deflate" пишеться стисненим.
+     * 
+     * @param store Сховище мiток часу.
+     * @param pathToFile Шлях до файлу для запису.
+     */
+    static void writeOffHeapToFile(OffHeapTimestampStore store, String pathToFile) {
+        long startTime = System.nanoTime();
+        long bytes = 0;
+
+        try (WritableByteChannel channel = isCompressed(pathToFile)
+                ? Channels.newChannel(createCompressedFile(pathToFile))
+                : FileChannel.open(Path.of(pathToFile), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            for (long i = 0; i < store.size(); i++) {
+                if (buffer.remaining() < MAX_FORMATTED_LENGTH) {
+                    bytes += flush(buffer, channel);
+                }
+                formatDateTime(TimestampCodec.toLocalDateTime(store.get(i)), buffer);
+                buffer.put(LINE_SEPARATOR);
+            }
+            bytes += flush(buffer, channel);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        printWriteThroughput(startTime, "запис дати i часу поза купою у файл", bytes);
+    }
+
+    private static long flush(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        long written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        return written;
+    }
+
+    /**
+     * Записує розiбранi рядки в сховище поза купою. Рядки, дописанi у файл пiсля
+     * пiдрахунку, пропускаються, а їх кiлькiсть все одно рахується.
+     */
+    private static class OffHeapFiller implements LineConsumer {
+        private final OffHeapTimestampStore store;
+        long position;
+
+        OffHeapFiller(OffHeapTimestampStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) {
+            if (position < store.size()) {
+                store.set(position, TimestampCodec.decode(buffer, offset, length));
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Виводить швидкiсть запису в мегабайтах за секунду.
+     * 
+     * @param startTime Час початку операцiї в наносекундах.
+     * @param operationName Назва операцiї.
+     * @param bytes Кiлькiсть записаних байтiв.
+     */
+    static void printWriteThroughput(long startTime, String operationName, long bytes) {
+        long duration = System.nanoTime() - startTime;
+        double megabytesPerSecond = duration > 0 ? bytes * 1_000_000_000.0 / duration / (1 << 20) : 0;
+        System.out.printf("%n>>>>>>>>>> Швидкiсть запису операцiї '%s': %d байт за %d наносекунд (%.1f МБ/с)%n",
+                operationName, bytes, duration, megabytesPerSecond);
+    }
+
+    /**
+     * Форматує елементи масиву з from до to i записує їх у канал.
+     * 
+     * @param position Позицiя у файлi для позицiйного запису або -1 для запису з поточної позицiї.
+     * @return Кiлькiсть записаних байтiв.
+     */
+    private static long writeSegment(LocalDateTime[] dateTimeArray, int from, int to, FileChannel channel, long position)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        long written = 0;
+
+        for (int i = from; i < to; i++) {
+            if (buffer.remaining() < MAX_FORMATTED_LENGTH) {
+                written += flush(buffer, channel, position < 0 ? -1 : position + written);
+            }
+            formatDateTime(dateTimeArray[i], buffer);
+            buffer.put(LINE_SEPARATOR);
+        }
+        return written + flush(buffer, channel, position < 0 ? -1 : position + written);
+    }
+
+    private static long flush(ByteBuffer buffer, FileChannel channel, long position) throws IOException {
+        buffer.flip();
+        long written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            if (position < 0) {
+                channel.write(buffer);
+            } else {
+                channel.write(buffer, position + written - buffer.remaining());
+            }
+        }
+        buffer.clear();
+        return written;
+    }
+
+    /**
+     * Записує дату i час у буфер так само, як LocalDateTime.toString: секунди пропускаються,
+     * якщо вони та наносекунди нульовi, а дробова частина має 3, 6 або 9 цифр.
+     */
+    static void formatDateTime(LocalDateTime dateTime, ByteBuffer buffer) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999) {
+            buffer.put(dateTime.toString().getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+
+        putDigits(buffer, year, 4);
+        buffer.put((byte) '-');
+        putDigits(buffer, dateTime.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        putDigits(buffer, dateTime.getDayOfMonth(), 2);
+        buffer.put((byte) 'T');
+        putDigits(buffer, dateTime.getHour(), 2);
+        buffer.put((byte) ':');
+        putDigits(buffer, dateTime.getMinute(), 2);
+
+        int second = dateTime.getSecond();
+        int nano = dateTime.getNano();
+        if (second > 0 || nano > 0) {
+            buffer.put((byte) ':');
+            putDigits(buffer, second, 2);
+            if (nano > 0) {
+                buffer.put((byte) '.');
+                if (nano % 1_000_000 == 0) {
+                    putDigits(buffer, nano / 1_000_000, 3);
+                } else if (nano % 1_000 == 0) {
+                    putDigits(buffer, nano / 1_000, 6);
+                } else {
+                    putDigits(buffer, nano, 9);
+                }
+            }
+        }
+    }
+
+    /**
+     * Повертає кiлькiсть байтiв, яку {@link #formatDateTime(LocalDateTime, ByteBuffer)} запише для значення.
+     */
+    static int formattedLength(LocalDateTime dateTime) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999) {
+            return dateTime.toString().length();
+        }
+        int nano = dateTime.getNano();
+        if (nano > 0) {
+            return nano % 1_000_000 == 0 ? 23 : nano % 1_000 == 0 ? 26 : 29;
+        }
+        return dateTime.getSecond() > 0 ? 19 : 16;
+    }
+
+    private static void putDigits(ByteBuffer buffer, int value, int count) {
+        for (int shift = count - 1; shift >= 0; shift--) {
+            buffer.put(buffer.position() + shift, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(buffer.position() + count);
+    }
+
+    /**
+     * Задача ForkJoinPool для паралельного запису сегментiв масиву. Без запису рахує
+     * розмiр сегмента i в байтах у segmentOffsets[i + 1], iз записом форматує сегмент i
+     * у файл, починаючи з позицiї segmentOffsets[i].
+     */
+    private static class SegmentWriteTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final LocalDateTime[] dateTimeArray;
+        private final FileChannel channel;
+        private final long[] segmentOffsets;
+        private final boolean write;
+        private final int from;
+        private final int to;
+
+        SegmentWriteTask(LocalDateTime[] dateTimeArray, FileChannel channel, long[] segmentOffsets, boolean write, int from, int to) {
+            this.dateTimeArray = dateTimeArray;
+            this.channel = channel;
+            this.segmentOffsets = segmentOffsets;
+            this.write = write;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SegmentWriteTask(dateTimeArray, channel, segmentOffsets, write, from, middle),
+                        new SegmentWriteTask(dateTimeArray, channel, segmentOffsets, write, middle, to));
+                return;
+            }
+
+            int segments = segmentOffsets.length - 1;
+            int start = (int) ((long) dateTimeArray.length * from / segments);
+            int end = (int) ((long) dateTimeArray.length * (from + 1) / segments);
+            if (!write) {
+                long length = 0;
+                for (int i = start; i < end; i++) {
+                    length += formattedLength(dateTimeArray[i]) + LINE_SEPARATOR.length;
+                }
+                segmentOffsets[from + 1] = length;
+                return;
+            }
+
+            try {
+                writeSegment(dateTimeArray, start, end, channel, segmentOffsets[from]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Заповнює масив упакованих мiток часу так само, як DateTimeArrayBuilder заповнює масив LocalDateTime.
+     */
+    private static class EpochNanosBuilder implements LineConsumer {
+        private long[] column;
+        private int size;
+
+        EpochNanosBuilder(int expectedRows) {
+            column = new long[expectedRows];
+        }
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) {
+            if (size == column.length) {
+                column = Arrays.copyOf(column, Math.max(16, size + (size >> 1)));
+            }
+            column[size++] = TimestampCodec.decode(buffer, offset, length);
+        }
+
+        long[] toArray() {
+            return size == column.length ? column : Arrays.copyOf(column, size);
+        }
+    }
+}
+
+/**
+ * Клас InflatingInputStream розпаковує стиснений потiк в окремому потоцi виконання,
+ * щоб розбiр рядкiв iшов одночасно з розпаковуванням.
+ * 
+ * <p>Фоновий потiк читає розпакованi данi блоками по {@value #CHUNK_SIZE} байт у
+ * обмежену чергу, а читач забирає їх звiдти i повертає порожнi блоки назад. Тому
+ * в пам'ятi одночасно не бiльше {@value #CHUNKS} блокiв, i новi не видiляються.</p>
+ */
+class InflatingInputStream extends InputStream {
+    static final int INFLATER_BUFFER_SIZE = 1 << 18;
+    static final int CHUNK_SIZE = 1 << 20;
+    static final int CHUNKS = 4;
+
+    private static final Chunk END = new Chunk(0);
+
+    private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(CHUNKS + 1);
+    private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(CHUNKS);
+    private final Thread inflater;
+    private volatile IOException failure;
+    private Chunk current;
+    private int position;
+
+    /**
+     * @param source Потiк, що розпаковує данi (GZIPInputStream або InflaterInputStream).
+     */
+    InflatingInputStream(InputStream source) {
+        for (int i = 0; i < CHUNKS; i++) {
+            free.add(new Chunk(CHUNK_SIZE));
+        }
+        inflater = new Thread(() -> inflate(source), "inflater");
+        inflater.setDaemon(true);
+        inflater.start();
+    }
+
+    private void inflate(InputStream source) {
+        try (InputStream in = source) {
+            while (true) {
+                Chunk chunk = free.take();
+                chunk.length = in.readNBytes(chunk.data, 0, chunk.data.length);
+                if (chunk.length > 0) {
+                    filled.put(chunk);
+                }
+                if (chunk.length < chunk.data.length) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return;
+        }
+        filled.add(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (current == null || (current != END && position == current.length)) {
+            if (current != null) {
+                free.add(current);
+            }
+            try {
+                current = filled.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Розпаковування перервано");
+            }
+            position = 0;
+        }
+        if (current == END) {
+            if (failure != null) {
+                throw failure;
+            }
+            return -1;
+        }
+
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current.data, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.interrupt();
+        try {
+            inflater.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Блок розпакованих даних.
+     */
+    private static class Chunk {
+        final byte[] data;
+        int length;
+
+        Chunk(int size) {
+            data = new byte[size];
+        }
+    }
+}
+
+/**
+ * Клас StatisticsArray - обгортка масиву, яка пiдтримує кiлькiсть елементiв, мiнiмум,
+ * максимум i ознаку вiдсортованостi при кожнiй змiнi.
+ * 
+ * <p>Статистика рахується одним проходом при створеннi, а далi оновлюється за O(1):
+ * set() порiвнює нове значення з мiнiмумом, максимумом i сусiдами, sort() бере мiнiмум
+ * i максимум з країв. Лише перезапис самого мiнiмуму чи максимуму бiльшим або меншим
+ * значенням робить статистику застарiлою, i вона перераховується при наступному запитi.</p>
+ */
+class StatisticsArray<T extends Comparable<? super T>> {
+    private final T[] values;
+    private T min;
+    private T max;
+    private boolean sorted;
+    private boolean stale;
+
+    /**
+     * @param values Масив; використовується без копiювання.
+     */
+    StatisticsArray(T[] values) {
+        this.values = values;
+        recompute();
+    }
+
+    /**
+     * Рахує статистику масиву задачами ForkJoinPool.
+     * 
+     * @param values Масив; використовується без копiювання.
+     */
+    StatisticsArray(T[] values, ParallelOps parallel) {
+        this.values = values;
+        ParallelOps.Summary<T> summary = parallel.summarize(values);
+        min = summary.min;
+        max = summary.max;
+        sorted = summary.sorted;
+    }
+
+    private void recompute() {
+        sorted = true;
+        min = values.length > 0 ? values[0] : null;
+        max = min;
+        for (int i = 1; i < values.length; i++) {
+            T value = values[i];
+            sorted &= values[i - 1].compareTo(value) <= 0;
+            if (value.compareTo(min) < 0) {
+                min = value;
+            }
+            if (value.compareTo(max) > 0) {
+                max = value;
+            }
+        }
+        stale = false;
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    T get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Замiнює елемент i оновлює статистику.
+     * 
+     * @return Попереднє значення.
+     */
+    T set(int index, T value) {
+        T previous = values[index];
+        values[index] = Objects.requireNonNull(value);
+
+        if (sorted) {
+            sorted = (index == 0 || values[index - 1].compareTo(value) <= 0)
+                    && (index == values.length - 1 || value.compareTo(values[index + 1]) <= 0);
+        }
+        if (!stale) {
+            if (value.compareTo(min) <= 0) {
+                min = value;
+            } else if (previous.compareTo(min) == 0) {
+                stale = true;
+            }
+            if (value.compareTo(max) >= 0) {
+                max = value;
+            } else if (previous.compareTo(max) == 0) {
+                stale = true;
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * Сортує масив. Повторне сортування вже вiдсортованого масиву нiчого не робить.
+     */
+    void sort() {
+        sort(Arrays::sort);
+    }
+
+    /**
+     * Сортує масив заданим алгоритмом, який має впорядкувати його за compareTo.
+     */
+    void sort(Consumer<? super T[]> sorter) {
+        if (sorted) {
+            return;
+        }
+        sorter.accept(values);
+        sorted = true;
+        if (values.length > 0) {
+            min = values[0];
+            max = values[values.length - 1];
+            stale = false;
+        }
+    }
+
+    boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Шукає значення так само, як Arrays.binarySearch; результат має сенс лише для
+     * вiдсортованого масиву.
+     */
+    int binarySearch(T key) {
+        return Arrays.binarySearch(values, key);
+    }
+
+    /**
+     * Повертає найменший елемент за O(1), якщо статистика не застарiла.
+     * 
+     * @throws NoSuchElementException Якщо масив порожнiй.
+     */
+    T min() {
+        ensureStatistics();
+        return min;
+    }
+
+    /**
+     * Повертає найбiльший елемент за O(1), якщо статистика не застарiла.
+     * 
+     * @throws NoSuchElementException Якщо масив порожнiй.
+     */
+    T max() {
+        ensureStatistics();
+        return max;
+    }
+
+    private void ensureStatistics() {
+        if (values.length == 0) {
+            throw new NoSuchElementException();
+        }
+        if (stale) {
+            recompute();
+        }
+    }
+
+    /**
+     * Повертає масив для читання без копiювання; змiнювати його слiд лише через set() i sort().
+     */
+    T[] array() {
+        return values;
+    }
+}
+
+/**
+ * Клас BlockedBloomFilter - блоковий фiльтр Блума для упакованих мiток часу.
+ * 
+ * <p>Бiти дiляться на блоки по {@value #BLOCK_BITS} (8 значень long, один рядок кешу).
+ * Ключ потрапляє в один блок i встановлює в ньому k бiтiв, тому перевiрка читає один
+ * рядок кешу замiсть k випадкових. Вiдповiдь "немає" завжди точна, а "можливо є"
+ * хибна з iмовiрнiстю, близькою до заданої.</p>
+ * 
+ * <p>Для n ключiв i частки хибних спрацювань p звичайний фiльтр потребує
+ * m = -n ln p / (ln 2)^2 бiт i k = (m / n) ln 2 хешiв. Блоки заповнюються нерiвномiрно,
+ * тому m збiльшується на {@value #BLOCK_OVERHEAD_PERCENT}%.</p>
+ */
+class BlockedBloomFilter {
+    static final double DEFAULT_FPP = 0.01;
+    private static final int BLOCK_WORDS = 8;
+    private static final int BLOCK_BITS = BLOCK_WORDS * Long.SIZE;
+    private static final int BLOCK_OVERHEAD_PERCENT = 20;
+    private static final int MAX_BLOCKS = (Integer.MAX_VALUE - 8) / BLOCK_WORDS;
+
+    private final long[] words;
+    private final int blocks;
+    private final int hashes;
+    private final double fpp;
+    private long keyCount;
+
+    /**
+     * @param expectedKeys Очiкувана кiлькiсть ключiв.
+     * @param fpp Бажана частка хибних спрацювань, мiж 0 i 1.
+     */
+    BlockedBloomFilter(long expectedKeys, double fpp) {
+        if (!(fpp > 0 && fpp < 1)) {
+            throw new RuntimeException("Частка хибних спрацювань фiльтра Блума має бути мiж 0 i 1: " + fpp);
+        }
+        double bitsPerKey = -Math.log(fpp) / (Math.log(2) * Math.log(2));
+        double bits = Math.max(1, expectedKeys) * bitsPerKey * (100 + BLOCK_OVERHEAD_PERCENT) / 100;
+        this.blocks = (int) Math.min(MAX_BLOCKS, Math.max(1, Math.ceil(bits / BLOCK_BITS)));
+        this.hashes = (int) Math.max(1, Math.min(16, Math.round(bitsPerKey * Math.log(2))));
+        this.words = new long[blocks * BLOCK_WORDS];
+        this.fpp = fpp;
+    }
+
+    void add(long key) {
+        long hash = mix(key);
+        int base = block(hash) * BLOCK_WORDS;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            words[base + (bit >>> 6)] |= 1L << bit;
+        }
+        keyCount++;
+    }
+
+    /**
+     * Перевiряє ключ.
+     * 
+     * @return false, якщо ключа напевно немає; true, якщо вiн, можливо, є.
+     */
+    boolean mightContain(long key) {
+        long hash = mix(key);
+        int base = block(hash) * BLOCK_WORDS;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (h1 + i * h2) & (BLOCK_BITS - 1);
+            if ((words[base + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Вибирає блок за старшими бiтами другого перемiшування, щоб вони не залежали вiд
+     * бiтiв, якi задають позицiї в блоцi.
+     */
+    private int block(long hash) {
+        return (int) (((mix(hash) >>> 32) * blocks) >>> 32);
+    }
+
+    /**
+     * Завершальне перемiшування SplitMix64: сусiднi мiтки часу дають незалежнi хешi.
+     */
+    private static long mix(long key) {
+        long z = key + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    long keyCount() {
+        return keyCount;
+    }
+
+    long bitCount() {
+        return (long) words.length * Long.SIZE;
+    }
+
+    int hashCount() {
+        return hashes;
+    }
+
+    double targetFpp() {
+        return fpp;
+    }
+
+    long heapBytes() {
+        return 16 + 8L * words.length;
+    }
+
+    /**
+     * Оцiнює частку хибних спрацювань для доданих ключiв за формулою звичайного фiльтра.
+     */
+    double expectedFpp() {
+        return Math.pow(1 - Math.exp(-(double) hashes * keyCount / bitCount()), hashes);
+    }
+}
+
+/**
+ * Клас ParallelOps виконує сортування i пошук мiнiмуму та максимуму задачами ForkJoinPool.
+ * 
+ * <p>Кiлькiсть потокiв i порiг подiлу вибираються за розмiром даних: на потiк припадає
+ * щонайменше {@value #MIN_ELEMENTS_PER_THREAD} елементiв, а дiапазон дiлиться, поки на
+ * потiк не припаде близько {@value #TASKS_PER_THREAD} задач, але не дрiбнiше за
+ * {@value #MIN_THRESHOLD} елементiв. З одним потоком усе виконується послiдовно в
+ * потоцi, що викликає.</p>
+ * 
+ * <p>Сортування - стiйке злиття: частини сортуються Arrays.sort, а злиття теж
+ * паралельне - бiльша з двох серiй дiлиться навпiл, а межа в iншiй знаходиться бiнарним
+ * пошуком, тому останнє злиття не виконується одним потоком.</p>
+ */
+class ParallelOps implements AutoCloseable {
+    static final int MIN_ELEMENTS_PER_THREAD = 1 << 15;
+    static final int MIN_THRESHOLD = 1 << 13;
+    static final int TASKS_PER_THREAD = 4;
+
+    final int threads;
+    final int threshold;
+    private ForkJoinPool pool;
+
+    /**
+     * @param threads Кiлькiсть потокiв.
+     * @param size Кiлькiсть елементiв, для якої обирається порiг подiлу.
+     */
+    ParallelOps(int threads, int size) {
+        this.threads = Math.max(1, threads);
+        this.threshold = this.threads == 1 ? Math.max(1, size)
+                : Math.max(MIN_THRESHOLD, size / (this.threads * TASKS_PER_THREAD));
+    }
+
+    /**
+     * Обирає кiлькiсть потокiв для size елементiв, не бiльшу за maxThreads.
+     */
+    static ParallelOps forSize(int size, int maxThreads) {
+        return new ParallelOps(Math.min(maxThreads, Math.max(1, size / MIN_ELEMENTS_PER_THREAD)), size);
+    }
+
+    /**
+     * Виконує задачу в пулi з {@link #threads} потокiв; пул створюється при першому виклику.
+     */
+    <T> T invoke(ForkJoinTask<T> task) {
+        if (threads == 1) {
+            return task.invoke();
+        }
+        if (pool == null) {
+            pool = threads == ForkJoinPool.getCommonPoolParallelism() ? ForkJoinPool.commonPool() : new ForkJoinPool(threads);
+        }
+        return pool.invoke(task);
+    }
+
+    /**
+     * Зупиняє власний пул потокiв; спiльний пул не зупиняється.
+     */
+    @Override
+    public void close() {
+        if (pool != null && pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Сортує масив стiйким паралельним злиттям.
+     */
+    <T extends Comparable<? super T>> void sort(T[] values) {
+        T[] buffer = Arrays.copyOf(values, values.length);
+        invoke(new MergeSortTask<>(values, buffer, 0, values.length, false, threshold));
+    }
+
+    /**
+     * Знаходить мiнiмум, максимум i ознаку вiдсортованостi масиву.
+     */
+    <T extends Comparable<? super T>> Summary<T> summarize(T[] values) {
+        return invoke(new SummaryTask<>(values, 0, values.length, threshold));
+    }
+
+    /**
+     * Мiнiмум, максимум i ознака вiдсортованостi дiапазону; для порожнього дiапазону
+     * мiнiмум i максимум дорiвнюють null.
+     */
+    static final class Summary<T> {
+        final T min;
+        final T max;
+        final boolean sorted;
+
+        Summary(T min, T max, boolean sorted) {
+            this.min = min;
+            this.max = max;
+            this.sorted = sorted;
+        }
+    }
+
+    private static final class SummaryTask<T extends Comparable<? super T>> extends RecursiveTask<Summary<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final T[] values;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        SummaryTask(T[] values, int from, int to, int threshold) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Summary<T> compute() {
+            if (to - from <= threshold) {
+                if (from == to) {
+                    return new Summary<>(null, null, true);
+                }
+                T min = values[from];
+                T max = min;
+                boolean sorted = true;
+                for (int i = from + 1; i < to; i++) {
+                    T value = values[i];
+                    sorted &= values[i - 1].compareTo(value) <= 0;
+                    if (value.compareTo(min) < 0) {
+                        min = value;
+                    }
+                    if (value.compareTo(max) > 0) {
+                        max = value;
+                    }
+                }
+                return new Summary<>(min, max, sorted);
+            }
+
+            int middle = (from + to) >>> 1;
+            SummaryTask<T> left = new SummaryTask<>(values, from, middle, threshold);
+            left.fork();
+            Summary<T> right = new SummaryTask<>(values, middle, to, threshold).compute();
+            Summary<T> leftSummary = left.join();
+            return new Summary<>(right.min.compareTo(leftSummary.min) < 0 ? right.min : leftSummary.min,
+                    right.max.compareTo(leftSummary.max) > 0 ? right.max : leftSummary.max,
+                    leftSummary.sorted && right.sorted && values[middle - 1].compareTo(values[middle]) <= 0);
+        }
+    }
+
+    /**
+     * Сортує values[from, to) i кладе результат у buffer, якщо intoBuffer, або у values.
+     * Пiддiапазони сортуються в протилежний масив, тому злиття не потребує копiювання.
+     */
+    private static final class MergeSortTask<T extends Comparable<? super T>> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final T[] values;
+        private final T[] buffer;
+        private final int from;
+        private final int to;
+        private final boolean intoBuffer;
+        private final int threshold;
+
+        MergeSortTask(T[] values, T[] buffer, int from, int to, boolean intoBuffer, int threshold) {
+            this.values = values;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.intoBuffer = intoBuffer;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                Arrays.sort(values, from, to);
+                if (intoBuffer) {
+                    System.arraycopy(values, from, buffer, from, to - from);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new MergeSortTask<>(values, buffer, from, middle, !intoBuffer, threshold),
+                    new MergeSortTask<>(values, buffer, middle, to, !intoBuffer, threshold));
+            T[] source = intoBuffer ? values : buffer;
+            T[] target = intoBuffer ? buffer : values;
+            new MergeTask<>(source, from, middle, middle, to, target, from, threshold).compute();
+        }
+    }
+
+    /**
+     * Зливає серiї source[leftFrom, leftTo) i source[rightFrom, rightTo) у target з позицiї
+     * targetFrom. При рiвностi елемент лiвої серiї йде першим.
+     */
+    private static final class MergeTask<T extends Comparable<? super T>> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final T[] source;
+        private final int leftFrom;
+        private final int leftTo;
+        private final int rightFrom;
+        private final int rightTo;
+        private final T[] target;
+        private final int targetFrom;
+        private final int threshold;
+
+        MergeTask(T[] source, int leftFrom, int leftTo, int rightFrom, int rightTo, T[] target, int targetFrom, int threshold) {
+            this.source = source;
+            this.leftFrom = leftFrom;
+            this.leftTo = leftTo;
+            this.rightFrom = rightFrom;
+            this.rightTo = rightTo;
+            this.target = target;
+            this.targetFrom = targetFrom;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int leftLength = leftTo - leftFrom;
+            int rightLength = rightTo - rightFrom;
+            if (leftLength + rightLength <= threshold) {
+                int left = leftFrom;
+                int right = rightFrom;
+                for (int i = targetFrom; i < targetFrom + leftLength + rightLength; i++) {
+                    if (right >= rightTo || left < leftTo && source[left].compareTo(source[right]) <= 0) {
+                        target[i] = source[left++];
+                    } else {
+                        target[i] = source[right++];
+                    }
+                }
+                return;
+            }
+
+            int leftMiddle;
+            int rightMiddle;
+            if (leftLength >= rightLength) {
+                leftMiddle = (leftFrom + leftTo) >>> 1;
+                rightMiddle = bound(source, rightFrom, rightTo, source[leftMiddle], false);
+            } else {
+                rightMiddle = (rightFrom + rightTo) >>> 1;
+                leftMiddle = bound(source, leftFrom, leftTo, source[rightMiddle], true);
+            }
+            int targetMiddle = targetFrom + (leftMiddle - leftFrom) + (rightMiddle - rightFrom);
+            invokeAll(new MergeTask<>(source, leftFrom, leftMiddle, rightFrom, rightMiddle, target, targetFrom, threshold),
+                    new MergeTask<>(source, leftMiddle, leftTo, rightMiddle, rightTo, target, targetMiddle, threshold));
+        }
+
+        /**
+         * Повертає першу позицiю в [from, to), де елемент бiльший за key (upper), або не
+         * менший за key.
+         */
+        private static <T extends Comparable<? super T>> int bound(T[] values, int from, int to, T key, boolean upper) {
+            int low = from;
+            int high = to;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int comparison = values[middle].compareTo(key);
+                if (comparison < 0 || upper && comparison == 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
+
+/**
+ * Клас BatchLookup вiдповiдає на пакет вiдсортованих запитiв за один прохiд по вiдсортованих
+ * ключах масиву. Позицiя в масивi лише зростає вiд запиту до запиту, тому щiльний пакет
+ * зливається з масивом лiнiйно, а розрiджений шукається галопом: вiд попередньої позицiї
+ * крок подвоюється, доки не перескочить запит, i лише цей вiдрiзок шукається бiнарно.
+ * Галоп коштує O(m log(n / m)) порiвнянь на m запитiв замiсть O(n + m) злиття.
+ */
+class BatchLookup {
+    /** Вiдношення кiлькостi ключiв до кiлькостi запитiв, з якого пакет вважається розрiдженим. */
+    static final int GALLOP_RATIO = 8;
+
+    private BatchLookup() {
+    }
+
+    static boolean isSparse(int keys, int probes) {
+        return (long) probes * GALLOP_RATIO < keys;
+    }
+
+    /**
+     * Шукає вiдсортованi запити у вiдсортованих ключах злиттям або галопом, залежно вiд щiльностi пакета.
+     * 
+     * @return Для кожного запиту iндекс першого рiвного ключа або (-(точка вставки) - 1), як у Arrays.binarySearch.
+     */
+    static int[] lookup(long[] keys, long[] sortedProbes) {
+        return isSparse(keys.length, sortedProbes.length) ? gallop(keys, sortedProbes) : merge(keys, sortedProbes);
+    }
+
+    static int[] merge(long[] keys, long[] sortedProbes) {
+        int[] results = new int[sortedProbes.length];
+        int position = 0;
+        for (int i = 0; i < sortedProbes.length; i++) {
+            long probe = sortedProbes[i];
+            while (position < keys.length && keys[position] < probe) {
+                position++;
+            }
+            results[i] = result(keys, position, probe);
+        }
+        return results;
+    }
+
+    static int[] gallop(long[] keys, long[] sortedProbes) {
+        int[] results = new int[sortedProbes.length];
+        int position = 0;
+        for (int i = 0; i < sortedProbes.length; i++) {
+            long probe = sortedProbes[i];
+            position = gallopLowerBound(keys, position, probe);
+            results[i] = result(keys, position, probe);
+        }
+        return results;
+    }
+
+    /**
+     * Шукає перший ключ, не менший за key, починаючи з from, де всi ключi до from меншi за key.
+     */
+    private static int gallopLowerBound(long[] keys, int from, long key) {
+        if (from >= keys.length || keys[from] >= key) {
+            return from;
+        }
+        // keys[low] < key, а keys[high] >= key або high - кiнець масиву
+        int low = from;
+        int step = 1;
+        int high = from + 1;
+        while (high < keys.length && keys[high] < key) {
+            low = high;
+            step <<= 1;
+            high = (int) Math.min((long) low + step, keys.length);
+        }
+        low++;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int result(long[] keys, int position, long probe) {
+        return position < keys.length && keys[position] == probe ? position : -position - 1;
+    }
+}
+
+/**
+ * Клас LongOpenHashSet - множина значень long з вiдкритою адресацiєю та лiнiйним
+ * зондуванням, аналог HashSet&lt;Long&gt; без вузлiв i обгорток.
+ *
+ * <p>Ключi зберiгаються в одному масивi long, нуль позначає порожню комiрку, тому
+ * наявнiсть ключа 0 зберiгається окремим прапорцем. Iндекс комiрки - старшi бiти
+ * добутку ключа на 64-бiтну золоту пропорцiю (хешування Фiбоначчi).</p>
+ *
+ * <p>Множина лише додає ключi, тому мiнiмум i максимум оновлюються в add() i
+ * повертаються за O(1).</p>
+ */
+class LongOpenHashSet {
+    private static final float MAX_LOAD_FACTOR = 0.5f;
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private long[] keys;
+    private int shift;
+    private int size;
+    private boolean containsZero;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    LongOpenHashSet(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            updateBounds(key);
+            return true;
+        }
+
+        int mask = keys.length - 1;
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == 0) {
+                keys[slot] = key;
+                updateBounds(key);
+                if (++size > keys.length * MAX_LOAD_FACTOR) {
+                    rehash(keys.length * 2);
+                }
+                return true;
+            }
+            if (current == key) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Будує множину паралельно: задачi ForkJoinPool вставляють свої частини ключiв у
+     * спiльну таблицю через compareAndSet. Таблиця одразу розрахована на size ключiв, тому
+     * перехешування не потрiбне, а зайнятий слот бiльше не змiнюється.
+     * 
+     * @param size Кiлькiсть ключiв.
+     * @param keys Ключ за його номером вiд 0 до size.
+     */
+    static LongOpenHashSet build(int size, IntToLongFunction keys, ParallelOps parallel) {
+        LongOpenHashSet set = new LongOpenHashSet(size);
+        long[] result = parallel.invoke(new BuildTask(set, keys, 0, size, parallel.threshold));
+        set.containsZero = result[3] != 0;
+        set.size = (int) result[0] + (set.containsZero ? 1 : 0);
+        set.min = result[1];
+        set.max = result[2];
+        return set;
+    }
+
+    /**
+     * Задача паралельної побудови; повертає кiлькiсть вставлених ненульових ключiв,
+     * мiнiмум, максимум i ознаку нульового ключа.
+     */
+    private static final class BuildTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final LongOpenHashSet set;
+        private final IntToLongFunction keys;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        BuildTask(LongOpenHashSet set, IntToLongFunction keys, int from, int to, int threshold) {
+            this.set = set;
+            this.keys = keys;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                BuildTask left = new BuildTask(set, keys, from, middle, threshold);
+                left.fork();
+                long[] right = new BuildTask(set, keys, middle, to, threshold).compute();
+                long[] result = left.join();
+                return new long[] {result[0] + right[0], Math.min(result[1], right[1]), Math.max(result[2], right[2]),
+                        result[3] | right[3]};
+            }
+
+            long[] table = set.keys;
+            int mask = table.length - 1;
+            long added = 0;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            long zero = 0;
+            for (int i = from; i < to; i++) {
+                long key = keys.applyAsLong(i);
+                min = Math.min(min, key);
+                max = Math.max(max, key);
+                if (key == 0) {
+                    zero = 1;
+                    continue;
+                }
+                for (int slot = set.slot(key); ; slot = (slot + 1) & mask) {
+                    long current = table[slot];
+                    if (current == 0) {
+                        if (KEYS.compareAndSet(table, slot, 0L, key)) {
+                            added++;
+                            break;
+                        }
+                        current = (long) KEYS.getVolatile(table, slot);
+                    }
+                    if (current == key) {
+                        break;
+                    }
+                }
+            }
+            return new long[] {added, min, max, zero};
+        }
+    }
+
+    boolean contains(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+
+        int mask = keys.length - 1;
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return true;
+            }
+            if (current == 0) {
+                return false;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long min() {
+        return min;
+    }
+
+    long max() {
+        return max;
+    }
+
+    private void updateBounds(long key) {
+        min = Math.min(min, key);
+        max = Math.max(max, key);
+    }
+
+    private int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (long key : oldKeys) {
+            if (key != 0) {
+                int slot = slot(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long capacity = Math.max(2, (long) Math.ceil(expectedSize / MAX_LOAD_FACTOR) + 1);
+        return (int) Math.min(1 << 30, Long.highestOneBit(capacity - 1) << 1);
+    }
+}
+
+/**
+ * Клас OffHeapTimestampStore зберiгає упакованi мiтки часу поза купою Java: у прямих
+ * буферах або у вiдображеному в пам'ять файлi кешу ".bin".
+ * 
+ * <p>Данi дiляться на сегменти по 2^{@value #SEGMENT_SHIFT} значень (1 ГiБ), тому
+ * кiлькiсть елементiв не обмежена розмiром одного ByteBuffer, а iндекси мають тип long.
+ * Збирач смiття бачить лише кiлька об'єктiв-буферiв, хоч би скiльки було даних.</p>
+ * 
+ * <p>Сортування - introsort на мiсцi (швидке сортування з трьома частинами, сортування
+ * вставками для коротких дiлянок i пiрамiдальне, якщо рекурсiя заглиблюється), тож
+ * додаткова пам'ять не потрiбна.</p>
+ * 
+ * <p>Вiдображення файлу - лише для читання, тому його сторiнки спiльнi з кешем сторiнок
+ * ОС. Перед першою змiною (сортуванням чи set) сегменти копiюються в прямi буфери, i
+ * сховище далi займає size * 8 байт поза купою, як i видiлене {@link #allocate(long)}.
+ * Уже вiдсортований кеш так i залишається вiдображеним.</p>
+ */
+class OffHeapTimestampStore {
+    static final int SEGMENT_SHIFT = 27;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    private static final int INSERTION_SORT_THRESHOLD = 24;
+
+    private final LongBuffer[] segments;
+    private final long size;
+    private boolean mapped;
+    private boolean sorted;
+
+    private OffHeapTimestampStore(LongBuffer[] segments, long size, boolean mapped, boolean sorted) {
+        this.segments = segments;
+        this.size = size;
+        this.mapped = mapped;
+        this.sorted = sorted;
+    }
+
+    /**
+     * Видiляє сховище в прямих буферах.
+     * 
+     * @param size Кiлькiсть елементiв.
+     * @return Сховище, заповнене нулями.
+     */
+    static OffHeapTimestampStore allocate(long size) {
+        LongBuffer[] segments = new LongBuffer[segmentCount(size)];
+        for (int i = 0; i < segments.length; i++) {
+            int length = (int) Math.min(1L << SEGMENT_SHIFT, size - ((long) i << SEGMENT_SHIFT));
+            segments[i] = ByteBuffer.allocateDirect(length * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+        return new OffHeapTimestampStore(segments, size, false, false);
+    }
+
+    /**
+     * Вiдображає в пам'ять лише для читання дiлянку файлу з упакованими значеннями у
+     * форматi big-endian. Змiна сховища спершу копiює його в прямi буфери, тож файл не змiнюється.
+     * 
+     * @param channel Канал, вiдкритий для читання.
+     * @param offset Початок значень у файлi.
+     * @param size Кiлькiсть значень.
+     * @param sorted Чи значення вже вiдсортованi.
+     * @return Сховище над файлом.
+     * @throws IOException Якщо файл не вдалося вiдобразити.
+     */
+    static OffHeapTimestampStore map(FileChannel channel, long offset, long size, boolean sorted) throws IOException {
+        LongBuffer[] segments = new LongBuffer[segmentCount(size)];
+        for (int i = 0; i < segments.length; i++) {
+            long first = (long) i << SEGMENT_SHIFT;
+            long length = Math.min(1L << SEGMENT_SHIFT, size - first);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + first * Long.BYTES, length * Long.BYTES).asLongBuffer();
+        }
+        return new OffHeapTimestampStore(segments, size, true, sorted);
+    }
+
+    /**
+     * Замiнює вiдображенi сегменти їх копiями в прямих буферах з рiдним порядком байтiв.
+     */
+    private void copyToDirect() {
+        for (int i = 0; i < segments.length; i++) {
+            LongBuffer copy = ByteBuffer.allocateDirect(segments[i].capacity() * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+            copy.put(segments[i].duplicate());
+            segments[i] = copy;
+        }
+        mapped = false;
+    }
+
+    private static int segmentCount(long size) {
+        return (int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+    }
+
+    long size() {
+        return size;
+    }
+
+    boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * Повертає кiлькiсть байтiв поза купою, якi займають значення.
+     */
+    long offHeapBytes() {
+        return size * Long.BYTES;
+    }
+
+    long get(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+    }
+
+    void set(long index, long value) {
+        if (mapped) {
+            copyToDirect();
+        }
+        segments[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK), value);
+        sorted = false;
+    }
+
+    /**
+     * Сортує сховище на мiсцi; вiдображене сховище спершу копiюється в прямi буфери.
+     * Повторне сортування вже вiдсортованого сховища нiчого не робить.
+     */
+    void sort() {
+        if (!sorted) {
+            if (mapped) {
+                copyToDirect();
+            }
+            int depthLimit = 2 * (64 - Long.numberOfLeadingZeros(Math.max(1, size)));
+            quickSort(0, size, depthLimit);
+            sorted = true;
+        }
+    }
+
+    private void quickSort(long from, long to, int depthLimit) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSort(from, to);
+                return;
+            }
+
+            long pivot = medianOfThree(get(from), get((from + to) >>> 1), get(to - 1));
+            long less = from;
+            long greater = to - 1;
+            long i = from;
+            while (i <= greater) {
+                long value = get(i);
+                if (value < pivot) {
+                    swap(less++, i++);
+                } else if (value > pivot) {
+                    swap(i, greater--);
+                } else {
+                    i++;
+                }
+            }
+
+            // рекурсiя лише для меншої частини, щоб глибина стеку була логарифмiчною
+            if (less - from < to - greater - 1) {
+                quickSort(from, less, depthLimit);
+                from = greater + 1;
+            } else {
+                quickSort(greater + 1, to, depthLimit);
+                to = less;
+            }
+        }
+        insertionSort(from, to);
+    }
+
+    private static long medianOfThree(long a, long b, long c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private void insertionSort(long from, long to) {
+        for (long i = from + 1; i < to; i++) {
+            long value = get(i);
+            long j = i - 1;
+            while (j >= from && get(j) > value) {
+                put(j + 1, get(j));
+                j--;
+            }
+            put(j + 1, value);
+        }
+    }
+
+    private void heapSort(long from, long to) {
+        long length = to - from;
+        for (long i = length / 2 - 1; i >= 0; i--) {
+            siftDown(from, i, length);
+        }
+        for (long end = length - 1; end > 0; end--) {
+            swap(from, from + end);
+            siftDown(from, 0, end);
+        }
+    }
+
+    private void siftDown(long base, long index, long length) {
+        long value = get(base + index);
+        while (2 * index + 1 < length) {
+            long child = 2 * index + 1;
+            if (child + 1 < length && get(base + child + 1) > get(base + child)) {
+                child++;
+            }
+            if (value >= get(base + child)) {
+                break;
+            }
+            put(base + index, get(base + child));
+            index = child;
+        }
+        put(base + index, value);
+    }
+
+    private void swap(long i, long j) {
+        long value = get(i);
+        put(i, get(j));
+        put(j, value);
+    }
+
+    private void put(long index, long value) {
+        segments[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK), value);
+    }
+
+    /**
+     * Шукає значення у вiдсортованому сховищi так само, як Arrays.binarySearch.
+     * 
+     * @param dateTime Значення для пошуку.
+     * @return Iндекс значення або (-(точка вставки) - 1), якщо його немає.
+     */
+    long binarySearch(LocalDateTime dateTime) {
+        long key;
+        try {
+            key = TimestampCodec.toEpochNanos(dateTime);
+        } catch (ArithmeticException e) {
+            return dateTime.getYear() < 1970 ? -1 : -size - 1;
+        }
+
+        long low = 0;
+        long high = size - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            long value = get(middle);
+            if (value < key) {
+                low = middle + 1;
+            } else if (value > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Перевiряє, чи є значення в сховищi: бiнарним пошуком, якщо воно вiдсортоване,
+     * iнакше перебором.
+     * 
+     * @param dateTime Значення для пошуку.
+     * @return true, якщо значення знайдено.
+     */
+    boolean contains(LocalDateTime dateTime) {
+        if (sorted) {
+            return binarySearch(dateTime) >= 0;
+        }
+        long key;
+        try {
+            key = TimestampCodec.toEpochNanos(dateTime);
+        } catch (ArithmeticException e) {
+            return false;
+        }
+        for (long i = 0; i < size; i++) {
+            if (get(i) == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Повертає найменше значення; для вiдсортованого сховища - без перебору.
+     * 
+     * @throws NoSuchElementException Якщо сховище порожнє.
+     */
+    long min() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        if (sorted) {
+            return get(0);
+        }
+        long min = get(0);
+        for (long i = 1; i < size; i++) {
+            min = Math.min(min, get(i));
+        }
+        return min;
+    }
+
+    /**
+     * Повертає найбiльше значення; для вiдсортованого сховища - без перебору.
+     * 
+     * @throws NoSuchElementException Якщо сховище порожнє.
+     */
+    long max() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        if (sorted) {
+            return get(size - 1);
+        }
+        long max = get(0);
+        for (long i = 1; i < size; i++) {
+            max = Math.max(max, get(i));
+        }
+        return max;
+    }
+}
+
+/**
+ * Клас TimestampSidecar описує двiйковий кеш файлу з мiтками часу, який лежить поруч
+ * з ним з суфiксом ".bin" (наприклад, "list/LocalDateTime.data.bin").
+ * 
+ * <p>Формат (big-endian): заголовок {@value #HEADER_SIZE} байт - сигнатура, версiя,
+ * розмiр i час змiни вихiдного файлу, кiлькiсть рядкiв, ознака вiдсортованостi,
+ * мiнiмум i максимум; далi колонка упакованих значень TimestampCodec по 8 байт у
+ * порядку рядкiв вихiдного файлу.</p>
+ * 
+ * <p>Кеш вважається застарiлим, якщо розмiр або час змiни вихiдного файлу не
+ * збiгаються iз записаними в заголовку.</p>
+ */
+class TimestampSidecar {
+    static final String SUFFIX = ".bin";
+    static final int MAGIC = 0x4C445443;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    final int rowCount;
+    final boolean sorted;
+    final long min;
+    final long max;
+    final LongBuffer column;
+
+    private TimestampSidecar(int rowCount, boolean sorted, long min, long max, LongBuffer column) {
+        this.rowCount = rowCount;
+        this.sorted = sorted;
+        this.min = min;
+        this.max = max;
+        this.column = column;
+    }
+
+    /**
+     * Вiдображає в пам'ять кеш для файлу з даними.
+     * 
+     * @param pathToFile Шлях до вихiдного текстового файлу.
+     * @return Кеш або null, якщо його немає, вiн застарiв чи пошкоджений.
+     * @throws IOException Якщо кеш не вдалося прочитати.
+     */
+    static TimestampSidecar open(String pathToFile) throws IOException {
+        Path sidecar = Path.of(pathToFile + SUFFIX);
+        if (!Files.exists(sidecar)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel, Path.of(pathToFile));
+            if (header == null) {
+                return null;
+            }
+
+            long rowCount = header.getLong();
+            boolean sorted = header.get() != 0;
+            header.position(header.position() + 7);
+            long min = header.getLong();
+            long max = header.getLong();
+            if (rowCount > Integer.MAX_VALUE - 8 || channel.size() != HEADER_SIZE + rowCount * Long.BYTES) {
+                return null;
+            }
+
+            LongBuffer column = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, rowCount * Long.BYTES).asLongBuffer();
+            return new TimestampSidecar((int) rowCount, sorted, min, max, column);
+        }
+    }
+
+    /**
+     * Вiдображає колонку кешу в пам'ять лише для читання як сховище поза купою. Сортування
+     * копiює сховище в прямi буфери i не змiнює кеш, а кiлькiсть рядкiв не обмежена розмiром масиву.
+     * 
+     * @param pathToFile Шлях до вихiдного текстового файлу.
+     * @return Сховище або null, якщо кешу немає, вiн застарiв чи пошкоджений.
+     * @throws IOException Якщо кеш не вдалося прочитати.
+     */
+    static OffHeapTimestampStore mapColumn(String pathToFile) throws IOException {
+        Path sidecar = Path.of(pathToFile + SUFFIX);
+        if (!Files.exists(sidecar)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel, Path.of(pathToFile));
+            if (header == null) {
+                return null;
+            }
+
+            long rowCount = header.getLong();
+            boolean sorted = header.get() != 0;
+            if (rowCount < 0 || channel.size() != HEADER_SIZE + rowCount * Long.BYTES) {
+                return null;
+            }
+            return OffHeapTimestampStore.map(channel, HEADER_SIZE, rowCount, sorted);
+        }
+    }
+
+    /**
+     * Читає заголовок кешу i перевiряє сигнатуру, версiю, розмiр i час змiни вихiдного файлу.
+     * 
+     * @return Заголовок, встановлений на кiлькiсть рядкiв, або null, якщо кеш не пiдходить.
+     */
+    private static ByteBuffer readHeader(FileChannel channel, Path source) throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt() != MAGIC || header.getInt() != VERSION
+                || header.getLong() != Files.size(source)
+                || header.getLong() != Files.getLastModifiedTime(source).toMillis()) {
+            return null;
+        }
+        return header;
+    }
+
+    /**
+     * Записує кеш для файлу з даними. Кеш спочатку пишеться у тимчасовий файл, а потiм
+     * атомарно замiнює попереднiй, тому читач нiколи не бачить недописаний кеш.
+     * 
+     * @param pathToFile Шлях до вихiдного текстового файлу.
+     * @param sourceSize Розмiр вихiдного файлу перед його читанням.
+     * @param sourceModified Час змiни вихiдного файлу перед його читанням у мiлiсекундах.
+     * @param column Упакованi значення в порядку рядкiв вихiдного файлу.
+     * @throws IOException Якщо кеш не вдалося записати.
+     */
+    static void write(String pathToFile, long sourceSize, long sourceModified, long[] column) throws IOException {
+        write(pathToFile, sourceSize, sourceModified, column.length, i -> column[(int) i]);
+    }
+
+    /**
+     * Записує кеш для файлу з даними, беручи значення через функцiю доступу за iндексом,
+     * тому колонка може лежати i поза купою.
+     * 
+     * @param pathToFile Шлях до вихiдного текстового файлу.
+     * @param sourceSize Розмiр вихiдного файлу перед його читанням.
+     * @param sourceModified Час змiни вихiдного файлу перед його читанням у мiлiсекундах.
+     * @param rowCount Кiлькiсть значень.
+     * @param column Функцiя, яка повертає значення за iндексом рядка.
+     * @throws IOException Якщо кеш не вдалося записати.
+     */
+    static void write(String pathToFile, long sourceSize, long sourceModified, long rowCount, LongUnaryOperator column)
+            throws IOException {
+        boolean sorted = true;
+        long min = rowCount > 0 ? column.applyAsLong(0) : 0;
+        long max = min;
+        long previous = min;
+        for (long i = 1; i < rowCount; i++) {
+            long value = column.applyAsLong(i);
+            sorted &= previous <= value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            previous = value;
+        }
+
+        Path sidecar = Path.of(pathToFile + SUFFIX);
+        Path temp = Path.of(pathToFile + SUFFIX + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Utils.READ_BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(sourceSize).putLong(sourceModified).putLong(rowCount);
+            buffer.put((byte) (sorted ? 1 : 0)).put(new byte[7]).putLong(min).putLong(max);
+            buffer.position(HEADER_SIZE);
+
+            for (long i = 0; i < rowCount; i++) {
+                if (!buffer.hasRemaining()) {
+                    writeFully(channel, buffer);
+                }
+                buffer.putLong(column.applyAsLong(i));
+            }
+            writeFully(channel, buffer);
+        }
+        Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
+
+/**
+ * Клас TimestampCodec перетворює мiтки часу у формi ISO-8601 на упакований long -
+ * кiлькiсть наносекунд вiд 1970-01-01T00:00:00 без урахування часового поясу, так само
+ * як LocalDateTime iгнорує суфiкс "Z".
+ * 
+ * <p>Рядки фiксованої форми {@code yyyy-MM-ddTHH:mm[:ss[.fffffffff]][Z]} розбираються
+ * прямо з байтiв або символiв без створення жодних об'єктiв. Рядки iншої форми
+ * передаються стандартному DateTimeFormatter.ISO_DATE_TIME.</p>
+ * 
+ * <p>Упакований long охоплює роки вiд 1677 до 2262. Рядок з мiткою часу поза цим
+ * дiапазоном не розбирається: decode кидає RuntimeException з текстом рядка i межами
+ * дiапазону.</p>
+ */
+class TimestampCodec {
+    static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+
+    private TimestampCodec() {
+    }
+
+    /**
+     * Розбирає мiтку часу з дiапазону байтiв у кодуваннi ASCII.
+     * 
+     * @param buffer Буфер з байтами рядка.
+     * @param offset Початок рядка в буферi.
+     * @param length Довжина рядка.
+     * @return Кiлькiсть наносекунд вiд 1970-01-01T00:00:00.
+     * @throws RuntimeException Якщо мiтка часу поза дiапазоном упакованого long.
+     */
+    static long decode(byte[] buffer, int offset, int length) {
+        long epochNanos = decodeFixedWidth(buffer, null, offset, length);
+        if (epochNanos != Long.MIN_VALUE) {
+            return epochNanos;
+        }
+        String text = new String(buffer, offset, length, StandardCharsets.US_ASCII);
+        return pack(LocalDateTime.parse(text, DateTimeFormatter.ISO_DATE_TIME), text);
+    }
+
+    /**
+     * Розбирає мiтку часу з рядка.
+     * 
+     * @param text Рядок з мiткою часу.
+     * @return Кiлькiсть наносекунд вiд 1970-01-01T00:00:00.
+     * @throws RuntimeException Якщо мiтка часу поза дiапазоном упакованого long.
+     */
+    static long decode(CharSequence text) {
+        long epochNanos = decodeFixedWidth(null, text, 0, text.length());
+        if (epochNanos != Long.MIN_VALUE) {
+            return epochNanos;
+        }
+        return pack(LocalDateTime.parse(text, DateTimeFormatter.ISO_DATE_TIME), text);
+    }
+
+    /**
+     * Упаковує розiбрану мiтку часу, а якщо вона поза дiапазоном упакованого long, кидає
+     * RuntimeException з текстом рядка замiсть ArithmeticException.
+     */
+    private static long pack(LocalDateTime dateTime, CharSequence text) {
+        try {
+            return toEpochNanos(dateTime);
+        } catch (ArithmeticException e) {
+            throw new RuntimeException("Мiтку часу '" + text + "' не можна упакувати: пiдтримуються значення вiд "
+                    + toLocalDateTime(Long.MIN_VALUE) + " до " + toLocalDateTime(Long.MAX_VALUE), e);
+        }
+    }
+
+    /**
+     * Перетворює LocalDateTime на упакований long.
+     * 
+     * @param dateTime Дата i час.
+     * @return Кiлькiсть наносекунд вiд 1970-01-01T00:00:00.
+     * @throws ArithmeticException Якщо дата виходить за межi упакованого long.
+     */
+    static long toEpochNanos(LocalDateTime dateTime) {
+        long epochSecond = dateTime.toEpochSecond(ZoneOffset.UTC);
+        return Math.addExact(Math.multiplyExact(epochSecond, NANOS_PER_SECOND), dateTime.getNano());
+    }
+
+    /**
+     * Перетворює упакований long на LocalDateTime.
+     * 
+     * @param epochNanos Кiлькiсть наносекунд вiд 1970-01-01T00:00:00.
+     * @return Дата i час.
+     */
+    static LocalDateTime toLocalDateTime(long epochNanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(epochNanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+
+    /**
+     * Розбирає рядок фiксованої форми. Символи беруться з bytes, якщо вiн не null, iнакше з chars.
+     * 
+     * @return Кiлькiсть наносекунд або Long.MIN_VALUE, якщо рядок має iншу форму.
+     */
+    private static long decodeFixedWidth(byte[] bytes, CharSequence chars, int offset, int length) {
+        if (length > 0 && charAt(bytes, chars, offset + length - 1) == 'Z') {
+            length--;
+        }
+        if (length < 16 || charAt(bytes, chars, offset + 4) != '-' || charAt(bytes, chars, offset + 7) != '-'
+                || charAt(bytes, chars, offset + 10) != 'T' || charAt(bytes, chars, offset + 13) != ':') {
+            return Long.MIN_VALUE;
+        }
+
+        int year = digits(bytes, chars, offset, 4);
+        int month = digits(bytes, chars, offset + 5, 2);
+        int day = digits(bytes, chars, offset + 8, 2);
+        int hour = digits(bytes, chars, offset + 11, 2);
+        int minute = digits(bytes, chars, offset + 14, 2);
+        int second = 0;
+        int nano = 0;
+
+        if (length > 16) {
+            if (length < 19 || charAt(bytes, chars, offset + 16) != ':') {
+                return Long.MIN_VALUE;
+            }
+            second = digits(bytes, chars, offset + 17, 2);
+
+            if (length > 19) {
+                int fractionDigits = length - 20;
+                if (charAt(bytes, chars, offset + 19) != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                    return Long.MIN_VALUE;
+                }
+                nano = digits(bytes, chars, offset + 20, fractionDigits);
+                for (int i = fractionDigits; i < 9 && nano >= 0; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+
+        if (year < 1678 || year > 2261 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || nano < 0) {
+            return Long.MIN_VALUE;
+        }
+
+        long secondOfDay = hour * 3_600L + minute * 60L + second;
+        return (epochDay(year, month, day) * SECONDS_PER_DAY + secondOfDay) * NANOS_PER_SECOND + nano;
+    }
+
+    private static int charAt(byte[] bytes, CharSequence chars, int index) {
+        return bytes != null ? bytes[index] : chars.charAt(index);
+    }
+
+    /**
+     * Розбирає count десяткових цифр, повертає -1, якщо трапився iнший символ.
+     */
+    private static int digits(byte[] bytes, CharSequence chars, int offset, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int digit = charAt(bytes, chars, offset + i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Кiлькiсть днiв вiд 1970-01-01 за тим самим алгоритмом, що й LocalDate.toEpochDay.
+     */
+    private static long epochDay(int year, int month, int day) {
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}